@@ -0,0 +1,128 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_ACTIONS;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_HOST_RENAME;
+import static org.mockito.Mockito.mock;
+
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import dagger.Subcomponent;
+import google.registry.batch.AsyncTaskEnqueuer;
+import google.registry.config.RegistryConfig.ConfigModule;
+import google.registry.dns.DnsQueue;
+import google.registry.flows.EppController;
+import google.registry.flows.FlowComponent;
+import google.registry.flows.ServerTridProviderModule;
+import google.registry.flows.custom.CustomLogicFactory;
+import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.request.RequestScope;
+import google.registry.request.lock.LockHandler;
+import google.registry.testing.FakeLockHandler;
+import google.registry.util.AppEngineServiceUtils;
+import google.registry.util.Clock;
+import google.registry.util.Retrier;
+import google.registry.util.Sleeper;
+import google.registry.util.SystemClock;
+import google.registry.util.SystemSleeper;
+import javax.inject.Singleton;
+import org.joda.time.Duration;
+
+/**
+ * Dagger component for running EPP benchmarks.
+ *
+ * <p>This mirrors the component used by the EPP unit tests, but wires in the production {@link
+ * CustomLogicFactory} and server TRID provider and a real clock, so that the benchmarked code path
+ * is as close to production as the in-memory App Engine stubs allow.
+ */
+@Singleton
+@Component(
+    modules = {
+      ConfigModule.class,
+      ServerTridProviderModule.class,
+      BenchmarkComponent.BenchmarkModule.class
+    })
+interface BenchmarkComponent {
+
+  RequestComponent startRequest();
+
+  /** Module providing the non-injectable dependencies of the EPP code path. */
+  @Module
+  class BenchmarkModule {
+
+    private final Clock clock = new SystemClock();
+    private final Sleeper sleeper = new SystemSleeper();
+
+    @Provides
+    AsyncTaskEnqueuer provideAsyncTaskEnqueuer(AppEngineServiceUtils appEngineServiceUtils) {
+      return new AsyncTaskEnqueuer(
+          getQueue(QUEUE_ASYNC_ACTIONS),
+          getQueue(QUEUE_ASYNC_DELETE),
+          getQueue(QUEUE_ASYNC_HOST_RENAME),
+          Duration.standardSeconds(90),
+          appEngineServiceUtils,
+          new Retrier(sleeper, 1));
+    }
+
+    @Provides
+    Clock provideClock() {
+      return clock;
+    }
+
+    @Provides
+    Sleeper provideSleeper() {
+      return sleeper;
+    }
+
+    @Provides
+    LockHandler provideLockHandler() {
+      return new FakeLockHandler(true);
+    }
+
+    @Provides
+    CustomLogicFactory provideCustomLogicFactory() {
+      return new CustomLogicFactory();
+    }
+
+    @Provides
+    DnsQueue provideDnsQueue() {
+      return DnsQueue.create();
+    }
+
+    @Provides
+    EppMetric.Builder provideMetrics() {
+      return EppMetric.builderForRequest(clock);
+    }
+
+    @Provides
+    @Singleton
+    AppEngineServiceUtils provideAppEngineServiceUtils() {
+      return mock(AppEngineServiceUtils.class);
+    }
+  }
+
+  /** Subcomponent for request scoped injections. */
+  @RequestScope
+  @Subcomponent
+  interface RequestComponent {
+    EppController eppController();
+
+    FlowComponent.Builder flowComponentBuilder();
+  }
+}
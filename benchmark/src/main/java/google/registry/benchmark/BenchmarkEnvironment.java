@@ -0,0 +1,105 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static google.registry.testing.DatastoreHelper.createTld;
+import static google.registry.testing.DatastoreHelper.persistActiveContact;
+import static google.registry.testing.DatastoreHelper.persistActiveDomain;
+import static google.registry.testing.DatastoreHelper.persistActiveHost;
+import static google.registry.util.ResourceUtils.readResourceUtf8;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalTaskQueueTestConfig;
+import com.google.common.io.Files;
+import com.googlecode.objectify.ObjectifyFilter;
+import google.registry.model.ofy.ObjectifyService;
+import google.registry.testing.AppEngineRule;
+import java.io.File;
+import java.io.IOException;
+import org.joda.time.DateTime;
+
+/**
+ * An in-memory App Engine environment populated with a small, fixed set of EPP resources.
+ *
+ * <p>App Engine service stubs are bound to the thread that calls {@link #setUp}, so benchmarks
+ * using this class must keep their state in {@code Scope.Thread} and call {@link #setUp} from a
+ * {@code Level.Trial} setup method.
+ *
+ * <p>The environment contains the TLD {@value #TLD}, the registrars from {@link AppEngineRule},
+ * the contacts {@code sh8013} and {@code jd1234}, the hosts {@code ns1.example.net} and {@code
+ * ns2.example.net}, and the domain {@value #EXISTING_DOMAIN} which expires a year from now.
+ */
+public final class BenchmarkEnvironment {
+
+  public static final String TLD = "tld";
+  public static final String EXISTING_DOMAIN = "example.tld";
+
+  private static final String QUEUE_XML =
+      readResourceUtf8("google/registry/env/common/default/WEB-INF/queue.xml");
+
+  private LocalServiceTestHelper helper;
+  private File tempDir;
+  private DateTime domainExpirationTime;
+
+  /** Starts the in-memory services and persists the benchmark fixtures. */
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDir();
+    File queueFile = new File(tempDir, "queue.xml");
+    Files.asCharSink(queueFile, UTF_8).write(QUEUE_XML);
+    helper =
+        new LocalServiceTestHelper(
+            new LocalDatastoreServiceTestConfig()
+                // We need to set this to allow cross entity group transactions.
+                .setApplyAllHighRepJobPolicy()
+                .setNoStorage(true),
+            new LocalTaskQueueTestConfig()
+                .setQueueXmlPath(queueFile.getAbsolutePath())
+                .setDisableAutoTaskExecution(true));
+    helper.setUp();
+    ObjectifyService.initOfy();
+    AppEngineRule.loadInitialData();
+    persistFixtures();
+  }
+
+  /** Shuts down the in-memory services. */
+  public void tearDown() {
+    ObjectifyFilter.complete();
+    helper.tearDown();
+    helper = null;
+    for (File file : tempDir.listFiles()) {
+      file.delete();
+    }
+    tempDir.delete();
+  }
+
+  /** Returns the registration expiration time of {@value #EXISTING_DOMAIN}. */
+  DateTime getDomainExpirationTime() {
+    return domainExpirationTime;
+  }
+
+  private void persistFixtures() {
+    createTld(TLD);
+    persistActiveContact("sh8013");
+    persistActiveContact("jd1234");
+    persistActiveHost("ns1.example.net");
+    persistActiveHost("ns2.example.net");
+    DateTime now = DateTime.now(UTC);
+    domainExpirationTime = now.plusYears(1);
+    persistActiveDomain(EXISTING_DOMAIN, now.minusYears(1), domainExpirationTime);
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.util.ResourceUtils.readResourceBytes;
+
+import google.registry.flows.DomainCheckFastPathParser;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.model.eppinput.EppInput;
+import google.registry.xml.XmlException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares unmarshalling domain check commands with JAXB against {@link
+ * DomainCheckFastPathParser}, falling back to JAXB as {@code EppController} does.
+ *
+ * <p>Run with {@code -prof gc} to compare the bytes allocated per request ({@code
+ * gc.alloc.rate.norm}). The fee 0.12 command isn't understood by the fast path, so it measures the
+ * cost of a failed fast path attempt.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DomainCheckParsingBenchmark {
+
+  @Param({
+    "domain_check.xml",
+    "domain_check_fee_v06.xml",
+    "domain_check_claims.xml",
+    "domain_check_fee.xml"
+  })
+  String filename;
+
+  private byte[] inputXmlBytes;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    inputXmlBytes = readResourceBytes(getClass(), "testdata/" + filename).read();
+    // Make sure that both paths produce the same input for the flow.
+    checkState(
+        unmarshalWithFastPath().equals(unmarshalWithJaxb()),
+        "Fast path result differs from JAXB for %s",
+        filename);
+  }
+
+  @Benchmark
+  public EppInput unmarshalWithJaxb() throws XmlException {
+    return EppXmlTransformer.unmarshal(EppInput.class, inputXmlBytes);
+  }
+
+  @Benchmark
+  public EppInput unmarshalWithFastPath() throws XmlException {
+    Optional<EppInput> eppInput = DomainCheckFastPathParser.parse(inputXmlBytes);
+    return eppInput.isPresent()
+        ? eppInput.get()
+        : EppXmlTransformer.unmarshal(EppInput.class, inputXmlBytes);
+  }
+}
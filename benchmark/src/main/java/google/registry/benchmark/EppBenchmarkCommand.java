@@ -0,0 +1,73 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static google.registry.util.ResourceUtils.readResourceUtf8;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import google.registry.flows.SessionMetadata;
+import google.registry.flows.StatelessRequestSessionMetadata;
+import google.registry.model.eppcommon.ProtocolDefinition;
+
+/**
+ * The EPP commands exercised by the EPP benchmarks.
+ *
+ * <p>Commands that mutate state are run as dry runs, so that every iteration sees the same
+ * Datastore contents and executes the full flow, including its transaction, before the transaction
+ * is rolled back.
+ */
+enum EppBenchmarkCommand {
+  DOMAIN_CHECK("domain_check.xml", "TheRegistrar", false),
+  DOMAIN_CHECK_FEE("domain_check_fee.xml", "TheRegistrar", false),
+  DOMAIN_CHECK_FEE_V06("domain_check_fee_v06.xml", "TheRegistrar", false),
+  DOMAIN_INFO("domain_info.xml", "TheRegistrar", false),
+  DOMAIN_CREATE("domain_create.xml", "TheRegistrar", true),
+  DOMAIN_RENEW("domain_renew.xml", "TheRegistrar", true),
+  DOMAIN_TRANSFER_REQUEST("domain_transfer_request.xml", "NewRegistrar", true),
+  CONTACT_CHECK("contact_check.xml", "TheRegistrar", false),
+  CONTACT_INFO("contact_info.xml", "TheRegistrar", false),
+  CONTACT_CREATE("contact_create.xml", "TheRegistrar", true),
+  CONTACT_TRANSFER_REQUEST("contact_transfer_request.xml", "NewRegistrar", true),
+  HOST_CHECK("host_check.xml", "TheRegistrar", false),
+  HOST_INFO("host_info.xml", "TheRegistrar", false),
+  HOST_CREATE("host_create.xml", "TheRegistrar", true);
+
+  private final String filename;
+  private final String clientId;
+  private final boolean isDryRun;
+
+  EppBenchmarkCommand(String filename, String clientId, boolean isDryRun) {
+    this.filename = filename;
+    this.clientId = clientId;
+    this.isDryRun = isDryRun;
+  }
+
+  boolean isDryRun() {
+    return isDryRun;
+  }
+
+  /** Returns a logged-in session for the registrar that sends this command. */
+  SessionMetadata createSessionMetadata() {
+    return new StatelessRequestSessionMetadata(
+        clientId, ProtocolDefinition.getVisibleServiceExtensionUris());
+  }
+
+  /** Loads the XML for this command, filling in values that depend on the environment. */
+  byte[] loadXml(BenchmarkEnvironment environment) {
+    return readResourceUtf8(EppBenchmarkCommand.class, "testdata/" + filename)
+        .replace("%EXDATE%", environment.getDomainExpirationTime().toLocalDate().toString())
+        .getBytes(UTF_8);
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.flows.FlowUtils.marshalWithLenientRetry;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+
+import google.registry.flows.EppRequestSource;
+import google.registry.flows.PasswordOnlyTransportCredentials;
+import google.registry.flows.SessionMetadata;
+import google.registry.flows.TransportCredentials;
+import google.registry.model.eppoutput.EppOutput;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end benchmark of an EPP request: XML unmarshalling, flow execution and response
+ * marshalling, as performed by {@code EppRequestHandler} for every EPP command.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EppControllerBenchmark {
+
+  @Param EppBenchmarkCommand command;
+
+  private final BenchmarkEnvironment environment = new BenchmarkEnvironment();
+  private final TransportCredentials credentials = new PasswordOnlyTransportCredentials();
+  private BenchmarkComponent component;
+  private SessionMetadata sessionMetadata;
+  private byte[] inputXmlBytes;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment.setUp();
+    component = DaggerBenchmarkComponent.create();
+    sessionMetadata = command.createSessionMetadata();
+    inputXmlBytes = command.loadXml(environment);
+    // Make sure we are benchmarking the success path rather than error handling.
+    EppOutput output = handleEppCommand();
+    checkState(
+        output.getResponse().getResult().getCode().isSuccess(),
+        "Benchmark command %s failed: %s",
+        command,
+        output.getResponse().getResult().getMsg());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.tearDown();
+  }
+
+  @Benchmark
+  public byte[] handleEppRequest() {
+    return marshalWithLenientRetry(handleEppCommand());
+  }
+
+  private EppOutput handleEppCommand() {
+    try {
+      return component
+          .startRequest()
+          .eppController()
+          .handleEppCommand(
+              sessionMetadata,
+              credentials,
+              EppRequestSource.UNIT_TEST,
+              command.isDryRun(),
+              false,
+              inputXmlBytes);
+    } finally {
+      // Clear the session cache like OfyFilter does at the end of every request.
+      ofy().clearSessionCache();
+    }
+  }
+}
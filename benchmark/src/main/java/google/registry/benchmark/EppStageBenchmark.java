@@ -0,0 +1,120 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.flows.FlowUtils.marshalWithLenientRetry;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+
+import google.registry.flows.EppException;
+import google.registry.flows.EppRequestSource;
+import google.registry.flows.FlowModule;
+import google.registry.flows.PasswordOnlyTransportCredentials;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.model.eppinput.EppInput;
+import google.registry.model.eppoutput.EppOutput;
+import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.util.SystemClock;
+import google.registry.xml.XmlException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-stage benchmarks of an EPP request, so that a change in {@link EppControllerBenchmark} can
+ * be attributed to XML unmarshalling, flow execution or response marshalling.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EppStageBenchmark {
+
+  @Param EppBenchmarkCommand command;
+
+  private final BenchmarkEnvironment environment = new BenchmarkEnvironment();
+  private final SystemClock clock = new SystemClock();
+  private BenchmarkComponent component;
+  private byte[] inputXmlBytes;
+  private EppInput eppInput;
+  private EppOutput eppOutput;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment.setUp();
+    component = DaggerBenchmarkComponent.create();
+    inputXmlBytes = command.loadXml(environment);
+    eppInput = unmarshal();
+    eppOutput = runFlow();
+    checkState(
+        eppOutput.getResponse().getResult().getCode().isSuccess(),
+        "Benchmark command %s failed: %s",
+        command,
+        eppOutput.getResponse().getResult().getMsg());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.tearDown();
+  }
+
+  @Benchmark
+  public EppInput unmarshal() throws XmlException {
+    return EppXmlTransformer.unmarshal(EppInput.class, inputXmlBytes);
+  }
+
+  @Benchmark
+  public EppOutput runFlow() throws EppException {
+    try {
+      return component
+          .startRequest()
+          .flowComponentBuilder()
+          .flowModule(
+              new FlowModule.Builder()
+                  .setSessionMetadata(command.createSessionMetadata())
+                  .setCredentials(new PasswordOnlyTransportCredentials())
+                  .setEppRequestSource(EppRequestSource.UNIT_TEST)
+                  .setIsDryRun(command.isDryRun())
+                  .setIsSuperuser(false)
+                  .setInputXmlBytes(inputXmlBytes)
+                  .setEppInput(eppInput)
+                  .build())
+          .build()
+          .flowRunner()
+          .run(EppMetric.builderForRequest(clock));
+    } finally {
+      // Clear the session cache like OfyFilter does at the end of every request.
+      ofy().clearSessionCache();
+    }
+  }
+
+  @Benchmark
+  public byte[] marshal() {
+    return marshalWithLenientRetry(eppOutput);
+  }
+}
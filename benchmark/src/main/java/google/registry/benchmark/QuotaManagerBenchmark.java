@@ -0,0 +1,123 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import google.registry.proxy.ProxyConfig.Quota;
+import google.registry.proxy.ProxyConfig.Quota.QuotaGroup;
+import google.registry.proxy.quota.QuotaConfig;
+import google.registry.proxy.quota.QuotaManager;
+import google.registry.proxy.quota.QuotaManager.QuotaRebate;
+import google.registry.proxy.quota.QuotaManager.QuotaRequest;
+import google.registry.proxy.quota.QuotaManager.QuotaResponse;
+import google.registry.proxy.quota.TokenStore;
+import google.registry.util.SystemClock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures contended {@link QuotaManager} acquire and release calls, as made by the proxy's quota
+ * handlers for every connection.
+ *
+ * <p>All threads share one quota manager. With a single user, every thread updates the same token
+ * bucket, as happens when one registrar opens connections in a tight loop. Releases run on the
+ * calling thread, so that the benchmark measures the token store rather than an executor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class QuotaManagerBenchmark {
+
+  /** Number of distinct users whose quota is requested. */
+  @Param({"1", "1000"})
+  int userCount;
+
+  /**
+   * Tokens allotted to each user per refill period.
+   *
+   * <p>A large amount means most requests are granted. A small amount means most are denied, as
+   * during a connection storm.
+   */
+  @Param({"1000000", "10"})
+  int tokenAmount;
+
+  private ImmutableList<QuotaRequest> requests;
+  private ScheduledExecutorService refreshExecutor;
+  private QuotaManager quotaManager;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    QuotaGroup defaultQuota = new QuotaGroup();
+    defaultQuota.userId = ImmutableList.of();
+    defaultQuota.tokenAmount = tokenAmount;
+    defaultQuota.refillSeconds = 1;
+    Quota quota = new Quota();
+    quota.refreshSeconds = 60;
+    quota.defaultQuota = defaultQuota;
+    quota.customQuota = ImmutableList.of();
+    refreshExecutor = Executors.newSingleThreadScheduledExecutor();
+    quotaManager =
+        new QuotaManager(
+            new TokenStore(new QuotaConfig(quota, "benchmark"), refreshExecutor, new SystemClock()),
+            MoreExecutors.newDirectExecutorService());
+    ImmutableList.Builder<QuotaRequest> requestsBuilder = new ImmutableList.Builder<>();
+    for (int i = 0; i < userCount; i++) {
+      requestsBuilder.add(QuotaRequest.create("user" + i));
+    }
+    requests = requestsBuilder.build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    refreshExecutor.shutdownNow();
+  }
+
+  @Benchmark
+  public QuotaResponse acquireQuota() {
+    return quotaManager.acquireQuota(requests.get(ThreadLocalRandom.current().nextInt(userCount)));
+  }
+
+  @Benchmark
+  public boolean acquireAndReleaseQuota() {
+    QuotaResponse response =
+        quotaManager.acquireQuota(requests.get(ThreadLocalRandom.current().nextInt(userCount)));
+    if (response.success()) {
+      Future<?> unusedFuture = quotaManager.releaseQuota(QuotaRebate.create(response));
+    }
+    return response.success();
+  }
+}
@@ -0,0 +1,23 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+/**
+ * JMH micro-benchmarks for Nomulus hot paths.
+ *
+ * <p>Benchmarks run against the in-memory App Engine service stubs, so they measure CPU and
+ * allocation costs of our own code rather than Datastore latency. Run them with {@code
+ * ./gradlew :benchmark:jmh -PjmhArgs="-prof gc"} to get both throughput and allocation rates.
+ */
+@javax.annotation.ParametersAreNonnullByDefault
+package google.registry.benchmark;
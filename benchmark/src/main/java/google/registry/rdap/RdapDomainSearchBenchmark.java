@@ -0,0 +1,173 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rdap;
+
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.benchmark.BenchmarkEnvironment.TLD;
+import static google.registry.testing.DatastoreHelper.loadRegistrar;
+import static google.registry.testing.DatastoreHelper.persistResource;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeContactResource;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeDomainBase;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeHostResource;
+import static org.joda.time.DateTimeZone.UTC;
+import static org.mockito.Mockito.mock;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import google.registry.benchmark.BenchmarkEnvironment;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.host.HostResource;
+import google.registry.model.registrar.Registrar;
+import google.registry.rdap.RdapObjectClasses.TopLevelReplyObject;
+import google.registry.request.Action;
+import google.registry.request.Actions;
+import google.registry.testing.FakeClock;
+import google.registry.testing.FakeResponse;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks replying to an RDAP domain search for many domains, as {@link RdapDomainSearchAction}
+ * does.
+ *
+ * <p>{@code serializeTree} and {@code serializeStreaming} compare turning the same search response
+ * into the reply text through a {@code JsonObject} tree and through {@link
+ * AbstractJsonableObject#writeJson}. {@code search} measures the whole action, including the
+ * Datastore query and formatting of the domains.
+ *
+ * <p>This class is in the RDAP package, rather than with the other benchmarks, because the RDAP
+ * action and reply classes are package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RdapDomainSearchBenchmark {
+
+  /** The result set size limit that RegistryConfig provides. */
+  private static final int MAX_RESULTS = 100;
+
+  @Param({"10", "100"})
+  int numDomains;
+
+  private final BenchmarkEnvironment environment = new BenchmarkEnvironment();
+  private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+  private FakeClock clock;
+  private TopLevelReplyObject reply;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment.setUp();
+    clock = new FakeClock(DateTime.now(UTC));
+    persistDomains();
+    RdapDomainSearchAction action = createAction();
+    reply =
+        TopLevelReplyObject.create(
+            action.getSearchResponse(false), action.rdapJsonFormatter.createTosNotice());
+    // Make sure that both serializations produce the same reply, for all the domains.
+    String streamingReply = serializeStreaming();
+    checkState(
+        streamingReply.equals(serializeTree()),
+        "Streaming RDAP reply differs from the JsonObject tree");
+    checkState(
+        streamingReply.contains(String.format("domain%03d.%s", numDomains - 1, TLD)),
+        "Search didn't return all %s domains",
+        numDomains);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.tearDown();
+  }
+
+  @Benchmark
+  public String serializeTree() {
+    return gson.toJson(reply.toJson());
+  }
+
+  @Benchmark
+  public String serializeStreaming() throws IOException {
+    StringWriter stringWriter = new StringWriter();
+    try (JsonWriter jsonWriter = gson.newJsonWriter(stringWriter)) {
+      reply.writeJson(jsonWriter);
+    }
+    return stringWriter.toString();
+  }
+
+  @Benchmark
+  public String search() {
+    RdapDomainSearchAction action = createAction();
+    action.run();
+    return ((FakeResponse) action.response).getPayload();
+  }
+
+  private void persistDomains() {
+    Registrar registrar = loadRegistrar("TheRegistrar");
+    ContactResource registrant =
+        persistResource(makeContactResource("5372808-ERL", "Goblin Market", "lol@cat.lol"));
+    ContactResource admin =
+        persistResource(makeContactResource("5372808-IRL", "Santa Claus", "BOFH@cat.lol"));
+    ContactResource tech =
+        persistResource(makeContactResource("5372808-TRL", "The Raven", "bog@cat.lol"));
+    HostResource ns1 = persistResource(makeHostResource("ns1.cat.lol", "1.2.3.4"));
+    HostResource ns2 =
+        persistResource(makeHostResource("ns2.cat.lol", "bad:f00d:cafe::15:beef"));
+    for (int i = 0; i < numDomains; i++) {
+      String domainName = String.format("domain%03d.%s", i, TLD);
+      persistResource(makeDomainBase(domainName, registrant, admin, tech, ns1, ns2, registrar));
+    }
+  }
+
+  private RdapDomainSearchAction createAction() {
+    RdapDomainSearchAction action = new RdapDomainSearchAction();
+    action.response = new FakeResponse();
+    action.requestMethod = Action.Method.GET;
+    action.requestPath = Actions.getPathForAction(RdapDomainSearchAction.class);
+    action.requestUrl = "https://example.tld" + action.requestPath;
+    action.rdapAuthorization = RdapAuthorization.PUBLIC_AUTHORIZATION;
+    action.rdapJsonFormatter = RdapTestHelper.getTestRdapJsonFormatter(clock);
+    action.rdapMetrics = mock(RdapMetrics.class);
+    action.rdapResultSetMaxSize = MAX_RESULTS;
+    action.includeDeletedParam = Optional.empty();
+    action.formatOutputParam = Optional.empty();
+    action.registrarParam = Optional.empty();
+    action.cursorTokenParam = Optional.empty();
+    action.nameParam = Optional.of("domain*." + TLD);
+    action.nsLdhNameParam = Optional.empty();
+    action.nsIpParam = Optional.empty();
+    action.parameterMap = ImmutableListMultimap.of("name", "domain*." + TLD);
+    return action;
+  }
+}
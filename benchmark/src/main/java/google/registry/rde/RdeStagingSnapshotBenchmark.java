@@ -0,0 +1,166 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static google.registry.benchmark.BenchmarkEnvironment.TLD;
+import static google.registry.model.EppResourceUtils.loadAtPointInTime;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.testing.DatastoreHelper.newHostResource;
+import static google.registry.testing.DatastoreHelper.persistActiveDomain;
+import static google.registry.testing.DatastoreHelper.persistResourceWithCommitLog;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.benchmark.BenchmarkEnvironment;
+import google.registry.model.EppResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.host.HostResource;
+import google.registry.rde.PointInTimeSnapshotCache.SnapshotKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reconstructing subordinate hosts and their superordinate domains at a watermark one
+ * resource at a time, as {@link RdeStagingMapper} used to, against loading them in a batch with
+ * {@link PointInTimeSnapshotCache}.
+ *
+ * <p>All hosts are changed after the watermark, so that every reconstruction has to load a commit
+ * log mutation. The session cache is cleared before each invocation, as the mapper does between
+ * batches, so that every load goes to Datastore.
+ *
+ * <p>This class is in the RDE package, rather than with the other benchmarks, because {@link
+ * PointInTimeSnapshotCache} is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RdeStagingSnapshotBenchmark {
+
+  private static final ImmutableList<String> DOMAIN_NAMES =
+      ImmutableList.of("cat." + TLD, "dog." + TLD);
+
+  @Param({"10", "100"})
+  int numHosts;
+
+  private final BenchmarkEnvironment environment = new BenchmarkEnvironment();
+  private ImmutableList<HostResource> hosts;
+  private DateTime watermark;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    environment.setUp();
+    persistHosts();
+    // Make sure that both approaches reconstruct the same resources.
+    List<EppResource> resources = loadBatched();
+    checkState(
+        resources.equals(loadPerResource()),
+        "Batched point-in-time loads differ from per-resource loads");
+    checkState(
+        resources.stream().allMatch(Objects::nonNull),
+        "Not all of the %s hosts and their domains existed at the watermark",
+        numHosts);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    environment.tearDown();
+  }
+
+  @Benchmark
+  public List<EppResource> loadPerResource() {
+    ofy().clearSessionCache();
+    List<EppResource> resources = new ArrayList<>();
+    for (HostResource currentHost : hosts) {
+      HostResource host = loadAtPointInTime(currentHost, watermark).now();
+      resources.add(host);
+      resources.add(
+          loadAtPointInTime(ofy().load().key(host.getSuperordinateDomain()).now(), watermark)
+              .now());
+    }
+    return resources;
+  }
+
+  @Benchmark
+  public List<EppResource> loadBatched() {
+    ofy().clearSessionCache();
+    PointInTimeSnapshotCache snapshots = new PointInTimeSnapshotCache();
+    for (HostResource currentHost : hosts) {
+      snapshots.request(currentHost, watermark);
+    }
+    ImmutableSet.Builder<SnapshotKey> superordinateDomains = new ImmutableSet.Builder<>();
+    for (HostResource currentHost : hosts) {
+      HostResource host = snapshots.get(Key.create(currentHost), watermark);
+      superordinateDomains.add(SnapshotKey.create(host.getSuperordinateDomain(), watermark));
+    }
+    snapshots.requestByKey(superordinateDomains.build());
+    List<EppResource> resources = new ArrayList<>();
+    for (HostResource currentHost : hosts) {
+      HostResource host = snapshots.get(Key.create(currentHost), watermark);
+      resources.add(host);
+      resources.add(snapshots.get(host.getSuperordinateDomain(), watermark));
+    }
+    return resources;
+  }
+
+  /** Persists subordinate hosts of a few domains, and then changes them after the watermark. */
+  private void persistHosts() throws InterruptedException {
+    ImmutableList<Key<DomainBase>> domainKeys =
+        DOMAIN_NAMES.stream()
+            .map(domainName -> Key.create(persistActiveDomain(domainName)))
+            .collect(toImmutableList());
+    List<HostResource> originalHosts = new ArrayList<>();
+    for (int i = 0; i < numHosts; i++) {
+      int domainIndex = i % DOMAIN_NAMES.size();
+      originalHosts.add(
+          persistResourceWithCommitLog(
+              newHostResource(String.format("ns%03d.%s", i, DOMAIN_NAMES.get(domainIndex)))
+                  .asBuilder()
+                  .setSuperordinateDomain(domainKeys.get(domainIndex))
+                  .build()));
+    }
+    // Ofy uses the real clock here, so make sure that the changes are after the watermark.
+    Thread.sleep(1);
+    watermark = DateTime.now(UTC);
+    Thread.sleep(1);
+    hosts =
+        originalHosts.stream()
+            .map(host -> host.asBuilder().setPersistedCurrentSponsorClientId("NewRegistrar"))
+            .map(builder -> persistResourceWithCommitLog(builder.build()))
+            .collect(toImmutableList());
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import google.registry.keyring.api.Keyring;
+import google.registry.testing.FakeKeyringModule;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.Security;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPKeyPair;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encoding a large synthetic deposit as a RyDE file, with compression on the writing
+ * thread and on a pool of threads.
+ *
+ * <p>Each invocation encodes a whole deposit, so the benchmark reports the time per deposit rather
+ * than a throughput over fixed iterations. The deposit is made of a few MiB of generated domain
+ * records, written over and over. The repetitions are much further apart than the compression
+ * window, so they compress no better than fresh records would.
+ *
+ * <p>Run with, for example, {@code -p depositMegabytes=4096} to encode larger deposits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RydeEncoderBenchmark {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int RECORDS_SIZE = 8 * 1024 * 1024;
+  private static final DateTime WATERMARK = DateTime.parse("2019-01-01TZ");
+
+  @Param({"1024", "2048"})
+  int depositMegabytes;
+
+  @Param({"1", "4", "8"})
+  int compressionThreads;
+
+  private byte[] records;
+  private PGPPublicKey receiverKey;
+  private PGPKeyPair signingKey;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Security.addProvider(new BouncyCastleProvider());
+    try (Keyring keyring = new FakeKeyringModule().get()) {
+      receiverKey = keyring.getRdeReceiverKey();
+      signingKey = keyring.getRdeSigningKey();
+    }
+    records = makeRecords();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Security.removeProvider(BouncyCastleProvider.PROVIDER_NAME);
+  }
+
+  /** Returns the size of the RyDE file, which is discarded. */
+  @Benchmark
+  public long encode() throws IOException {
+    long depositLength = depositMegabytes * 1024L * 1024L;
+    CountingOutputStream rydeOutput = new CountingOutputStream(ByteStreams.nullOutputStream());
+    try (RydeEncoder rydeEncoder =
+        new RydeEncoder.Builder()
+            .setRydeOutput(rydeOutput, receiverKey)
+            .setSignatureOutput(new ByteArrayOutputStream(), signingKey)
+            .setFileMetadata("benchmark", depositLength, WATERMARK)
+            .setCompressionThreads(compressionThreads, Executors.defaultThreadFactory())
+            .build()) {
+      for (long written = 0; written < depositLength; ) {
+        int offset = (int) (written % records.length);
+        int length =
+            (int) Math.min(depositLength - written, Math.min(CHUNK_SIZE, records.length - offset));
+        rydeEncoder.write(records, offset, length);
+        written += length;
+      }
+    }
+    return rydeOutput.getCount();
+  }
+
+  /** Returns domain records that look like those of a deposit, with varied names and dates. */
+  private static byte[] makeRecords() {
+    Random random = new Random(42);
+    StringBuilder builder = new StringBuilder(RECORDS_SIZE + 1024);
+    while (builder.length() < RECORDS_SIZE) {
+      String name = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+      builder
+          .append("<rdeDomain:domain>\n")
+          .append("  <rdeDomain:name>").append(name).append(".example</rdeDomain:name>\n")
+          .append("  <rdeDomain:roid>").append(random.nextInt(Integer.MAX_VALUE))
+          .append("-EXAMPLE</rdeDomain:roid>\n")
+          .append("  <rdeDomain:status s=\"ok\"/>\n")
+          .append("  <rdeDomain:registrant>").append(Integer.toString(random.nextInt(), 36))
+          .append("</rdeDomain:registrant>\n")
+          .append("  <rdeDomain:clID>registrar").append(random.nextInt(100))
+          .append("</rdeDomain:clID>\n")
+          .append("  <rdeDomain:crDate>")
+          .append(WATERMARK.minusSeconds(random.nextInt(Integer.MAX_VALUE)))
+          .append("</rdeDomain:crDate>\n")
+          .append("</rdeDomain:domain>\n");
+    }
+    return builder.toString().getBytes(UTF_8);
+  }
+}
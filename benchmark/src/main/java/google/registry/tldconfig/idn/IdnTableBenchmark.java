@@ -0,0 +1,155 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tldconfig.idn;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.io.Resources.readLines;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Ascii;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.io.Resources;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks validating IDN labels against the {@code extended_latin} and {@code ja} tables.
+ *
+ * <p>{@code validateWithRangeSet} and {@code validateWithCodepointSet} compare checking a label's
+ * codepoints against one table held in a {@code RangeSet<Integer>}, as {@link IdnTable} used to,
+ * and in its compiled {@link CodepointSet}. {@code findTableOneByOne} and {@code
+ * findTableInOnePass} compare finding the first valid table of both, as {@link IdnLabelValidator}
+ * does for a TLD, by validating against each table in turn and in a single pass.
+ *
+ * <p>This class is in the IDN package, rather than with the other benchmarks, because the IDN
+ * table classes are package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdnTableBenchmark {
+
+  /** Labels that are valid in the {@code extended_latin} table, and one that is in neither. */
+  private static final ImmutableList<String> EXTENDED_LATIN_LABELS =
+      ImmutableList.of("café", "señor-mañana", "abcdefghijklmnopqrstuvwxyz0123456789", "日本ω");
+
+  /** Labels that are valid in the {@code ja} table, and one that breaks its language rules. */
+  private static final ImmutableList<String> JA_LABELS =
+      ImmutableList.of("みんな", "カタカナ漢字ひらがな", "アーク・ストア", "ーみんなみんなみんなみんなみんな");
+
+  @Param({"EXTENDED_LATIN", "JA"})
+  IdnTableEnum table;
+
+  private ImmutableList<String> labels;
+  private ImmutableRangeSet<Integer> validCodepoints;
+  private Optional<LanguageValidator> languageValidator;
+  private ImmutableList<IdnTable> allTables;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    String name = Ascii.toLowerCase(table.name());
+    labels = (table == IdnTableEnum.JA) ? JA_LABELS : EXTENDED_LATIN_LABELS;
+    ImmutableRangeSet.Builder<Integer> rangeSet = new ImmutableRangeSet.Builder<>();
+    for (String line : readLines(Resources.getResource(IdnTable.class, name + ".txt"), UTF_8)) {
+      if (line.startsWith("U+")) {
+        rangeSet.add(Range.singleton(Integer.parseInt(line.substring(2).split("\\s")[0], 16)));
+      }
+    }
+    validCodepoints = rangeSet.build();
+    languageValidator = LanguageValidator.get(name);
+    allTables =
+        ImmutableList.of(IdnTableEnum.EXTENDED_LATIN.getTable(), IdnTableEnum.JA.getTable());
+    // Make sure that both ways give the same answers.
+    for (String label : labels) {
+      checkState(
+          isValidWithRangeSet(label) == table.getTable().isValidLabel(label),
+          "Range set result differs for %s",
+          label);
+      checkState(
+          findTableWithIsValidLabel(label).equals(IdnTable.findFirstValidTable(label, allTables)),
+          "Single pass result differs for %s",
+          label);
+    }
+  }
+
+  private boolean isValidWithRangeSet(String label) {
+    for (int i = 0; i < label.length(); ) {
+      int codepoint = label.codePointAt(i);
+      if (!validCodepoints.contains(codepoint)) {
+        return false;
+      }
+      i += Character.charCount(codepoint);
+    }
+    return !(languageValidator.isPresent()
+        && !languageValidator.get().isValidLabelForLanguage(label));
+  }
+
+  private Optional<IdnTable> findTableWithIsValidLabel(String label) {
+    return allTables.stream().filter(idnTable -> idnTable.isValidLabel(label)).findFirst();
+  }
+
+  @Benchmark
+  public int validateWithRangeSet() {
+    int valid = 0;
+    for (String label : labels) {
+      valid += isValidWithRangeSet(label) ? 1 : 0;
+    }
+    return valid;
+  }
+
+  @Benchmark
+  public int validateWithCodepointSet() {
+    int valid = 0;
+    for (String label : labels) {
+      valid += table.getTable().isValidLabel(label) ? 1 : 0;
+    }
+    return valid;
+  }
+
+  @Benchmark
+  public int findTableOneByOne() {
+    int found = 0;
+    for (String label : labels) {
+      found += findTableWithIsValidLabel(label).isPresent() ? 1 : 0;
+    }
+    return found;
+  }
+
+  @Benchmark
+  public int findTableInOnePass() {
+    int found = 0;
+    for (String label : labels) {
+      found += IdnTable.findFirstValidTable(label, allTables).isPresent() ? 1 : 0;
+    }
+    return found;
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.backup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import org.joda.time.Duration;
+
+/** Progress metrics for the parallel mode of {@link RestoreCommitLogsAction}. */
+class RestoreCommitLogsMetrics {
+
+  /** The kinds of Datastore writes made by a restore. */
+  enum WriteOperation {
+    PUT,
+    DELETE
+  }
+
+  private static final LabelDescriptor DRY_RUN_LABEL =
+      LabelDescriptor.create("dry_run", "Whether the restore was a dry run.");
+
+  private static final LabelDescriptor OPERATION_LABEL =
+      LabelDescriptor.create("operation", "The kind of Datastore write.");
+
+  // Batch writes take between a few milliseconds and several seconds under contention.
+  private static final DistributionFitter LATENCY_FITTER = ExponentialFitter.create(16, 2.0, 1.0);
+
+  /** Metric counting the diff files read and deserialized. */
+  @VisibleForTesting
+  static final IncrementableMetric diffFilesRead =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/backup/restore/diff_files_read",
+              "Count of commit log diff files read by restores",
+              "count",
+              ImmutableSet.of(DRY_RUN_LABEL));
+
+  /** Metric counting the transactions (commit log manifests) restored. */
+  @VisibleForTesting
+  static final IncrementableMetric transactionsRestored =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/backup/restore/transactions",
+              "Count of commit log transactions restored",
+              "count",
+              ImmutableSet.of(DRY_RUN_LABEL));
+
+  /** Metric counting the entities written, after merging writes to the same key. */
+  @VisibleForTesting
+  static final IncrementableMetric entitiesWritten =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/backup/restore/entities_written",
+              "Count of entities put or deleted by restores",
+              "count",
+              ImmutableSet.of(DRY_RUN_LABEL, OPERATION_LABEL));
+
+  private static final EventMetric batchWriteLatency =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/backup/restore/batch_write_latency",
+              "Latency of batched Datastore writes made by restores",
+              "milliseconds",
+              ImmutableSet.of(OPERATION_LABEL),
+              LATENCY_FITTER);
+
+  static void recordDiffFileRead(boolean dryRun) {
+    diffFilesRead.increment(String.valueOf(dryRun));
+  }
+
+  static void recordTransactionsRestored(boolean dryRun, int count) {
+    transactionsRestored.incrementBy(count, String.valueOf(dryRun));
+  }
+
+  static void recordEntitiesWritten(boolean dryRun, WriteOperation operation, int count) {
+    entitiesWritten.incrementBy(count, String.valueOf(dryRun), operation.name());
+  }
+
+  static void recordBatchWrite(WriteOperation operation, Duration latency) {
+    batchWriteLatency.record(latency.getMillis(), operation.name());
+  }
+}
@@ -32,6 +32,7 @@ import google.registry.mapreduce.MapreduceRunner;
 import google.registry.model.EppResource;
 import google.registry.model.contact.ContactResource;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.request.Action;
@@ -124,6 +125,10 @@ public class DeleteLoadTestDataAction implements Runnable {
       final Key<EppResourceIndex> eppIndex =
           Key.create(EppResourceIndex.create(Key.create(resource)));
       final Key<? extends ForeignKeyIndex<?>> fki = ForeignKeyIndex.createKey(resource);
+      final ImmutableSet<Key<?>> activeNameIndex =
+          ActiveNameIndex.isIndexed(resource.getClass())
+              ? ImmutableSet.of(ActiveNameIndex.createKey(resource))
+              : ImmutableSet.of();
       int numEntitiesDeleted =
           tm()
               .transact(
@@ -135,6 +140,7 @@ public class DeleteLoadTestDataAction implements Runnable {
                         new ImmutableSet.Builder<Key<?>>()
                             .add(fki)
                             .add(eppIndex)
+                            .addAll(activeNameIndex)
                             .addAll(resourceAndDependentKeys)
                             .build();
                     if (isDryRun) {
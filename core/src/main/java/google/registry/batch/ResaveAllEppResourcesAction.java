@@ -23,6 +23,7 @@ import com.googlecode.objectify.Key;
 import google.registry.mapreduce.MapreduceRunner;
 import google.registry.mapreduce.inputs.EppResourceInputs;
 import google.registry.model.EppResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.request.Action;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
@@ -80,6 +81,7 @@ public class ResaveAllEppResourcesAction implements Runnable {
                         .now()
                         .cloneProjectedAtTime(tm().getTransactionTime());
                 ofy().save().entity(projectedResource).now();
+                ActiveNameIndex.update(projectedResource, tm().getTransactionTime());
               });
       getContext().incrementCounter(String.format("%s entities re-saved", resourceKey.getKind()));
     }
@@ -26,6 +26,7 @@ import com.google.common.flogger.FluentLogger;
 import com.googlecode.objectify.Key;
 import google.registry.model.EppResource;
 import google.registry.model.ImmutableObject;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.request.Action;
 import google.registry.request.Action.Method;
 import google.registry.request.Parameter;
@@ -76,10 +77,15 @@ public class ResaveEntityAction implements Runnable {
         "Re-saving entity %s which was enqueued at %s.", resourceKey, requestedTime);
     tm().transact(() -> {
       ImmutableObject entity = ofy().load().key(resourceKey).now();
-      ofy().save().entity(
-          (entity instanceof EppResource)
-              ? ((EppResource) entity).cloneProjectedAtTime(tm().getTransactionTime()) : entity
-      );
+      if (entity instanceof EppResource) {
+        EppResource projectedResource =
+            ((EppResource) entity).cloneProjectedAtTime(tm().getTransactionTime());
+        ofy().save().entity(projectedResource);
+        // Drops the name of a domain whose pending delete has just finished from the index.
+        ActiveNameIndex.update(projectedResource, tm().getTransactionTime());
+      } else {
+        ofy().save().entity(entity);
+      }
       if (!resaveTimes.isEmpty()) {
         asyncTaskEnqueuer.enqueueAsyncResave(entity, requestedTime, resaveTimes);
       }
@@ -111,6 +111,9 @@ public class BigqueryConnection implements AutoCloseable {
   /** Duration to wait between polls for job status. */
   private Duration pollInterval = Duration.millis(1000);
 
+  /** Longest duration to wait between polls for job status, as polling backs off. */
+  private Duration maxPollInterval;
+
   BigqueryConnection(Bigquery bigquery) {
     this.bigquery = bigquery;
   }
@@ -151,9 +154,26 @@ public class BigqueryConnection implements AutoCloseable {
       return this;
     }
 
+    /**
+     * Makes polling for job status back off exponentially, from the poll interval up to this
+     * maximum, so that short jobs are noticed quickly without polling long jobs too often.
+     *
+     * <p>By default, jobs are polled at the poll interval throughout.
+     */
+    public Builder setMaxPollInterval(Duration maxPollInterval) {
+      instance.maxPollInterval = checkNotNull(maxPollInterval);
+      return this;
+    }
+
     public BigqueryConnection build() {
       try {
         checkNotNull(instance.service, "Must provide executor service");
+        if (instance.maxPollInterval == null) {
+          instance.maxPollInterval = instance.pollInterval;
+        }
+        checkArgument(
+            !instance.maxPollInterval.isShorterThan(instance.pollInterval),
+            "max poll interval must be at least the poll interval");
         instance.initialize();
         return instance;
       } catch (Throwable e) {
@@ -606,8 +626,13 @@ public class BigqueryConnection implements AutoCloseable {
    */
   private Job waitForJob(Job job) {
     verify(job.getStatus() != null);
+    Duration interval = pollInterval;
     while (!job.getStatus().getState().equals("DONE")) {
-      sleeper.sleepUninterruptibly(pollInterval);
+      sleeper.sleepUninterruptibly(interval);
+      interval =
+          interval.isShorterThan(maxPollInterval.dividedBy(2))
+              ? interval.multipliedBy(2)
+              : maxPollInterval;
       JobReference ref = job.getJobReference();
       try {
         job = bigquery.jobs().get(ref.getProjectId(), ref.getJobId()).execute();
@@ -26,6 +26,7 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import dagger.Module;
 import dagger.Provides;
@@ -597,6 +598,66 @@ public final class RegistryConfig {
       return config.registryPolicy.requireSslCertificates;
     }
 
+    /**
+     * Returns how the XML of inbound EPP commands is written to the request log.
+     *
+     * @see google.registry.flows.FlowRunner
+     */
+    @Provides
+    @Config("eppCommandLogMode")
+    public static EppCommandLogMode provideEppCommandLogMode(RegistryConfigSettings config) {
+      return EppCommandLogMode.valueOf(config.registryPolicy.eppCommandLogMode);
+    }
+
+    /** The ways in which the XML of inbound EPP commands can be logged. */
+    public enum EppCommandLogMode {
+
+      /** Sanitized XML, re-indented for readability. Requires a full parse of every command. */
+      PRETTY_PRINTED,
+
+      /** XML exactly as received, except that passwords are masked. */
+      SANITIZED
+    }
+
+    /**
+     * Returns the per-flow sampling rates for logging EPP command XML.
+     *
+     * <p>Keys are flow class simple names; a value of N means that the XML of one in every N
+     * commands handled by that flow is logged.
+     *
+     * @see google.registry.flows.FlowRunner
+     */
+    @Provides
+    @Config("eppCommandLogSampling")
+    public static ImmutableMap<String, Integer> provideEppCommandLogSampling(
+        RegistryConfigSettings config) {
+      return config.registryPolicy.eppCommandLogSampling == null
+          ? ImmutableMap.of()
+          : ImmutableMap.copyOf(config.registryPolicy.eppCommandLogSampling);
+    }
+
+    /**
+     * Returns whether simple domain check commands bypass JAXB unmarshalling.
+     *
+     * @see google.registry.flows.DomainCheckFastPathParser
+     */
+    @Provides
+    @Config("domainCheckFastPathEnabled")
+    public static boolean provideDomainCheckFastPathEnabled(RegistryConfigSettings config) {
+      return config.registryPolicy.domainCheckFastPathEnabled;
+    }
+
+    /**
+     * Returns whether RDAP wildcard searches by name use the index of active names.
+     *
+     * @see google.registry.model.index.ActiveNameIndex
+     */
+    @Provides
+    @Config("rdapActiveNameIndexEnabled")
+    public static boolean provideRdapActiveNameIndexEnabled(RegistryConfigSettings config) {
+      return config.registryPolicy.rdapActiveNameIndexEnabled;
+    }
+
     /**
      * Returns the default job zone to run Apache Beam (Cloud Dataflow) jobs in.
      *
@@ -838,6 +899,19 @@ public final class RegistryConfig {
       return URI.create(config.rde.uploadUrl);
     }
 
+    /**
+     * Returns the number of threads to compress a RyDE deposit on.
+     *
+     * <p>With one thread, deposits are compressed on the thread that encrypts them.
+     *
+     * @see google.registry.rde.RydeEncoder
+     */
+    @Provides
+    @Config("rdeCompressionThreads")
+    public static int provideRdeCompressionThreads(RegistryConfigSettings config) {
+      return config.rde.compressionThreads;
+    }
+
     /**
      * Whether or not the registrar console is enabled.
      *
@@ -1343,6 +1417,17 @@ public final class RegistryConfig {
     return Duration.standardDays(30);
   }
 
+  /**
+   * Returns the number of pull queues that DNS refresh requests are sharded over.
+   *
+   * <p><b>Warning:</b> This can only be lowered once the removed shards have been drained.
+   *
+   * @see google.registry.dns.DnsQueue
+   */
+  public static int getDnsPullQueueShardCount() {
+    return CONFIG_SETTINGS.get().dns.pullQueueShards;
+  }
+
   public static boolean areServersLocal() {
     return CONFIG_SETTINGS.get().appEngine.isLocal;
   }
@@ -1404,10 +1489,25 @@ public final class RegistryConfig {
   }
 
   /**
-   * Returns the maximum number of premium list entries across all TLDs to keep in in-memory cache.
+   * Returns how often each instance checks whether cached cross-TLD entities have changed, or zero
+   * if they are only refreshed when their caches expire.
+   *
+   * @see google.registry.model.common.CrossTldCacheInvalidator
    */
-  public static int getStaticPremiumListMaxCachedEntries() {
-    return CONFIG_SETTINGS.get().caching.staticPremiumListMaxCachedEntries;
+  public static Duration getCrossTldCacheInvalidationPollDuration() {
+    return Duration.standardSeconds(
+        CONFIG_SETTINGS.get().caching.crossTldCacheInvalidationPollSeconds);
+  }
+
+  /**
+   * Returns the maximum number of premium list revisions across all TLDs to keep in in-memory
+   * cache.
+   *
+   * <p>Premium lists are cached one whole revision at a time, so this should be at least the number
+   * of premium lists in use.
+   */
+  public static int getStaticPremiumListMaxCachedRevisions() {
+    return CONFIG_SETTINGS.get().caching.staticPremiumListMaxCachedRevisions;
   }
 
   public static boolean isEppResourceCachingEnabled() {
@@ -1431,6 +1531,16 @@ public final class RegistryConfig {
     return CONFIG_SETTINGS.get().caching.eppResourceMaxCachedEntries;
   }
 
+  /** Returns the amount of time a rendered WHOIS response should be cached in memory. */
+  public static Duration getWhoisResponseCachingDuration() {
+    return Duration.standardSeconds(CONFIG_SETTINGS.get().caching.whoisResponseCachingSeconds);
+  }
+
+  /** Returns the maximum number of rendered WHOIS responses to keep in in-memory cache. */
+  public static int getWhoisResponseMaxCachedEntries() {
+    return CONFIG_SETTINGS.get().caching.whoisResponseMaxCachedEntries;
+  }
+
   /** Returns the email address that outgoing emails from the app are sent from. */
   public static InternetAddress getGSuiteOutgoingEmailAddress() {
     return parseEmailAddress(CONFIG_SETTINGS.get().gSuite.outgoingEmailAddress);
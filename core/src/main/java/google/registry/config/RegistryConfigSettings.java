@@ -15,6 +15,7 @@
 package google.registry.config;
 
 import java.util.List;
+import java.util.Map;
 
 /** The POJO that YAML config files are deserialized into. */
 public class RegistryConfigSettings {
@@ -25,6 +26,7 @@ public class RegistryConfigSettings {
   public CredentialOAuth credentialOAuth;
   public RegistryPolicy registryPolicy;
   public Datastore datastore;
+  public Dns dns;
   public CloudDns cloudDns;
   public Caching caching;
   public IcannReporting icannReporting;
@@ -96,6 +98,10 @@ public class RegistryConfigSettings {
     public String registryName;
     public List<String> spec11WebResources;
     public boolean requireSslCertificates;
+    public String eppCommandLogMode;
+    public Map<String, Integer> eppCommandLogSampling;
+    public boolean domainCheckFastPathEnabled;
+    public boolean rdapActiveNameIndexEnabled;
   }
 
   /** Configuration for Cloud Datastore. */
@@ -110,6 +116,11 @@ public class RegistryConfigSettings {
     public String defaultJobZone;
   }
 
+  /** Configuration for DNS updates. */
+  public static class Dns {
+    public int pullQueueShards;
+  }
+
   /** Configuration for Cloud DNS. */
   public static class CloudDns {
     public String rootUrl;
@@ -121,10 +132,13 @@ public class RegistryConfigSettings {
     public int singletonCacheRefreshSeconds;
     public int domainLabelCachingSeconds;
     public int singletonCachePersistSeconds;
-    public int staticPremiumListMaxCachedEntries;
+    public int crossTldCacheInvalidationPollSeconds;
+    public int staticPremiumListMaxCachedRevisions;
     public boolean eppResourceCachingEnabled;
     public int eppResourceCachingSeconds;
     public int eppResourceMaxCachedEntries;
+    public int whoisResponseCachingSeconds;
+    public int whoisResponseMaxCachedEntries;
   }
 
   /** Configuration for ICANN monthly reporting. */
@@ -144,6 +158,7 @@ public class RegistryConfigSettings {
     public String reportUrlPrefix;
     public String uploadUrl;
     public String sshIdentityEmailAddress;
+    public int compressionThreads;
   }
 
   /** Configuration for the web-based registrar console. */
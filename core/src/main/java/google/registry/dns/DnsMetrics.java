@@ -60,6 +60,19 @@ public class DnsMetrics {
           LabelDescriptor.create("status", "Whether the publish succeeded, or why it failed."),
           LabelDescriptor.create("dnsWriter", "The DnsWriter used."));
 
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_FOR_CLOUD_DNS_CHANGE =
+      ImmutableSet.of(
+          LabelDescriptor.create("tld", "TLD"),
+          LabelDescriptor.create("status", "Whether the change was eventually applied."));
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_FOR_CLOUD_DNS_CONFLICT =
+      ImmutableSet.of(
+          LabelDescriptor.create("tld", "TLD"),
+          LabelDescriptor.create("reason", "The Cloud DNS error reason for the conflict."));
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_FOR_PULL_QUEUE =
+      ImmutableSet.of(LabelDescriptor.create("queue", "The DNS pull queue shard."));
+
   // Finer-grained fitter than the DEFAULT_FITTER, allows values between 100 ms and just over 29
   // hours.
   private static final DistributionFitter EXPONENTIAL_FITTER =
@@ -70,6 +83,10 @@ public class DnsMetrics {
   private static final DistributionFitter FIBONACCI_FITTER =
       FibonacciFitter.create(10946);
 
+  // Exponential fitter for queue sizes, allows values between 1 and just over a million.
+  private static final DistributionFitter QUEUE_SIZE_FITTER =
+      ExponentialFitter.create(20, 2.0, 1.0);
+
   private static final IncrementableMetric publishDomainRequests =
       MetricRegistryImpl.getDefault()
           .newIncrementableMetric(
@@ -182,6 +199,41 @@ public class DnsMetrics {
               LABEL_DESCRIPTORS_FOR_LATENCY,
               EXPONENTIAL_FITTER);
 
+  private static final EventMetric pullQueueBacklog =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/dns/pull_queue/backlog",
+              "Number of refresh requests waiting in a DNS pull queue shard, seen on each lease",
+              "count",
+              LABEL_DESCRIPTORS_FOR_PULL_QUEUE,
+              QUEUE_SIZE_FITTER);
+
+  private static final EventMetric pullQueueOldestTaskAge =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/dns/pull_queue/oldest_task_age",
+              "Time the oldest refresh request in a DNS pull queue shard has been waiting",
+              "milliseconds",
+              LABEL_DESCRIPTORS_FOR_PULL_QUEUE,
+              EXPONENTIAL_FITTER);
+
+  private static final EventMetric cloudDnsChangeLatency =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/dns/cloud_dns/change_latency",
+              "Time taken to apply a Cloud DNS change, including conflict retries",
+              "milliseconds",
+              LABEL_DESCRIPTORS_FOR_CLOUD_DNS_CHANGE,
+              EXPONENTIAL_FITTER);
+
+  private static final IncrementableMetric cloudDnsChangeConflicts =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/dns/cloud_dns/change_conflicts",
+              "Count of Cloud DNS changes rejected because the zone changed since it was read",
+              "count",
+              LABEL_DESCRIPTORS_FOR_CLOUD_DNS_CONFLICT);
+
   @Inject
   DnsMetrics() {}
 
@@ -262,4 +314,23 @@ public class DnsMetrics {
         timeSinceUpdateRequest.getMillis(), numberOfItems, tld, status.name(), dnsWriter);
     publishQueueDelay.record(timeSinceActionEnqueued.getMillis(), tld, status.name(), dnsWriter);
   }
+
+  /**
+   * Records the size of a DNS pull queue shard's backlog, and how long its oldest refresh request
+   * has been waiting, as seen when leasing tasks from it.
+   */
+  void recordPullQueueBacklog(String queueName, int numTasks, Duration oldestTaskAge) {
+    pullQueueBacklog.record(numTasks, queueName);
+    pullQueueOldestTaskAge.record(oldestTaskAge.getMillis(), queueName);
+  }
+
+  /** Records how long it took to apply one Cloud DNS change, including any retries. */
+  public void recordCloudDnsChange(String tld, CommitStatus status, Duration latency) {
+    cloudDnsChangeLatency.record(latency.getMillis(), tld, status.name());
+  }
+
+  /** Increments the count of Cloud DNS changes that conflicted with the state of the zone. */
+  public void incrementCloudDnsChangeConflicts(String tld, String reason) {
+    cloudDnsChangeConflicts.increment(tld, reason);
+  }
 }
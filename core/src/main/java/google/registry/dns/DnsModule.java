@@ -23,6 +23,7 @@ import static google.registry.request.RequestParameters.extractSetOfParameters;
 
 import com.google.appengine.api.taskqueue.Queue;
 import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import dagger.Binds;
@@ -64,10 +65,11 @@ public abstract class DnsModule {
     return Hashing.murmur3_32();
   }
 
+  /** Provides all shards of the DNS pull queue, in shard order. */
   @Provides
   @Named(DNS_PULL_QUEUE_NAME)
-  static Queue provideDnsPullQueue() {
-    return QueueFactory.getQueue(DNS_PULL_QUEUE_NAME);
+  static ImmutableList<Queue> provideDnsPullQueues() {
+    return DnsQueue.getPullQueues();
   }
 
   @Provides
@@ -16,6 +16,11 @@ package google.registry.dns;
 
 import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Suppliers.memoize;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static google.registry.dns.DnsConstants.DNS_PULL_QUEUE_NAME;
 import static google.registry.dns.DnsConstants.DNS_TARGET_CREATE_TIME_PARAM;
 import static google.registry.dns.DnsConstants.DNS_TARGET_NAME_PARAM;
@@ -23,20 +28,31 @@ import static google.registry.dns.DnsConstants.DNS_TARGET_TYPE_PARAM;
 import static google.registry.model.registry.Registries.assertTldExists;
 import static google.registry.request.RequestParameters.PARAM_TLD;
 import static google.registry.util.DomainNameUtils.getTldFromDomainName;
+import static google.registry.util.ResourceUtils.readResourceUtf8;
+import static java.lang.Math.max;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import com.google.appengine.api.taskqueue.Queue;
 import com.google.appengine.api.taskqueue.QueueConstants;
+import com.google.appengine.api.taskqueue.QueueStatistics;
 import com.google.appengine.api.taskqueue.TaskHandle;
 import com.google.appengine.api.taskqueue.TaskOptions;
 import com.google.appengine.api.taskqueue.TaskOptions.Method;
 import com.google.appengine.api.taskqueue.TransientFailureException;
 import com.google.apphosting.api.DeadlineExceededException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
 import com.google.common.net.InternetDomainName;
 import com.google.common.util.concurrent.RateLimiter;
+import google.registry.config.RegistryConfig;
 import google.registry.dns.DnsConstants.TargetType;
 import google.registry.model.registry.Registries;
 import google.registry.util.Clock;
@@ -44,16 +60,26 @@ import google.registry.util.NonFinalForTesting;
 import google.registry.util.SystemClock;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.joda.time.Duration;
 
 /**
- * Methods for manipulating the queue used for DNS write tasks.
+ * Methods for manipulating the queues used for DNS write tasks.
  *
- * <p>This includes a {@link RateLimiter} to limit the {@link Queue#leaseTasks} call rate to 9 QPS,
- * to stay under the 10 QPS limit for this function.
+ * <p>Refresh requests are sharded over one or more pull queues by a consistent hash of the target
+ * name, so that several readers can lease them at once. Shard 0 is the {@code dns-pull} queue, and
+ * shard N &gt; 0 is the {@code dns-pull-N} queue.
+ *
+ * <p>Each shard has a {@link RateLimiter} to limit the {@link Queue#leaseTasks} call rate to 9 QPS,
+ * to stay under the 10 QPS limit for this function, which applies per queue.
  *
  * <p>Note that overlapping calls to {@link ReadDnsQueueAction} (the only place where
  * {@link DnsQueue#leaseTasks} is used) will have different rate limiters, so they could exceed the
@@ -67,7 +93,11 @@ public class DnsQueue {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  private final Queue queue;
+  private final ImmutableList<Queue> queues;
+
+  private final ImmutableMap<String, Queue> queuesByName;
+
+  private final DnsMetrics dnsMetrics;
 
   final Clock clock;
 
@@ -75,11 +105,40 @@ public class DnsQueue {
   // https://cloud.google.com/appengine/docs/standard/java/javadoc/com/google/appengine/api/taskqueue/Queue.html
   // "If you generate more than 10 LeaseTasks requests per second, only the first 10 requests will
   // return results. The others will return no results."
-  private static final RateLimiter rateLimiter = RateLimiter.create(9);
+  private static final ConcurrentMap<String, RateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+  private static final String QUEUE_XML_PATH =
+      "google/registry/env/common/default/WEB-INF/queue.xml";
+
+  private static final Pattern QUEUE_NAME_PATTERN =
+      Pattern.compile("<name>\\s*(\\S+?)\\s*</name>");
+
+  /**
+   * The shards of the pull queue, checked once per instance against the queues of queue.xml.
+   *
+   * <p>App Engine only rejects an undefined queue when a task is added to it, so a shard count that
+   * is higher than the number of queues would otherwise only fail on some of the refresh requests.
+   */
+  private static final Supplier<ImmutableList<Queue>> pullQueues =
+      memoize(
+          () -> {
+            int shardCount = RegistryConfig.getDnsPullQueueShardCount();
+            checkPullQueuesDefined(
+                shardCount, getDefinedQueueNames(readResourceUtf8(QUEUE_XML_PATH)));
+            return IntStream.range(0, shardCount)
+                .mapToObj(shard -> getQueue(getPullQueueName(shard)))
+                .collect(toImmutableList());
+          });
 
   @Inject
-  public DnsQueue(@Named(DNS_PULL_QUEUE_NAME) Queue queue, Clock clock) {
-    this.queue = queue;
+  public DnsQueue(
+      @Named(DNS_PULL_QUEUE_NAME) ImmutableList<Queue> queues,
+      DnsMetrics dnsMetrics,
+      Clock clock) {
+    checkArgument(!queues.isEmpty(), "There must be at least one DNS pull queue");
+    this.queues = queues;
+    this.queuesByName = queues.stream().collect(toImmutableMap(Queue::getQueueName, q -> q));
+    this.dnsMetrics = dnsMetrics;
     this.clock = clock;
   }
 
@@ -91,24 +150,63 @@ public class DnsQueue {
    * reducer classes in mapreduces that need to be Serializable.
    */
   public static DnsQueue create() {
-    return new DnsQueue(getQueue(DNS_PULL_QUEUE_NAME), new SystemClock());
+    return new DnsQueue(getPullQueues(), new DnsMetrics(), new SystemClock());
   }
 
   @VisibleForTesting
   public static DnsQueue createForTesting(Clock clock) {
-    return new DnsQueue(getQueue(DNS_PULL_QUEUE_NAME), clock);
+    return new DnsQueue(getPullQueues(), new DnsMetrics(), clock);
+  }
+
+  /** Returns the name of the pull queue holding the given shard of DNS refresh requests. */
+  static String getPullQueueName(int shard) {
+    return (shard == 0) ? DNS_PULL_QUEUE_NAME : String.format("%s-%d", DNS_PULL_QUEUE_NAME, shard);
+  }
+
+  /** Returns all the DNS pull queue shards, in shard order. */
+  static ImmutableList<Queue> getPullQueues() {
+    return pullQueues.get();
+  }
+
+  /** Returns the names of all queues defined in the given queue.xml content. */
+  @VisibleForTesting
+  static ImmutableSet<String> getDefinedQueueNames(String queueXml) {
+    ImmutableSet.Builder<String> names = new ImmutableSet.Builder<>();
+    Matcher matcher = QUEUE_NAME_PATTERN.matcher(queueXml);
+    while (matcher.find()) {
+      names.add(matcher.group(1));
+    }
+    return names.build();
+  }
+
+  /** Checks that every one of the given number of pull queue shards is a defined queue. */
+  @VisibleForTesting
+  static void checkPullQueuesDefined(int shardCount, Set<String> definedQueueNames) {
+    checkArgument(shardCount > 0, "dns.pullQueueShards must be positive, but is %s", shardCount);
+    for (int shard = 0; shard < shardCount; shard++) {
+      checkState(
+          definedQueueNames.contains(getPullQueueName(shard)),
+          "dns.pullQueueShards is %s, but the DNS pull queue %s is not defined in queue.xml",
+          shardCount,
+          getPullQueueName(shard));
+    }
   }
 
   @NonFinalForTesting
   @VisibleForTesting
   long leaseTasksBatchSize = QueueConstants.maxLeaseCount();
 
-  /** Enqueues the given task type with the given target name to the DNS queue. */
+  /** Enqueues the given task type with the given target name to its shard of the DNS queue. */
   private TaskHandle addToQueue(
       TargetType targetType, String targetName, String tld, Duration countdown) {
+    Queue queue = queues.get(getShard(targetName));
     logger.atInfo().log(
         "Adding task type=%s, target=%s, tld=%s to pull queue %s (%d tasks currently on queue)",
-        targetType, targetName, tld, DNS_PULL_QUEUE_NAME, queue.fetchStatistics().getNumTasks());
+        targetType,
+        targetName,
+        tld,
+        queue.getQueueName(),
+        queue.fetchStatistics().getNumTasks());
     return queue.add(
         TaskOptions.Builder.withDefaults()
             .method(Method.PULL)
@@ -123,8 +221,7 @@ public class DnsQueue {
    * Adds a task to the queue to refresh the DNS information for the specified subordinate host.
    */
   public TaskHandle addHostRefreshTask(String fullyQualifiedHostName) {
-    Optional<InternetDomainName> tld =
-        Registries.findTldForName(InternetDomainName.from(fullyQualifiedHostName));
+    Optional<InternetDomainName> tld = Registries.findTldForName(fullyQualifiedHostName);
     checkArgument(tld.isPresent(),
         String.format("%s is not a subordinate host to a known tld", fullyQualifiedHostName));
     return addToQueue(TargetType.HOST, fullyQualifiedHostName, tld.get().toString(), Duration.ZERO);
@@ -150,6 +247,22 @@ public class DnsQueue {
         TargetType.ZONE, fullyQualifiedZoneName, fullyQualifiedZoneName, Duration.ZERO);
   }
 
+  /**
+   * Returns the shard holding refresh requests for the given target name.
+   *
+   * <p>We use consistent hashing so that changing the number of shards moves as few names as
+   * possible between shards.
+   */
+  private int getShard(String targetName) {
+    return Hashing.consistentHash(
+        Hashing.murmur3_32().hashString(targetName, UTF_8), queues.size());
+  }
+
+  /** Returns the number of pull queue shards, which are numbered from 0. */
+  public int getShardCount() {
+    return queues.size();
+  }
+
   /**
    * Returns the maximum number of tasks that can be leased with {@link #leaseTasks}.
    *
@@ -161,26 +274,53 @@ public class DnsQueue {
     return leaseTasksBatchSize;
   }
 
-  /** Returns handles for a batch of tasks, leased for the specified duration. */
-  public List<TaskHandle> leaseTasks(Duration leaseDuration) {
+  /**
+   * Returns handles for a batch of tasks from the given shard, leased for the specified duration.
+   *
+   * <p>Also records the size and age of the shard's backlog in {@link DnsMetrics}.
+   */
+  public List<TaskHandle> leaseTasks(int shard, Duration leaseDuration) {
+    Queue queue = queues.get(shard);
+    String queueName = queue.getQueueName();
     try {
-      rateLimiter.acquire();
-      int numTasks = queue.fetchStatistics().getNumTasks();
+      rateLimiters.computeIfAbsent(queueName, name -> RateLimiter.create(9)).acquire();
+      QueueStatistics statistics = queue.fetchStatistics();
+      int numTasks = statistics.getNumTasks();
       logger.at((numTasks >= leaseTasksBatchSize) ? Level.WARNING : Level.INFO).log(
-          "There are %d tasks in the DNS queue '%s'.", numTasks, DNS_PULL_QUEUE_NAME);
+          "There are %d tasks in the DNS queue '%s'.", numTasks, queueName);
+      // The oldest ETA is null when the queue is empty, in which case nothing is waiting.
+      Long oldestEtaUsec = statistics.getOldestEtaUsec();
+      long oldestTaskAgeMillis =
+          (oldestEtaUsec == null)
+              ? 0
+              : max(0, clock.nowUtc().getMillis() - MICROSECONDS.toMillis(oldestEtaUsec));
+      dnsMetrics.recordPullQueueBacklog(queueName, numTasks, Duration.millis(oldestTaskAgeMillis));
       return queue.leaseTasks(leaseDuration.getMillis(), MILLISECONDS, leaseTasksBatchSize);
     } catch (TransientFailureException | DeadlineExceededException e) {
-      logger.atSevere().withCause(e).log("Failed leasing tasks too fast");
+      logger.atSevere().withCause(e).log("Failed leasing tasks too fast from %s", queueName);
       return ImmutableList.of();
     }
   }
 
-  /** Delete a list of tasks, removing them from the queue permanently. */
+  /** Delete a list of tasks, removing them from their shards of the queue permanently. */
   public void deleteTasks(List<TaskHandle> tasks) {
-    try {
-      queue.deleteTask(tasks);
-    } catch (TransientFailureException | DeadlineExceededException e) {
-      logger.atSevere().withCause(e).log("Failed deleting tasks too fast");
+    ImmutableListMultimap<String, TaskHandle> tasksByQueueName =
+        tasks.stream().collect(toImmutableListMultimap(TaskHandle::getQueueName, task -> task));
+    for (String queueName : tasksByQueueName.keySet()) {
+      checkArgument(
+          queuesByName.containsKey(queueName),
+          "Cannot delete tasks from queue %s, which is not a DNS pull queue shard",
+          queueName);
     }
+    tasksByQueueName
+        .asMap()
+        .forEach(
+            (queueName, queueTasks) -> {
+              try {
+                queuesByName.get(queueName).deleteTask(ImmutableList.copyOf(queueTasks));
+              } catch (TransientFailureException | DeadlineExceededException e) {
+                logger.atSevere().withCause(e).log("Failed deleting tasks too fast");
+              }
+            });
   }
 }
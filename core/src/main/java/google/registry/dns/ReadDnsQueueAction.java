@@ -14,6 +14,7 @@
 
 package google.registry.dns;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
 import static com.google.common.collect.Sets.difference;
 import static google.registry.dns.DnsConstants.DNS_PUBLISH_PUSH_QUEUE_NAME;
@@ -37,6 +38,7 @@ import com.google.appengine.api.taskqueue.TaskHandle;
 import com.google.appengine.api.taskqueue.TaskOptions;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
@@ -53,6 +55,7 @@ import google.registry.request.Action;
 import google.registry.request.Parameter;
 import google.registry.request.auth.Auth;
 import google.registry.util.Clock;
+import google.registry.util.Concurrent;
 import google.registry.util.TaskQueueUtils;
 import java.io.UnsupportedEncodingException;
 import java.util.Collection;
@@ -62,6 +65,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.joda.time.DateTime;
@@ -70,6 +74,9 @@ import org.joda.time.Duration;
 /**
  * Action for fanning out DNS refresh tasks by TLD, using data taken from the DNS pull queue.
  *
+ * <p>Each shard of the pull queue is read by its own thread, since the lease rate limit applies
+ * per queue.
+ *
  * <h3>Parameters Reference</h3>
  *
  * <ul>
@@ -134,21 +141,40 @@ public final class ReadDnsQueueAction implements Runnable {
     }
   }
 
-  /** Leases all tasks from the pull queue and creates per-tld update actions for them. */
+  /** Leases all tasks from the pull queue shards and creates per-tld update actions for them. */
   @Override
   public void run() {
     DateTime requestedEndTime = clock.nowUtc().plus(requestedMaximumDuration);
     ImmutableSet<String> tlds = Registries.getTlds();
+    ImmutableList<Integer> shards =
+        IntStream.range(0, dnsQueue.getShardCount()).boxed().collect(toImmutableList());
+    ImmutableList<Integer> numTasksPerShard =
+        Concurrent.transform(
+            shards, shards.size(), shard -> readShard(shard, requestedEndTime, tlds));
+    logger.atInfo().log(
+        "Leased %d DNS update tasks from %d shards.",
+        numTasksPerShard.stream().mapToInt(Integer::intValue).sum(), shards.size());
+  }
+
+  /**
+   * Leases batches of tasks from one shard of the pull queue until it is drained or the requested
+   * end time has passed, and returns how many tasks were leased.
+   */
+  private int readShard(int shard, DateTime requestedEndTime, ImmutableSet<String> tlds) {
+    int numTasks = 0;
     while (requestedEndTime.isAfterNow()) {
-      List<TaskHandle> tasks = dnsQueue.leaseTasks(requestedMaximumDuration.plus(LEASE_PADDING));
-      logger.atInfo().log("Leased %d DNS update tasks.", tasks.size());
+      List<TaskHandle> tasks =
+          dnsQueue.leaseTasks(shard, requestedMaximumDuration.plus(LEASE_PADDING));
+      logger.atInfo().log("Leased %d DNS update tasks from shard %d.", tasks.size(), shard);
+      numTasks += tasks.size();
       if (!tasks.isEmpty()) {
         dispatchTasks(ImmutableSet.copyOf(tasks), tlds);
       }
       if (tasks.size() < dnsQueue.getLeaseTasksBatchSize()) {
-        return;
+        break;
       }
     }
+    return numTasks;
   }
 
   /** A set of tasks grouped based on the action to take on them. */
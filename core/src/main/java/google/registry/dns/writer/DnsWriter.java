@@ -61,6 +61,10 @@ public interface DnsWriter {
   /**
    * Commits the updates to the DNS server atomically.
    *
+   * <p>A batch too large for the DNS server to accept as a single update may be split by the
+   * implementation, in which case only each part is atomic. Committing the same updates again must
+   * then converge on the same state, so that a failed commit can be retried.
+   *
    * <p>The user is responsible for making sure commit() isn't called twice. Implementations are
    * encouraged to throw an error if commit() is called twice.
    *
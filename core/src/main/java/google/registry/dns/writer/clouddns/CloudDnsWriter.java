@@ -15,6 +15,8 @@
 package google.registry.dns.writer.clouddns;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.model.EppResourceUtils.loadByForeignKey;
 import static google.registry.util.DomainNameUtils.getSecondLevelDomain;
@@ -26,13 +28,17 @@ import com.google.api.services.dns.model.Change;
 import com.google.api.services.dns.model.ResourceRecordSet;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.InternetDomainName;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.dns.DnsMetrics;
+import google.registry.dns.DnsMetrics.CommitStatus;
 import google.registry.dns.writer.BaseDnsWriter;
 import google.registry.dns.writer.DnsWriter;
 import google.registry.dns.writer.DnsWriterZone;
@@ -42,12 +48,14 @@ import google.registry.model.host.HostResource;
 import google.registry.model.registry.Registries;
 import google.registry.util.Clock;
 import google.registry.util.Concurrent;
+import google.registry.util.NonFinalForTesting;
 import google.registry.util.Retrier;
 import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -57,6 +65,7 @@ import java.util.Set;
 import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.inject.Named;
+import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
 /**
@@ -86,10 +95,19 @@ public class CloudDnsWriter extends BaseDnsWriter {
   private final Duration defaultNsTtl;
   private final Duration defaultDsTtl;
   private final String projectId;
+  private final String tld;
   private final String zoneName;
   private final Dns dnsConnection;
+  private final DnsMetrics dnsMetrics;
   private final HashMap<String, ImmutableSet<ResourceRecordSet>> desiredRecords = new HashMap<>();
 
+  /**
+   * The most record set additions, and the most deletions, that Cloud DNS accepts in one change.
+   *
+   * <p>This is the default per-change quota of Cloud DNS projects.
+   */
+  @NonFinalForTesting @VisibleForTesting int maxRecordSetsPerChange = 100;
+
   @Inject
   CloudDnsWriter(
       Dns dnsConnection,
@@ -101,9 +119,11 @@ public class CloudDnsWriter extends BaseDnsWriter {
       @Named("cloudDns") RateLimiter rateLimiter,
       @Named("cloudDnsNumThreads") int numThreads,
       Clock clock,
-      Retrier retrier) {
+      Retrier retrier,
+      DnsMetrics dnsMetrics) {
     this.dnsConnection = dnsConnection;
     this.projectId = projectId;
+    this.tld = zoneName;
     this.zoneName = zoneName.replace('.', '-');
     this.defaultATtl = defaultATtl;
     this.defaultNsTtl = defaultNsTtl;
@@ -112,6 +132,7 @@ public class CloudDnsWriter extends BaseDnsWriter {
     this.clock = clock;
     this.retrier = retrier;
     this.numThreads = numThreads;
+    this.dnsMetrics = dnsMetrics;
   }
 
   /** Publish the domain and all subordinate hosts. */
@@ -267,12 +288,26 @@ public class CloudDnsWriter extends BaseDnsWriter {
    * <p>The relevant resource records (including those of all subordinate hosts) will be retrieved
    * and the operation will be retried until the state of the retrieved zone data matches the
    * representation built via this writer.
+   *
+   * <p>All records are written in a single Cloud DNS change, so that the commit is atomic, unless
+   * they exceed {@link #maxRecordSetsPerChange}. Cloud DNS rejects such a change outright, so it is
+   * instead split into changes within the limit, which are applied concurrently. A split commit is
+   * not atomic: if one of its changes fails, others may already have been applied. The commit is
+   * then retried as a whole, which re-reads the zone, so changes already applied become no-ops and
+   * the zone still ends up in the desired state.
    */
   @Override
   protected void commitUnchecked() {
     ImmutableMap<String, ImmutableSet<ResourceRecordSet>> desiredRecordsCopy =
         ImmutableMap.copyOf(desiredRecords);
-    retrier.callWithRetry(() -> mutateZone(desiredRecordsCopy), ZoneStateException.class);
+    DateTime startTime = clock.nowUtc();
+    CommitStatus status = CommitStatus.FAILURE;
+    try {
+      retrier.callWithRetry(() -> mutateZone(desiredRecordsCopy), ZoneStateException.class);
+      status = CommitStatus.SUCCESS;
+    } finally {
+      dnsMetrics.recordCloudDnsChange(tld, status, new Duration(startTime, clock.nowUtc()));
+    }
     logger.atInfo().log("Wrote to Cloud DNS");
   }
 
@@ -380,11 +415,108 @@ public class CloudDnsWriter extends BaseDnsWriter {
       logger.atInfo().log("Returning early because additions is the same as deletions");
       return;
     }
-    Change change =
-        new Change()
-            .setAdditions(ImmutableList.copyOf(Sets.difference(additions, intersection)))
-            .setDeletions(ImmutableList.copyOf(Sets.difference(deletions, intersection)));
+    ImmutableList<ResourceRecordSet> netAdditions =
+        ImmutableList.copyOf(Sets.difference(additions, intersection));
+    ImmutableList<ResourceRecordSet> netDeletions =
+        ImmutableList.copyOf(Sets.difference(deletions, intersection));
+    if (netAdditions.size() <= maxRecordSetsPerChange
+        && netDeletions.size() <= maxRecordSetsPerChange) {
+      createChange(new Change().setAdditions(netAdditions).setDeletions(netDeletions));
+      return;
+    }
+    ImmutableList<Change> changes = splitChange(netAdditions, netDeletions);
+    logger.atInfo().log(
+        "Splitting %d additions and %d deletions into %d changes",
+        netAdditions.size(), netDeletions.size(), changes.size());
+    try {
+      Concurrent.transform(
+          changes,
+          numThreads,
+          change -> {
+            createChange(change);
+            return change;
+          });
+    } catch (UncheckedExecutionException e) {
+      // Let a ZoneStateException from any of the changes reach the retrier.
+      throwIfUnchecked(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * Splits a change that exceeds {@link #maxRecordSetsPerChange} into changes that don't.
+   *
+   * <p>The records of a domain and of its subordinate hosts are kept in the same change, so that a
+   * delegation and its glue are always updated together. A domain whose records alone exceed the
+   * limit gets a change of its own, which Cloud DNS will reject.
+   */
+  private ImmutableList<Change> splitChange(
+      ImmutableList<ResourceRecordSet> additions, ImmutableList<ResourceRecordSet> deletions) {
+    ImmutableSet<String> names =
+        Stream.concat(additions.stream(), deletions.stream())
+            .map(ResourceRecordSet::getName)
+            .collect(toImmutableSet());
+    ImmutableListMultimap<String, ResourceRecordSet> additionsByDomain =
+        additions.stream()
+            .collect(
+                toImmutableListMultimap(
+                    record -> getSuperordinateName(record.getName(), names), record -> record));
+    ImmutableListMultimap<String, ResourceRecordSet> deletionsByDomain =
+        deletions.stream()
+            .collect(
+                toImmutableListMultimap(
+                    record -> getSuperordinateName(record.getName(), names), record -> record));
+    ImmutableList.Builder<Change> changes = new ImmutableList.Builder<>();
+    List<ResourceRecordSet> changeAdditions = new ArrayList<>();
+    List<ResourceRecordSet> changeDeletions = new ArrayList<>();
+    for (String domain : Sets.union(additionsByDomain.keySet(), deletionsByDomain.keySet())) {
+      List<ResourceRecordSet> domainAdditions = additionsByDomain.get(domain);
+      List<ResourceRecordSet> domainDeletions = deletionsByDomain.get(domain);
+      boolean isChangeFull =
+          changeAdditions.size() + domainAdditions.size() > maxRecordSetsPerChange
+              || changeDeletions.size() + domainDeletions.size() > maxRecordSetsPerChange;
+      if (isChangeFull && !(changeAdditions.isEmpty() && changeDeletions.isEmpty())) {
+        changes.add(newChange(changeAdditions, changeDeletions));
+        changeAdditions.clear();
+        changeDeletions.clear();
+      }
+      changeAdditions.addAll(domainAdditions);
+      changeDeletions.addAll(domainDeletions);
+    }
+    changes.add(newChange(changeAdditions, changeDeletions));
+    return changes.build();
+  }
+
+  private static Change newChange(
+      List<ResourceRecordSet> additions, List<ResourceRecordSet> deletions) {
+    return new Change()
+        .setAdditions(ImmutableList.copyOf(additions))
+        .setDeletions(ImmutableList.copyOf(deletions));
+  }
+
+  /**
+   * Returns the shortest of the given absolute names that is equal to or a superdomain of the given
+   * absolute name.
+   */
+  private static String getSuperordinateName(String name, Set<String> names) {
+    // Walk from the last label towards the first, checking each suffix that starts after a dot.
+    for (int dot = name.lastIndexOf('.', name.length() - 2);
+        dot >= 0;
+        dot = name.lastIndexOf('.', dot - 1)) {
+      String suffix = name.substring(dot + 1);
+      if (names.contains(suffix)) {
+        return suffix;
+      }
+    }
+    return name;
+  }
 
+  /**
+   * Applies a single change to this zone.
+   *
+   * @throws ZoneStateException if the change conflicts with the current state of the zone
+   */
+  private void createChange(Change change) {
     rateLimiter.acquire();
     try {
       dnsConnection.changes().create(projectId, zoneName, change).execute();
@@ -397,6 +529,7 @@ public class CloudDnsWriter extends BaseDnsWriter {
       String errorReason = err.getErrors().get(0).getReason();
 
       if (RETRYABLE_EXCEPTION_REASONS.contains(errorReason)) {
+        dnsMetrics.incrementCloudDnsChangeConflicts(tld, errorReason);
         throw new ZoneStateException(errorReason);
       } else {
         throw new RuntimeException(e);
@@ -16,19 +16,36 @@ package google.registry.dns.writer.dnsupdate;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.FluentLogger;
 import com.google.common.primitives.Ints;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.util.Clock;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import javax.inject.Inject;
 import javax.net.SocketFactory;
+import org.joda.time.DateTime;
 import org.joda.time.Duration;
 import org.xbill.DNS.Message;
 import org.xbill.DNS.Opcode;
@@ -38,9 +55,17 @@ import org.xbill.DNS.Opcode;
  * s and the message framing defined in <a href="https://tools.ietf.org/html/rfc1035">RFC 1035</a>.
  * We would like use the dnsjava library's {@link org.xbill.DNS.SimpleResolver} class for this, but
  * it requires {@link java.nio.channels.SocketChannel} which is not supported on AppEngine.
+ *
+ * <p>Connections to the DNS server are kept open and reused by later requests on the same instance,
+ * as allowed by <a href="https://tools.ietf.org/html/rfc7766">RFC 7766</a>, so that each commit
+ * doesn't pay for a TCP handshake. Since a transport is created for each request, the idle
+ * connections are kept in a static pool per DNS server host. Several messages can be pipelined on
+ * one connection with {@link #sendAll}, and responses are matched to them by message ID.
  */
 public class DnsMessageTransport {
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
   /**
    * Size of message length field for DNS TCP transport.
    *
@@ -56,9 +81,22 @@ public class DnsMessageTransport {
    */
   @VisibleForTesting static final int DNS_PORT = 53;
 
+  /**
+   * Idle connections to each DNS server, the most recently used first, keyed by host name.
+   *
+   * <p>Each deque is guarded by itself.
+   */
+  private static final ConcurrentMap<String, Deque<Connection>> idleConnectionsByHost =
+      new ConcurrentHashMap<>();
+
   private final SocketFactory factory;
   private final String updateHost;
   private final int updateTimeout;
+  private final int maxIdleConnections;
+  private final Duration connectionIdleTimeout;
+  private final Clock clock;
+
+  private final Deque<Connection> idleConnections;
 
   /**
    * Class constructor.
@@ -66,15 +104,37 @@ public class DnsMessageTransport {
    * @param factory a factory for TCP sockets
    * @param updateHost host name of the DNS server
    * @param updateTimeout update I/O timeout
+   * @param maxIdleConnections the maximum number of idle connections kept open for reuse
+   * @param connectionIdleTimeout how long an idle connection may be kept before it's closed
+   * @param clock a source of time
    */
   @Inject
   public DnsMessageTransport(
       SocketFactory factory,
       @Config("dnsUpdateHost") String updateHost,
-      @Config("dnsUpdateTimeout") Duration updateTimeout) {
+      @Config("dnsUpdateTimeout") Duration updateTimeout,
+      @Config("dnsUpdateMaxIdleConnections") int maxIdleConnections,
+      @Config("dnsUpdateConnectionIdleTimeout") Duration connectionIdleTimeout,
+      Clock clock) {
     this.factory = factory;
     this.updateHost = updateHost;
     this.updateTimeout = Ints.checkedCast(updateTimeout.getMillis());
+    this.maxIdleConnections = maxIdleConnections;
+    this.connectionIdleTimeout = connectionIdleTimeout;
+    this.clock = clock;
+    this.idleConnections =
+        idleConnectionsByHost.computeIfAbsent(updateHost, host -> new ArrayDeque<>());
+  }
+
+  /** Closes the idle connections to all DNS servers. */
+  @VisibleForTesting
+  static void closeIdleConnections() {
+    for (Deque<Connection> connections : idleConnectionsByHost.values()) {
+      synchronized (connections) {
+        connections.forEach(Connection::close);
+        connections.clear();
+      }
+    }
   }
 
   /**
@@ -87,21 +147,77 @@ public class DnsMessageTransport {
    * @throws IllegalArgumentException if the query is too large to be sent (> 65535 bytes)
    */
   public Message send(Message query) throws IOException {
-    try (Socket socket = factory.createSocket(InetAddress.getByName(updateHost), DNS_PORT)) {
-      socket.setSoTimeout(updateTimeout);
-      writeMessage(socket.getOutputStream(), query);
-      Message response = readMessage(socket.getInputStream());
-      checkValidResponse(query, response);
-      return response;
+    return sendAll(ImmutableList.of(query)).get(0);
+  }
+
+  /**
+   * Pipelines several DNS "query" messages on one connection and returns their responses, in the
+   * order of the queries. Each response is matched to its query by ID, and checked for a matching
+   * opcode.
+   *
+   * <p>If a reused connection turns out to have been closed by the server before any response was
+   * read, the queries are sent again once on a new connection.
+   *
+   * @param queries the messages to send, which must have distinct IDs
+   * @return the responses received from the server
+   * @throws IOException if the Socket input/output streams throws one
+   * @throws IllegalArgumentException if a query is too large to be sent (> 65535 bytes), or if two
+   *     queries have the same ID
+   */
+  public ImmutableList<Message> sendAll(List<Message> queries) throws IOException {
+    ImmutableMap<Integer, Message> queriesById =
+        queries.stream()
+            .collect(toImmutableMap(query -> query.getHeader().getID(), Function.identity()));
+    checkArgument(
+        queriesById.size() == queries.size(), "DNS query messages must have distinct IDs");
+    Connection connection = takeIdleConnection();
+    if (connection != null) {
+      try {
+        return sendAll(connection, queriesById);
+      } catch (IOException e) {
+        if (e instanceof SocketTimeoutException || connection.hasReadResponse) {
+          throw e;
+        }
+        logger.atInfo().withCause(e).log(
+            "Reused connection to %s failed, retrying on a new connection.", updateHost);
+      }
+    }
+    return sendAll(openConnection(), queriesById);
+  }
+
+  private ImmutableList<Message> sendAll(
+      Connection connection, ImmutableMap<Integer, Message> queriesById) throws IOException {
+    boolean succeeded = false;
+    try {
+      for (Message query : queriesById.values()) {
+        writeMessage(connection.outputStream, query);
+      }
+      connection.outputStream.flush();
+      Map<Integer, Message> responsesById = new HashMap<>();
+      while (responsesById.size() < queriesById.size()) {
+        Message response = readMessage(connection.inputStream);
+        connection.hasReadResponse = true;
+        int id = response.getHeader().getID();
+        verify(
+            queriesById.containsKey(id) && !responsesById.containsKey(id),
+            "response ID %s does not match query ID %s",
+            id,
+            Joiner.on(", ").join(queriesById.keySet()));
+        checkValidResponse(queriesById.get(id), response);
+        responsesById.put(id, response);
+      }
+      succeeded = true;
+      return queriesById.keySet().stream().map(responsesById::get).collect(toImmutableList());
+    } finally {
+      if (succeeded) {
+        releaseConnection(connection);
+      } else {
+        connection.close();
+      }
     }
   }
 
   private void checkValidResponse(Message query, Message response) {
-    verify(
-        response.getHeader().getID() == query.getHeader().getID(),
-        "response ID %s does not match query ID %s",
-        response.getHeader().getID(),
-        query.getHeader().getID());
     verify(
         response.getHeader().getOpcode() == query.getHeader().getOpcode(),
         "response opcode '%s' does not match query opcode '%s'",
@@ -109,6 +225,50 @@ public class DnsMessageTransport {
         Opcode.string(query.getHeader().getOpcode()));
   }
 
+  private Connection openConnection() throws IOException {
+    Socket socket = factory.createSocket(InetAddress.getByName(updateHost), DNS_PORT);
+    try {
+      socket.setSoTimeout(updateTimeout);
+      return new Connection(socket);
+    } catch (IOException | RuntimeException e) {
+      socket.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the most recently used idle connection that is still open, or null if there is none.
+   *
+   * <p>Connections that have been idle for longer than the idle timeout are closed, since the
+   * server has most likely closed its end already.
+   */
+  private Connection takeIdleConnection() {
+    DateTime now = clock.nowUtc();
+    synchronized (idleConnections) {
+      while (!idleConnections.isEmpty()) {
+        Connection connection = idleConnections.removeFirst();
+        if (!connection.socket.isClosed()
+            && connection.lastUsedTime.plus(connectionIdleTimeout).isAfter(now)) {
+          connection.hasReadResponse = false;
+          return connection;
+        }
+        connection.close();
+      }
+    }
+    return null;
+  }
+
+  private void releaseConnection(Connection connection) {
+    connection.lastUsedTime = clock.nowUtc();
+    synchronized (idleConnections) {
+      if (idleConnections.size() < maxIdleConnections) {
+        idleConnections.addFirst(connection);
+        return;
+      }
+    }
+    connection.close();
+  }
+
   private void writeMessage(OutputStream outputStream, Message message) throws IOException {
     byte[] messageData = message.toWire();
     checkArgument(
@@ -122,11 +282,37 @@ public class DnsMessageTransport {
     outputStream.write(buffer.array());
   }
 
-  private Message readMessage(InputStream inputStream) throws IOException {
-    DataInputStream stream = new DataInputStream(inputStream);
+  private Message readMessage(DataInputStream stream) throws IOException {
     int length = stream.readUnsignedShort();
     byte[] messageData = new byte[length];
     stream.readFully(messageData);
     return new Message(messageData);
   }
+
+  /** An open TCP connection to the DNS server. */
+  private static final class Connection {
+
+    final Socket socket;
+    final DataInputStream inputStream;
+    final OutputStream outputStream;
+
+    /** Whether a response has been read since the connection was last taken from the pool. */
+    boolean hasReadResponse;
+
+    DateTime lastUsedTime;
+
+    Connection(Socket socket) throws IOException {
+      this.socket = socket;
+      this.inputStream = new DataInputStream(socket.getInputStream());
+      this.outputStream = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    void close() {
+      try {
+        socket.close();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Failed to close connection to DNS server.");
+      }
+    }
+  }
 }
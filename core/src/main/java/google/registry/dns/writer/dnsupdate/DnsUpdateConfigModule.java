@@ -41,4 +41,25 @@ public class DnsUpdateConfigModule {
   public static Duration provideDnsUpdateTimeout() {
     return Duration.standardSeconds(30);
   }
+
+  /**
+   * Maximum number of idle connections to the DNS server kept open for reuse, per instance.
+   */
+  @Provides
+  @Config("dnsUpdateMaxIdleConnections")
+  public static int provideDnsUpdateMaxIdleConnections() {
+    return 4;
+  }
+
+  /**
+   * How long an idle connection to the DNS server may be reused.
+   *
+   * <p>This should be shorter than the server's own idle timeout (30 seconds by default in BIND),
+   * so that we rarely try to reuse a connection that the server has closed.
+   */
+  @Provides
+  @Config("dnsUpdateConnectionIdleTimeout")
+  public static Duration provideDnsUpdateConnectionIdleTimeout() {
+    return Duration.standardSeconds(20);
+  }
 }
@@ -15,14 +15,18 @@
 package google.registry.export;
 
 import static com.google.appengine.tools.cloudstorage.GcsServiceFactory.createGcsService;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verifyNotNull;
 import static google.registry.mapreduce.inputs.EppResourceInputs.createEntityInput;
 import static google.registry.model.EppResourceUtils.isActive;
+import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.model.registry.Registries.getTldsOfType;
 import static google.registry.request.Action.Method.POST;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.appengine.tools.cloudstorage.GcsFilename;
 import com.google.appengine.tools.cloudstorage.RetryParams;
 import com.google.appengine.tools.mapreduce.Mapper;
@@ -30,27 +34,46 @@ import com.google.appengine.tools.mapreduce.Reducer;
 import com.google.appengine.tools.mapreduce.ReducerInput;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.io.ByteStreams;
 import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.cmd.Query;
+import dagger.Lazy;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.export.ExportRequestModule.DomainListsExecutor;
 import google.registry.gcs.GcsUtils;
 import google.registry.mapreduce.MapreduceRunner;
 import google.registry.model.domain.DomainBase;
+import google.registry.model.index.ForeignKeyIndex.ForeignKeyDomainIndex;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.Registry.TldType;
 import google.registry.request.Action;
+import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
 import google.registry.storage.drive.DriveConnection;
 import google.registry.util.NonFinalForTesting;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Supplier;
 import javax.inject.Inject;
 import org.joda.time.DateTime;
@@ -60,6 +83,11 @@ import org.joda.time.DateTime;
  *
  * <p>Each TLD's active domain names are exported as a newline-delimited flat text file with the
  * name TLD.txt into the domain-lists bucket. Note that this overwrites the files in place.
+ *
+ * <p>If the {@value #STREAMING_PARAM} parameter is set, the lists are instead built in the request
+ * from a keys-only scan of the active {@link ForeignKeyDomainIndex} entities, with no mapreduce and
+ * no domain entity loads. Each TLD's list is then compared to its previous export, so that the GCS
+ * file is only rewritten when the list has changed, and the TLDs are exported in parallel.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -68,6 +96,8 @@ import org.joda.time.DateTime;
     auth = Auth.AUTH_INTERNAL_ONLY)
 public class ExportDomainListsAction implements Runnable {
 
+  public static final String STREAMING_PARAM = "streaming";
+
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final int MAX_NUM_REDUCE_SHARDS = 100;
 
@@ -75,12 +105,25 @@ public class ExportDomainListsAction implements Runnable {
   @Inject Response response;
   @Inject @Config("domainListsGcsBucket") String gcsBucket;
   @Inject @Config("gcsBufferSize") int gcsBufferSize;
+  @Inject @Parameter(STREAMING_PARAM) boolean streaming;
+  @Inject GcsUtils gcsUtils;
+  @Inject Lazy<DriveConnection> driveConnection;
+  @Inject @DomainListsExecutor ListeningExecutorService executor;
   @Inject ExportDomainListsAction() {}
 
+  /** Number of foreign key index keys fetched by each query in streaming mode. */
+  @NonFinalForTesting
+  @VisibleForTesting
+  int keysBatchSize = 1000;
+
   @Override
   public void run() {
     ImmutableSet<String> realTlds = getTldsOfType(TldType.REAL);
     logger.atInfo().log("Exporting domain lists for tlds %s", realTlds);
+    if (streaming) {
+      runStreamingExport(realTlds);
+      return;
+    }
     mrRunner
         .setJobName("Export domain lists")
         .setModuleName("backend")
@@ -92,6 +135,143 @@ public class ExportDomainListsAction implements Runnable {
         .sendLinkToMapreduceConsole(response);
   }
 
+  private void runStreamingExport(ImmutableSet<String> realTlds) {
+    Map<String, List<String>> domainsByTld =
+        loadActiveDomainNamesByTld(realTlds, DateTime.now(UTC));
+    List<ListenableFuture<?>> futures = new ArrayList<>();
+    try {
+      for (Map.Entry<String, List<String>> entry : domainsByTld.entrySet()) {
+        String tld = entry.getKey();
+        ImmutableList<String> domains = ImmutableList.sortedCopyOf(entry.getValue());
+        futures.add(executor.submit(() -> exportTld(tld, domains)));
+      }
+      Futures.allAsList(futures).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while exporting domain lists", e);
+    } catch (ExecutionException e) {
+      throwIfUnchecked(e.getCause());
+      throw new RuntimeException("Error exporting domain lists", e.getCause());
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+    response.setPayload(String.format("Exported domain lists for %d TLDs", domainsByTld.size()));
+  }
+
+  /**
+   * Returns the names of the domains that are active at the given time, grouped by TLD, for the
+   * given TLDs only.
+   *
+   * <p>A domain's foreign key index has the same deletion time as the domain, and is keyed on its
+   * name, so a keys-only query filtered on the indexed deletion time is enough to list the active
+   * names. The query is run in batches, each resumed from the cursor where the previous one ended,
+   * so that no single query stays open long enough to expire however many domains there are.
+   */
+  private Map<String, List<String>> loadActiveDomainNamesByTld(
+      ImmutableSet<String> tlds, DateTime now) {
+    Map<String, List<String>> domainsByTld = new HashMap<>();
+    Query<ForeignKeyDomainIndex> query =
+        ofy()
+            .load()
+            .type(ForeignKeyDomainIndex.class)
+            .filter("deletionTime >", now)
+            .limit(keysBatchSize)
+            .chunk(keysBatchSize);
+    Cursor cursor = null;
+    int numKeysInBatch;
+    do {
+      QueryResultIterator<Key<ForeignKeyDomainIndex>> keys =
+          ((cursor == null) ? query : query.startAt(cursor)).keys().iterator();
+      numKeysInBatch = 0;
+      while (keys.hasNext()) {
+        String domainName = keys.next().getName();
+        numKeysInBatch++;
+        // Domains are always registered directly under their TLD.
+        String tld = domainName.substring(domainName.indexOf('.') + 1);
+        if (tlds.contains(tld)) {
+          domainsByTld.computeIfAbsent(tld, unused -> new ArrayList<>()).add(domainName);
+        }
+      }
+      cursor = keys.getCursor();
+    } while (numKeysInBatch == keysBatchSize);
+    return domainsByTld;
+  }
+
+  private void exportTld(String tld, ImmutableList<String> domains) {
+    String domainsList = Joiner.on('\n').join(domains);
+    ImmutableSet<String> currentDomains = ImmutableSet.copyOf(domains);
+    Optional<ImmutableSet<String>> previousDomains = readPreviousExport(tld);
+    if (previousDomains.isPresent() && previousDomains.get().equals(currentDomains)) {
+      logger.atInfo().log("Domain list for TLD %s is unchanged; not rewriting it to GCS.", tld);
+    } else {
+      previousDomains.ifPresent(
+          previous ->
+              logger.atInfo().log(
+                  "Domain list for TLD %s has %d added and %d removed domains.",
+                  tld,
+                  Sets.difference(currentDomains, previous).size(),
+                  Sets.difference(previous, currentDomains).size()));
+      logger.atInfo().log("Exporting %d domains for TLD %s to GCS.", domains.size(), tld);
+      exportToGcs(gcsUtils, gcsBucket, tld, domainsList);
+    }
+    // Drive is always written, since an earlier failure there isn't reflected in the GCS file.
+    exportToDrive(driveConnection.get(), tld, domainsList);
+  }
+
+  /** Returns the names in the previous export of a TLD's list, or empty if there is none. */
+  private Optional<ImmutableSet<String>> readPreviousExport(String tld) {
+    GcsFilename filename = new GcsFilename(gcsBucket, tld + ".txt");
+    if (!gcsUtils.existsAndNotEmpty(filename)) {
+      return Optional.empty();
+    }
+    try (InputStream gcsInput = gcsUtils.openInputStream(filename)) {
+      return Optional.of(
+          ImmutableSet.copyOf(
+              Splitter.on('\n').split(new String(ByteStreams.toByteArray(gcsInput), UTF_8))));
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log(
+          "Error reading previous domain list for TLD %s; it will be rewritten.", tld);
+      return Optional.empty();
+    }
+  }
+
+  private static void exportToDrive(DriveConnection driveConnection, String tld, String domains) {
+    verifyNotNull(driveConnection, "expecting non-null driveConnection");
+    try {
+      Registry registry = Registry.get(tld);
+      if (registry.getDriveFolderId() == null) {
+        logger.atInfo().log(
+            "Skipping registered domains export for TLD %s because Drive folder isn't specified",
+            tld);
+      } else {
+        String resultMsg =
+            driveConnection.createOrUpdateFile(
+                ExportDomainListsReducer.REGISTERED_DOMAINS_FILENAME,
+                ExportDomainListsReducer.EXPORT_MIME_TYPE,
+                registry.getDriveFolderId(),
+                domains.getBytes(UTF_8));
+        logger.atInfo().log(
+            "Exporting registered domains succeeded for TLD %s, response was: %s",
+            tld, resultMsg);
+      }
+    } catch (Throwable e) {
+      logger.atSevere().withCause(e).log(
+          "Error exporting registered domains for TLD %s to Drive", tld);
+    }
+  }
+
+  private static void exportToGcs(
+      GcsUtils cloudStorage, String gcsBucket, String tld, String domains) {
+    GcsFilename filename = new GcsFilename(gcsBucket, tld + ".txt");
+    try (OutputStream gcsOutput = cloudStorage.openOutputStream(filename);
+        Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
+      osWriter.write(domains);
+    } catch (IOException e) {
+      logger.atSevere().withCause(e).log(
+          "Error exporting registered domains for TLD %s to GCS.", tld);
+    }
+  }
+
   static class ExportDomainListsMapper extends Mapper<DomainBase, String, String> {
 
     private static final long serialVersionUID = -7312206212434039854L;
@@ -148,42 +328,14 @@ public class ExportDomainListsAction implements Runnable {
     }
 
     private void exportToDrive(String tld, String domains) {
-      verifyNotNull(driveConnection, "expecting non-null driveConnection");
-      try {
-        Registry registry = Registry.get(tld);
-        if (registry.getDriveFolderId() == null) {
-          logger.atInfo().log(
-              "Skipping registered domains export for TLD %s because Drive folder isn't specified",
-              tld);
-        } else {
-          String resultMsg =
-              driveConnection.createOrUpdateFile(
-                  REGISTERED_DOMAINS_FILENAME,
-                  EXPORT_MIME_TYPE,
-                  registry.getDriveFolderId(),
-                  domains.getBytes(UTF_8));
-          logger.atInfo().log(
-              "Exporting registered domains succeeded for TLD %s, response was: %s",
-              tld, resultMsg);
-        }
-      } catch (Throwable e) {
-        logger.atSevere().withCause(e).log(
-            "Error exporting registered domains for TLD %s to Drive", tld);
-      }
+      ExportDomainListsAction.exportToDrive(driveConnection, tld, domains);
       getContext().incrementCounter("domain lists written out to Drive");
     }
 
     private void exportToGcs(String tld, String domains) {
-      GcsFilename filename = new GcsFilename(gcsBucket, tld + ".txt");
       GcsUtils cloudStorage =
           new GcsUtils(createGcsService(RetryParams.getDefaultInstance()), gcsBufferSize);
-      try (OutputStream gcsOutput = cloudStorage.openOutputStream(filename);
-          Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
-        osWriter.write(domains);
-      } catch (IOException e) {
-        logger.atSevere().withCause(e).log(
-            "Error exporting registered domains for TLD %s to GCS.", tld);
-      }
+      ExportDomainListsAction.exportToGcs(cloudStorage, gcsBucket, tld, domains);
       getContext().incrementCounter("domain lists written out to GCS");
     }
 
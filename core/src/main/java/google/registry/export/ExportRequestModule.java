@@ -14,11 +14,14 @@
 
 package google.registry.export;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static google.registry.export.BigqueryPollJobAction.CHAINED_TASK_QUEUE_HEADER;
 import static google.registry.export.BigqueryPollJobAction.JOB_ID_HEADER;
 import static google.registry.export.BigqueryPollJobAction.PROJECT_ID_HEADER;
 import static google.registry.export.CheckBackupAction.CHECK_BACKUP_KINDS_TO_LOAD_PARAM;
 import static google.registry.export.CheckBackupAction.CHECK_BACKUP_NAME_PARAM;
+import static google.registry.export.ExportDomainListsAction.STREAMING_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_DATASET_ID_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_KIND_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_TABLE_ID_PARAM;
@@ -26,19 +29,32 @@ import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_VI
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_FOLDER_PARAM;
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_ID_PARAM;
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_KINDS_PARAM;
+import static google.registry.request.RequestParameters.extractBooleanParameter;
 import static google.registry.request.RequestParameters.extractRequiredHeader;
 import static google.registry.request.RequestParameters.extractRequiredParameter;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
+import com.google.common.util.concurrent.ListeningExecutorService;
 import dagger.Module;
 import dagger.Provides;
 import google.registry.request.Header;
 import google.registry.request.Parameter;
+import java.lang.annotation.Documented;
+import javax.inject.Qualifier;
 import javax.servlet.http.HttpServletRequest;
 
 /** Dagger module for data export tasks. */
 @Module
 public final class ExportRequestModule {
 
+  /** Dagger qualifier for the executor that exports the domain lists of TLDs in parallel. */
+  @Qualifier
+  @Documented
+  @interface DomainListsExecutor {}
+
+  /** Number of threads in the domain lists executor, and so of TLDs exported at the same time. */
+  private static final int NUM_DOMAIN_LISTS_THREADS = 10;
+
   @Provides
   @Parameter(UPDATE_SNAPSHOT_DATASET_ID_PARAM)
   static String provideUpdateSnapshotDatasetId(HttpServletRequest req) {
@@ -93,6 +109,19 @@ public final class ExportRequestModule {
     return extractRequiredParameter(req, CHECK_BACKUP_KINDS_TO_LOAD_PARAM);
   }
 
+  @Provides
+  @Parameter(STREAMING_PARAM)
+  static boolean provideStreaming(HttpServletRequest req) {
+    return extractBooleanParameter(req, STREAMING_PARAM);
+  }
+
+  @Provides
+  @DomainListsExecutor
+  static ListeningExecutorService provideDomainListsExecutor() {
+    return listeningDecorator(
+        newFixedThreadPool(NUM_DOMAIN_LISTS_THREADS, currentRequestThreadFactory()));
+  }
+
   @Provides
   @Header(CHAINED_TASK_QUEUE_HEADER)
   static String provideChainedTaskQueue(HttpServletRequest req) {
@@ -0,0 +1,363 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import google.registry.model.domain.DomainCommand;
+import google.registry.model.domain.Period;
+import google.registry.model.domain.fee.FeeExtensionCommandDescriptor;
+import google.registry.model.domain.fee.FeeQueryCommandExtensionItem.CommandName;
+import google.registry.model.domain.fee06.FeeCheckCommandExtensionItemV06;
+import google.registry.model.domain.fee06.FeeCheckCommandExtensionV06;
+import google.registry.model.domain.launch.LaunchCheckExtension;
+import google.registry.model.domain.launch.LaunchCheckExtension.CheckType;
+import google.registry.model.domain.launch.LaunchPhase;
+import google.registry.model.eppinput.EppInput;
+import google.registry.model.eppinput.EppInput.CommandExtension;
+import google.registry.model.eppinput.EppInput.CommandWrapper;
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.joda.money.CurrencyUnit;
+
+/**
+ * A streaming parser for simple domain check commands, which are by far the most frequent EPP
+ * commands, that builds the same {@link EppInput} as JAXB would without its unmarshalling and
+ * schema validation overhead.
+ *
+ * <p>Only a conservative subset of valid domain check commands is understood: domain names, an
+ * optional client transaction ID, and the version 0.6 fee and launch (claims or availability check)
+ * extensions. Every value is checked against the constraints of the EPP schemas. Any input outside
+ * of that subset, whether or not it is valid, is rejected so that the caller can fall back to
+ * {@link FlowUtils#unmarshalEpp}, which will then produce the same result or error as it always
+ * has.
+ */
+public final class DomainCheckFastPathParser {
+
+  private static final String EPP_NS = "urn:ietf:params:xml:ns:epp-1.0";
+  private static final String DOMAIN_NS = "urn:ietf:params:xml:ns:domain-1.0";
+  private static final String FEE_06_NS = "urn:ietf:params:xml:ns:fee-0.6";
+  private static final String LAUNCH_NS = "urn:ietf:params:xml:ns:launch-1.0";
+
+  /** Whitespace as defined by the XML spec, which the schema's token type forbids at the ends. */
+  private static final CharMatcher XML_WHITESPACE = CharMatcher.anyOf(" \t\r\n");
+
+  private static final CharMatcher CURRENCY_CODE_CHARS = CharMatcher.inRange('A', 'Z');
+
+  private static final CharMatcher PERIOD_DIGITS = CharMatcher.inRange('0', '9');
+
+  private static final ImmutableMap<String, CheckType> LAUNCH_CHECK_TYPES =
+      ImmutableMap.of("claims", CheckType.CLAIMS, "avail", CheckType.AVAILABILITY);
+
+  private static final ImmutableSet<String> LAUNCH_PHASES =
+      ImmutableSet.of("sunrise", "landrush", "claims", "open", "custom");
+
+  private static final ImmutableMap<String, Period.Unit> PERIOD_UNITS =
+      ImmutableMap.of("y", Period.Unit.YEARS, "m", Period.Unit.MONTHS);
+
+  private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
+  private DomainCheckFastPathParser() {}
+
+  /**
+   * Returns the {@link EppInput} for the given XML if it is a domain check command that this
+   * parser understands, or empty if it must be unmarshalled by JAXB instead.
+   */
+  public static Optional<EppInput> parse(byte[] inputXmlBytes) {
+    XMLStreamReader reader = null;
+    try {
+      reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(inputXmlBytes));
+      EppInput eppInput = parseEpp(reader);
+      // Read to the end so that malformed trailing content is rejected, as JAXB would reject it.
+      while (reader.hasNext()) {
+        reader.next();
+      }
+      return Optional.of(eppInput);
+    } catch (XMLStreamException | UnsupportedInputException e) {
+      return Optional.empty();
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // Nothing to release for an in-memory stream.
+        }
+      }
+    }
+  }
+
+  private static EppInput parseEpp(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    // nextTag() skips whitespace and comments, and throws on anything else that isn't a tag, such
+    // as a DTD or stray text.
+    reader.nextTag();
+    checkStartElement(reader, EPP_NS, "epp");
+    reader.nextTag();
+    checkStartElement(reader, EPP_NS, "command");
+    reader.nextTag();
+    checkStartElement(reader, EPP_NS, "check");
+    reader.nextTag();
+    checkStartElement(reader, DOMAIN_NS, "check");
+    ImmutableList.Builder<String> domainNames = new ImmutableList.Builder<>();
+    reader.nextTag();
+    do {
+      checkStartElement(reader, DOMAIN_NS, "name");
+      domainNames.add(readToken(reader, 1, 255));
+    } while (reader.nextTag() == START_ELEMENT);
+    // The end of the <domain:check> element, and then that of <check>.
+    checkSupported(reader.nextTag() == END_ELEMENT);
+
+    ImmutableList<CommandExtension> extensions = null;
+    String clTrid = null;
+    int event = reader.nextTag();
+    if (event == START_ELEMENT && isElement(reader, EPP_NS, "extension")) {
+      checkNoAttributes(reader);
+      extensions = parseExtensions(reader);
+      event = reader.nextTag();
+    }
+    if (event == START_ELEMENT && isElement(reader, EPP_NS, "clTRID")) {
+      checkNoAttributes(reader);
+      clTrid = readToken(reader, 3, 64);
+      event = reader.nextTag();
+    }
+    // The end of the <command> element, and then that of <epp>.
+    checkSupported(event == END_ELEMENT);
+    checkSupported(reader.nextTag() == END_ELEMENT);
+    return EppInput.create(
+        CommandWrapper.create(
+            EppInput.Check.create(DomainCommand.Check.create(domainNames.build())),
+            extensions,
+            clTrid));
+  }
+
+  private static ImmutableList<CommandExtension> parseExtensions(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    ImmutableList.Builder<CommandExtension> extensions = new ImmutableList.Builder<>();
+    // The schema requires at least one extension.
+    reader.nextTag();
+    do {
+      if (isElement(reader, FEE_06_NS, "check")) {
+        extensions.add(parseFeeCheck(reader));
+      } else if (isElement(reader, LAUNCH_NS, "check")) {
+        extensions.add(parseLaunchCheck(reader));
+      } else {
+        throw new UnsupportedInputException();
+      }
+    } while (reader.nextTag() == START_ELEMENT);
+    return extensions.build();
+  }
+
+  private static FeeCheckCommandExtensionV06 parseFeeCheck(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    checkNoAttributes(reader);
+    // JAXB populates a HashSet, whose iteration order determines the order of the fee check
+    // response items. Filling one the same way keeps responses identical to the slow path.
+    Set<FeeCheckCommandExtensionItemV06> items = new HashSet<>();
+    reader.nextTag();
+    do {
+      checkStartElement(reader, FEE_06_NS, "domain");
+      items.add(parseFeeCheckItem(reader));
+    } while (reader.nextTag() == START_ELEMENT);
+    return FeeCheckCommandExtensionV06.create(items);
+  }
+
+  private static FeeCheckCommandExtensionItemV06 parseFeeCheckItem(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    reader.nextTag();
+    checkStartElement(reader, FEE_06_NS, "name");
+    String name = readToken(reader, 1, 255);
+
+    reader.nextTag();
+    CurrencyUnit currency = null;
+    if (isElement(reader, FEE_06_NS, "currency")) {
+      checkNoAttributes(reader);
+      currency = readCurrency(reader);
+      reader.nextTag();
+    }
+
+    checkSupported(isElement(reader, FEE_06_NS, "command"));
+    String phase = null;
+    String subphase = null;
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      checkSupported(isNullOrEmpty(reader.getAttributeNamespace(i)));
+      String value = reader.getAttributeValue(i);
+      checkSupported(XML_WHITESPACE.matchesNoneOf(value));
+      switch (reader.getAttributeLocalName(i)) {
+        case "phase":
+          phase = value;
+          break;
+        case "subphase":
+          subphase = value;
+          break;
+        default:
+          throw new UnsupportedInputException();
+      }
+    }
+    FeeExtensionCommandDescriptor command =
+        FeeExtensionCommandDescriptor.create(readCommandName(reader), phase, subphase);
+
+    Period period = null;
+    if (reader.nextTag() == START_ELEMENT) {
+      checkSupported(isElement(reader, FEE_06_NS, "period"));
+      period = readPeriod(reader);
+      reader.nextTag();
+    }
+    // The end of the <fee:domain> element.
+    checkSupported(reader.getEventType() == END_ELEMENT);
+    return FeeCheckCommandExtensionItemV06.create(name, currency, command, period);
+  }
+
+  private static LaunchCheckExtension parseLaunchCheck(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    CheckType type = null;
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      checkSupported(
+          isNullOrEmpty(reader.getAttributeNamespace(i))
+              && reader.getAttributeLocalName(i).equals("type"));
+      type = LAUNCH_CHECK_TYPES.get(reader.getAttributeValue(i));
+      checkSupported(type != null);
+    }
+    reader.nextTag();
+    checkSupported(isElement(reader, LAUNCH_NS, "phase"));
+    String subphase = null;
+    if (reader.getAttributeCount() > 0) {
+      checkSupported(
+          reader.getAttributeCount() == 1
+              && isNullOrEmpty(reader.getAttributeNamespace(0))
+              && reader.getAttributeLocalName(0).equals("name"));
+      subphase = reader.getAttributeValue(0);
+      checkSupported(XML_WHITESPACE.matchesNoneOf(subphase));
+    }
+    String phase = reader.getElementText();
+    checkSupported(LAUNCH_PHASES.contains(phase));
+    // The end of the <launch:check> element.
+    checkSupported(reader.nextTag() == END_ELEMENT);
+    return LaunchCheckExtension.create(type, LaunchPhase.create(phase, subphase));
+  }
+
+  /**
+   * Reads the text of an element of the schema's token type, and checks its length.
+   *
+   * <p>Values with leading, trailing or repeated whitespace are valid tokens, but JAXB doesn't
+   * normalize them, so they are rejected to avoid having to reproduce JAXB's exact behavior.
+   */
+  private static String readToken(XMLStreamReader reader, int minLength, int maxLength)
+      throws XMLStreamException, UnsupportedInputException {
+    String value = reader.getElementText();
+    int length = value.codePointCount(0, value.length());
+    checkSupported(
+        length >= minLength && length <= maxLength && XML_WHITESPACE.matchesNoneOf(value));
+    return value;
+  }
+
+  private static CurrencyUnit readCurrency(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    String value = reader.getElementText();
+    checkSupported(value.length() == 3 && CURRENCY_CODE_CHARS.matchesAllOf(value));
+    try {
+      return CurrencyUnit.of(value);
+    } catch (IllegalArgumentException e) {
+      // Let JAXB produce the usual error for unknown currencies.
+      throw new UnsupportedInputException();
+    }
+  }
+
+  private static CommandName readCommandName(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    String value = reader.getElementText();
+    // Unknown command names are valid XML but produce flow errors, which the slow path handles.
+    for (CommandName commandName : CommandName.values()) {
+      if (commandName != CommandName.UNKNOWN
+          && value.equals(Ascii.toLowerCase(commandName.name()))) {
+        return commandName;
+      }
+    }
+    throw new UnsupportedInputException();
+  }
+
+  private static Period readPeriod(XMLStreamReader reader)
+      throws XMLStreamException, UnsupportedInputException {
+    checkSupported(
+        reader.getAttributeCount() == 1
+            && isNullOrEmpty(reader.getAttributeNamespace(0))
+            && reader.getAttributeLocalName(0).equals("unit"));
+    Period.Unit unit = PERIOD_UNITS.get(reader.getAttributeValue(0));
+    checkSupported(unit != null);
+    String value = reader.getElementText();
+    checkSupported(
+        !value.isEmpty() && value.length() <= 2 && PERIOD_DIGITS.matchesAllOf(value));
+    int periodValue = Integer.parseInt(value);
+    // The schema limits periods to between 1 and 99 units.
+    checkSupported(periodValue >= 1);
+    return Period.create(periodValue, unit);
+  }
+
+  /** Checks that the reader is positioned on the given element, and that it has no attributes. */
+  private static void checkStartElement(XMLStreamReader reader, String namespace, String name)
+      throws UnsupportedInputException {
+    checkSupported(isElement(reader, namespace, name));
+    checkNoAttributes(reader);
+  }
+
+  private static boolean isElement(XMLStreamReader reader, String namespace, String name) {
+    return reader.getEventType() == START_ELEMENT
+        && name.equals(reader.getLocalName())
+        && namespace.equals(reader.getNamespaceURI());
+  }
+
+  private static void checkNoAttributes(XMLStreamReader reader) throws UnsupportedInputException {
+    checkSupported(reader.getAttributeCount() == 0);
+  }
+
+  private static boolean isNullOrEmpty(@Nullable String namespace) {
+    return namespace == null || namespace.isEmpty();
+  }
+
+  private static void checkSupported(boolean condition) throws UnsupportedInputException {
+    if (!condition) {
+      throw new UnsupportedInputException();
+    }
+  }
+
+  private static XMLInputFactory createXmlInputFactory() {
+    XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+    // Coalesce adjacent data, so that all text of an element is returned in one read.
+    xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    // Never process DTDs or fetch external entities; no valid EPP command needs them.
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return xmlInputFactory;
+  }
+
+  /** Thrown when the input isn't a command that this parser understands. */
+  private static class UnsupportedInputException extends Exception {
+    UnsupportedInputException() {
+      // Stack traces are never looked at, so skip the cost of filling them in.
+      super(null, null, false, false);
+    }
+  }
+}
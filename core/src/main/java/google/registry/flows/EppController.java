@@ -25,6 +25,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.flows.FlowModule.EppExceptionInProviderException;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppinput.EppInput;
@@ -51,6 +52,7 @@ public final class EppController {
   @Inject EppMetric.Builder eppMetricBuilder;
   @Inject EppMetrics eppMetrics;
   @Inject ServerTridProvider serverTridProvider;
+  @Inject @Config("domainCheckFastPathEnabled") boolean domainCheckFastPathEnabled;
   @Inject EppController() {}
 
   /** Reads EPP XML, executes the matching flow, and returns an {@link EppOutput}. */
@@ -65,7 +67,7 @@ public final class EppController {
     try {
       EppInput eppInput;
       try {
-        eppInput = unmarshalEpp(EppInput.class, inputXmlBytes);
+        eppInput = unmarshalEppInput(inputXmlBytes);
       } catch (EppException e) {
         // Log the unmarshalling error, with the raw bytes (in base64) to help with debugging.
         logger.atInfo().withCause(e).log(
@@ -123,6 +125,20 @@ public final class EppController {
     }
   }
 
+  /**
+   * Unmarshals EPP XML, using {@link DomainCheckFastPathParser} for simple domain checks if it is
+   * enabled, and JAXB for everything else.
+   */
+  private EppInput unmarshalEppInput(byte[] inputXmlBytes) throws EppException {
+    if (domainCheckFastPathEnabled) {
+      Optional<EppInput> eppInput = DomainCheckFastPathParser.parse(inputXmlBytes);
+      if (eppInput.isPresent()) {
+        return eppInput.get();
+      }
+    }
+    return unmarshalEpp(EppInput.class, inputXmlBytes);
+  }
+
   /** Runs an EPP flow and converts known exceptions into EPP error responses. */
   private EppOutput runFlowConvertEppErrors(FlowComponent flowComponent) {
     try {
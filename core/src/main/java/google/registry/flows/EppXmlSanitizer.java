@@ -16,6 +16,7 @@ package google.registry.flows;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.common.base.Ascii;
 import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
@@ -26,6 +27,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.xml.namespace.QName;
@@ -71,6 +74,22 @@ public class EppXmlSanitizer {
   private static final String CTRL_CHAR_MASK = "C";
   private static final String DEFAULT_MASK = "*";
 
+  /**
+   * Matches an element whose data should be sanitized, through to its end tag, or through to the
+   * end of the input if the end tag is missing. Self-closing elements are not matched.
+   *
+   * <p>Namespace prefixes may contain any XML name characters, including non-ASCII ones, so the
+   * prefix is matched as any run of characters that can't end a tag name.
+   */
+  private static final Pattern SENSITIVE_ELEMENT_PATTERN =
+      Pattern.compile(
+          "(<((?:[^\\s:<>/]+:)?(?:pw|newpw))(?:\\s[^>]*)?(?<!/)>)(.*?)(</\\2\\s*>|\\z)",
+          Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+  /** Matches the encoding declaration, if any, at the start of an XML document. */
+  private static final Pattern DECLARED_ENCODING_PATTERN =
+      Pattern.compile("^<\\?xml[^>]*\\sencoding\\s*=\\s*[\"']([^\"']+)[\"']");
+
   private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
   private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newFactory();
   private static final XMLEventFactory XML_EVENT_FACTORY = XMLEventFactory.newFactory();
@@ -95,6 +114,60 @@ public class EppXmlSanitizer {
     }
   }
 
+  /**
+   * Returns EPP XML with sensitive data masked, without parsing or reformatting the message.
+   *
+   * <p>This is a much cheaper alternative to {@link #sanitizeEppXml} for logging, and masks the
+   * data of the same elements with the same masking characters. Because the input isn't parsed,
+   * everything between the start and end tags of a sensitive element is masked, including any
+   * markup such as CDATA sections, and everything after a start tag without a matching end tag is
+   * masked. Other than that, the message is returned exactly as received.
+   *
+   * <p>Messages that aren't encoded in UTF-8 are passed to {@link #sanitizeEppXml} instead.
+   */
+  public static String sanitizeEppXmlWithoutParsing(byte[] inputXmlBytes) {
+    if (!isPlainUtf8(inputXmlBytes)) {
+      return sanitizeEppXml(inputXmlBytes);
+    }
+    String xml = new String(inputXmlBytes, StandardCharsets.UTF_8);
+    Matcher encodingMatcher = DECLARED_ENCODING_PATTERN.matcher(xml);
+    if (encodingMatcher.find()
+        && !Ascii.equalsIgnoreCase(encodingMatcher.group(1), StandardCharsets.UTF_8.name())) {
+      return sanitizeEppXml(inputXmlBytes);
+    }
+    Matcher matcher = SENSITIVE_ELEMENT_PATTERN.matcher(xml);
+    if (matcher.find()) {
+      StringBuffer sanitized = new StringBuffer(xml.length());
+      do {
+        matcher.appendReplacement(
+            sanitized,
+            Matcher.quoteReplacement(
+                matcher.group(1) + maskSensitiveData(matcher.group(3)) + matcher.group(4)));
+      } while (matcher.find());
+      xml = matcher.appendTail(sanitized).toString();
+    }
+    // Keep exactly one newline at end of sanitized string, as sanitizeEppXml does.
+    return CharMatcher.whitespace().trimTrailingFrom(xml) + "\n";
+  }
+
+  /**
+   * Returns whether the input can safely be treated as UTF-8 text without parsing it.
+   *
+   * <p>Input starting with a byte order mark is rejected, as is UTF-16 input without one, since
+   * that always contains a zero byte within its first characters.
+   */
+  private static boolean isPlainUtf8(byte[] bytes) {
+    if (bytes.length == 0 || (bytes[0] != '<' && !Character.isWhitespace(bytes[0]))) {
+      return false;
+    }
+    for (int i = 0; i < Math.min(bytes.length, 4); i++) {
+      if (bytes[i] == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static String sanitizeAndEncode(byte[] inputXmlBytes)
       throws XMLStreamException, UnsupportedEncodingException {
     XMLEventReader xmlEventReader =
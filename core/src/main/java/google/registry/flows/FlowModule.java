@@ -50,45 +50,45 @@ public class FlowModule {
   private FlowModule() {}
 
   /** Builder for {@link FlowModule}. */
-  static class Builder {
+  public static class Builder {
     FlowModule module = new FlowModule();
 
-    Builder setEppInput(EppInput eppInput) {
+    public Builder setEppInput(EppInput eppInput) {
       module.eppInput = eppInput;
       return this;
     }
 
-    Builder setInputXmlBytes(byte[] inputXmlBytes) {
+    public Builder setInputXmlBytes(byte[] inputXmlBytes) {
       module.inputXmlBytes = inputXmlBytes;
       return this;
     }
 
-    Builder setSessionMetadata(SessionMetadata sessionMetadata) {
+    public Builder setSessionMetadata(SessionMetadata sessionMetadata) {
       module.sessionMetadata = sessionMetadata;
       return this;
     }
 
-    Builder setIsDryRun(boolean isDryRun) {
+    public Builder setIsDryRun(boolean isDryRun) {
       module.isDryRun = isDryRun;
       return this;
     }
 
-    Builder setIsSuperuser(boolean isSuperuser) {
+    public Builder setIsSuperuser(boolean isSuperuser) {
       module.isSuperuser = isSuperuser;
       return this;
     }
 
-    Builder setEppRequestSource(EppRequestSource eppRequestSource) {
+    public Builder setEppRequestSource(EppRequestSource eppRequestSource) {
       module.eppRequestSource = eppRequestSource;
       return this;
     }
 
-    Builder setCredentials(TransportCredentials credentials) {
+    public Builder setCredentials(TransportCredentials credentials) {
       module.credentials = credentials;
       return this;
     }
 
-    FlowModule build() {
+    public FlowModule build() {
       try {
         checkState(module != null, "Already built");
         return module;
@@ -14,11 +14,15 @@
 
 package google.registry.flows;
 
+import static com.google.common.flogger.LazyArgs.lazy;
 import static google.registry.model.transaction.TransactionManagerFactory.tm;
 import static google.registry.xml.XmlTransformer.prettyPrint;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.flogger.FluentLogger;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.config.RegistryConfig.ConfigModule.EppCommandLogMode;
 import google.registry.flows.FlowModule.ClientId;
 import google.registry.flows.FlowModule.DryRun;
 import google.registry.flows.FlowModule.InputXml;
@@ -28,6 +32,8 @@ import google.registry.flows.session.LoginFlow;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppoutput.EppOutput;
 import google.registry.monitoring.whitebox.EppMetric;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 import javax.inject.Provider;
 
@@ -38,6 +44,13 @@ public class FlowRunner {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Placeholder logged instead of the command XML when the command isn't sampled. */
+  private static final String UNSAMPLED_XML_PLACEHOLDER = "(XML not logged due to sampling)";
+
+  /** Per-flow counts of commands run, for sampling which commands have their XML logged. */
+  private static final ConcurrentHashMap<String, AtomicLong> commandCountsForLogSampling =
+      new ConcurrentHashMap<>();
+
   @Inject @ClientId String clientId;
   @Inject TransportCredentials credentials;
   @Inject EppRequestSource eppRequestSource;
@@ -50,18 +63,19 @@ public class FlowRunner {
   @Inject SessionMetadata sessionMetadata;
   @Inject Trid trid;
   @Inject FlowReporter flowReporter;
+  @Inject @Config("eppCommandLogMode") EppCommandLogMode commandLogMode;
+  @Inject @Config("eppCommandLogSampling") ImmutableMap<String, Integer> commandLogSampling;
   @Inject FlowRunner() {}
 
   /** Runs the EPP flow, and records metrics on the given builder. */
   public EppOutput run(final EppMetric.Builder eppMetricBuilder) throws EppException {
-    String prettyXml = prettyPrint(EppXmlSanitizer.sanitizeEppXml(inputXmlBytes));
-
     logger.atInfo().log(
         COMMAND_LOG_FORMAT,
         trid.getServerTransactionId(),
         clientId,
         sessionMetadata,
-        prettyXml.replace("\n", "\n\t"),
+        // The XML is only sanitized and formatted if the log statement is actually emitted.
+        lazy(() -> isSampledForLogging() ? formatXmlForLog() : UNSAMPLED_XML_PLACEHOLDER),
         credentials,
         eppRequestSource,
         isDryRun ? "DRY_RUN" : "LIVE",
@@ -100,6 +114,28 @@ public class FlowRunner {
     }
   }
 
+  /** Returns the sanitized command XML, formatted according to the configured mode. */
+  private String formatXmlForLog() {
+    String xml =
+        (commandLogMode == EppCommandLogMode.PRETTY_PRINTED)
+            ? prettyPrint(EppXmlSanitizer.sanitizeEppXml(inputXmlBytes))
+            : EppXmlSanitizer.sanitizeEppXmlWithoutParsing(inputXmlBytes);
+    return xml.replace("\n", "\n\t");
+  }
+
+  /** Returns whether this command is among those of its flow sampled for logging. */
+  private boolean isSampledForLogging() {
+    String flowName = flowClass.getSimpleName();
+    Integer samplingRate = commandLogSampling.get(flowName);
+    if (samplingRate == null || samplingRate <= 1) {
+      return true;
+    }
+    long count =
+        commandCountsForLogSampling.computeIfAbsent(flowName, name -> new AtomicLong())
+            .getAndIncrement();
+    return count % samplingRate == 0;
+  }
+
   /** Exception for canceling a transaction while capturing what the output would have been. */
   private static class DryRunException extends RuntimeException {
     final EppOutput output;
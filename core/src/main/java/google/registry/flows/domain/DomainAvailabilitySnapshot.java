@@ -0,0 +1,115 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.domain;
+
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static google.registry.flows.domain.DomainFlowUtils.getReservationTypes;
+import static google.registry.flows.domain.DomainFlowUtils.isReserved;
+import static google.registry.model.EppResourceUtils.checkResourcesExist;
+import static google.registry.model.registry.Registry.TldState.START_DATE_SUNRISE;
+import static google.registry.model.registry.label.ReservationType.getTypeOfHighestSeverity;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.InternetDomainName;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.pricing.StaticPremiumListPricingEngine;
+import google.registry.model.registry.Registry;
+import google.registry.model.registry.Registry.TldState;
+import google.registry.model.registry.label.PremiumListUtils;
+import google.registry.model.registry.label.ReservationType;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.joda.time.DateTime;
+
+/**
+ * The availability of a batch of domain names at a point in time, loaded with as few Datastore
+ * reads as possible.
+ *
+ * <p>Existence of all names is checked with a single batched read of their foreign key indexes.
+ * Registry and reserved list lookups are served from in-memory caches. When prices will be needed,
+ * the premium list index of each TLD is loaded up front, if it isn't cached already, rather than
+ * later on in {@link DomainPricingLogic}.
+ */
+@AutoValue
+abstract class DomainAvailabilitySnapshot {
+
+  /**
+   * Why each unavailable name is unavailable, keyed by the name as given to {@link #load}, for
+   * names that exist or are reserved.
+   */
+  abstract ImmutableMap<String, String> unavailableReasons();
+
+  /**
+   * Loads the availability of the given domain names.
+   *
+   * @param domainNames the validated names to check, keyed by the names as requested
+   * @param prefetchPremiumPrices whether to load premium prices, because fees will be checked
+   * @param now the time of the check
+   */
+  static DomainAvailabilitySnapshot load(
+      ImmutableMap<String, InternetDomainName> domainNames,
+      boolean prefetchPremiumPrices,
+      DateTime now) {
+    Set<String> existingIds =
+        checkResourcesExist(DomainBase.class, domainNames.keySet().asList(), now);
+    ImmutableListMultimap<String, InternetDomainName> namesByTld =
+        domainNames.values().stream()
+            .collect(toImmutableListMultimap(name -> name.parent().toString(), name -> name));
+    ImmutableMap<String, TldState> tldStates =
+        namesByTld.keySet().stream()
+            .collect(toImmutableMap(tld -> tld, tld -> Registry.get(tld).getTldState(now)));
+    ImmutableMap.Builder<String, String> unavailableReasons = new ImmutableMap.Builder<>();
+    domainNames.forEach(
+        (targetId, domainName) ->
+            getUnavailableReason(domainName, existingIds, tldStates)
+                .ifPresent(reason -> unavailableReasons.put(targetId, reason)));
+    if (prefetchPremiumPrices) {
+      namesByTld.keySet().forEach(DomainAvailabilitySnapshot::prefetchPremiumPrices);
+    }
+    return new AutoValue_DomainAvailabilitySnapshot(unavailableReasons.build());
+  }
+
+  private static Optional<String> getUnavailableReason(
+      InternetDomainName domainName, Set<String> existingIds, Map<String, TldState> tldStates) {
+    if (existingIds.contains(domainName.toString())) {
+      return Optional.of("In use");
+    }
+    TldState tldState = tldStates.get(domainName.parent().toString());
+    if (isReserved(domainName, START_DATE_SUNRISE.equals(tldState))) {
+      ImmutableSet<ReservationType> reservationTypes = getReservationTypes(domainName);
+      if (!reservationTypes.isEmpty()) {
+        return Optional.of(getTypeOfHighestSeverity(reservationTypes).getMessageForCheck());
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Warms the premium list cache for a TLD that is priced by its premium list.
+   *
+   * <p>TLDs with a custom pricing engine are skipped, since they may not use premium lists at all.
+   */
+  private static void prefetchPremiumPrices(String tld) {
+    Registry registry = Registry.get(tld);
+    if (StaticPremiumListPricingEngine.NAME.equals(registry.getPremiumPricingEngineClassName())) {
+      PremiumListUtils.prefetchPremiumPrices(registry);
+    }
+  }
+}
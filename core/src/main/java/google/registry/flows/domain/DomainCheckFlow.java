@@ -18,20 +18,14 @@ import static com.google.common.base.Strings.emptyToNull;
 import static google.registry.flows.FlowUtils.validateClientIsLoggedIn;
 import static google.registry.flows.ResourceFlowUtils.verifyTargetIdCount;
 import static google.registry.flows.domain.DomainFlowUtils.checkAllowedAccessToTld;
-import static google.registry.flows.domain.DomainFlowUtils.getReservationTypes;
 import static google.registry.flows.domain.DomainFlowUtils.handleFeeRequest;
-import static google.registry.flows.domain.DomainFlowUtils.isReserved;
 import static google.registry.flows.domain.DomainFlowUtils.validateDomainName;
 import static google.registry.flows.domain.DomainFlowUtils.validateDomainNameWithIdnTables;
 import static google.registry.flows.domain.DomainFlowUtils.verifyNotInPredelegation;
-import static google.registry.model.EppResourceUtils.checkResourcesExist;
-import static google.registry.model.registry.Registry.TldState.START_DATE_SUNRISE;
-import static google.registry.model.registry.label.ReservationType.getTypeOfHighestSeverity;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
 import com.google.common.net.InternetDomainName;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.flows.EppException;
@@ -46,7 +40,6 @@ import google.registry.flows.custom.DomainCheckFlowCustomLogic.BeforeResponsePar
 import google.registry.flows.custom.DomainCheckFlowCustomLogic.BeforeResponseReturnData;
 import google.registry.flows.domain.token.AllocationTokenDomainCheckResults;
 import google.registry.flows.domain.token.AllocationTokenFlowUtils;
-import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.DomainCommand.Check;
 import google.registry.model.domain.fee.FeeCheckCommandExtension;
 import google.registry.model.domain.fee.FeeCheckCommandExtensionItem;
@@ -61,13 +54,10 @@ import google.registry.model.eppoutput.CheckData.DomainCheckData;
 import google.registry.model.eppoutput.EppResponse;
 import google.registry.model.eppoutput.EppResponse.ResponseExtension;
 import google.registry.model.registry.Registry;
-import google.registry.model.registry.Registry.TldState;
-import google.registry.model.registry.label.ReservationType;
 import google.registry.model.reporting.IcannReportingTypes.ActivityReportField;
 import google.registry.util.Clock;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import javax.inject.Inject;
@@ -149,7 +139,11 @@ public final class DomainCheckFlow implements Flow {
             // TODO: Use as of date from fee extension v0.12 instead of now, if specified.
             .setAsOfDate(now)
             .build());
-    Set<String> existingIds = checkResourcesExist(DomainBase.class, targetIds, now);
+    DomainAvailabilitySnapshot availability =
+        DomainAvailabilitySnapshot.load(
+            domainNames,
+            eppInput.getSingleExtension(FeeCheckCommandExtension.class).isPresent(),
+            now);
     Optional<AllocationTokenExtension> allocationTokenExtension =
         eppInput.getSingleExtension(AllocationTokenExtension.class);
     Optional<AllocationTokenDomainCheckResults> tokenDomainCheckResults =
@@ -162,19 +156,13 @@ public final class DomainCheckFlow implements Flow {
                     now));
 
     ImmutableList.Builder<DomainCheck> checks = new ImmutableList.Builder<>();
-    ImmutableMap<String, TldState> tldStates =
-        Maps.toMap(seenTlds, tld -> Registry.get(tld).getTldState(now));
     ImmutableMap<InternetDomainName, String> domainCheckResults =
         tokenDomainCheckResults
             .map(AllocationTokenDomainCheckResults::domainCheckResults)
             .orElse(ImmutableMap.of());
     for (String targetId : targetIds) {
       Optional<String> message =
-          getMessageForCheck(
-              domainNames.get(targetId),
-              existingIds,
-              domainCheckResults,
-              tldStates);
+          getMessageForCheck(targetId, domainNames.get(targetId), availability, domainCheckResults);
       checks.add(DomainCheck.create(!message.isPresent(), targetId, message.orElse(null)));
     }
     Optional<AllocationToken> allocationToken =
@@ -193,19 +181,13 @@ public final class DomainCheckFlow implements Flow {
   }
 
   private Optional<String> getMessageForCheck(
+      String targetId,
       InternetDomainName domainName,
-      Set<String> existingIds,
-      ImmutableMap<InternetDomainName, String> tokenCheckResults,
-      Map<String, TldState> tldStates) {
-    if (existingIds.contains(domainName.toString())) {
-      return Optional.of("In use");
-    }
-    TldState tldState = tldStates.get(domainName.parent().toString());
-    if (isReserved(domainName, START_DATE_SUNRISE.equals(tldState))) {
-      ImmutableSet<ReservationType> reservationTypes = getReservationTypes(domainName);
-      if (!reservationTypes.isEmpty()) {
-        return Optional.of(getTypeOfHighestSeverity(reservationTypes).getMessageForCheck());
-      }
+      DomainAvailabilitySnapshot availability,
+      ImmutableMap<InternetDomainName, String> tokenCheckResults) {
+    String unavailableReason = availability.unavailableReasons().get(targetId);
+    if (unavailableReason != null) {
+      return Optional.of(unavailableReason);
     }
     return Optional.ofNullable(emptyToNull(tokenCheckResults.get(domainName)));
   }
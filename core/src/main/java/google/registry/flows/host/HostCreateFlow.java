@@ -48,6 +48,7 @@ import google.registry.model.eppoutput.CreateData.HostCreateData;
 import google.registry.model.eppoutput.EppResponse;
 import google.registry.model.host.HostCommand.Create;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.ofy.ObjectifyService;
@@ -139,6 +140,7 @@ public final class HostCreateFlow implements TransactionalFlow {
             newHost,
             historyBuilder.build(),
             ForeignKeyIndex.create(newHost, newHost.getDeletionTime()),
+            ActiveNameIndex.create(newHost),
             EppResourceIndex.create(Key.create(newHost)));
     if (superordinateDomain.isPresent()) {
       entitiesToSave =
@@ -57,6 +57,7 @@ import google.registry.model.host.HostCommand.Update;
 import google.registry.model.host.HostCommand.Update.AddRemove;
 import google.registry.model.host.HostCommand.Update.Change;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.reporting.HistoryEntry;
 import google.registry.model.reporting.IcannReportingTypes.ActivityReportField;
@@ -189,12 +190,14 @@ public final class HostUpdateFlow implements TransactionalFlow {
     verifyHasIpsIffIsExternal(command, existingHost, newHost);
     ImmutableSet.Builder<ImmutableObject> entitiesToSave = new ImmutableSet.Builder<>();
     entitiesToSave.add(newHost);
-    // Keep the {@link ForeignKeyIndex} for this host up to date.
+    // Keep the {@link ForeignKeyIndex} and {@link ActiveNameIndex} for this host up to date.
     if (isHostRename) {
       // Update the foreign key for the old host name and save one for the new host name.
       entitiesToSave.add(
           ForeignKeyIndex.create(existingHost, now),
-          ForeignKeyIndex.create(newHost, newHost.getDeletionTime()));
+          ForeignKeyIndex.create(newHost, newHost.getDeletionTime()),
+          ActiveNameIndex.create(newHost));
+      ActiveNameIndex.deleteIfCurrent(existingHost);
       updateSuperordinateDomains(existingHost, newHost);
     }
     enqueueTasks(existingHost, newHost);
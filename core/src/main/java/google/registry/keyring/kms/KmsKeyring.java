@@ -17,6 +17,7 @@ package google.registry.keyring.kms;
 import static com.google.common.base.CaseFormat.LOWER_HYPHEN;
 import static com.google.common.base.CaseFormat.UPPER_UNDERSCORE;
 import static com.google.common.base.Preconditions.checkState;
+import static google.registry.keyring.kms.KmsKeyringMetrics.recordSecretLookup;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 
@@ -24,8 +25,12 @@ import com.googlecode.objectify.Key;
 import google.registry.keyring.api.KeySerializer;
 import google.registry.keyring.api.Keyring;
 import google.registry.keyring.api.KeyringException;
+import google.registry.keyring.kms.KmsKeyringMetrics.SecretLookupOutcome;
 import google.registry.model.server.KmsSecret;
+import google.registry.model.server.KmsSecretRevision;
 import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import javax.inject.Inject;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyPair;
@@ -36,6 +41,10 @@ import org.bouncycastle.openpgp.PGPPublicKey;
  * A {@link Keyring} implementation which stores encrypted secrets in Datastore and decrypts them
  * using encryption keys stored in Cloud KMS.
  *
+ * <p>Secrets are decrypted and parsed once per revision. Each lookup still reads the {@link
+ * KmsSecret} pointer, so a new revision written by {@link KmsUpdater} is picked up on the next
+ * lookup, but the revision itself is only loaded and decrypted when it isn't cached already.
+ *
  * @see <a href="https://cloud.google.com/kms/docs/">Google Cloud Key Management Service
  *     Documentation</a>
  */
@@ -81,8 +90,23 @@ public class KmsKeyring implements Keyring {
     }
   }
 
+  /** A decrypted and parsed secret, along with the revision it came from. */
+  private static final class CachedSecret {
+
+    final Key<KmsSecretRevision> revision;
+    final Object value;
+
+    CachedSecret(Key<KmsSecretRevision> revision, Object value) {
+      this.revision = revision;
+      this.value = value;
+    }
+  }
+
   private final KmsConnection kmsConnection;
 
+  /** The latest decrypted revision of each secret, keyed by secret name. */
+  private final ConcurrentHashMap<String, CachedSecret> cachedSecrets = new ConcurrentHashMap<>();
+
   @Inject
   KmsKeyring(KmsConnection kmsConnection) {
     this.kmsConnection = kmsConnection;
@@ -163,41 +187,71 @@ public class KmsKeyring implements Keyring {
   public void close() {}
 
   private String getString(StringKeyLabel keyLabel) {
-    return KeySerializer.deserializeString(getDecryptedData(keyLabel.getLabel()));
+    return getSecret(keyLabel.getLabel(), KeySerializer::deserializeString);
   }
 
   private PGPKeyPair getKeyPair(PrivateKeyLabel keyLabel) {
-    try {
-      return KeySerializer.deserializeKeyPair(getDecryptedData(keyLabel.getLabel()));
-    } catch (IOException | PGPException e) {
-      throw new KeyringException(
-          String.format("Could not parse private keyLabel %s", keyLabel), e);
-    }
+    return getSecret(
+        keyLabel.getLabel(),
+        data -> {
+          try {
+            return KeySerializer.deserializeKeyPair(data);
+          } catch (IOException | PGPException e) {
+            throw new KeyringException(
+                String.format("Could not parse private keyLabel %s", keyLabel), e);
+          }
+        });
   }
 
   private PGPPublicKey getPublicKey(PublicKeyLabel keyLabel) {
-    try {
-      return KeySerializer.deserializePublicKey(getDecryptedData(keyLabel.getLabel()));
-    } catch (IOException e) {
-      throw new KeyringException(String.format("Could not parse public keyLabel %s", keyLabel), e);
-    }
+    return getSecret(
+        keyLabel.getLabel(),
+        data -> {
+          try {
+            return KeySerializer.deserializePublicKey(data);
+          } catch (IOException e) {
+            throw new KeyringException(
+                String.format("Could not parse public keyLabel %s", keyLabel), e);
+          }
+        });
   }
 
   private PGPPrivateKey getPrivateKey(PrivateKeyLabel keyLabel) {
     return getKeyPair(keyLabel).getPrivateKey();
   }
 
-  private byte[] getDecryptedData(String keyName) {
+  /**
+   * Returns the latest revision of a secret, decrypting and parsing it only if that revision isn't
+   * cached.
+   *
+   * <p>Each secret must always be requested with the same parser, since the parsed value is what
+   * gets cached.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T getSecret(String keyName, Function<byte[], T> parser) {
     KmsSecret secret =
         ofy().load().key(Key.create(getCrossTldKey(), KmsSecret.class, keyName)).now();
     checkState(secret != null, "Requested secret '%s' does not exist.", keyName);
+    Key<KmsSecretRevision> revision = secret.getLatestRevision();
+    CachedSecret cachedSecret = cachedSecrets.get(keyName);
+    if (cachedSecret != null && cachedSecret.revision.equals(revision)) {
+      recordSecretLookup(keyName, SecretLookupOutcome.HIT);
+      return (T) cachedSecret.value;
+    }
+    recordSecretLookup(keyName, SecretLookupOutcome.MISS);
+    T value = parser.apply(getDecryptedData(secret));
+    cachedSecrets.put(keyName, new CachedSecret(revision, value));
+    return value;
+  }
+
+  private byte[] getDecryptedData(KmsSecret secret) {
     String encryptedData = ofy().load().key(secret.getLatestRevision()).now().getEncryptedValue();
 
     try {
       return kmsConnection.decrypt(secret.getName(), encryptedData);
     } catch (Exception e) {
       throw new KeyringException(
-          String.format("CloudKMS decrypt operation failed for secret %s", keyName), e);
+          String.format("CloudKMS decrypt operation failed for secret %s", secret.getName()), e);
     }
   }
 }
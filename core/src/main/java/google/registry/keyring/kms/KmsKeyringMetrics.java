@@ -0,0 +1,53 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.keyring.kms;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+
+/** Instrumentation for the decrypted secret cache in {@link KmsKeyring}. */
+class KmsKeyringMetrics {
+
+  /** Possible outcomes of a secret lookup. */
+  enum SecretLookupOutcome {
+    /** The latest revision of the secret was already decrypted, so Cloud KMS wasn't called. */
+    HIT,
+
+    /** The latest revision of the secret wasn't cached, so it was decrypted with Cloud KMS. */
+    MISS
+  }
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("secret", "Name of the requested secret."),
+          LabelDescriptor.create("outcome", "Whether the decrypted secret was cached."));
+
+  /** Metric counting secret lookups, by secret and outcome. */
+  @VisibleForTesting
+  static final IncrementableMetric secretLookups =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/keyring/kms/secret_lookups",
+              "Count of KMS keyring secret lookups",
+              "count",
+              LABEL_DESCRIPTORS);
+
+  static void recordSecretLookup(String secretName, SecretLookupOutcome outcome) {
+    secretLookups.increment(secretName, outcome.name());
+  }
+}
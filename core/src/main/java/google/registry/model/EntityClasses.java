@@ -16,6 +16,7 @@ package google.registry.model;
 
 import com.google.common.collect.ImmutableSet;
 import google.registry.model.billing.BillingEvent;
+import google.registry.model.common.CrossTldChangeTime;
 import google.registry.model.common.Cursor;
 import google.registry.model.common.EntityGroupRoot;
 import google.registry.model.common.GaeUserIdConverter;
@@ -23,6 +24,7 @@ import google.registry.model.contact.ContactResource;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.token.AllocationToken;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.EppResourceIndexBucket;
 import google.registry.model.index.ForeignKeyIndex;
@@ -55,6 +57,8 @@ public final class EntityClasses {
   /** Set of entity classes. */
   public static final ImmutableSet<Class<? extends ImmutableObject>> ALL_CLASSES =
       ImmutableSet.of(
+          ActiveNameIndex.ActiveDomainNameIndex.class,
+          ActiveNameIndex.ActiveHostNameIndex.class,
           AllocationToken.class,
           BillingEvent.Cancellation.class,
           BillingEvent.Modification.class,
@@ -69,6 +73,7 @@ public final class EntityClasses {
           CommitLogManifest.class,
           CommitLogMutation.class,
           ContactResource.class,
+          CrossTldChangeTime.class,
           Cursor.class,
           DomainBase.class,
           EntityGroupRoot.class,
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static google.registry.model.domain.DomainBase.extendRegistrationWithCap;
 import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.model.transaction.TransactionManagerFactory.tm;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -30,6 +31,7 @@ import google.registry.model.contact.ContactResource;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.model.eppcommon.Trid;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.poll.PendingActionNotificationResponse;
 import google.registry.model.poll.PendingActionNotificationResponse.ContactPendingActionNotificationResponse;
@@ -104,10 +106,14 @@ public final class ResourceTransferUtils {
     checkState(eppResource instanceof ContactResource || eppResource instanceof DomainBase);
   }
 
-  /** Update the relevant {@link ForeignKeyIndex} to cache the new deletion time. */
+  /**
+   * Update the relevant {@link ForeignKeyIndex} to cache the new deletion time, and add or remove
+   * the name of the resource from the {@link ActiveNameIndex}.
+   */
   public static <R extends EppResource> void updateForeignKeyIndexDeletionTime(R resource) {
     if (resource instanceof ForeignKeyedEppResource) {
       ofy().save().entity(ForeignKeyIndex.create(resource, resource.getDeletionTime()));
+      ActiveNameIndex.update(resource, tm().getTransactionTime());
     }
   }
 
@@ -0,0 +1,136 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.common;
+
+import static google.registry.config.RegistryConfig.getCrossTldCacheInvalidationPollDuration;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.model.transaction.TransactionManagerFactory.tm;
+import static google.registry.util.DateTimeUtils.START_OF_TIME;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import google.registry.util.Clock;
+import google.registry.util.NonFinalForTesting;
+import google.registry.util.SystemClock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * Invalidates in-memory caches of entities in the cross-TLD entity group soon after any of them
+ * change.
+ *
+ * <p>Every commit-logged write to an entity in the cross-tld entity group also saves a {@link
+ * CrossTldChangeTime} with the time of the transaction. That time therefore changes whenever a
+ * {@code Registry}, {@code Registrar}, {@code PremiumList}, {@code ReservedList} or any other entity
+ * in the group does. Cached accessors call {@link #checkForChanges} before reading from their
+ * cache. At most once per poll interval, one caller on each instance reads the change time by key,
+ * and if it has moved since the last poll, all registered caches are invalidated.
+ *
+ * <p>This allows these caches to be kept for hours, while changes made with commands such as
+ * {@code update_tld} are still picked up within seconds. Writes to other entities in the group,
+ * such as {@link Cursor}, also invalidate the caches. These are infrequent enough not to matter.
+ */
+public final class CrossTldCacheInvalidator {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  @NonFinalForTesting
+  private static Clock clock = new SystemClock();
+
+  @NonFinalForTesting
+  private static Duration pollInterval = getCrossTldCacheInvalidationPollDuration();
+
+  private static final Map<String, Runnable> invalidators = new ConcurrentHashMap<>();
+
+  /** The earliest time at which the change time should be read again, in millis. */
+  private static final AtomicLong nextPollMillis = new AtomicLong();
+
+  /** The change time as of the last poll, or null if it hasn't been read yet. */
+  private static volatile DateTime lastChangeTime;
+
+  private CrossTldCacheInvalidator() {}
+
+  /**
+   * Registers a cache to be invalidated when an entity in the cross-TLD entity group changes.
+   *
+   * @param cacheName a short name for the cache, used as a metric label
+   * @param invalidator a callback that invalidates all entries in the cache
+   */
+  public static void register(String cacheName, Runnable invalidator) {
+    invalidators.put(cacheName, invalidator);
+  }
+
+  /**
+   * Records a read from the named cache and, if a poll is due, invalidates all registered caches
+   * when the cross-TLD entity group has changed since the last poll.
+   *
+   * <p>This is a no-op besides the metric when the poll interval is configured to be zero.
+   */
+  public static void checkForChanges(String cacheName) {
+    CrossTldCacheMetrics.recordRequest(cacheName);
+    if (pollInterval.getMillis() == 0) {
+      return;
+    }
+    long nowMillis = clock.nowUtc().getMillis();
+    long pollMillis = nextPollMillis.get();
+    // Only the caller that wins the race to advance the next poll time reads the change time.
+    if (nowMillis < pollMillis
+        || !nextPollMillis.compareAndSet(pollMillis, nowMillis + pollInterval.getMillis())) {
+      return;
+    }
+    DateTime changeTime = loadChangeTime();
+    DateTime previousChangeTime = lastChangeTime;
+    lastChangeTime = changeTime;
+    // On the first poll there's no way of knowing what was cached before, so invalidate anyway.
+    if (!changeTime.equals(previousChangeTime)) {
+      logger.atInfo().log(
+          "Cross-TLD entity group changed at %s, invalidating caches %s.",
+          changeTime, invalidators.keySet());
+      invalidators.forEach(
+          (name, invalidator) -> {
+            invalidator.run();
+            CrossTldCacheMetrics.recordInvalidation(name);
+          });
+    }
+  }
+
+  /** Runs the given cache loader, recording how long it took to load the named cache. */
+  public static <T> T recordLoad(String cacheName, Supplier<T> loader) {
+    long startMillis = clock.nowUtc().getMillis();
+    try {
+      return loader.get();
+    } finally {
+      CrossTldCacheMetrics.recordLoad(cacheName, clock.nowUtc().getMillis() - startMillis);
+    }
+  }
+
+  private static DateTime loadChangeTime() {
+    // Enter a transactionless context briefly, so as not to enroll the entity in a transaction that
+    // might be wrapping this call.
+    CrossTldChangeTime changeTime =
+        tm().doTransactionless(() -> ofy().load().key(CrossTldChangeTime.createKey()).now());
+    return (changeTime == null) ? START_OF_TIME : changeTime.getChangeTime();
+  }
+
+  /** Makes the next call to {@link #checkForChanges} poll, regardless of the poll interval. */
+  @VisibleForTesting
+  static void pollOnNextCheckForTest() {
+    nextPollMillis.set(0);
+  }
+}
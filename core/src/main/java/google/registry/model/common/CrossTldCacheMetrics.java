@@ -0,0 +1,73 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.common;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+
+/**
+ * Instrumentation for the caches managed by {@link CrossTldCacheInvalidator}.
+ *
+ * <p>The hit rate of a cache is one minus its count of loads divided by its count of requests.
+ */
+class CrossTldCacheMetrics {
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("cache", "Name of the cache."));
+
+  /** Metric counting reads from each cache. */
+  @VisibleForTesting
+  static final IncrementableMetric cacheRequests =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/cache/cross_tld/requests", "Count of cache requests", "count", LABEL_DESCRIPTORS);
+
+  /** Metric recording the time taken by each load of a cache entry from Datastore. */
+  @VisibleForTesting
+  static final EventMetric cacheLoadTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/cache/cross_tld/load_time",
+              "Cache load time",
+              "milliseconds",
+              LABEL_DESCRIPTORS,
+              EventMetric.DEFAULT_FITTER);
+
+  /** Metric counting invalidations of each cache due to changes in Datastore. */
+  @VisibleForTesting
+  static final IncrementableMetric cacheInvalidations =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/cache/cross_tld/invalidations",
+              "Count of cache invalidations",
+              "count",
+              LABEL_DESCRIPTORS);
+
+  static void recordRequest(String cacheName) {
+    cacheRequests.increment(cacheName);
+  }
+
+  static void recordLoad(String cacheName, long durationMillis) {
+    cacheLoadTime.record(durationMillis, cacheName);
+  }
+
+  static void recordInvalidation(String cacheName) {
+    cacheInvalidations.increment(cacheName);
+  }
+}
@@ -0,0 +1,51 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.common;
+
+import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.annotation.Entity;
+import google.registry.model.annotations.NotBackedUp;
+import google.registry.model.annotations.NotBackedUp.Reason;
+import org.joda.time.DateTime;
+
+/**
+ * The time of the latest commit-logged write to the cross-tld entity group.
+ *
+ * <p>The {@link EntityGroupRoot} itself is never saved, so it can't be used to tell when the group
+ * changed. Instead, Ofy saves this entity, without a commit log, in every transaction that writes
+ * an entity in the group, which is what {@link CrossTldCacheInvalidator} polls.
+ */
+@Entity
+@NotBackedUp(reason = Reason.TRANSIENT)
+public class CrossTldChangeTime extends CrossTldSingleton {
+
+  DateTime changeTime;
+
+  public DateTime getChangeTime() {
+    return changeTime;
+  }
+
+  public static Key<CrossTldChangeTime> createKey() {
+    return Key.create(getCrossTldKey(), CrossTldChangeTime.class, SINGLETON_ID);
+  }
+
+  public static CrossTldChangeTime create(DateTime changeTime) {
+    CrossTldChangeTime instance = new CrossTldChangeTime();
+    instance.changeTime = changeTime;
+    return instance;
+  }
+}
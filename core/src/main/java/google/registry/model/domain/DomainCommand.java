@@ -41,6 +41,7 @@ import google.registry.model.eppinput.ResourceCommand.ResourceUpdate;
 import google.registry.model.eppinput.ResourceCommand.SingleResourceCommand;
 import google.registry.model.host.HostResource;
 import google.registry.model.index.ForeignKeyIndex;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -263,7 +264,13 @@ public class DomainCommand {
 
   /** A check request for {@link DomainBase}. */
   @XmlRootElement
-  public static class Check extends ResourceCheck {}
+  public static class Check extends ResourceCheck {
+    public static Check create(List<String> domainNames) {
+      Check instance = new Check();
+      instance.targetUniqueIds = domainNames;
+      return instance;
+    }
+  }
 
   /** A renew command for a {@link DomainBase}. */
   @XmlRootElement
@@ -44,7 +44,7 @@ public abstract class FeeQueryCommandExtensionItem extends ImmutableObject {
   static final Period DEFAULT_PERIOD = Period.create(1, Period.Unit.YEARS);
 
   /** The period for the command being checked. */
-  Period period;
+  protected Period period;
 
   /**
    * Three-character ISO4217 currency code.
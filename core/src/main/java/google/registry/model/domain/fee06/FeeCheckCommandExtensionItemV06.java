@@ -14,9 +14,11 @@
 
 package google.registry.model.domain.fee06;
 
+import google.registry.model.domain.Period;
 import google.registry.model.domain.fee.FeeCheckCommandExtensionItem;
 import google.registry.model.domain.fee.FeeExtensionCommandDescriptor;
 import java.util.Optional;
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlType;
 import org.joda.money.CurrencyUnit;
 import org.joda.time.DateTime;
@@ -81,4 +83,17 @@ public class FeeCheckCommandExtensionItemV06 extends FeeCheckCommandExtensionIte
   public Optional<DateTime> getEffectiveDate() {
     return Optional.empty();
   }
+
+  public static FeeCheckCommandExtensionItemV06 create(
+      String name,
+      @Nullable CurrencyUnit currency,
+      FeeExtensionCommandDescriptor command,
+      @Nullable Period period) {
+    FeeCheckCommandExtensionItemV06 instance = new FeeCheckCommandExtensionItemV06();
+    instance.name = name;
+    instance.currency = currency;
+    instance.command = command;
+    instance.period = period;
+    return instance;
+  }
 }
@@ -57,4 +57,10 @@ public class FeeCheckCommandExtensionV06 extends ImmutableObject
     }
     return FeeCheckResponseExtensionV06.create(builder.build());
   }
+
+  public static FeeCheckCommandExtensionV06 create(Set<FeeCheckCommandExtensionItemV06> items) {
+    FeeCheckCommandExtensionV06 instance = new FeeCheckCommandExtensionV06();
+    instance.items = items;
+    return instance;
+  }
 }
@@ -18,6 +18,7 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 
 import google.registry.model.ImmutableObject;
 import google.registry.model.eppinput.EppInput.CommandExtension;
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlEnumValue;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -79,4 +80,11 @@ public class LaunchCheckExtension extends ImmutableObject implements CommandExte
   public LaunchPhase getPhase() {
     return phase;
   }
+
+  public static LaunchCheckExtension create(@Nullable CheckType type, LaunchPhase phase) {
+    LaunchCheckExtension instance = new LaunchCheckExtension();
+    instance.type = type;
+    instance.phase = phase;
+    return instance;
+  }
 }
@@ -19,6 +19,7 @@ import static java.util.Objects.hash;
 import com.googlecode.objectify.annotation.Embed;
 import google.registry.model.ImmutableObject;
 import java.util.Objects;
+import javax.annotation.Nullable;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlValue;
 
@@ -67,8 +68,14 @@ public class LaunchPhase extends ImmutableObject {
 
   /** Private create function for the typesafe enum pattern. */
   public static LaunchPhase create(String phase) {
+    return create(phase, null);
+  }
+
+  /** Creates a launch phase with a sub-phase, or custom phase name, as read from EPP input. */
+  public static LaunchPhase create(String phase, @Nullable String subphase) {
     LaunchPhase instance = new LaunchPhase();
     instance.phase = phase;
+    instance.subphase = subphase;
     return instance;
   }
 
@@ -84,6 +84,13 @@ public class EppInput extends ImmutableObject {
     return commandWrapper;
   }
 
+  /** Creates an {@link EppInput} for a command that was parsed without JAXB. */
+  public static EppInput create(CommandWrapper commandWrapper) {
+    EppInput instance = new EppInput();
+    instance.commandWrapper = commandWrapper;
+    return instance;
+  }
+
   /**
    * Returns the EPP command name, defined as the name of the {@code InnerCommand} element within
    * the {@code <command>} element (e.g. "create" or "poll"), or "hello" for the hello command.
@@ -189,7 +196,13 @@ public class EppInput extends ImmutableObject {
   }
 
   /** Epp envelope wrapper for check on some objects. */
-  public static class Check extends ResourceCommandWrapper {}
+  public static class Check extends ResourceCommandWrapper {
+    public static Check create(ResourceCommand resourceCommand) {
+      Check instance = new Check();
+      instance.resourceCommand = resourceCommand;
+      return instance;
+    }
+  }
 
   /** Epp envelope wrapper for create of some object. */
   public static class Create extends ResourceCommandWrapper {}
@@ -377,6 +390,17 @@ public class EppInput extends ImmutableObject {
     public ImmutableList<CommandExtension> getExtensions() {
       return nullToEmptyImmutableCopy(extension);
     }
+
+    public static CommandWrapper create(
+        InnerCommand command,
+        @Nullable List<CommandExtension> extensions,
+        @Nullable String clTrid) {
+      CommandWrapper instance = new CommandWrapper();
+      instance.command = command;
+      instance.extension = extensions;
+      instance.clTRID = clTrid;
+      return instance;
+    }
   }
 
   /** Empty type to represent the empty "hello" command. */
@@ -74,7 +74,7 @@ public interface ResourceCommand {
     @XmlElements({
         @XmlElement(name = "id"),
         @XmlElement(name = "name") })
-    List<String> targetUniqueIds;
+    protected List<String> targetUniqueIds;
 
     public ImmutableList<String> getTargetIds() {
       return nullSafeImmutableCopy(targetUniqueIds);
@@ -0,0 +1,157 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.index;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.util.TypeUtils.instantiate;
+
+import com.google.common.collect.ImmutableMap;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.annotation.Entity;
+import com.googlecode.objectify.annotation.Id;
+import com.googlecode.objectify.annotation.Index;
+import google.registry.model.BackupGroupRoot;
+import google.registry.model.EppResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.host.HostResource;
+import org.joda.time.DateTime;
+
+/**
+ * Index of the names of active domains and hosts, for prefix searches by name.
+ *
+ * <p>There is one entity per active name, keyed by the name, so a query on a range of keys returns
+ * the active names beginning with a prefix in name order. The resources themselves can't be queried
+ * like this, because Datastore can't combine an inequality filter on the name with one on the
+ * deletion time, and deleted resources are never removed. Entries are saved by the flows that
+ * create, delete, restore and rename resources, alongside the {@link ForeignKeyIndex}, and removed
+ * once the resource is deleted.
+ *
+ * <p>A domain that is deleted with a pending delete period stays active until its deletion time, so
+ * its entry is kept until the domain is re-saved at that time. Readers must skip entries whose
+ * {@link #getDeletionTime} has passed.
+ */
+public abstract class ActiveNameIndex<E extends EppResource> extends BackupGroupRoot {
+
+  /** The {@link ActiveNameIndex} type for {@link DomainBase} entities. */
+  @Entity
+  public static class ActiveDomainNameIndex extends ActiveNameIndex<DomainBase> {
+
+    /** The TLD of the domain, so that searches can be limited to a single TLD. */
+    @Index String tld;
+
+    public String getTld() {
+      return tld;
+    }
+  }
+
+  /** The {@link ActiveNameIndex} type for {@link HostResource} entities. */
+  @Entity
+  public static class ActiveHostNameIndex extends ActiveNameIndex<HostResource> {}
+
+  static final ImmutableMap<Class<? extends EppResource>, Class<? extends ActiveNameIndex<?>>>
+      RESOURCE_CLASS_TO_INDEX_CLASS =
+          ImmutableMap.of(
+              DomainBase.class, ActiveDomainNameIndex.class,
+              HostResource.class, ActiveHostNameIndex.class);
+
+  /** The fully qualified name of the resource. */
+  @Id String name;
+
+  /** The deletion time of the resource, which is in the future if it is pending delete. */
+  DateTime deletionTime;
+
+  /** The resource with this name. */
+  Key<E> resource;
+
+  public String getName() {
+    return name;
+  }
+
+  public DateTime getDeletionTime() {
+    return deletionTime;
+  }
+
+  public Key<E> getResourceKey() {
+    return resource;
+  }
+
+  /** Returns whether names of the given resource type are indexed. */
+  public static boolean isIndexed(Class<? extends EppResource> resourceClass) {
+    return RESOURCE_CLASS_TO_INDEX_CLASS.containsKey(resourceClass);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T extends EppResource> Class<ActiveNameIndex<T>> mapToIndexClass(
+      Class<T> resourceClass) {
+    checkArgument(isIndexed(resourceClass), "Names of %s are not indexed", resourceClass);
+    return (Class<ActiveNameIndex<T>>) RESOURCE_CLASS_TO_INDEX_CLASS.get(resourceClass);
+  }
+
+  /** Creates an {@link ActiveNameIndex} instance for a domain or host. */
+  public static <E extends EppResource> ActiveNameIndex<E> create(E resource) {
+    @SuppressWarnings("unchecked")
+    Class<E> resourceClass = (Class<E>) resource.getClass();
+    ActiveNameIndex<E> instance = instantiate(mapToIndexClass(resourceClass));
+    instance.name = resource.getForeignKey();
+    instance.deletionTime = resource.getDeletionTime();
+    instance.resource = Key.create(resource);
+    if (instance instanceof ActiveDomainNameIndex) {
+      ((ActiveDomainNameIndex) instance).tld = ((DomainBase) resource).getTld();
+    }
+    return instance;
+  }
+
+  /** Creates an {@link ActiveNameIndex} key for a domain or host. */
+  public static <E extends EppResource> Key<ActiveNameIndex<E>> createKey(E resource) {
+    @SuppressWarnings("unchecked")
+    Class<E> resourceClass = (Class<E>) resource.getClass();
+    return Key.create(mapToIndexClass(resourceClass), resource.getForeignKey());
+  }
+
+  /**
+   * Saves the index entry for a domain or host that is active after {@code now}, or deletes it for
+   * one that isn't. Resources of other types are ignored.
+   *
+   * <p>The entry of a deleted resource is only deleted if it still refers to that resource, since
+   * the name may have been reused by a newer resource in the meantime.
+   *
+   * <p>This must be called in the transaction that saves the resource.
+   */
+  public static void update(EppResource resource, DateTime now) {
+    if (!isIndexed(resource.getClass())) {
+      return;
+    }
+    if (now.isBefore(resource.getDeletionTime())) {
+      ofy().save().entity(create(resource));
+      return;
+    }
+    deleteIfCurrent(resource);
+  }
+
+  /**
+   * Deletes the index entry under the name of a domain or host, but only if it still refers to that
+   * resource.
+   *
+   * <p>This must be called in the transaction that saves the resource.
+   */
+  public static void deleteIfCurrent(EppResource resource) {
+    Key<ActiveNameIndex<EppResource>> key = createKey(resource);
+    ActiveNameIndex<EppResource> index = ofy().load().key(key).now();
+    if (index != null && index.getResourceKey().equals(Key.create(resource))) {
+      ofy().delete().key(key);
+    }
+  }
+}
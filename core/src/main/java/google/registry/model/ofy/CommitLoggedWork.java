@@ -21,6 +21,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Maps.filterKeys;
 import static com.google.common.collect.Sets.difference;
 import static com.google.common.collect.Sets.union;
+import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.CommitLogBucket.loadBucket;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
@@ -30,6 +31,7 @@ import com.google.common.collect.ImmutableSet;
 import com.googlecode.objectify.Key;
 import google.registry.model.BackupGroupRoot;
 import google.registry.model.ImmutableObject;
+import google.registry.model.common.CrossTldChangeTime;
 import google.registry.model.transaction.TransactionManager.Work;
 import google.registry.util.Clock;
 import java.util.HashSet;
@@ -153,14 +155,17 @@ class CommitLoggedWork<R> implements Runnable {
             .stream()
             .map(entity -> (ImmutableObject) CommitLogMutation.create(manifestKey, entity))
             .collect(toImmutableSet());
-    ofy().saveWithoutBackup()
-      .entities(new ImmutableSet.Builder<>()
-          .add(manifest)
-          .add(bucket.asBuilder().setLastWrittenTime(info.transactionTime).build())
-          .addAll(mutations)
-          .addAll(untouchedRootsWithTouchedChildren)
-          .build())
-      .now();
+    ImmutableSet.Builder<Object> entitiesToSave =
+        new ImmutableSet.Builder<>()
+            .add(manifest)
+            .add(bucket.asBuilder().setLastWrittenTime(info.transactionTime).build())
+            .addAll(mutations)
+            .addAll(untouchedRootsWithTouchedChildren);
+    // Record that the cross-tld entity group changed, so that caches of its entities are reloaded.
+    if (touchedKeys.stream().anyMatch(key -> getCrossTldKey().equals(key.getRoot()))) {
+      entitiesToSave.add(CrossTldChangeTime.create(info.transactionTime));
+    }
+    ofy().saveWithoutBackup().entities(entitiesToSave.build()).now();
   }
 
   /** Check that the timestamp of each BackupGroupRoot is in the past. */
@@ -69,6 +69,7 @@ import google.registry.model.JsonMapBuilder;
 import google.registry.model.Jsonifiable;
 import google.registry.model.UpdateAutoTimestamp;
 import google.registry.model.annotations.ReportedOn;
+import google.registry.model.common.CrossTldCacheInvalidator;
 import google.registry.model.common.EntityGroupRoot;
 import google.registry.model.registrar.Registrar.BillingAccountEntry.CurrencyMapper;
 import google.registry.model.registry.Registry;
@@ -198,18 +199,38 @@ public class Registrar extends ImmutableObject implements Buildable, Jsonifiable
   private static final Comparator<RegistrarContact> CONTACT_EMAIL_COMPARATOR =
       comparing(RegistrarContact::getEmailAddress, String::compareTo);
 
+  private static final String CACHE_NAME = "registrar";
+
+  /** A caching {@link Supplier} of a clientId to {@link Registrar} map. */
+  private static volatile Supplier<ImmutableMap<String, Registrar>> cacheByClientId =
+      createFreshCache();
+
+  static {
+    CrossTldCacheInvalidator.register(CACHE_NAME, () -> cacheByClientId = createFreshCache());
+  }
+
   /**
-   * A caching {@link Supplier} of a clientId to {@link Registrar} map.
+   * Returns a newly-created caching {@link Supplier} of a clientId to {@link Registrar} map.
    *
    * <p>The supplier's get() method enters a transactionless context briefly to avoid enrolling the
    * query inside an unrelated client-affecting transaction.
    */
-  private static final Supplier<ImmutableMap<String, Registrar>> CACHE_BY_CLIENT_ID =
-      memoizeWithShortExpiration(
-          () ->
-              tm()
-                  .doTransactionless(
-                      () -> Maps.uniqueIndex(loadAll(), Registrar::getClientId)));
+  private static Supplier<ImmutableMap<String, Registrar>> createFreshCache() {
+    return memoizeWithShortExpiration(
+        () ->
+            CrossTldCacheInvalidator.recordLoad(
+                CACHE_NAME,
+                () ->
+                    tm()
+                        .doTransactionless(
+                            () -> Maps.uniqueIndex(loadAll(), Registrar::getClientId))));
+  }
+
+  /** Returns the cached clientId to {@link Registrar} map. */
+  private static ImmutableMap<String, Registrar> getCachedRegistrars() {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
+    return cacheByClientId.get();
+  }
 
   @Parent
   Key<EntityGroupRoot> parent = getCrossTldKey();
@@ -930,7 +951,7 @@ public class Registrar extends ImmutableObject implements Buildable, Jsonifiable
 
   /** Loads all registrar entities using an in-memory cache. */
   public static Iterable<Registrar> loadAllCached() {
-    return CACHE_BY_CLIENT_ID.get().values();
+    return getCachedRegistrars().values();
   }
 
   /** Loads and returns a registrar entity by its client id directly from Datastore. */
@@ -947,7 +968,7 @@ public class Registrar extends ImmutableObject implements Buildable, Jsonifiable
    */
   public static Optional<Registrar> loadByClientIdCached(String clientId) {
     checkArgument(!Strings.isNullOrEmpty(clientId), "clientId must be specified");
-    return Optional.ofNullable(CACHE_BY_CLIENT_ID.get().get(clientId));
+    return Optional.ofNullable(getCachedRegistrars().get(clientId));
   }
 
   /**
@@ -33,6 +33,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import com.google.common.net.InternetDomainName;
+import google.registry.model.common.CrossTldCacheInvalidator;
 import google.registry.model.registry.Registry.TldType;
 import java.util.Optional;
 
@@ -41,8 +42,25 @@ public final class Registries {
 
   private Registries() {}
 
-  /** Supplier of a cached registries map. */
-  private static Supplier<ImmutableMap<String, TldType>> cache = createFreshCache();
+  private static final String CACHE_NAME = "tld_types";
+
+  /** Supplier of the cached registries map, along with a trie of its TLDs. */
+  private static volatile Supplier<CachedTlds> cache = createFreshCache();
+
+  /** The registries to types map, and a {@link TldTrie} of the same TLDs built when it's loaded. */
+  private static final class CachedTlds {
+    final ImmutableMap<String, TldType> tldTypes;
+    final TldTrie tldTrie;
+
+    CachedTlds(ImmutableMap<String, TldType> tldTypes) {
+      this.tldTypes = tldTypes;
+      this.tldTrie = TldTrie.create(tldTypes.keySet());
+    }
+  }
+
+  static {
+    CrossTldCacheInvalidator.register(CACHE_NAME, Registries::resetCache);
+  }
 
   /**
    * Returns a newly-created Supplier of a registries to types map.
@@ -50,20 +68,35 @@ public final class Registries {
    * <p>The supplier's get() method enters a transactionless context briefly to avoid enrolling the
    * query inside an unrelated client-affecting transaction.
    */
-  private static Supplier<ImmutableMap<String, TldType>> createFreshCache() {
+  private static Supplier<CachedTlds> createFreshCache() {
     return memoizeWithShortExpiration(
         () ->
-            tm()
-                .doTransactionless(
-                    () -> {
-                      ImmutableMap.Builder<String, TldType> builder =
-                          new ImmutableMap.Builder<>();
-                      for (Registry registry :
-                          ofy().load().type(Registry.class).ancestor(getCrossTldKey())) {
-                        builder.put(registry.getTldStr(), registry.getTldType());
-                      }
-                      return builder.build();
-                    }));
+            CrossTldCacheInvalidator.recordLoad(
+                CACHE_NAME, () -> new CachedTlds(loadTldTypes())));
+  }
+
+  private static ImmutableMap<String, TldType> loadTldTypes() {
+    return tm()
+        .doTransactionless(
+            () -> {
+              ImmutableMap.Builder<String, TldType> builder = new ImmutableMap.Builder<>();
+              for (Registry registry :
+                  ofy().load().type(Registry.class).ancestor(getCrossTldKey())) {
+                builder.put(registry.getTldStr(), registry.getTldType());
+              }
+              return builder.build();
+            });
+  }
+
+  /** Returns the cached registries map and trie. */
+  private static CachedTlds getCachedTlds() {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
+    return cache.get();
+  }
+
+  /** Returns the cached registries map. */
+  private static ImmutableMap<String, TldType> getCachedTldTypes() {
+    return getCachedTlds().tldTypes;
   }
 
   /** Manually reset the static cache backing the methods on this class. */
@@ -73,11 +106,11 @@ public final class Registries {
   }
 
   public static ImmutableSet<String> getTlds() {
-    return cache.get().keySet();
+    return getCachedTldTypes().keySet();
   }
 
   public static ImmutableSet<String> getTldsOfType(TldType type) {
-    return ImmutableSet.copyOf(filterValues(cache.get(), equalTo(type)).keySet());
+    return ImmutableSet.copyOf(filterValues(getCachedTldTypes(), equalTo(type)).keySet());
   }
 
   /** Pass-through check that the specified TLD exists, otherwise throw an IAE. */
@@ -113,14 +146,22 @@ public final class Registries {
    * @return TLD or absent if {@code domainName} has no labels under an authoritative TLD
    */
   public static Optional<InternetDomainName> findTldForName(InternetDomainName domainName) {
-    ImmutableSet<String> tlds = getTlds();
-    while (domainName.hasParent()) {
-      domainName = domainName.parent();
-      if (tlds.contains(domainName.toString())) {
-        return Optional.of(domainName);
-      }
-    }
-    return Optional.empty();
+    return findTldForName(domainName.toString());
+  }
+
+  /**
+   * Returns TLD which the domain name or hostname falls under, without parsing the name.
+   *
+   * <p>This resolves the name in a single pass over its labels, so it is cheaper than {@link
+   * #findTldForName(InternetDomainName)} when the name hasn't been parsed already. The name must be
+   * in canonical form, as {@link InternetDomainName#toString} returns it (puny-coded and
+   * lower-case, with no trailing dot), or it won't be found under any TLD.
+   *
+   * @param domainName domain name or host name (but not TLD) under an authoritative TLD
+   * @return TLD or absent if {@code domainName} has no labels under an authoritative TLD
+   */
+  public static Optional<InternetDomainName> findTldForName(String domainName) {
+    return getCachedTlds().tldTrie.findTldForName(domainName);
   }
 
   /**
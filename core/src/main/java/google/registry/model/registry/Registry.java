@@ -50,6 +50,7 @@ import google.registry.model.Buildable;
 import google.registry.model.CreateAutoTimestamp;
 import google.registry.model.ImmutableObject;
 import google.registry.model.annotations.ReportedOn;
+import google.registry.model.common.CrossTldCacheInvalidator;
 import google.registry.model.common.EntityGroupRoot;
 import google.registry.model.common.TimedTransitionProperty;
 import google.registry.model.common.TimedTransitionProperty.TimedTransition;
@@ -194,6 +195,7 @@ public class Registry extends ImmutableObject implements Buildable {
 
   /** Returns the registry for a given TLD, throwing if none exists. */
   public static Registry get(String tld) {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
     Registry registry = CACHE.getUnchecked(tld).orElse(null);
     if (registry == null) {
       throw new RegistryNotFoundException(tld);
@@ -212,6 +214,8 @@ public class Registry extends ImmutableObject implements Buildable {
     CACHE.invalidate(tldStr);
   }
 
+  private static final String CACHE_NAME = "registry";
+
   /** A cache that loads the {@link Registry} for a given tld. */
   private static final LoadingCache<String, Optional<Registry>> CACHE =
       CacheBuilder.newBuilder()
@@ -220,18 +224,21 @@ public class Registry extends ImmutableObject implements Buildable {
               new CacheLoader<String, Optional<Registry>>() {
                 @Override
                 public Optional<Registry> load(final String tld) {
+                  Key<Registry> key = Key.create(getCrossTldKey(), Registry.class, tld);
                   // Enter a transactionless context briefly; we don't want to enroll every TLD in a
                   // transaction that might be wrapping this call.
-                  return Optional.ofNullable(
-                      tm()
-                          .doTransactionless(
-                              () -> ofy()
-                                  .load()
-                                  .key(Key.create(getCrossTldKey(), Registry.class, tld))
-                                  .now()));
+                  return CrossTldCacheInvalidator.recordLoad(
+                      CACHE_NAME,
+                      () ->
+                          Optional.ofNullable(
+                              tm().doTransactionless(() -> ofy().load().key(key).now())));
                 }
               });
 
+  static {
+    CrossTldCacheInvalidator.register(CACHE_NAME, CACHE::invalidateAll);
+  }
+
   /**
    * The name of the pricing engine that this TLD uses.
    *
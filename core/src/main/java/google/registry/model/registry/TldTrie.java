@@ -0,0 +1,88 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry;
+
+import com.google.common.net.InternetDomainName;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * A trie of TLDs keyed on their labels in reverse order, for finding the TLD that a name falls
+ * under.
+ *
+ * <p>A name is resolved in a single right-to-left pass over its labels, following one child per
+ * label, so no {@link InternetDomainName} has to be built or walked up label by label. The trie is
+ * immutable once created, and is rebuilt along with the {@link Registries} cache.
+ */
+final class TldTrie {
+
+  /** A node of the trie, for a suffix of zero or more labels. */
+  private static final class Node {
+
+    /** The nodes for the suffixes one label longer than this one, keyed by that label. */
+    private final Map<String, Node> children = new HashMap<>();
+
+    /** The TLD equal to this suffix, or null if the suffix isn't a TLD. */
+    @Nullable private InternetDomainName tld;
+  }
+
+  private final Node root;
+
+  private TldTrie(Node root) {
+    this.root = root;
+  }
+
+  /** Creates a trie of the given TLDs, which must be in canonical form. */
+  static TldTrie create(Iterable<String> tlds) {
+    Node root = new Node();
+    for (String tld : tlds) {
+      Node node = root;
+      int end = tld.length();
+      while (end >= 0) {
+        int start = tld.lastIndexOf('.', end - 1) + 1;
+        node = node.children.computeIfAbsent(tld.substring(start, end), label -> new Node());
+        end = start - 1;
+      }
+      node.tld = InternetDomainName.from(tld);
+    }
+    return new TldTrie(root);
+  }
+
+  /**
+   * Returns the longest TLD that the given name is strictly under, or absent if it is under none.
+   *
+   * <p>The name is taken as is, so it must be in canonical form (puny-coded and lower-case, with
+   * no trailing dot) to be found under a TLD.
+   */
+  Optional<InternetDomainName> findTldForName(String name) {
+    Node node = root;
+    InternetDomainName tld = null;
+    int end = name.length();
+    // Stop before the first label, since a name isn't under itself.
+    for (int dot = name.lastIndexOf('.', end - 1); dot >= 0; dot = name.lastIndexOf('.', end - 1)) {
+      node = node.children.get(name.substring(dot + 1, end));
+      if (node == null) {
+        break;
+      }
+      if (node.tld != null) {
+        tld = node.tld;
+      }
+      end = dot;
+    }
+    return Optional.ofNullable(tld);
+  }
+}
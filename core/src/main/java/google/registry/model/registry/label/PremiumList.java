@@ -18,7 +18,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.hash.Funnels.unencodedCharsFunnel;
 import static google.registry.config.RegistryConfig.getDomainLabelListCacheDuration;
 import static google.registry.config.RegistryConfig.getSingletonCachePersistDuration;
-import static google.registry.config.RegistryConfig.getStaticPremiumListMaxCachedEntries;
+import static google.registry.config.RegistryConfig.getStaticPremiumListMaxCachedRevisions;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.allocateId;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -31,6 +31,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
 import com.google.common.cache.LoadingCache;
+import com.google.common.flogger.FluentLogger;
 import com.google.common.hash.BloomFilter;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.googlecode.objectify.Key;
@@ -40,6 +41,7 @@ import com.googlecode.objectify.annotation.Parent;
 import google.registry.model.Buildable;
 import google.registry.model.ImmutableObject;
 import google.registry.model.annotations.ReportedOn;
+import google.registry.model.common.CrossTldCacheInvalidator;
 import google.registry.model.registry.Registry;
 import google.registry.util.NonFinalForTesting;
 import java.io.ByteArrayOutputStream;
@@ -60,6 +62,8 @@ import org.joda.time.Duration;
 @Entity
 public final class PremiumList extends BaseDomainLabelList<Money, PremiumList.PremiumListEntry> {
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
   /** Stores the revision key for the set of currently used premium list entry entities. */
   Key<PremiumListRevision> revisionKey;
 
@@ -137,6 +141,13 @@ public final class PremiumList extends BaseDomainLabelList<Money, PremiumList.Pr
   static LoadingCache<String, PremiumList> cachePremiumLists =
       createCachePremiumLists(getDomainLabelListCacheDuration());
 
+  private static final String CACHE_NAME = "premium_list";
+
+  static {
+    // Revisions and entries don't need to be invalidated, as they are immutable once created.
+    CrossTldCacheInvalidator.register(CACHE_NAME, () -> cachePremiumLists.invalidateAll());
+  }
+
   @VisibleForTesting
   public static void setPremiumListCacheForTest(Optional<Duration> expiry) {
     Duration effectiveExpiry = expiry.orElse(getDomainLabelListCacheDuration());
@@ -151,7 +162,8 @@ public final class PremiumList extends BaseDomainLabelList<Money, PremiumList.Pr
             new CacheLoader<String, PremiumList>() {
               @Override
               public PremiumList load(final String name) {
-                return tm().doTransactionless(() -> loadPremiumList(name));
+                return CrossTldCacheInvalidator.recordLoad(
+                    CACHE_NAME, () -> tm().doTransactionless(() -> loadPremiumList(name)));
               }
             });
   }
@@ -180,43 +192,57 @@ public final class PremiumList extends BaseDomainLabelList<Money, PremiumList.Pr
                   });
 
   /**
-   * In-memory cache for {@link PremiumListEntry}s for a given label and {@link PremiumListRevision}
+   * In-memory cache for the {@link PremiumListIndex} of each {@link PremiumListRevision}, which
+   * holds the prices of all of the revision's {@link PremiumListEntry}s.
    *
-   * <p>Because the PremiumList itself makes up part of the PremiumListRevision's key, this is
-   * specific to a given premium list. Premium list entries might not be present, as indicated by
-   * the Optional wrapper, and we want to cache that as well.
+   * <p>The entire revision is loaded into a compact index at once, rather than caching entries
+   * label by label, so that once a revision is cached no label ever needs a Datastore read.
    *
    * <p>This is cached for a long duration (essentially indefinitely) because a given {@link
    * PremiumListRevision} and its child {@link PremiumListEntry}s are immutable and cannot ever be
    * changed once created, so the cache need not ever expire.
    *
-   * <p>A maximum size is set here on the cache because it can potentially grow too big to fit in
-   * memory if there are a large number of distinct premium list entries being queried (both those
-   * that exist, as well as those that might exist according to the Bloom filter, must be cached).
-   * The entries judged least likely to be accessed again will be evicted first.
+   * <p>The cache is bounded by the number of revisions, so that memory stays bounded even when many
+   * revisions of a large list have been loaded over time. The indexes judged least likely to be
+   * accessed again will be evicted first. An index is only loaded by {@link
+   * PremiumListUtils#prefetchPremiumPrices}; until then, lookups read single entries instead.
    */
   @NonFinalForTesting
-  static LoadingCache<Key<PremiumListEntry>, Optional<PremiumListEntry>> cachePremiumListEntries =
-      createCachePremiumListEntries(getSingletonCachePersistDuration());
+  static LoadingCache<Key<PremiumListRevision>, PremiumListIndex> cachePremiumListIndexes =
+      createCachePremiumListIndexes(getSingletonCachePersistDuration());
 
   @VisibleForTesting
-  public static void setPremiumListEntriesCacheForTest(Optional<Duration> expiry) {
+  public static void setPremiumListIndexesCacheForTest(Optional<Duration> expiry) {
     Duration effectiveExpiry = expiry.orElse(getSingletonCachePersistDuration());
-    cachePremiumListEntries = createCachePremiumListEntries(effectiveExpiry);
+    cachePremiumListIndexes = createCachePremiumListIndexes(effectiveExpiry);
   }
 
   @VisibleForTesting
-  static LoadingCache<Key<PremiumListEntry>, Optional<PremiumListEntry>>
-      createCachePremiumListEntries(Duration cachePersistDuration) {
+  static LoadingCache<Key<PremiumListRevision>, PremiumListIndex> createCachePremiumListIndexes(
+      Duration cachePersistDuration) {
     return CacheBuilder.newBuilder()
         .expireAfterWrite(cachePersistDuration.getMillis(), MILLISECONDS)
-        .maximumSize(getStaticPremiumListMaxCachedEntries())
+        // A single segment, so that the few revisions allowed aren't split between segments.
+        .concurrencyLevel(1)
+        .maximumSize(getStaticPremiumListMaxCachedRevisions())
         .build(
-            new CacheLoader<Key<PremiumListEntry>, Optional<PremiumListEntry>>() {
+            new CacheLoader<Key<PremiumListRevision>, PremiumListIndex>() {
               @Override
-              public Optional<PremiumListEntry> load(final Key<PremiumListEntry> entryKey) {
-                return tm()
-                    .doTransactionless(() -> Optional.ofNullable(ofy().load().key(entryKey).now()));
+              public PremiumListIndex load(final Key<PremiumListRevision> revisionKey) {
+                PremiumListIndex index =
+                    tm()
+                        .doTransactionless(
+                            () ->
+                                PremiumListIndex.create(
+                                    ofy()
+                                        .load()
+                                        .type(PremiumListEntry.class)
+                                        .ancestor(revisionKey)
+                                        .iterable()));
+                logger.atInfo().log(
+                    "Loaded premium list revision %s with %d labels into %d bytes",
+                    revisionKey, index.size(), index.getFootprintBytes());
+                return index;
               }
             });
   }
@@ -228,6 +254,7 @@ public final class PremiumList extends BaseDomainLabelList<Money, PremiumList.Pr
 
   /** Returns the PremiumList with the specified name, from cache. */
   public static Optional<PremiumList> getCached(String name) {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
     try {
       return Optional.of(cachePremiumLists.get(name));
     } catch (InvalidCacheLoadException e) {
@@ -0,0 +1,162 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
+import google.registry.model.registry.label.PremiumList.PremiumListEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+/**
+ * A compact, immutable in-memory index of the prices of every label in a {@link
+ * PremiumList.PremiumListRevision}.
+ *
+ * <p>Labels are kept sorted in a single packed byte array, since they are always puny-coded and
+ * thus ASCII, and looked up by binary search. Prices are kept as parallel columns of amounts in
+ * the currency's minor unit and indexes into the list's few distinct currencies. This takes a
+ * small fraction of the memory that cached {@link PremiumListEntry} entities would, and answers
+ * every lookup exactly without going to Datastore. Instances are safe to share between threads.
+ */
+final class PremiumListIndex {
+
+  private static final CharMatcher ASCII = CharMatcher.ascii();
+
+  /** The sorted labels, concatenated. */
+  private final byte[] labelBytes;
+
+  /** The offset of each label in {@link #labelBytes}, followed by the end of the last label. */
+  private final int[] labelOffsets;
+
+  /** The price of each label, in the minor unit of its currency. */
+  private final long[] amountsMinor;
+
+  /** The index of the currency of each label in {@link #currencies}. */
+  private final byte[] currencyIndexes;
+
+  private final ImmutableList<CurrencyUnit> currencies;
+
+  private PremiumListIndex(
+      byte[] labelBytes,
+      int[] labelOffsets,
+      long[] amountsMinor,
+      byte[] currencyIndexes,
+      ImmutableList<CurrencyUnit> currencies) {
+    this.labelBytes = labelBytes;
+    this.labelOffsets = labelOffsets;
+    this.amountsMinor = amountsMinor;
+    this.currencyIndexes = currencyIndexes;
+    this.currencies = currencies;
+  }
+
+  /** Builds an index of the given entries, which must have distinct labels. */
+  static PremiumListIndex create(Iterable<PremiumListEntry> entries) {
+    List<PremiumListEntry> sortedEntries = new ArrayList<>();
+    entries.forEach(sortedEntries::add);
+    sortedEntries.sort(Comparator.comparing(PremiumListEntry::getLabel));
+    int size = sortedEntries.size();
+    int[] labelOffsets = new int[size + 1];
+    long[] amountsMinor = new long[size];
+    byte[] currencyIndexes = new byte[size];
+    List<CurrencyUnit> currencies = new ArrayList<>();
+    int totalLabelLength = 0;
+    for (int i = 0; i < size; i++) {
+      PremiumListEntry entry = sortedEntries.get(i);
+      String label = entry.getLabel();
+      checkArgument(ASCII.matchesAllOf(label), "Label '%s' is not puny-coded", label);
+      checkArgument(
+          i == 0 || !label.equals(sortedEntries.get(i - 1).getLabel()),
+          "Label '%s' is listed more than once",
+          label);
+      labelOffsets[i] = totalLabelLength;
+      totalLabelLength += label.length();
+      Money price = entry.getValue();
+      amountsMinor[i] = price.getAmountMinorLong();
+      int currencyIndex = currencies.indexOf(price.getCurrencyUnit());
+      if (currencyIndex < 0) {
+        currencyIndex = currencies.size();
+        checkArgument(currencyIndex <= Byte.MAX_VALUE, "Too many currencies in premium list");
+        currencies.add(price.getCurrencyUnit());
+      }
+      currencyIndexes[i] = (byte) currencyIndex;
+    }
+    labelOffsets[size] = totalLabelLength;
+    byte[] labelBytes = new byte[totalLabelLength];
+    for (int i = 0; i < size; i++) {
+      byte[] label = sortedEntries.get(i).getLabel().getBytes(US_ASCII);
+      System.arraycopy(label, 0, labelBytes, labelOffsets[i], label.length);
+    }
+    return new PremiumListIndex(
+        labelBytes, labelOffsets, amountsMinor, currencyIndexes, ImmutableList.copyOf(currencies));
+  }
+
+  /** Returns the premium price of the given label, or absent if the label is not premium. */
+  Optional<Money> getPrice(String label) {
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int comparison = compareLabelAt(mid, label);
+      if (comparison < 0) {
+        low = mid + 1;
+      } else if (comparison > 0) {
+        high = mid - 1;
+      } else {
+        return Optional.of(
+            Money.ofMinor(currencies.get(currencyIndexes[mid]), amountsMinor[mid]));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Compares the indexed label at the given position with the given label, in the same order as
+   * {@link String#compareTo}.
+   */
+  private int compareLabelAt(int position, String label) {
+    int start = labelOffsets[position];
+    int length = labelOffsets[position + 1] - start;
+    int commonLength = Math.min(length, label.length());
+    for (int i = 0; i < commonLength; i++) {
+      // A non-ASCII character in the given label sorts after every indexed one, so it never
+      // matches.
+      int difference = (labelBytes[start + i] & 0xff) - label.charAt(i);
+      if (difference != 0) {
+        return difference;
+      }
+    }
+    return length - label.length();
+  }
+
+  /** Returns the number of labels in the index. */
+  int size() {
+    return amountsMinor.length;
+  }
+
+  /** Returns the approximate number of bytes of memory taken up by the index's arrays. */
+  long getFootprintBytes() {
+    return labelBytes.length
+        + 4L * labelOffsets.length
+        + 8L * amountsMinor.length
+        + currencyIndexes.length;
+  }
+}
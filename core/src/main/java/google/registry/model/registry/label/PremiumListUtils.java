@@ -24,7 +24,7 @@ import static google.registry.model.registry.label.DomainLabelMetrics.PremiumLis
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.CACHED_POSITIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.UNCACHED_NEGATIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.UNCACHED_POSITIVE;
-import static google.registry.model.registry.label.PremiumList.cachePremiumListEntries;
+import static google.registry.model.registry.label.PremiumList.cachePremiumListIndexes;
 import static google.registry.model.registry.label.PremiumList.cachePremiumListRevisions;
 import static google.registry.model.registry.label.PremiumList.cachePremiumLists;
 import static google.registry.model.transaction.TransactionManagerFactory.tm;
@@ -44,6 +44,8 @@ import google.registry.model.registry.label.PremiumList.PremiumListRevision;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import org.joda.money.Money;
 import org.joda.time.DateTime;
@@ -54,6 +56,10 @@ public final class PremiumListUtils {
   /** The number of premium list entry entities that are created and deleted per batch. */
   static final int TRANSACTION_BATCH_SIZE = 200;
 
+  /** The revisions whose index is being loaded by {@link #prefetchPremiumPrices}. */
+  @VisibleForTesting
+  static final Set<Key<PremiumListRevision>> revisionsBeingLoaded = ConcurrentHashMap.newKeySet();
+
   /** Value type class used by {@link #checkStatus} to return the results of a premiumness check. */
   @AutoValue
   abstract static class CheckResults {
@@ -76,6 +82,45 @@ public final class PremiumListUtils {
     }
     DateTime startTime = DateTime.now(UTC);
     String listName = registry.getPremiumList().getName();
+    PremiumListRevision revision = loadRevision(listName);
+    CheckResults checkResults = checkStatus(revision, label);
+    DomainLabelMetrics.recordPremiumListCheckOutcome(
+        registry.getTldStr(),
+        listName,
+        checkResults.checkOutcome(),
+        DateTime.now(UTC).getMillis() - startTime.getMillis());
+    return checkResults.premiumPrice();
+  }
+
+  /**
+   * Loads the index of the premium list of the given TLD into the in-memory cache, if it isn't
+   * cached already, so that subsequent {@link #getPremiumPrice} calls are served from memory.
+   *
+   * <p>This is the only place an index is loaded, since loading a large revision takes a while.
+   * If another thread is already loading the index, this returns immediately rather than waiting
+   * on it, and lookups keep reading single entries from Datastore until the index is cached.
+   */
+  public static void prefetchPremiumPrices(Registry registry) {
+    if (registry.getPremiumList() == null) {
+      return;
+    }
+    Key<PremiumListRevision> revisionKey =
+        Key.create(loadRevision(registry.getPremiumList().getName()));
+    if (cachePremiumListIndexes.getIfPresent(revisionKey) != null
+        || !revisionsBeingLoaded.add(revisionKey)) {
+      return;
+    }
+    try {
+      cachePremiumListIndexes.get(revisionKey);
+    } catch (InvalidCacheLoadException | ExecutionException e) {
+      throw new RuntimeException("Could not load premium list index " + revisionKey, e);
+    } finally {
+      revisionsBeingLoaded.remove(revisionKey);
+    }
+  }
+
+  /** Returns the current revision of the named premium list, with its Bloom filter. */
+  private static PremiumListRevision loadRevision(String listName) {
     Optional<PremiumList> optionalPremiumList = PremiumList.getCached(listName);
     checkState(optionalPremiumList.isPresent(), "Could not load premium list '%s'", listName);
     PremiumList premiumList = optionalPremiumList.get();
@@ -90,14 +135,7 @@ public final class PremiumListUtils {
         revision.getProbablePremiumLabels() != null,
         "Probable premium labels Bloom filter is null on revision '%s'",
         premiumList.getRevisionKey());
-
-    CheckResults checkResults = checkStatus(revision, label);
-    DomainLabelMetrics.recordPremiumListCheckOutcome(
-        registry.getTldStr(),
-        listName,
-        checkResults.checkOutcome(),
-        DateTime.now(UTC).getMillis() - startTime.getMillis());
-    return checkResults.premiumPrice();
+    return revision;
   }
 
   private static CheckResults checkStatus(PremiumListRevision premiumListRevision, String label) {
@@ -105,28 +143,20 @@ public final class PremiumListUtils {
       return CheckResults.create(BLOOM_FILTER_NEGATIVE, Optional.empty());
     }
 
-    Key<PremiumListEntry> entryKey =
-        Key.create(Key.create(premiumListRevision), PremiumListEntry.class, label);
-    try {
-      // getIfPresent() returns null if the key is not in the cache
-      Optional<PremiumListEntry> entry = cachePremiumListEntries.getIfPresent(entryKey);
-      if (entry != null) {
-        if (entry.isPresent()) {
-          return CheckResults.create(CACHED_POSITIVE, Optional.of(entry.get().getValue()));
-        } else {
-          return CheckResults.create(CACHED_NEGATIVE, Optional.empty());
-        }
-      }
-
-      entry = cachePremiumListEntries.get(entryKey);
-      if (entry.isPresent()) {
-        return CheckResults.create(UNCACHED_POSITIVE, Optional.of(entry.get().getValue()));
-      } else {
-        return CheckResults.create(UNCACHED_NEGATIVE, Optional.empty());
-      }
-    } catch (InvalidCacheLoadException | ExecutionException e) {
-      throw new RuntimeException("Could not load premium list entry " + entryKey, e);
+    Key<PremiumListRevision> revisionKey = Key.create(premiumListRevision);
+    // getIfPresent() returns null if the index is not in the cache
+    PremiumListIndex index = cachePremiumListIndexes.getIfPresent(revisionKey);
+    if (index != null) {
+      Optional<Money> price = index.getPrice(label);
+      return CheckResults.create(price.isPresent() ? CACHED_POSITIVE : CACHED_NEGATIVE, price);
     }
+
+    // Rather than wait on loading the whole revision, look up the single entry for this label.
+    Key<PremiumListEntry> entryKey = Key.create(revisionKey, PremiumListEntry.class, label);
+    Optional<PremiumListEntry> entry =
+        tm().doTransactionless(() -> Optional.ofNullable(ofy().load().key(entryKey).now()));
+    Optional<Money> price = entry.map(PremiumListEntry::getValue);
+    return CheckResults.create(price.isPresent() ? UNCACHED_POSITIVE : UNCACHED_NEGATIVE, price);
   }
 
   /**
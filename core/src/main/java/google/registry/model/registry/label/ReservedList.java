@@ -38,6 +38,7 @@ import com.googlecode.objectify.annotation.Entity;
 import com.googlecode.objectify.annotation.Mapify;
 import com.googlecode.objectify.mapper.Mapper;
 import google.registry.model.Buildable;
+import google.registry.model.common.CrossTldCacheInvalidator;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.label.DomainLabelMetrics.MetricsReservedListMatch;
 import java.util.List;
@@ -146,6 +147,7 @@ public final class ReservedList
    *     ReservedList from the cache or Datastore.
    */
   public static Optional<ReservedList> get(String listName) {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
     return getFromCache(listName, cache);
   }
 
@@ -199,6 +201,7 @@ public final class ReservedList
 
   private static ImmutableSet<ReservedList> loadReservedLists(
       ImmutableSet<Key<ReservedList>> reservedListKeys) {
+    CrossTldCacheInvalidator.checkForChanges(CACHE_NAME);
     return reservedListKeys
         .stream()
         .map(
@@ -215,6 +218,8 @@ public final class ReservedList
         .collect(toImmutableSet());
   }
 
+  private static final String CACHE_NAME = "reserved_list";
+
   private static LoadingCache<String, ReservedList> cache =
       CacheBuilder.newBuilder()
           .expireAfterWrite(getDomainLabelListCacheDuration().getMillis(), MILLISECONDS)
@@ -222,14 +227,21 @@ public final class ReservedList
               new CacheLoader<String, ReservedList>() {
                 @Override
                 public ReservedList load(String listName) {
-                  return ofy()
-                      .load()
-                      .type(ReservedList.class)
-                      .parent(getCrossTldKey())
-                      .id(listName)
-                      .now();
+                  return CrossTldCacheInvalidator.recordLoad(
+                      CACHE_NAME,
+                      () ->
+                          ofy()
+                              .load()
+                              .type(ReservedList.class)
+                              .parent(getCrossTldKey())
+                              .id(listName)
+                              .now());
                 }});
 
+  static {
+    CrossTldCacheInvalidator.register(CACHE_NAME, cache::invalidateAll);
+  }
+
   /**
    * Gets the {@link ReservationType} of a label in a single ReservedList, or returns an absent
    * Optional if none exists in the list.
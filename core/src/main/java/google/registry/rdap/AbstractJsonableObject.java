@@ -16,25 +16,36 @@ package google.registry.rdap;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Ordering;
+import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import javax.annotation.Nullable;
@@ -50,6 +61,10 @@ import org.joda.time.DateTime;
  * <p>You can annotate fields or methods with 0 parameters with {@link JsonElement}, and its value
  * will be "JSONified" and added to the generated JSON object.
  *
+ * <p>The annotated members of each class are found once, and then read through method handles.
+ * The object can either be converted to a {@link JsonObject} tree with {@link #toJson}, or written
+ * straight to a {@link JsonWriter} with {@link #writeJson}, which produces the same output.
+ *
  * <p>This implementation is geared towards RDAP replies, and hence has RDAP-specific quirks.
  * Specifically:
  *
@@ -231,58 +246,161 @@ abstract class AbstractJsonableObject implements Jsonable {
     String[] value();
   }
 
+  /** Accessors for the {@link JsonableElement} members of each class, computed once per class. */
+  private static final ClassValue<ImmutableList<JsonableMember>> JSONABLE_MEMBERS =
+      new ClassValue<ImmutableList<JsonableMember>>() {
+        @Override
+        protected ImmutableList<JsonableMember> computeValue(Class<?> clazz) {
+          return new ImmutableList.Builder<JsonableMember>()
+              .addAll(getAllJsonableElementFields(clazz))
+              .addAll(getAllJsonableElementMethods(clazz))
+              .build();
+        }
+      };
+
+  /** Used to serialize {@link Jsonable}s that aren't {@link AbstractJsonableObject}s. */
+  private static final Gson GSON = new Gson();
+
   @Override
   public final JsonObject toJson() {
     try {
       JsonObjectBuilder builder = new JsonObjectBuilder();
-
-      for (Field field : getAllJsonableElementFields()) {
-        JsonableElement jsonableElement = field.getAnnotation(JsonableElement.class);
-        Object object;
-        try {
-          field.setAccessible(true);
-          object = field.get(this);
-        } catch (IllegalAccessException e) {
-          throw new IllegalStateException(
-              String.format("Error reading value of field '%s'", field), e);
-        } finally {
-          field.setAccessible(false);
-        }
-        builder.add(jsonableElement, field, object);
+      for (JsonableMember jsonableMember : JSONABLE_MEMBERS.get(getClass())) {
+        builder.add(
+            jsonableMember.jsonableElement, jsonableMember.member, jsonableMember.getValue(this));
       }
+      return builder.build();
+    } catch (Throwable e) {
+      throw new JsonableException(
+          e, String.format("Error JSONifying %s: %s", this.getClass(), e.getMessage()));
+    }
+  }
 
-      for (Method method : getAllJsonableElementMethods()) {
-        JsonableElement jsonableElement = method.getAnnotation(JsonableElement.class);
-        Object object;
-        try {
-          method.setAccessible(true);
-          object = method.invoke(this);
-        } catch (ReflectiveOperationException e) {
-          throw new IllegalStateException(
-              String.format("Error reading value of method '%s'", method), e);
-        } finally {
-          method.setAccessible(false);
+  /**
+   * Writes the same JSON object as {@link #toJson} directly to the given writer.
+   *
+   * <p>This avoids building the intermediate {@link JsonObject} tree, which for large search
+   * responses is most of the cost of replying. The members are first collected into one list of
+   * values per JSON name, merging "*" members and arrays as {@link #toJson} does, so that the
+   * names are written in the same order.
+   */
+  final void writeJson(JsonWriter writer) throws IOException {
+    try {
+      Map<String, List<JsonValue>> valuesByName = new LinkedHashMap<>();
+      collectValues(valuesByName);
+      writer.beginObject();
+      for (Map.Entry<String, List<JsonValue>> entry : valuesByName.entrySet()) {
+        String name = entry.getKey();
+        List<JsonValue> values = entry.getValue();
+        writer.name(name);
+        if (values.get(0).inArray) {
+          writer.beginArray();
+          for (JsonValue value : values) {
+            writeJsonValue(name + ARRAY_NAME_SUFFIX, value.member, value.object, writer);
+          }
+          writer.endArray();
+        } else {
+          writeJsonValue(name, values.get(0).member, values.get(0).object, writer);
         }
-        builder.add(jsonableElement, method, object);
       }
-
-      return builder.build();
+      writer.endObject();
+    } catch (IOException e) {
+      throw e;
     } catch (Throwable e) {
       throw new JsonableException(
           e, String.format("Error JSONifying %s: %s", this.getClass(), e.getMessage()));
     }
   }
 
+  /** Adds the values of this object's members, by JSON name, following the rules of toJson. */
+  private void collectValues(Map<String, List<JsonValue>> valuesByName) {
+    for (JsonableMember jsonableMember : JSONABLE_MEMBERS.get(getClass())) {
+      Member member = jsonableMember.member;
+      Object object = jsonableMember.getValue(this);
+      checkNotNull(
+          object, "Member '%s' is null. If you want an optional member - use Optional", member);
+      if (object instanceof Optional) {
+        Optional<?> optional = (Optional<?>) object;
+        if (!optional.isPresent()) {
+          continue;
+        }
+        object = optional.get();
+      }
+      String elementName = jsonableMember.jsonableElement.value();
+      if (MERGE_NAME.equals(elementName)) {
+        checkState(
+            object instanceof AbstractJsonableObject,
+            "JsonableElement(\"*\") annotating a non-AbstractJsonableObject object in '%s'",
+            member);
+        ((AbstractJsonableObject) object).collectValues(valuesByName);
+        continue;
+      }
+      String name = elementName.isEmpty() ? member.getName() : elementName;
+      if (object instanceof Iterable) {
+        checkState(
+            !name.endsWith(ARRAY_NAME_SUFFIX),
+            "Error in JsonableElement(\"%s\") on '%s': Can't have array of arrays",
+            name,
+            member);
+        for (Object innerObject : (Iterable<?>) object) {
+          addValue(valuesByName, name, new JsonValue(member, innerObject, true));
+        }
+      } else if (name.endsWith(ARRAY_NAME_SUFFIX)) {
+        addValue(
+            valuesByName,
+            name.substring(0, name.length() - ARRAY_NAME_SUFFIX.length()),
+            new JsonValue(member, object, true));
+      } else {
+        addValue(valuesByName, name, new JsonValue(member, object, false));
+      }
+    }
+  }
+
+  private static void addValue(
+      Map<String, List<JsonValue>> valuesByName, String name, JsonValue value) {
+    List<JsonValue> values = valuesByName.computeIfAbsent(name, k -> new ArrayList<>());
+    // Only array elements can share a name.
+    checkState(
+        values.isEmpty() || (value.inArray && values.get(0).inArray),
+        "Encountered the same field name '%s' multiple times: '%s' vs. '%s'",
+        name,
+        value.member,
+        values.isEmpty() ? null : values.get(0).member);
+    values.add(value);
+  }
+
+  /** Writes an Object as it would be converted by {@link #toJsonElement}. */
+  private static void writeJsonValue(String name, Member member, Object object, JsonWriter writer)
+      throws IOException {
+    if (object instanceof AbstractJsonableObject) {
+      verifyAllowedJsonKeyName(name, member, object.getClass());
+      ((AbstractJsonableObject) object).writeJson(writer);
+    } else if (object instanceof Jsonable) {
+      GSON.getAdapter(JsonElement.class).write(writer, toJsonElement(name, member, object));
+    } else if (object instanceof String) {
+      writer.value((String) object);
+    } else if (object instanceof Number) {
+      writer.value((Number) object);
+    } else if (object instanceof Boolean) {
+      writer.value(((Boolean) object).booleanValue());
+    } else if (object instanceof DateTime) {
+      writer.value(object.toString());
+    } else if (object == null) {
+      writer.nullValue();
+    } else {
+      // Throws the same error as toJson.
+      toJsonElement(name, member, object);
+    }
+  }
+
   /**
-   * Get all the fields declared on this class.
+   * Get all the fields declared on the given class.
    *
    * <p>We aren't using {@link Class#getFields} because that would return only the public fields.
    */
-  private Iterable<Field> getAllJsonableElementFields() {
+  private static ImmutableList<JsonableMember> getAllJsonableElementFields(Class<?> clazz) {
     ImmutableList.Builder<Field> builder = new ImmutableList.Builder<>();
-    for (Class<?> clazz = this.getClass();
-        clazz != null;
-        clazz = clazz.getSuperclass()) {
+    for (; clazz != null; clazz = clazz.getSuperclass()) {
       for (Field field : clazz.getDeclaredFields()) {
         if (!field.isAnnotationPresent(JsonableElement.class)) {
           continue;
@@ -291,20 +409,23 @@ abstract class AbstractJsonableObject implements Jsonable {
       }
     }
     // Sorting for test consistency
-    return Ordering.natural().onResultOf(Field::getName).sortedCopy(builder.build());
+    return Ordering.natural()
+        .onResultOf(Field::getName)
+        .sortedCopy(builder.build())
+        .stream()
+        .map(field -> new JsonableMember(field, field.getAnnotation(JsonableElement.class)))
+        .collect(toImmutableList());
   }
 
   /**
-   * Get all the methods declared on this class.
+   * Get all the methods declared on the given class.
    *
    * <p>We aren't using {@link Class#getMethods} because that would return only the public methods.
    */
-  private Iterable<Method> getAllJsonableElementMethods() {
+  private static ImmutableList<JsonableMember> getAllJsonableElementMethods(Class<?> clazz) {
     ImmutableList.Builder<Method> builder = new ImmutableList.Builder<>();
     HashSet<String> seenNames = new HashSet<>();
-    for (Class<?> clazz = this.getClass();
-        clazz != null;
-        clazz = clazz.getSuperclass()) {
+    for (; clazz != null; clazz = clazz.getSuperclass()) {
       for (Method method : clazz.getDeclaredMethods()) {
         if (!method.isAnnotationPresent(JsonableElement.class)) {
           continue;
@@ -319,7 +440,12 @@ abstract class AbstractJsonableObject implements Jsonable {
       }
     }
     // Sorting for test consistency
-    return Ordering.natural().onResultOf(Method::getName).sortedCopy(builder.build());
+    return Ordering.natural()
+        .onResultOf(Method::getName)
+        .sortedCopy(builder.build())
+        .stream()
+        .map(method -> new JsonableMember(method, method.getAnnotation(JsonableElement.class)))
+        .collect(toImmutableList());
   }
 
   /** Converts an Object to a JsonElement. */
@@ -519,6 +645,60 @@ abstract class AbstractJsonableObject implements Jsonable {
     }
   }
 
+  /** A {@link JsonableElement} member, with a method handle to read its value. */
+  private static final class JsonableMember {
+    final Member member;
+    final JsonableElement jsonableElement;
+    private final MethodHandle getter;
+
+    JsonableMember(Member member, JsonableElement jsonableElement) {
+      this.member = member;
+      this.jsonableElement = jsonableElement;
+      try {
+        MethodHandle handle;
+        if (member instanceof Field) {
+          ((Field) member).setAccessible(true);
+          handle = MethodHandles.lookup().unreflectGetter((Field) member);
+        } else {
+          ((Method) member).setAccessible(true);
+          handle = MethodHandles.lookup().unreflect((Method) member);
+        }
+        if (Modifier.isStatic(member.getModifiers())) {
+          handle = MethodHandles.dropArguments(handle, 0, Object.class);
+        }
+        // Box primitives, so that all getters can be invoked exactly with the same type.
+        this.getter = handle.asType(MethodType.methodType(Object.class, Object.class));
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(String.format("Error accessing '%s'", member), e);
+      }
+    }
+
+    Object getValue(Object object) {
+      try {
+        return getter.invokeExact(object);
+      } catch (Throwable e) {
+        throw new IllegalStateException(
+            String.format(
+                "Error reading value of %s '%s'",
+                member instanceof Field ? "field" : "method", member),
+            e);
+      }
+    }
+  }
+
+  /** A value to write under a JSON name, and the member it came from. */
+  private static final class JsonValue {
+    final Member member;
+    @Nullable final Object object;
+    final boolean inArray;
+
+    JsonValue(Member member, @Nullable Object object, boolean inArray) {
+      this.member = member;
+      this.object = object;
+      this.inArray = inArray;
+    }
+  }
+
   static class JsonableException extends RuntimeException {
 
     JsonableException(String message) {
@@ -27,6 +27,7 @@ import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.model.EppResource;
 import google.registry.model.registrar.Registrar;
@@ -41,6 +42,9 @@ import google.registry.request.Parameter;
 import google.registry.request.RequestMethod;
 import google.registry.request.RequestPath;
 import google.registry.request.Response;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Optional;
@@ -192,7 +196,16 @@ public abstract class RdapActionBase implements Runnable {
     TopLevelReplyObject topLevelObject =
         TopLevelReplyObject.create(replyObject, rdapJsonFormatter.createTosNotice());
 
-    response.setPayload(gson.toJson(topLevelObject.toJson()));
+    // Write the reply directly rather than through toJson(), to avoid building the whole JSON tree.
+    StringWriter stringWriter = new StringWriter();
+    try (JsonWriter jsonWriter = gson.newJsonWriter(stringWriter)) {
+      // Gson.toJson is lenient, so be lenient too.
+      jsonWriter.setLenient(true);
+      topLevelObject.writeJson(jsonWriter);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    response.setPayload(stringWriter.toString());
   }
 
   /**
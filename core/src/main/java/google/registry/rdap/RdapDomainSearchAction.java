@@ -32,6 +32,7 @@ import com.googlecode.objectify.Key;
 import com.googlecode.objectify.cmd.Query;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.rdap.RdapJsonFormatter.OutputDataType;
 import google.registry.rdap.RdapMetrics.EndpointType;
 import google.registry.rdap.RdapMetrics.SearchType;
@@ -164,13 +165,17 @@ public class RdapDomainSearchAction extends RdapSearchActionBase {
                     + " without a TLD suffix",
                 RdapSearchPattern.MIN_INITIAL_STRING_LENGTH));
       }
-      return searchByDomainNameWithInitialString(partialStringQuery);
+      return canUseActiveNameIndex()
+          ? searchByDomainNameUsingIndex(partialStringQuery)
+          : searchByDomainNameWithInitialString(partialStringQuery);
     }
     if (partialStringQuery.getSuffix() == null) {
       throw new UnprocessableEntityException(
           "Initial search string is required for wildcard domain searches without a TLD suffix");
     }
-    return searchByDomainNameByTld(partialStringQuery.getSuffix());
+    return canUseActiveNameIndex()
+        ? searchByDomainNameUsingIndex(partialStringQuery)
+        : searchByDomainNameByTld(partialStringQuery.getSuffix());
   }
 
   /** Searches for domains by domain name without a wildcard or interest in deleted entries. */
@@ -233,6 +238,22 @@ public class RdapDomainSearchAction extends RdapSearchActionBase {
     return makeSearchResults(getMatchingResources(query, true, querySizeLimit));
   }
 
+  /**
+   * Searches for active domains by domain name with a wildcard, using the {@link ActiveNameIndex}.
+   *
+   * <p>This handles both an initial string and a TLD suffix, and doesn't need to over-fetch to
+   * make up for deleted domains, because the index only has entries for active ones.
+   */
+  private DomainSearchResponse searchByDomainNameUsingIndex(
+      final RdapSearchPattern partialStringQuery) {
+    Query<ActiveNameIndex<DomainBase>> query =
+        queryActiveNames(DomainBase.class, partialStringQuery);
+    if (partialStringQuery.getSuffix() != null) {
+      query = query.filter("tld", partialStringQuery.getSuffix());
+    }
+    return makeSearchResults(getMatchingResourcesFromIndex(query));
+  }
+
   /**
    * Searches for domains by nameserver name, returning a JSON array of domain info maps.
    *
@@ -214,6 +214,9 @@ public class RdapNameserverSearchAction extends RdapSearchActionBase {
    * RdapSearchActionBase#queryItems}.
    */
   private NameserverSearchResponse searchByNameUsingPrefix(RdapSearchPattern partialStringQuery) {
+    if (canUseActiveNameIndex()) {
+      return searchByNameUsingIndex(partialStringQuery);
+    }
     // Add 1 so we can detect truncation.
     int querySizeLimit = getStandardQuerySizeLimit();
     Query<HostResource> query =
@@ -228,6 +231,20 @@ public class RdapNameserverSearchAction extends RdapSearchActionBase {
         getMatchingResources(query, shouldIncludeDeleted(), querySizeLimit), CursorType.NAME);
   }
 
+  /** Searches for active nameservers by name with a prefix and wildcard, using the index. */
+  private NameserverSearchResponse searchByNameUsingIndex(RdapSearchPattern partialStringQuery) {
+    if (partialStringQuery.getInitialString().length()
+        < RdapSearchPattern.MIN_INITIAL_STRING_LENGTH) {
+      throw new UnprocessableEntityException(
+          String.format(
+              "Initial search string must be at least %d characters",
+              RdapSearchPattern.MIN_INITIAL_STRING_LENGTH));
+    }
+    return makeSearchResults(
+        getMatchingResourcesFromIndex(queryActiveNames(HostResource.class, partialStringQuery)),
+        CursorType.NAME);
+  }
+
   /** Searches for nameservers by IP address, returning a JSON array of nameserver info maps. */
   private NameserverSearchResponse searchByIp(InetAddress inetAddress) {
     // Add 1 so we can detect truncation.
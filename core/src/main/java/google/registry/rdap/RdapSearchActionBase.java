@@ -15,14 +15,18 @@
 package google.registry.rdap;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.util.DateTimeUtils.END_OF_TIME;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Iterables;
 import com.googlecode.objectify.Key;
 import com.googlecode.objectify.cmd.Query;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.model.EppResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.registrar.Registrar;
 import google.registry.rdap.RdapMetrics.EndpointType;
 import google.registry.rdap.RdapMetrics.WildcardType;
@@ -42,6 +46,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import javax.inject.Inject;
+import org.joda.time.DateTime;
 
 /**
  * Base RDAP (new WHOIS) action for domain, nameserver and entity search requests.
@@ -57,6 +62,7 @@ public abstract class RdapSearchActionBase extends RdapActionBase {
   @Inject @ParameterMap ImmutableListMultimap<String, String> parameterMap;
   @Inject @Parameter("cursor") Optional<String> cursorTokenParam;
   @Inject @Parameter("registrar") Optional<String> registrarParam;
+  @Inject @Config("rdapActiveNameIndexEnabled") boolean activeNameIndexEnabled;
 
   protected Optional<String> cursorString;
 
@@ -202,6 +208,76 @@ public abstract class RdapSearchActionBase extends RdapActionBase {
         numResourcesQueried);
   }
 
+  /**
+   * Returns whether a wildcard search by name can be answered from the {@link ActiveNameIndex}.
+   *
+   * <p>The index only holds active names, and can't be filtered by registrar, so searches that
+   * include deleted items or filter on a registrar still query the resources themselves.
+   */
+  boolean canUseActiveNameIndex() {
+    return activeNameIndexEnabled && !shouldIncludeDeleted() && !getDesiredRegistrar().isPresent();
+  }
+
+  /**
+   * Returns a query for the {@link ActiveNameIndex} entries of resources whose names begin with the
+   * initial string of a pattern, in name order, after the cursor if there is one.
+   *
+   * <p>An empty initial string matches all names, so the caller must limit the query some other
+   * way. Any search suffix is ignored.
+   */
+  <E extends EppResource> Query<ActiveNameIndex<E>> queryActiveNames(
+      Class<E> clazz, RdapSearchPattern partialStringQuery) {
+    Class<ActiveNameIndex<E>> indexClass = ActiveNameIndex.mapToIndexClass(clazz);
+    Query<ActiveNameIndex<E>> query = ofy().load().type(indexClass);
+    if (!partialStringQuery.getInitialString().isEmpty()) {
+      query =
+          query
+              .filterKey(">=", Key.create(indexClass, partialStringQuery.getInitialString()))
+              .filterKey("<", Key.create(indexClass, partialStringQuery.getNextInitialString()));
+    }
+    if (cursorString.isPresent()) {
+      query = query.filterKey(">", Key.create(indexClass, cursorString.get()));
+    }
+    return query;
+  }
+
+  /**
+   * Loads the resources referred to by the results of an {@link ActiveNameIndex} query.
+   *
+   * <p>The index entries are read in batches until one more than a full result set of visible
+   * resources has been found, so there is no need to guess how many entries to fetch, and the
+   * result set is never incomplete. Entries of resources whose pending delete has finished, but
+   * haven't been removed from the index yet, are skipped.
+   */
+  <E extends EppResource> RdapResultSet<E> getMatchingResourcesFromIndex(
+      Query<ActiveNameIndex<E>> query) {
+    DateTime now = getRequestTime();
+    int batchSize = rdapResultSetMaxSize + 1;
+    List<E> resources = new ArrayList<>();
+    int numResourcesRetrieved = 0;
+    for (List<ActiveNameIndex<E>> batch : Iterables.partition(query.chunk(batchSize), batchSize)) {
+      ImmutableList<Key<E>> keys =
+          batch.stream()
+              .filter(index -> now.isBefore(index.getDeletionTime()))
+              .map(ActiveNameIndex::getResourceKey)
+              .collect(toImmutableList());
+      Map<Key<E>, E> loadedResources = ofy().load().keys(keys);
+      numResourcesRetrieved += loadedResources.size();
+      for (Key<E> key : keys) {
+        E resource = loadedResources.get(key);
+        if (resource != null && shouldBeVisible(resource)) {
+          resources.add(resource);
+          if (resources.size() > rdapResultSetMaxSize) {
+            return RdapResultSet.create(
+                resources, IncompletenessWarningType.COMPLETE, numResourcesRetrieved);
+          }
+        }
+      }
+    }
+    return RdapResultSet.create(
+        resources, IncompletenessWarningType.COMPLETE, numResourcesRetrieved);
+  }
+
   RdapSearchPattern recordWildcardType(RdapSearchPattern partialStringQuery) {
     if (!partialStringQuery.getHasWildcard()) {
       metricInformationBuilder.setWildcardType(WildcardType.NO_WILDCARD);
@@ -31,7 +31,9 @@ import google.registry.request.auth.Auth;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyPair;
 import org.bouncycastle.openpgp.PGPPrivateKey;
@@ -73,6 +75,8 @@ public final class BrdaCopyAction implements Runnable {
   @Inject @Key("brdaReceiverKey") PGPPublicKey receiverKey;
   @Inject @Key("brdaSigningKey") PGPKeyPair signingKey;
   @Inject @Key("rdeStagingDecryptionKey") PGPPrivateKey stagingDecryptionKey;
+  @Inject @Config("rdeCompressionThreads") int compressionThreads;
+  @Inject @Named("rdeCompressionThreadFactory") ThreadFactory compressionThreadFactory;
   @Inject BrdaCopyAction() {}
 
   @Override
@@ -102,6 +106,7 @@ public final class BrdaCopyAction implements Runnable {
             .setRydeOutput(rydeOut, receiverKey)
             .setSignatureOutput(sigOut, signingKey)
             .setFileMetadata(prefix, xmlLength, watermark)
+            .setCompressionThreads(compressionThreads, compressionThreadFactory)
             .build()) {
       ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
     }
@@ -0,0 +1,108 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static google.registry.model.EppResourceUtils.loadAtPointInTime;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.Result;
+import com.googlecode.objectify.util.ResultNow;
+import google.registry.model.EppResource;
+import google.registry.model.ofy.CommitLogMutation;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.joda.time.DateTime;
+
+/**
+ * Resources as they were at points in time, loaded in batches for {@link RdeStagingMapper}.
+ *
+ * <p>Reconstructing a resource that has changed since a watermark means loading a {@link
+ * CommitLogMutation}. Requesting a snapshot only starts that load, and Objectify performs all the
+ * loads started so far as one batch when the first snapshot is read. So requesting the snapshots of
+ * a whole batch of resources before reading any of them takes a single round trip, rather than one
+ * per resource and watermark. Snapshots are kept by resource key and time, so a domain that is the
+ * superordinate domain of many hosts is only reconstructed once per batch.
+ */
+final class PointInTimeSnapshotCache {
+
+  private final Map<SnapshotKey, Result<? extends EppResource>> snapshots = new HashMap<>();
+
+  /** Starts loading a resource as it was at a point in time, unless that is already loading. */
+  void request(EppResource resource, DateTime timestamp) {
+    snapshots.computeIfAbsent(
+        SnapshotKey.create(Key.create(resource), timestamp),
+        snapshotKey -> loadAtPointInTime(resource, timestamp));
+  }
+
+  /**
+   * Starts loading resources by key as they were at points in time.
+   *
+   * <p>The current versions of all of the resources that aren't already loading are loaded as one
+   * batch first, since their revisions are needed to find the point-in-time versions.
+   */
+  void requestByKey(ImmutableSet<SnapshotKey> snapshotKeys) {
+    ImmutableSet<SnapshotKey> missingSnapshotKeys =
+        snapshotKeys.stream()
+            .filter(snapshotKey -> !snapshots.containsKey(snapshotKey))
+            .collect(toImmutableSet());
+    Map<Key<EppResource>, EppResource> currentResources =
+        ofy()
+            .load()
+            .keys(
+                missingSnapshotKeys.stream()
+                    .map(SnapshotKey::resourceKey)
+                    .collect(toImmutableSet()));
+    for (SnapshotKey snapshotKey : missingSnapshotKeys) {
+      EppResource resource = currentResources.get(snapshotKey.resourceKey());
+      if (resource == null) {
+        snapshots.put(snapshotKey, new ResultNow<>(null));
+      } else {
+        request(resource, snapshotKey.timestamp());
+      }
+    }
+  }
+
+  /**
+   * Returns a requested resource as it was at a point in time, or null if it didn't exist or was
+   * deleted then.
+   */
+  @Nullable
+  @SuppressWarnings("unchecked")
+  <T extends EppResource> T get(Key<T> resourceKey, DateTime timestamp) {
+    Result<? extends EppResource> snapshot =
+        snapshots.get(SnapshotKey.create(resourceKey, timestamp));
+    checkState(snapshot != null, "%s at %s wasn't requested", resourceKey, timestamp);
+    return (T) snapshot.now();
+  }
+
+  /** Map key for the snapshot of a resource at a point in time. */
+  @AutoValue
+  abstract static class SnapshotKey {
+    abstract Key<EppResource> resourceKey();
+    abstract DateTime timestamp();
+
+    @SuppressWarnings("unchecked")
+    static SnapshotKey create(Key<? extends EppResource> resourceKey, DateTime timestamp) {
+      return new AutoValue_PointInTimeSnapshotCache_SnapshotKey(
+          (Key<EppResource>) resourceKey, timestamp);
+    }
+  }
+}
@@ -14,6 +14,7 @@
 
 package google.registry.rde;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
 import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
 import static google.registry.request.RequestParameters.extractBooleanParameter;
 import static google.registry.request.RequestParameters.extractOptionalIntParameter;
@@ -30,6 +31,7 @@ import dagger.Module;
 import dagger.Provides;
 import google.registry.request.Parameter;
 import java.util.Optional;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Named;
 import javax.servlet.http.HttpServletRequest;
 import org.joda.time.DateTime;
@@ -104,6 +106,12 @@ public abstract class RdeModule {
     return getQueue("rde-report");
   }
 
+  @Provides
+  @Named("rdeCompressionThreadFactory")
+  static ThreadFactory provideRdeCompressionThreadFactory() {
+    return currentRequestThreadFactory();
+  }
+
   @Binds
   abstract SftpProgressMonitor provideSftpProgressMonitor(
       LoggingSftpProgressMonitor loggingSftpProgressMonitor);
@@ -16,24 +16,24 @@ package google.registry.rde;
 
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static google.registry.model.EppResourceUtils.loadAtPointInTime;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 
 import com.google.appengine.tools.mapreduce.Mapper;
 import com.google.auto.value.AutoValue;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Maps;
-import com.googlecode.objectify.Result;
+import com.googlecode.objectify.Key;
 import google.registry.model.EppResource;
 import google.registry.model.contact.ContactResource;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.host.HostResource;
 import google.registry.model.rde.RdeMode;
 import google.registry.model.registrar.Registrar;
+import google.registry.rde.PointInTimeSnapshotCache.SnapshotKey;
 import google.registry.xml.ValidationMode;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.joda.time.DateTime;
@@ -43,9 +43,15 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
 
   private static final long serialVersionUID = -1518185703789372524L;
 
+  /** The number of resources whose point-in-time representations are loaded together. */
+  private static final int BATCH_SIZE = 100;
+
   private final RdeMarshaller marshaller;
   private final ImmutableSetMultimap<String, PendingDeposit> pendings;
 
+  /** Resources held back by {@link #map} until a batch is full or the slice ends. */
+  private transient List<PendingResource> pendingResources;
+
   RdeStagingMapper(
       ValidationMode validationMode, ImmutableSetMultimap<String, PendingDeposit> pendings) {
     this.marshaller = new RdeMarshaller(validationMode);
@@ -105,24 +111,81 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
       tlds = pendings.keySet();
     }
 
-    // Get the set of all point-in-time watermarks we need, to minimize rewinding.
-    ImmutableSet<DateTime> dates =
-        tlds.stream()
-            .map(pendings::get)
-            .flatMap(ImmutableSet::stream)
-            .map(PendingDeposit::watermark)
-            .collect(toImmutableSet());
+    if (pendingResources == null) {
+      pendingResources = new ArrayList<>();
+    }
+    pendingResources.add(PendingResource.create(resource, tlds));
+    if (pendingResources.size() >= BATCH_SIZE) {
+      emitPendingResources();
+    }
+  }
 
-    // Launch asynchronous fetches of point-in-time representations of resource.
-    ImmutableMap<DateTime, Result<EppResource>> resourceAtTimes =
-        ImmutableMap.copyOf(Maps.asMap(dates, input -> loadAtPointInTime(resource, input)));
+  @Override
+  public void endSlice() {
+    emitPendingResources();
+  }
 
-    // Convert resource to an XML fragment for each watermark/mode pair lazily and cache the result.
-    Fragmenter fragmenter = new Fragmenter(resourceAtTimes);
+  /**
+   * Emits the resources held back by {@link #map}, reconstructing them at the watermarks in as few
+   * Datastore round trips as possible.
+   */
+  private void emitPendingResources() {
+    if (pendingResources == null || pendingResources.isEmpty()) {
+      return;
+    }
+    // Start loading the point-in-time representations of all of the resources at once.
+    PointInTimeSnapshotCache snapshots = new PointInTimeSnapshotCache();
+    for (PendingResource pendingResource : pendingResources) {
+      for (DateTime watermark : getWatermarks(pendingResource.tlds())) {
+        snapshots.request(pendingResource.resource(), watermark);
+      }
+    }
+    // Subordinate hosts are marshalled with their superordinate domains at the same watermark.
+    ImmutableSet.Builder<SnapshotKey> superordinateDomains = new ImmutableSet.Builder<>();
+    for (PendingResource pendingResource : pendingResources) {
+      if (pendingResource.resource() instanceof HostResource) {
+        Key<HostResource> hostKey = Key.create((HostResource) pendingResource.resource());
+        for (DateTime watermark : getWatermarks(pendingResource.tlds())) {
+          HostResource host = snapshots.get(hostKey, watermark);
+          if (host != null && host.isSubordinate()) {
+            superordinateDomains.add(SnapshotKey.create(host.getSuperordinateDomain(), watermark));
+          }
+        }
+      }
+    }
+    snapshots.requestByKey(superordinateDomains.build());
 
-    // Emit resource as an XML fragment for all TLDs and modes pending deposit.
     long resourcesEmitted = 0;
-    for (String tld : tlds) {
+    Fragmenter fragmenter = new Fragmenter(snapshots);
+    for (PendingResource pendingResource : pendingResources) {
+      resourcesEmitted += emitResource(pendingResource, fragmenter);
+    }
+    getContext().incrementCounter("resources emitted", resourcesEmitted);
+    getContext().incrementCounter("fragmenter cache hits", fragmenter.cacheHits);
+    getContext().incrementCounter("fragmenter resources not found", fragmenter.resourcesNotFound);
+    getContext().incrementCounter("fragmenter resources found", fragmenter.resourcesFound);
+    getContext().incrementCounter("snapshot batches loaded");
+    pendingResources.clear();
+
+    // Avoid running out of memory.
+    ofy().clearSessionCache();
+  }
+
+  /** Returns the set of all point-in-time watermarks we need, to minimize rewinding. */
+  private ImmutableSet<DateTime> getWatermarks(ImmutableSet<String> tlds) {
+    return tlds.stream()
+        .map(pendings::get)
+        .flatMap(ImmutableSet::stream)
+        .map(PendingDeposit::watermark)
+        .collect(toImmutableSet());
+  }
+
+  /** Emits a resource as an XML fragment for all TLDs and modes pending deposit. */
+  private long emitResource(PendingResource pendingResource, Fragmenter fragmenter) {
+    EppResource resource = pendingResource.resource();
+    fragmenter.startResource(resource);
+    long resourcesEmitted = 0;
+    for (String tld : pendingResource.tlds()) {
       for (PendingDeposit pending : pendings.get(tld)) {
         // Hosts and contacts don't get included in BRDA deposits.
         if (pending.mode() == RdeMode.THIN
@@ -138,26 +201,27 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
         }
       }
     }
-    getContext().incrementCounter("resources emitted", resourcesEmitted);
-    getContext().incrementCounter("fragmenter cache hits", fragmenter.cacheHits);
-    getContext().incrementCounter("fragmenter resources not found", fragmenter.resourcesNotFound);
-    getContext().incrementCounter("fragmenter resources found", fragmenter.resourcesFound);
-
-    // Avoid running out of memory.
-    ofy().clearSessionCache();
+    return resourcesEmitted;
   }
 
   /** Loading cache that turns a resource into XML for the various points in time and modes. */
   private class Fragmenter {
     private final Map<WatermarkModePair, Optional<DepositFragment>> cache = new HashMap<>();
-    private final ImmutableMap<DateTime, Result<EppResource>> resourceAtTimes;
+    private final PointInTimeSnapshotCache snapshots;
+    private Key<EppResource> resourceKey;
 
     long cacheHits = 0;
     long resourcesNotFound = 0;
     long resourcesFound = 0;
 
-    Fragmenter(ImmutableMap<DateTime, Result<EppResource>> resourceAtTimes) {
-      this.resourceAtTimes = resourceAtTimes;
+    Fragmenter(PointInTimeSnapshotCache snapshots) {
+      this.snapshots = snapshots;
+    }
+
+    /** Switches to marshalling a different resource. */
+    void startResource(EppResource resource) {
+      resourceKey = Key.create(resource);
+      cache.clear();
     }
 
     Optional<DepositFragment> marshal(DateTime watermark, RdeMode mode) {
@@ -166,7 +230,7 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
         cacheHits++;
         return result;
       }
-      EppResource resource = resourceAtTimes.get(watermark).now();
+      EppResource resource = snapshots.get(resourceKey, watermark);
       if (resource == null) {
         result = Optional.empty();
         cache.put(WatermarkModePair.create(watermark, RdeMode.FULL), result);
@@ -190,8 +254,7 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
             ? marshaller.marshalSubordinateHost(
                 host,
                 // Note that loadAtPointInTime() does cloneProjectedAtTime(watermark) for us.
-                loadAtPointInTime(
-                    ofy().load().key(host.getSuperordinateDomain()).now(), watermark).now())
+                snapshots.get(host.getSuperordinateDomain(), watermark))
             : marshaller.marshalExternalHost(host));
         cache.put(WatermarkModePair.create(watermark, RdeMode.FULL), result);
         cache.put(WatermarkModePair.create(watermark, RdeMode.THIN), result);
@@ -202,6 +265,17 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
     }
   }
 
+  /** A resource that has been mapped, and the TLDs whose deposits it should be emitted to. */
+  @AutoValue
+  abstract static class PendingResource {
+    abstract EppResource resource();
+    abstract ImmutableSet<String> tlds();
+
+    static PendingResource create(EppResource resource, ImmutableSet<String> tlds) {
+      return new AutoValue_RdeStagingMapper_PendingResource(resource, tlds);
+    }
+  }
+
   /** Map key for {@link Fragmenter} cache. */
   @AutoValue
   abstract static class WatermarkModePair {
@@ -62,6 +62,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.bouncycastle.openpgp.PGPKeyPair;
@@ -114,6 +115,8 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
   @Inject @Config("rdeUploadLockTimeout") Duration timeout;
   @Inject @Config("rdeUploadSftpCooldown") Duration sftpCooldown;
   @Inject @Config("rdeUploadUrl") URI uploadUrl;
+  @Inject @Config("rdeCompressionThreads") int compressionThreads;
+  @Inject @Named("rdeCompressionThreadFactory") ThreadFactory compressionThreadFactory;
   @Inject @Key("rdeReceiverKey") PGPPublicKey receiverKey;
   @Inject @Key("rdeSigningKey") PGPKeyPair signingKey;
   @Inject @Key("rdeStagingDecryptionKey") PGPPrivateKey stagingDecryptionKey;
@@ -223,6 +226,7 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
                     .setRydeOutput(teeOutput, receiverKey)
                     .setSignatureOutput(sigOut, signingKey)
                     .setFileMetadata(name, xmlLength, watermark)
+                    .setCompressionThreads(compressionThreads, compressionThreadFactory)
                     .build()) {
             long bytesCopied = ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
             logger.atInfo().log("uploaded %,d bytes: %s", bytesCopied, rydeFilename);
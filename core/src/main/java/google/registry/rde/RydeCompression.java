@@ -14,15 +14,28 @@
 
 package google.registry.rde;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static org.bouncycastle.bcpg.CompressionAlgorithmTags.ZIP;
 
 import google.registry.util.ImprovedInputStream;
 import google.registry.util.ImprovedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
 import javax.annotation.WillNotClose;
+import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.bcpg.PacketTags;
 import org.bouncycastle.openpgp.PGPCompressedData;
 import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
 import org.bouncycastle.openpgp.PGPException;
@@ -45,6 +58,12 @@ final class RydeCompression {
    */
   private static final int COMPRESSION_ALGORITHM = ZIP;
 
+  /** Size of the blocks of uncompressed data that are compressed in parallel. */
+  private static final int BLOCK_SIZE = 1024 * 1024;
+
+  /** Size of the DEFLATE window, which is primed with the end of the previous block. */
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+
   /**
    * Creates an OutputStream that compresses the data.
    *
@@ -62,6 +81,34 @@ final class RydeCompression {
     }
   }
 
+  /**
+   * Creates an OutputStream that compresses the data in blocks on several threads.
+   *
+   * <p>The output is a single OpenPGP compressed data packet, like that of {@link #openCompressor},
+   * which is decompressed the same way. Each block is compressed as a run of DEFLATE blocks that
+   * ends on a byte boundary, and the compressed blocks are written out in order, so together they
+   * form one DEFLATE stream. Each block's compressor is primed with the last 32 KiB of the previous
+   * block, so the compression ratio is almost that of a single compressor.
+   *
+   * <p>Compressed blocks are written to {@code os}, which is usually the encryption layer, on the
+   * calling thread while later blocks are still being compressed.
+   *
+   * @param executor the executor to compress blocks on
+   * @param maxPendingBlocks the number of blocks to compress ahead of the one being written, which
+   *     bounds memory use to about twice that many blocks
+   */
+  @CheckReturnValue
+  static ImprovedOutputStream openParallelCompressor(
+      @WillNotClose OutputStream os, ExecutorService executor, int maxPendingBlocks) {
+    checkArgument(maxPendingBlocks > 0, "maxPendingBlocks must be positive");
+    try {
+      return new ImprovedOutputStream(
+          "RydeParallelCompressor", new ParallelCompressor(os, executor, maxPendingBlocks));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Creates an InputStream that decompresses the data.
    *
@@ -77,4 +124,122 @@ final class RydeCompression {
       throw new RuntimeException(e);
     }
   }
+
+  /** OutputStream that writes an OpenPGP compressed data packet, compressing blocks in parallel. */
+  private static final class ParallelCompressor extends OutputStream {
+
+    private final BCPGOutputStream packetOutput;
+    private final ExecutorService executor;
+    private final int maxPendingBlocks;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength = 0;
+    @Nullable private byte[] dictionary = null;
+    private boolean isClosed = false;
+
+    ParallelCompressor(OutputStream os, ExecutorService executor, int maxPendingBlocks)
+        throws IOException {
+      this.packetOutput =
+          new BCPGOutputStream(os, PacketTags.COMPRESSED_DATA, new byte[BUFFER_SIZE]);
+      this.executor = executor;
+      this.maxPendingBlocks = maxPendingBlocks;
+      packetOutput.write(COMPRESSION_ALGORITHM);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        int count = Math.min(len, BLOCK_SIZE - blockLength);
+        System.arraycopy(b, off, block, blockLength, count);
+        blockLength += count;
+        off += count;
+        len -= count;
+        if (blockLength == BLOCK_SIZE) {
+          submitBlock(false);
+          while (pendingBlocks.size() > maxPendingBlocks) {
+            writeNextBlock();
+          }
+        }
+      }
+    }
+
+    /** Finishes the compressed data packet, without closing the underlying stream. */
+    @Override
+    public void close() throws IOException {
+      if (isClosed) {
+        return;
+      }
+      isClosed = true;
+      submitBlock(true);
+      while (!pendingBlocks.isEmpty()) {
+        writeNextBlock();
+      }
+      packetOutput.finish();
+      packetOutput.flush();
+    }
+
+    private void submitBlock(boolean isLast) {
+      byte[] input = block;
+      int inputLength = blockLength;
+      byte[] inputDictionary = dictionary;
+      pendingBlocks.add(
+          executor.submit(() -> compressBlock(input, inputLength, inputDictionary, isLast)));
+      if (!isLast) {
+        dictionary = Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength);
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+      }
+    }
+
+    private void writeNextBlock() throws IOException {
+      try {
+        packetOutput.write(getUninterruptibly(pendingBlocks.remove()));
+      } catch (ExecutionException e) {
+        pendingBlocks.forEach(pendingBlock -> pendingBlock.cancel(true));
+        pendingBlocks.clear();
+        throw new IOException("Failed to compress block", e.getCause());
+      }
+    }
+
+    /**
+     * Compresses a block as raw DEFLATE data.
+     *
+     * <p>All but the last block end with a sync flush rather than a final DEFLATE block, so that
+     * the next compressed block can follow directly.
+     */
+    private static byte[] compressBlock(
+        byte[] input, int inputLength, @Nullable byte[] dictionary, boolean isLast) {
+      // The same settings as the ZIP compressor of PGPCompressedDataGenerator.
+      Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      try {
+        if (dictionary != null) {
+          deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(input, 0, inputLength);
+        if (isLast) {
+          deflater.finish();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream(inputLength / 4 + 64);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+          int count =
+              deflater.deflate(
+                  buffer, 0, buffer.length, isLast ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+          output.write(buffer, 0, count);
+          // A sync flush is complete once it leaves room in the buffer.
+          if (isLast ? deflater.finished() : count < buffer.length) {
+            return output.toByteArray();
+          }
+        }
+      } finally {
+        deflater.end();
+      }
+    }
+  }
 }
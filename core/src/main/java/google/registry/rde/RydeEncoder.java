@@ -14,8 +14,10 @@
 
 package google.registry.rde;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static google.registry.rde.RydeCompression.openCompressor;
+import static google.registry.rde.RydeCompression.openParallelCompressor;
 import static google.registry.rde.RydeEncryption.RYDE_USE_INTEGRITY_PACKET;
 import static google.registry.rde.RydeEncryption.openEncryptor;
 import static google.registry.rde.RydeFileEncoding.openPgpFileWriter;
@@ -27,6 +29,10 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyPair;
@@ -48,6 +54,10 @@ import org.joda.time.DateTime;
  *
  * <p>Because of the external tar file encoding - the encoder must know the total length of the data
  * from the start. This is a bit annoying, but necessary.
+ *
+ * <p>Compression is the most expensive step. With more than one compression thread, the data is
+ * compressed in blocks on a pool of that many threads, while the compressed blocks are encrypted
+ * and signed on the writing thread. The output is still a single ZIP compressed data packet.
  */
 @NotThreadSafe
 public final class RydeEncoder extends FilterOutputStream {
@@ -65,13 +75,26 @@ public final class RydeEncoder extends FilterOutputStream {
       String filenamePrefix,
       DateTime modified,
       PGPKeyPair signingKey,
-      Collection<PGPPublicKey> receiverKeys) {
+      Collection<PGPPublicKey> receiverKeys,
+      int compressionThreads,
+      @Nullable ThreadFactory compressionThreadFactory) {
     super(null);
     this.sigOutput = sigOutput;
     signer = closer.register(new RydePgpSigningOutputStream(checkNotNull(rydeOutput), signingKey));
     OutputStream encryptLayer =
         closer.register(openEncryptor(signer, RYDE_USE_INTEGRITY_PACKET, receiverKeys));
-    OutputStream kompressor = closer.register(openCompressor(encryptLayer));
+    OutputStream kompressor;
+    if (compressionThreads > 1) {
+      ExecutorService compressionExecutor =
+          Executors.newFixedThreadPool(compressionThreads, compressionThreadFactory);
+      // Registered before the compressor, so that it's shut down after the compressor is closed.
+      closer.register(compressionExecutor::shutdownNow);
+      kompressor =
+          closer.register(
+              openParallelCompressor(encryptLayer, compressionExecutor, 2 * compressionThreads));
+    } else {
+      kompressor = closer.register(openCompressor(encryptLayer));
+    }
     OutputStream fileLayer =
         closer.register(openPgpFileWriter(kompressor, filenamePrefix + ".tar", modified));
     OutputStream tarLayer =
@@ -114,6 +137,8 @@ public final class RydeEncoder extends FilterOutputStream {
     DateTime modified;
     PGPKeyPair signingKey;
     ImmutableList<PGPPublicKey> receiverKeys;
+    int compressionThreads = 1;
+    ThreadFactory compressionThreadFactory;
 
     /** Sets the OutputStream for the Ryde-encoded data, and the keys used for the encryption. */
     public Builder setRydeOutput(
@@ -139,8 +164,25 @@ public final class RydeEncoder extends FilterOutputStream {
       return this;
     }
 
+    /**
+     * Sets the number of threads to compress the data on, and how to create them.
+     *
+     * <p>The default is to compress on the writing thread. The thread factory is only used when
+     * there is more than one thread.
+     */
+    public Builder setCompressionThreads(
+        int compressionThreads, @Nullable ThreadFactory compressionThreadFactory) {
+      checkArgument(compressionThreads > 0, "compressionThreads must be positive");
+      this.compressionThreads = compressionThreads;
+      this.compressionThreadFactory = compressionThreadFactory;
+      return this;
+    }
+
     /** Returns the built {@link RydeEncoder}. */
     public RydeEncoder build() {
+      checkArgument(
+          compressionThreads == 1 || compressionThreadFactory != null,
+          "Must give a thread factory to 'setCompressionThreads' to use more than one thread");
       return new RydeEncoder(
           checkNotNull(rydeOutput, "Must call 'setRydeOutput'"),
           checkNotNull(sigOutput, "Must call 'setSignatureOutput'"),
@@ -148,7 +190,9 @@ public final class RydeEncoder extends FilterOutputStream {
           checkNotNull(filenamePrefix, "Must call 'setFileMetadata'"),
           checkNotNull(modified, "Must call 'setFileMetadata'"),
           checkNotNull(signingKey, "Must call 'setSignatureOutput'"),
-          checkNotNull(receiverKeys, "Must call 'setRydeOutput'"));
+          checkNotNull(receiverKeys, "Must call 'setRydeOutput'"),
+          compressionThreads,
+          compressionThreadFactory);
     }
   }
 }
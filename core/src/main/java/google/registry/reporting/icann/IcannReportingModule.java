@@ -14,18 +14,25 @@
 
 package google.registry.reporting.icann;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static google.registry.request.RequestParameters.extractOptionalParameter;
 import static google.registry.request.RequestParameters.extractRequiredParameter;
 import static google.registry.request.RequestParameters.extractSetOfEnumParameters;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import dagger.Module;
 import dagger.Provides;
 import google.registry.bigquery.BigqueryConnection;
 import google.registry.request.HttpException.BadRequestException;
 import google.registry.request.Parameter;
+import google.registry.request.RequestScope;
+import java.lang.annotation.Documented;
 import java.util.Optional;
+import javax.inject.Qualifier;
 import javax.servlet.http.HttpServletRequest;
 import org.joda.time.Duration;
 
@@ -45,6 +52,17 @@ public final class IcannReportingModule {
   static final String DATASTORE_EXPORT_DATA_SET = "latest_datastore_export";
   static final String MANIFEST_FILE_NAME = "MANIFEST.txt";
 
+  /** Dagger qualifier for the executor that runs the stages of ICANN report staging. */
+  @Qualifier
+  @Documented
+  @interface StagingExecutor {}
+
+  /**
+   * Number of threads in the staging executor. Besides the two threads that wait for the reports
+   * being staged, this leaves enough for both reports' independent views.
+   */
+  private static final int NUM_STAGING_THREADS = 10;
+
   /** Provides an optional subdirectory to store/upload reports to, extracted from the request. */
   @Provides
   @Parameter(PARAM_SUBDIR)
@@ -92,10 +110,26 @@ public final class IcannReportingModule {
           .setExecutorService(MoreExecutors.newDirectExecutorService())
           .setDatasetId(ICANN_REPORTING_DATA_SET)
           .setOverwrite(true)
-          .setPollInterval(Duration.standardSeconds(1))
+          .setPollInterval(Duration.millis(500))
+          .setMaxPollInterval(Duration.standardSeconds(10))
           .build();
     } catch (Throwable e) {
       throw new RuntimeException("Could not initialize BigqueryConnection!", e);
     }
   }
+
+  /**
+   * Provides the executor on which reports are staged concurrently.
+   *
+   * <p>The intermediary views of a report are created as soon as the views they read from exist,
+   * and the activity and transactions reports are staged at the same time. The action and the
+   * stager share one executor per request.
+   */
+  @Provides
+  @RequestScope
+  @StagingExecutor
+  static ListeningExecutorService provideStagingExecutor() {
+    return listeningDecorator(
+        newFixedThreadPool(NUM_STAGING_THREADS, currentRequestThreadFactory()));
+  }
 }
@@ -16,8 +16,11 @@ package google.registry.reporting.icann;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static google.registry.reporting.icann.IcannReportingModule.ICANN_REPORTING_DATA_SET;
 import static google.registry.reporting.icann.IcannReportingModule.MANIFEST_FILE_NAME;
+import static google.registry.reporting.icann.IcannReportingStagerMetrics.recordStage;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.api.services.bigquery.model.TableFieldSchema;
@@ -31,22 +34,30 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.ListMultimap;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import google.registry.bigquery.BigqueryConnection;
 import google.registry.bigquery.BigqueryUtils.TableType;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.gcs.GcsUtils;
 import google.registry.reporting.icann.IcannReportingModule.ReportType;
+import google.registry.reporting.icann.IcannReportingModule.StagingExecutor;
+import google.registry.util.Clock;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.joda.time.YearMonth;
 import org.joda.time.format.DateTimeFormat;
 
@@ -65,6 +76,8 @@ public class IcannReportingStager {
   @Inject TransactionsReportingQueryBuilder transactionsQueryBuilder;
   @Inject GcsUtils gcsUtils;
   @Inject BigqueryConnection bigquery;
+  @Inject @StagingExecutor ListeningExecutorService executor;
+  @Inject Clock clock;
 
   @Inject
   IcannReportingStager() {}
@@ -81,18 +94,31 @@ public class IcannReportingStager {
 
     if (reportType == ReportType.ACTIVITY) {
       // Prepare for the DNS count query, which may have special needs.
+      DateTime start = clock.nowUtc();
       activityQueryBuilder.prepareForQuery(yearMonth);
+      recordStage(reportType, "dns_count_preparation", new Duration(start, clock.nowUtc()));
     }
 
     ImmutableMap<String, String> viewQueryMap = queryBuilder.getViewQueryMap(yearMonth);
-    // Generate intermediary views
-    for (Entry<String, String> entry : viewQueryMap.entrySet()) {
-      createIntermediaryTableView(entry.getKey(), entry.getValue(), reportType);
+    // Generate intermediary views, each as soon as the views it reads from exist
+    ImmutableMap<String, ListenableFuture<?>> viewFutures =
+        createIntermediaryTableViews(yearMonth, viewQueryMap, reportType);
+    try {
+      Futures.allAsList(viewFutures.values()).get();
+    } catch (ExecutionException e) {
+      // Surface the failure of the view's creation itself, as when views were created serially
+      throwIfInstanceOf(e.getCause(), Exception.class);
+      throw e;
+    } finally {
+      // Don't leave views being created while this attempt is retried
+      viewFutures.values().forEach(viewFuture -> viewFuture.cancel(true));
     }
 
     // Get an in-memory table of the aggregate query's result
+    DateTime reportQueryStart = clock.nowUtc();
     ImmutableTable<Integer, TableFieldSchema, Object> reportTable =
         bigquery.queryToLocalTableSync(queryBuilder.getReportQuery(yearMonth));
+    recordStage(reportType, "report_query", new Duration(reportQueryStart, clock.nowUtc()));
 
     // Get report headers from the table schema and convert into CSV format
     String headerRow = constructRow(getHeaders(reportTable.columnKeySet()));
@@ -102,10 +128,55 @@ public class IcannReportingStager {
         : stageTransactionsReports(yearMonth, subdir, headerRow, reportTable.rowMap().values());
   }
 
-  private void createIntermediaryTableView(String queryName, String query, ReportType reportType)
+  /**
+   * Creates the intermediary views of a report, returning a future for each view's creation.
+   *
+   * <p>A view depends on the earlier views its query reads from. Each view is created once all of
+   * its dependencies have been, so that independent views are created concurrently.
+   */
+  private ImmutableMap<String, ListenableFuture<?>> createIntermediaryTableViews(
+      YearMonth yearMonth, ImmutableMap<String, String> viewQueryMap, ReportType reportType) {
+    // Views are named after their query, suffixed with the month in _yyyyMM format
+    String monthSuffix = "_" + DateTimeFormat.forPattern("yyyyMM").print(yearMonth);
+    Map<String, ListenableFuture<?>> viewFutures = new LinkedHashMap<>();
+    for (Entry<String, String> entry : viewQueryMap.entrySet()) {
+      String queryName = entry.getKey();
+      String query = entry.getValue();
+      ImmutableList<ListenableFuture<?>> dependencies =
+          viewQueryMap.keySet().stream()
+              .filter(otherName -> query.contains(ICANN_REPORTING_DATA_SET + "." + otherName))
+              .map(
+                  otherName -> {
+                    checkState(
+                        viewFutures.containsKey(otherName),
+                        "View %s depends on %s, which comes after it",
+                        queryName,
+                        otherName);
+                    return viewFutures.get(otherName);
+                  })
+              .collect(toImmutableList());
+      String stage =
+          queryName.endsWith(monthSuffix)
+              ? queryName.substring(0, queryName.length() - monthSuffix.length())
+              : queryName;
+      viewFutures.put(
+          queryName,
+          Futures.whenAllSucceed(dependencies)
+              .call(
+                  () -> {
+                    createIntermediaryTableView(queryName, stage, query, reportType);
+                    return null;
+                  },
+                  executor));
+    }
+    return ImmutableMap.copyOf(viewFutures);
+  }
+
+  private void createIntermediaryTableView(
+      String queryName, String stage, String query, ReportType reportType)
       throws ExecutionException, InterruptedException {
-    // Later views depend on the results of earlier ones, so query everything synchronously
     logger.atInfo().log("Generating intermediary view %s", queryName);
+    DateTime start = clock.nowUtc();
     bigquery.query(
         query,
         bigquery.buildDestinationTable(queryName)
@@ -114,6 +185,7 @@ public class IcannReportingStager {
             .type(TableType.VIEW)
             .build()
     ).get();
+    recordStage(reportType, stage, new Duration(start, clock.nowUtc()));
   }
 
   private Iterable<String> getHeaders(ImmutableSet<TableFieldSchema> fields) {
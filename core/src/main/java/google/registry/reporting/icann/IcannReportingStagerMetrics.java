@@ -0,0 +1,54 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.reporting.icann;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.reporting.icann.IcannReportingModule.ReportType;
+import org.joda.time.Duration;
+
+/** Timing metrics for the stages of {@link IcannReportingStager}. */
+class IcannReportingStagerMetrics {
+
+  private static final LabelDescriptor REPORT_TYPE_LABEL =
+      LabelDescriptor.create("report_type", "The type of ICANN report being staged.");
+
+  private static final LabelDescriptor STAGE_LABEL =
+      LabelDescriptor.create(
+          "stage", "The intermediary view created, or another step of staging a report.");
+
+  // Creating a view takes under a second, while report queries can take many minutes.
+  private static final DistributionFitter DURATION_FITTER =
+      ExponentialFitter.create(16, 2.0, 100.0);
+
+  @VisibleForTesting
+  static final EventMetric stageDuration =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/reporting/icann/staging/stage_duration",
+              "Duration of the stages of staging ICANN monthly reports",
+              "milliseconds",
+              ImmutableSet.of(REPORT_TYPE_LABEL, STAGE_LABEL),
+              DURATION_FITTER);
+
+  static void recordStage(ReportType reportType, String stage, Duration duration) {
+    stageDuration.record(duration.getMillis(), reportType.name(), stage);
+  }
+}
@@ -15,6 +15,8 @@
 package google.registry.reporting.icann;
 
 import static com.google.common.base.Throwables.getRootCause;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.reporting.icann.IcannReportingModule.PARAM_REPORT_TYPES;
 import static google.registry.reporting.icann.IcannReportingModule.PARAM_SUBDIR;
 import static google.registry.request.Action.Method.POST;
@@ -29,9 +31,12 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import google.registry.bigquery.BigqueryJobFailureException;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.reporting.icann.IcannReportingModule.ReportType;
+import google.registry.reporting.icann.IcannReportingModule.StagingExecutor;
 import google.registry.request.Action;
 import google.registry.request.Parameter;
 import google.registry.request.Response;
@@ -40,6 +45,7 @@ import google.registry.util.EmailMessage;
 import google.registry.util.Retrier;
 import google.registry.util.SendEmailService;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import javax.inject.Inject;
 import javax.mail.internet.InternetAddress;
 import org.joda.time.Duration;
@@ -62,7 +68,7 @@ import org.joda.time.format.DateTimeFormat;
  * to "icann/monthly/[yearMonth]".
  *
  * <p>reportTypes: the type of reports to generate. You can specify either 'activity' or
- * 'transactions'. If none specified - defaults to generating both.
+ * 'transactions'. If none specified - defaults to generating both, which are staged concurrently.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -81,6 +87,7 @@ public final class IcannReportingStagingAction implements Runnable {
   @Inject @Parameter(PARAM_SUBDIR) Optional<String> overrideSubdir;
   @Inject @Parameter(PARAM_REPORT_TYPES) ImmutableSet<ReportType> reportTypes;
   @Inject IcannReportingStager stager;
+  @Inject @StagingExecutor ListeningExecutorService executor;
   @Inject Retrier retrier;
   @Inject Response response;
   @Inject @Config("gSuiteOutgoingEmailAddress") InternetAddress sender;
@@ -95,11 +102,7 @@ public final class IcannReportingStagingAction implements Runnable {
       String subdir = getSubdir(yearMonth);
       retrier.callWithRetry(
           () -> {
-            ImmutableList.Builder<String> manifestedFilesBuilder = new ImmutableList.Builder<>();
-            for (ReportType reportType : reportTypes) {
-              manifestedFilesBuilder.addAll(stager.stageReports(yearMonth, subdir, reportType));
-            }
-            ImmutableList<String> manifestedFiles = manifestedFilesBuilder.build();
+            ImmutableList<String> manifestedFiles = stageReportsConcurrently(subdir);
             stager.createAndUploadManifest(subdir, manifestedFiles);
 
             logger.atInfo().log("Completed staging %d report files.", manifestedFiles.size());
@@ -146,6 +149,30 @@ public final class IcannReportingStagingAction implements Runnable {
     }
   }
 
+  /** Stages each type of report at the same time, returning all files staged in type order. */
+  private ImmutableList<String> stageReportsConcurrently(String subdir) throws Exception {
+    ImmutableList<ListenableFuture<ImmutableList<String>>> stagings =
+        reportTypes.stream()
+            .map(
+                reportType ->
+                    executor.submit(() -> stager.stageReports(yearMonth, subdir, reportType)))
+            .collect(toImmutableList());
+    try {
+      ImmutableList.Builder<String> manifestedFilesBuilder = new ImmutableList.Builder<>();
+      for (ListenableFuture<ImmutableList<String>> staging : stagings) {
+        manifestedFilesBuilder.addAll(staging.get());
+      }
+      return manifestedFilesBuilder.build();
+    } catch (ExecutionException e) {
+      // Rethrow the stager's own exception, so that BigQuery job failures are still retried
+      throwIfInstanceOf(e.getCause(), Exception.class);
+      throw e;
+    } finally {
+      // Don't leave the other report staging while this attempt is retried
+      stagings.forEach(staging -> staging.cancel(true));
+    }
+  }
+
   String getSubdir(YearMonth yearMonth) {
     return IcannReportingModule.checkSubdirValid(
         overrideSubdir.orElse(
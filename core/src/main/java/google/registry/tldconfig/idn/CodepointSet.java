@@ -0,0 +1,99 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tldconfig.idn;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.errorprone.annotations.Immutable;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable set of Unicode codepoints, compiled for fast lookups.
+ *
+ * <p>Codepoints in the Basic Multilingual Plane, which is where nearly all IDN table entries are,
+ * are kept in an 8 KiB bitset, so that looking one up is an array access and a bit test. The
+ * supplementary codepoints are few, so they are kept as sorted ranges that are binary searched.
+ * Nothing is boxed on lookup, unlike with a {@code RangeSet<Integer>}.
+ */
+@Immutable
+final class CodepointSet {
+
+  private static final int BMP_SIZE = Character.MIN_SUPPLEMENTARY_CODE_POINT;
+
+  /** One bit for each codepoint in the Basic Multilingual Plane. */
+  @SuppressWarnings("Immutable") // Never modified after construction.
+  private final long[] bmpBits;
+
+  /**
+   * The supplementary codepoints, as sorted and disjoint ranges, with the inclusive start of each
+   * range followed by its inclusive end.
+   */
+  @SuppressWarnings("Immutable") // Never modified after construction.
+  private final int[] supplementaryRanges;
+
+  private CodepointSet(long[] bmpBits, int[] supplementaryRanges) {
+    this.bmpBits = bmpBits;
+    this.supplementaryRanges = supplementaryRanges;
+  }
+
+  /** Returns whether the given codepoint is in this set. */
+  boolean contains(int codepoint) {
+    if (codepoint < BMP_SIZE) {
+      return codepoint >= 0 && (bmpBits[codepoint >>> 6] & (1L << codepoint)) != 0;
+    }
+    // Find the last range starting at or before the codepoint.
+    int low = 0;
+    int high = supplementaryRanges.length / 2 - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (supplementaryRanges[2 * mid] <= codepoint) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high >= 0 && codepoint <= supplementaryRanges[2 * high + 1];
+  }
+
+  /** Builder for {@link CodepointSet}. */
+  static final class Builder {
+
+    private final BitSet codepoints = new BitSet();
+
+    Builder add(int codepoint) {
+      checkArgument(Character.isValidCodePoint(codepoint), "Invalid codepoint: %s", codepoint);
+      codepoints.set(codepoint);
+      return this;
+    }
+
+    CodepointSet build() {
+      long[] bmpBits = Arrays.copyOf(codepoints.get(0, BMP_SIZE).toLongArray(), BMP_SIZE / 64);
+      int[] ranges = new int[0];
+      int rangeCount = 0;
+      for (int start = codepoints.nextSetBit(BMP_SIZE);
+          start >= 0;
+          start = codepoints.nextSetBit(codepoints.nextClearBit(start))) {
+        if (2 * rangeCount == ranges.length) {
+          ranges = Arrays.copyOf(ranges, Math.max(2, 2 * ranges.length));
+        }
+        ranges[2 * rangeCount] = start;
+        ranges[2 * rangeCount + 1] = codepoints.nextClearBit(start) - 1;
+        rangeCount++;
+      }
+      return new CodepointSet(bmpBits, Arrays.copyOf(ranges, 2 * rangeCount));
+    }
+  }
+}
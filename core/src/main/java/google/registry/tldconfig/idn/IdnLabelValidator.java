@@ -14,11 +14,13 @@
 
 package google.registry.tldconfig.idn;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.tldconfig.idn.IdnTableEnum.EXTENDED_LATIN;
 import static google.registry.tldconfig.idn.IdnTableEnum.JA;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import google.registry.util.Idn;
 import java.util.Optional;
 
@@ -33,11 +35,19 @@ public final class IdnLabelValidator {
       DEFAULT_IDN_TABLE_LISTS_PER_TLD =
           ImmutableMap.of("xn--q9jyb4c", ImmutableList.of(EXTENDED_LATIN, JA));
 
+  /** The tables of {@link #DEFAULT_IDN_TABLES}, looked up once. */
+  private static final ImmutableList<IdnTable> DEFAULT_TABLES = getTables(DEFAULT_IDN_TABLES);
+
   /** Some TLDs have their own IDN tables, configured here. */
-  private ImmutableMap<String, ImmutableList<IdnTableEnum>> idnTableListsPerTld;
+  private final ImmutableMap<String, ImmutableList<IdnTable>> idnTableListsPerTld;
 
   IdnLabelValidator(ImmutableMap<String, ImmutableList<IdnTableEnum>> indTableListsPerTld) {
-    this.idnTableListsPerTld = indTableListsPerTld;
+    this.idnTableListsPerTld =
+        ImmutableMap.copyOf(Maps.transformValues(indTableListsPerTld, IdnLabelValidator::getTables));
+  }
+
+  private static ImmutableList<IdnTable> getTables(ImmutableList<IdnTableEnum> idnTables) {
+    return idnTables.stream().map(IdnTableEnum::getTable).collect(toImmutableList());
   }
 
   public static IdnLabelValidator createDefaultIdnLabelValidator() {
@@ -52,12 +62,8 @@ public final class IdnLabelValidator {
    */
   public Optional<String> findValidIdnTableForTld(String label, String tld) {
     String unicodeString = Idn.toUnicode(label);
-    for (IdnTableEnum idnTable :
-        Optional.ofNullable(idnTableListsPerTld.get(tld)).orElse(DEFAULT_IDN_TABLES)) {
-      if (idnTable.getTable().isValidLabel(unicodeString)) {
-        return Optional.of(idnTable.getTable().getName());
-      }
-    }
-    return Optional.empty();
+    return IdnTable.findFirstValidTable(
+            unicodeString, idnTableListsPerTld.getOrDefault(tld, DEFAULT_TABLES))
+        .map(IdnTable::getName);
   }
 }
@@ -17,12 +17,11 @@ package google.registry.tldconfig.idn;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.google.common.collect.ImmutableRangeSet;
-import com.google.common.collect.Range;
 import com.google.errorprone.annotations.Immutable;
 import com.google.re2j.Matcher;
 import com.google.re2j.Pattern;
 import java.net.URI;
+import java.util.List;
 import java.util.Optional;
 
 /** An IDN table for a particular TLD. */
@@ -49,8 +48,8 @@ public final class IdnTable {
   /** Public URL of policy for this IDN table, which is needed by RDE. */
   private final URI policy;
 
-  /** {@link ImmutableRangeSet} containing the valid codepoints in this table. */
-  private final ImmutableRangeSet<Integer> validCodepoints;
+  /** {@link CodepointSet} containing the valid codepoints in this table. */
+  private final CodepointSet validCodepoints;
 
   /** Validates the language rules associated with this IDN table. */
   private final Optional<LanguageValidator> languageValidator;
@@ -59,7 +58,7 @@ public final class IdnTable {
       String name,
       URI url,
       URI policy,
-      ImmutableRangeSet<Integer> validCodepoints,
+      CodepointSet validCodepoints,
       Optional<LanguageValidator> languageValidator) {
     this.name = name;
     this.url = checkNotNull(url, "%s missing '# URL: http://foo.example/page' line", name);
@@ -96,14 +95,49 @@ public final class IdnTable {
       // surrogates).
       i += Character.charCount(codepoint);
     }
+    return isValidLabelForLanguage(label);
+  }
+
+  private boolean isValidLabelForLanguage(String label) {
     return !(languageValidator.isPresent()
         && !languageValidator.get().isValidLabelForLanguage(label));
   }
 
+  /**
+   * Returns the first of the given IDN tables for which the given label is valid, or absent if the
+   * label is valid for none of them.
+   *
+   * <p>This is equivalent to calling {@link #isValidLabel} on each table in turn, but decodes the
+   * label's codepoints only once, checking each against every table that hasn't been ruled out yet.
+   */
+  static Optional<IdnTable> findFirstValidTable(String label, List<IdnTable> tables) {
+    checkArgument(tables.size() <= Long.SIZE, "Too many IDN tables: %s", tables.size());
+    // One bit for each table that all codepoints so far are valid for.
+    long candidates = tables.size() == Long.SIZE ? -1L : (1L << tables.size()) - 1;
+    final int length = label.length();
+    for (int i = 0; i < length && candidates != 0; ) {
+      int codepoint = label.codePointAt(i);
+      for (long remaining = candidates; remaining != 0; remaining &= remaining - 1) {
+        int table = Long.numberOfTrailingZeros(remaining);
+        if (!tables.get(table).validCodepoints.contains(codepoint)) {
+          candidates &= ~(1L << table);
+        }
+      }
+      i += Character.charCount(codepoint);
+    }
+    for (; candidates != 0; candidates &= candidates - 1) {
+      IdnTable table = tables.get(Long.numberOfTrailingZeros(candidates));
+      if (table.isValidLabelForLanguage(label)) {
+        return Optional.of(table);
+      }
+    }
+    return Optional.empty();
+  }
+
   /** Creates an IDN table given the lines from text file. */
   static IdnTable createFrom(
       String language, Iterable<String> data, Optional<LanguageValidator> languageValidator) {
-    ImmutableRangeSet.Builder<Integer> rangeSet = new ImmutableRangeSet.Builder<>();
+    CodepointSet.Builder codepoints = new CodepointSet.Builder();
     URI url = null;
     URI policy = null;
     for (String line : data) {
@@ -122,10 +156,9 @@ public final class IdnTable {
         continue;
       }
 
-      int codepoint = readCodepoint(line);
-      rangeSet.add(Range.singleton(codepoint));
+      codepoints.add(readCodepoint(line));
     }
-    return new IdnTable(language, url, policy, rangeSet.build(), languageValidator);
+    return new IdnTable(language, url, policy, codepoints.build(), languageValidator);
   }
 
   /**
@@ -25,6 +25,7 @@ import google.registry.config.RegistryEnvironment;
 import google.registry.mapreduce.MapreduceRunner;
 import google.registry.mapreduce.inputs.EppResourceInputs;
 import google.registry.model.EppResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.request.Action;
@@ -78,6 +79,7 @@ public class KillAllEppResourcesAction implements Runnable {
      * <p>This will delete:
      * <ul>
      *   <li>All {@link ForeignKeyIndex} types
+     *   <li>All {@link ActiveNameIndex} types
      *   <li>{@link EppResourceIndex}
      *   <li>All {@link EppResource} types
      *   <li>{@code HistoryEntry}
@@ -97,6 +99,10 @@ public class KillAllEppResourcesAction implements Runnable {
       // TODO(b/28247733): What about FKI's for renamed hosts?
       Key<?> indexKey = ForeignKeyIndex.createKey(resource);
       emitAndIncrementCounter(indexKey, indexKey);
+      if (ActiveNameIndex.isIndexed(resource.getClass())) {
+        Key<?> activeNameIndexKey = ActiveNameIndex.createKey(resource);
+        emitAndIncrementCounter(activeNameIndexKey, activeNameIndexKey);
+      }
     }
 
     private void emitAndIncrementCounter(Key<?> ancestor, Key<?> child) {
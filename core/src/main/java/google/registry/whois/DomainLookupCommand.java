@@ -39,6 +39,12 @@ public class DomainLookupCommand extends DomainOrHostLookupCommand {
   @Override
   protected Optional<WhoisResponse> getResponse(InternetDomainName domainName, DateTime now) {
     return loadByForeignKeyCached(DomainBase.class, domainName.toString(), now)
-        .map(domain -> new DomainWhoisResponse(domain, fullOutput, whoisRedactedEmailText, now));
+        .map(
+            domain ->
+                WhoisResponseCache.cached(
+                    "Domain",
+                    domain,
+                    fullOutput,
+                    new DomainWhoisResponse(domain, fullOutput, whoisRedactedEmailText, now)));
   }
 }
@@ -16,11 +16,15 @@ package google.registry.whois;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableSortedSet.toImmutableSortedSet;
 import static google.registry.util.CollectionUtils.isNullOrEmpty;
 import static google.registry.xml.UtcDateTimeAdapter.getFormattedString;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Ordering;
 import com.google.common.flogger.FluentLogger;
 import com.googlecode.objectify.Key;
 import google.registry.model.EppResource;
@@ -32,6 +36,7 @@ import google.registry.model.domain.DesignatedContact.Type;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.GracePeriod;
 import google.registry.model.eppcommon.StatusValue;
+import google.registry.model.host.HostResource;
 import google.registry.model.registrar.Registrar;
 import google.registry.model.registrar.RegistrarContact;
 import google.registry.model.translators.EnumToAttributeAdapter.EppEnum;
@@ -80,6 +85,8 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
         "Could not load registrar %s",
         domain.getCurrentSponsorClientId());
     Registrar registrar = registrarOptional.get();
+    ImmutableMap<Key<? extends EppResource>, EppResource> referencedResources =
+        loadReferencedResources();
     Optional<RegistrarContact> abuseContact =
         registrar
             .getContacts()
@@ -109,13 +116,20 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
                 "Registrar Abuse Contact Phone",
                 abuseContact.map(RegistrarContact::getPhoneNumber).orElse(""))
             .emitStatusValues(domain.getStatusValues(), domain.getGracePeriods())
-            .emitContact("Registrant", Optional.of(domain.getRegistrant()), preferUnicode)
-            .emitContact("Admin", getContactReference(Type.ADMIN), preferUnicode)
-            .emitContact("Tech", getContactReference(Type.TECH), preferUnicode)
-            .emitContact("Billing", getContactReference(Type.BILLING), preferUnicode)
+            .emitContact(
+                "Registrant",
+                Optional.of(domain.getRegistrant()),
+                referencedResources,
+                preferUnicode)
+            .emitContact(
+                "Admin", getContactReference(Type.ADMIN), referencedResources, preferUnicode)
+            .emitContact(
+                "Tech", getContactReference(Type.TECH), referencedResources, preferUnicode)
+            .emitContact(
+                "Billing", getContactReference(Type.BILLING), referencedResources, preferUnicode)
             .emitSet(
                 "Name Server",
-                domain.loadNameserverFullyQualifiedHostNames(),
+                getNameserverHostNames(referencedResources),
                 hostName -> maybeFormatHostname(hostName, preferUnicode))
             .emitField(
                 "DNSSEC", isNullOrEmpty(domain.getDsData()) ? "unsigned" : "signedDelegation")
@@ -127,6 +141,33 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
         1);
   }
 
+  /**
+   * Loads the contacts and hosts referenced by the domain with a single batched cache lookup.
+   *
+   * <p>Any cache misses are then loaded from Datastore together, in one round trip, rather than
+   * one round trip per contact and another for the nameservers.
+   */
+  private ImmutableMap<Key<? extends EppResource>, EppResource> loadReferencedResources() {
+    ImmutableSet<Key<? extends EppResource>> keys =
+        new ImmutableSet.Builder<Key<? extends EppResource>>()
+            .addAll(domain.getReferencedContacts())
+            .addAll(domain.getNameservers())
+            .build();
+    WhoisMetrics.recordDomainResourcesLoaded(
+        domain.getReferencedContacts().size(), domain.getNameservers().size());
+    return keys.isEmpty() ? ImmutableMap.of() : EppResource.loadCached(keys);
+  }
+
+  /** Returns the sorted host names of the nameservers among the given loaded resources. */
+  private ImmutableSortedSet<String> getNameserverHostNames(
+      ImmutableMap<Key<? extends EppResource>, EppResource> referencedResources) {
+    return domain.getNameservers().stream()
+        .map(referencedResources::get)
+        .filter(Objects::nonNull)
+        .map(host -> ((HostResource) host).getFullyQualifiedHostName())
+        .collect(toImmutableSortedSet(Ordering.natural()));
+  }
+
   /** Returns the contact of the given type. */
   private Optional<Key<ContactResource>> getContactReference(Type type) {
     Optional<DesignatedContact> contactOfType =
@@ -149,14 +190,17 @@ final class DomainWhoisResponse extends WhoisResponseImpl {
 
     /** Emit the contact entry of the given type. */
     DomainEmitter emitContact(
-        String contactType, Optional<Key<ContactResource>> contact, boolean preferUnicode) {
+        String contactType,
+        Optional<Key<ContactResource>> contact,
+        ImmutableMap<Key<? extends EppResource>, EppResource> referencedResources,
+        boolean preferUnicode) {
       if (!contact.isPresent()) {
         return this;
       }
       // If we refer to a contact that doesn't exist, that's a bug. It means referential integrity
       // has somehow been broken. We skip the rest of this contact, but log it to hopefully bring it
       // someone's attention.
-      ContactResource contactResource = EppResource.loadCached(contact.get());
+      ContactResource contactResource = (ContactResource) referencedResources.get(contact.get());
       if (contactResource == null) {
         logger.atSevere().log(
             "(BUG) Broken reference found from domain %s to contact %s",
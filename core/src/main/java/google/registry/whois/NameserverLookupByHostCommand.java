@@ -31,6 +31,9 @@ public class NameserverLookupByHostCommand extends DomainOrHostLookupCommand {
   @Override
   protected Optional<WhoisResponse> getResponse(InternetDomainName hostName, DateTime now) {
     return loadByForeignKeyCached(HostResource.class, hostName.toString(), now)
-        .map(host -> new NameserverWhoisResponse(host, now));
+        .map(
+            host ->
+                WhoisResponseCache.cached(
+                    "Nameserver", host, false, new NameserverWhoisResponse(host, now)));
   }
 }
@@ -18,8 +18,11 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.monitoring.metrics.EventMetric.DEFAULT_FITTER;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
 import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
 import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
 import com.google.monitoring.metrics.MetricRegistryImpl;
@@ -56,6 +59,51 @@ public class WhoisMetrics {
               LABEL_DESCRIPTORS,
               DEFAULT_FITTER);
 
+  private static final ImmutableSet<LabelDescriptor> RESOURCE_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create(
+              "resource_type", "The type of resource loaded (contact or host)."));
+
+  /** Domains reference at most a handful of contacts and up to 13 nameservers. */
+  private static final DistributionFitter RESOURCE_COUNT_FITTER =
+      ExponentialFitter.create(6, 2.0, 1.0);
+
+  @VisibleForTesting
+  static final EventMetric domainResourcesLoaded =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/whois/domain_response/resources_loaded",
+              "Number of resources loaded in one batch per WHOIS domain response",
+              "count",
+              RESOURCE_LABEL_DESCRIPTORS,
+              RESOURCE_COUNT_FITTER);
+
+  /** Possible outcomes of a {@link WhoisResponseCache} lookup. */
+  enum ResponseCacheOutcome {
+    /** A response for the resource's current update time was cached, and was served. */
+    HIT,
+
+    /** No response was cached, so it was rendered. */
+    MISS,
+
+    /** A response was cached, but the resource has since been updated, so it was re-rendered. */
+    STALE
+  }
+
+  private static final ImmutableSet<LabelDescriptor> RESPONSE_CACHE_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("lookup_type", "The type of WHOIS lookup."),
+          LabelDescriptor.create("outcome", "Whether a cached response was served."));
+
+  @VisibleForTesting
+  static final IncrementableMetric responseCacheRequests =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/whois/response_cache/requests",
+              "Count of rendered WHOIS response cache lookups",
+              "count",
+              RESPONSE_CACHE_LABEL_DESCRIPTORS);
+
   @Inject
   public WhoisMetrics() {}
 
@@ -72,6 +120,21 @@ public class WhoisMetrics {
         Integer.toString(metric.status()));
   }
 
+  /**
+   * Records the number of contacts and hosts that a domain response loaded together.
+   *
+   * <p>This is the number of keys looked up in the EPP resource cache, not the number of Datastore
+   * reads, which are only made for cache misses.
+   */
+  static void recordDomainResourcesLoaded(int numContacts, int numHosts) {
+    domainResourcesLoaded.record(numContacts, "contact");
+    domainResourcesLoaded.record(numHosts, "host");
+  }
+
+  static void recordResponseCacheRequest(String lookupType, ResponseCacheOutcome outcome) {
+    responseCacheRequests.increment(lookupType, outcome.name());
+  }
+
   /** A value class for recording attributes of a WHOIS metric. */
   @AutoValue
   public abstract static class WhoisMetric {
@@ -0,0 +1,134 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.whois;
+
+import static google.registry.config.RegistryConfig.getWhoisResponseCachingDuration;
+import static google.registry.config.RegistryConfig.getWhoisResponseMaxCachedEntries;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import google.registry.model.EppResource;
+import google.registry.whois.WhoisMetrics.ResponseCacheOutcome;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * An in-memory cache of rendered WHOIS responses for domain and nameserver lookups.
+ *
+ * <p>Port 43 traffic is dominated by repeated lookups of the same names, and rendering a domain
+ * response takes several further cached or Datastore reads. Rendered responses are therefore kept
+ * for a short time, and served again for as long as the resource they describe has the same
+ * update timestamp. Other data in the response, such as registrar details and referenced contacts,
+ * as well as the "Last update of WHOIS database" time, may be stale by up to the cache duration.
+ */
+public final class WhoisResponseCache {
+
+  private static Cache<ResponseKey, CachedResponse> cache =
+      createCache(getWhoisResponseCachingDuration());
+
+  private WhoisResponseCache() {}
+
+  private static Cache<ResponseKey, CachedResponse> createCache(Duration expiry) {
+    return CacheBuilder.newBuilder()
+        .expireAfterWrite(expiry.getMillis(), MILLISECONDS)
+        .maximumSize(getWhoisResponseMaxCachedEntries())
+        .build();
+  }
+
+  @VisibleForTesting
+  public static void setCacheForTest(Optional<Duration> expiry) {
+    cache = createCache(expiry.orElse(getWhoisResponseCachingDuration()));
+  }
+
+  /**
+   * Returns a response that renders using the given response on a cache miss.
+   *
+   * @param lookupType the type of lookup, e.g. "Domain" or "Nameserver"
+   * @param resource the resource the response describes
+   * @param fullOutput whether the response includes fields that are redacted from public output
+   * @param response the response to render on a cache miss
+   */
+  static WhoisResponse cached(
+      String lookupType, EppResource resource, boolean fullOutput, WhoisResponse response) {
+    return new WhoisResponse() {
+      @Override
+      public WhoisResponseResults getResponse(boolean preferUnicode, String disclaimer) {
+        ResponseKey key =
+            ResponseKey.create(
+                lookupType, resource.getForeignKey(), fullOutput, preferUnicode, disclaimer);
+        DateTime updateTime = resource.getUpdateAutoTimestamp().getTimestamp();
+        CachedResponse cachedResponse = cache.getIfPresent(key);
+        if (cachedResponse != null && Objects.equals(cachedResponse.updateTime(), updateTime)) {
+          WhoisMetrics.recordResponseCacheRequest(lookupType, ResponseCacheOutcome.HIT);
+          return cachedResponse.results();
+        }
+        WhoisMetrics.recordResponseCacheRequest(
+            lookupType,
+            cachedResponse == null ? ResponseCacheOutcome.MISS : ResponseCacheOutcome.STALE);
+        WhoisResponseResults results = response.getResponse(preferUnicode, disclaimer);
+        cache.put(key, CachedResponse.create(updateTime, results));
+        return results;
+      }
+
+      @Override
+      public DateTime getTimestamp() {
+        return response.getTimestamp();
+      }
+    };
+  }
+
+  /** The inputs that determine a rendered response, other than the resource's contents. */
+  @AutoValue
+  abstract static class ResponseKey {
+    abstract String lookupType();
+
+    abstract String name();
+
+    abstract boolean fullOutput();
+
+    abstract boolean preferUnicode();
+
+    abstract String disclaimer();
+
+    static ResponseKey create(
+        String lookupType,
+        String name,
+        boolean fullOutput,
+        boolean preferUnicode,
+        String disclaimer) {
+      return new AutoValue_WhoisResponseCache_ResponseKey(
+          lookupType, name, fullOutput, preferUnicode, disclaimer);
+    }
+  }
+
+  /** A rendered response, and the update time of the resource it was rendered from. */
+  @AutoValue
+  abstract static class CachedResponse {
+    @Nullable
+    abstract DateTime updateTime();
+
+    abstract WhoisResponseResults results();
+
+    static CachedResponse create(@Nullable DateTime updateTime, WhoisResponseResults results) {
+      return new AutoValue_WhoisResponseCache_CachedResponse(updateTime, results);
+    }
+  }
+}
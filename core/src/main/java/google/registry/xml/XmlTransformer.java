@@ -17,6 +17,9 @@ package google.registry.xml;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.nullToEmpty;
 import static google.registry.xml.ValidationMode.STRICT;
+import static google.registry.xml.XmlTransformerMetrics.PoolOutcome.HIT;
+import static google.registry.xml.XmlTransformerMetrics.PoolOutcome.MISS;
+import static google.registry.xml.XmlTransformerMetrics.recordPoolRequest;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
@@ -24,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Closer;
 import com.google.common.io.Resources;
+import google.registry.xml.XmlTransformerMetrics.PooledObjectKind;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -33,7 +37,6 @@ import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 import javax.annotation.Nullable;
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBContext;
@@ -54,6 +57,7 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.Validator;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -75,6 +79,17 @@ public class XmlTransformer {
   /** A {@link Schema} to validate XML. */
   private final Schema schema;
 
+  /**
+   * Per-thread pools of configured JAXB objects.
+   *
+   * <p>Marshallers, unmarshallers and validators are not thread-safe, but they can be reused
+   * serially, which saves creating and configuring new ones for every document. Every transformer
+   * is used from many request threads, so each thread keeps its own instances.
+   */
+  private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
+  private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+  private final ThreadLocal<Validator> validators = new ThreadLocal<>();
+
   /**
    * Create a new XmlTransformer that validates using the given schemas, but uses the given classes
    * (rather than generated ones) for marshaling and unmarshaling.
@@ -126,7 +141,7 @@ public class XmlTransformer {
    */
   public void validate(String xml) throws XmlException {
     try {
-      schema.newValidator().validate(new StreamSource(new StringReader(xml)));
+      getValidator().validate(new StreamSource(new StringReader(xml)));
     } catch (SAXException | IOException e) {
       throw new XmlException(e);
     }
@@ -190,10 +205,8 @@ public class XmlTransformer {
   public void marshal(Object root, Writer writer, ValidationMode validation) throws XmlException {
     try {
       // Omit XML declaration because character-oriented output prevents us from knowing.
-      getMarshaller(
-          STRICT.equals(validation) ? schema : null,
-          ImmutableMap.of(Marshaller.JAXB_FRAGMENT, true)).marshal(
-              checkNotNull(root, "root"), checkNotNull(writer, "writer"));
+      getMarshaller(STRICT.equals(validation) ? schema : null, true, UTF_8)
+          .marshal(checkNotNull(root, "root"), checkNotNull(writer, "writer"));
     } catch (JAXBException e) {
       throw new XmlException(e);
     }
@@ -217,10 +230,8 @@ public class XmlTransformer {
   public void marshal(Object root, OutputStream out, Charset charset, ValidationMode validation)
       throws XmlException {
     try {
-      getMarshaller(
-          STRICT.equals(validation) ? schema : null,
-          ImmutableMap.of(Marshaller.JAXB_ENCODING, charset.toString())).marshal(
-              checkNotNull(root, "root"), checkNotNull(out, "out"));
+      getMarshaller(STRICT.equals(validation) ? schema : null, false, charset)
+          .marshal(checkNotNull(root, "root"), checkNotNull(out, "out"));
     } catch (JAXBException e) {
       throw new XmlException(e);
     }
@@ -240,7 +251,7 @@ public class XmlTransformer {
    */
   public void marshalStrict(Object root, Result result) throws XmlException {
     try {
-      getMarshaller(schema, ImmutableMap.of())
+      getMarshaller(schema, false, UTF_8)
           .marshal(checkNotNull(root, "root"), checkNotNull(result, "result"));
     } catch (JAXBException e) {
       throw new XmlException(e);
@@ -274,29 +285,61 @@ public class XmlTransformer {
     return JAXBContext.newInstance(prefix + Joiner.on(':' + prefix).join(schemaNames));
   }
 
-  /** Get a {@link Unmarshaller} instance with the default configuration. */
+  /** Get this thread's {@link Unmarshaller} instance with the default configuration. */
   private Unmarshaller getUnmarshaller() throws JAXBException {
-    Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-    unmarshaller.setSchema(schema);
-    // This handler was the default in JAXB 1.0. It fails on any exception thrown while
-    // unmarshalling. In JAXB 2.0 some errors are considered recoverable and are ignored, which is
-    // not what we want, so we have to set this explicitly.
-    unmarshaller.setEventHandler(new DefaultValidationEventHandler());
+    Unmarshaller unmarshaller = unmarshallers.get();
+    if (unmarshaller == null) {
+      unmarshaller = jaxbContext.createUnmarshaller();
+      unmarshaller.setSchema(schema);
+      // This handler was the default in JAXB 1.0. It fails on any exception thrown while
+      // unmarshalling. In JAXB 2.0 some errors are considered recoverable and are ignored, which is
+      // not what we want, so we have to set this explicitly.
+      unmarshaller.setEventHandler(new DefaultValidationEventHandler());
+      unmarshallers.set(unmarshaller);
+      recordPoolRequest(PooledObjectKind.UNMARSHALLER, MISS);
+    } else {
+      recordPoolRequest(PooledObjectKind.UNMARSHALLER, HIT);
+    }
     return unmarshaller;
   }
 
-  /** Get a {@link Marshaller} instance with the given configuration. */
-  private Marshaller getMarshaller(@Nullable Schema schemaParam, Map<String, ?> properties)
-      throws JAXBException {
-    Marshaller marshaller = jaxbContext.createMarshaller();
-    for (Map.Entry<String, ?> entry : properties.entrySet()) {
-      marshaller.setProperty(entry.getKey(), entry.getValue());
+  /**
+   * Get this thread's {@link Marshaller} instance with the given configuration.
+   *
+   * <p>Every configurable property is set on each call, so that no configuration leaks from one
+   * use of the pooled instance to the next.
+   */
+  private Marshaller getMarshaller(
+      @Nullable Schema schemaParam, boolean isFragment, Charset charset) throws JAXBException {
+    Marshaller marshaller = marshallers.get();
+    if (marshaller == null) {
+      marshaller = jaxbContext.createMarshaller();
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+      marshallers.set(marshaller);
+      recordPoolRequest(PooledObjectKind.MARSHALLER, MISS);
+    } else {
+      recordPoolRequest(PooledObjectKind.MARSHALLER, HIT);
     }
-    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+    marshaller.setProperty(Marshaller.JAXB_FRAGMENT, isFragment);
+    marshaller.setProperty(Marshaller.JAXB_ENCODING, charset.toString());
     marshaller.setSchema(schemaParam);
     return marshaller;
   }
 
+  /** Get this thread's {@link Validator} instance for {@link #schema}. */
+  private Validator getValidator() {
+    Validator validator = validators.get();
+    if (validator == null) {
+      validator = schema.newValidator();
+      validators.set(validator);
+      recordPoolRequest(PooledObjectKind.VALIDATOR, MISS);
+    } else {
+      validator.reset();
+      recordPoolRequest(PooledObjectKind.VALIDATOR, HIT);
+    }
+    return validator;
+  }
+
   /** Pretty print xml. */
   public static String prettyPrint(String xmlString) {
     StringWriter prettyXml = new StringWriter();
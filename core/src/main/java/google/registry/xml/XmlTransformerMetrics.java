@@ -0,0 +1,60 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.xml;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+
+/** Instrumentation for the per-thread JAXB object pools in {@link XmlTransformer}. */
+class XmlTransformerMetrics {
+
+  /** The kinds of pooled JAXB objects. */
+  enum PooledObjectKind {
+    MARSHALLER,
+    UNMARSHALLER,
+    VALIDATOR
+  }
+
+  /** Possible outcomes of a pool lookup. */
+  enum PoolOutcome {
+    /** A configured instance was already pooled for the current thread and was reused. */
+    HIT,
+
+    /** No instance was pooled for the current thread, so a new one was created. */
+    MISS
+  }
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("kind", "Kind of pooled JAXB object."),
+          LabelDescriptor.create("outcome", "Whether a pooled instance was reused."));
+
+  /** Metric counting JAXB pool lookups, by kind of object and outcome. */
+  @VisibleForTesting
+  static final IncrementableMetric poolRequests =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/xml/jaxb_pool/requests",
+              "Count of pooled JAXB object requests",
+              "count",
+              LABEL_DESCRIPTORS);
+
+  static void recordPoolRequest(PooledObjectKind kind, PoolOutcome outcome) {
+    poolRequests.increment(kind.name(), outcome.name());
+  }
+}
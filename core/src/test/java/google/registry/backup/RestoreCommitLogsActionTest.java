@@ -19,9 +19,13 @@ import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Maps.toMap;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
 import static google.registry.backup.BackupUtils.GcsMetadataKeys.LOWER_BOUND_CHECKPOINT;
 import static google.registry.backup.BackupUtils.serializeEntity;
 import static google.registry.backup.ExportCommitLogDiffAction.DIFF_FILE_PREFIX;
+import static google.registry.backup.RestoreCommitLogsMetrics.diffFilesRead;
+import static google.registry.backup.RestoreCommitLogsMetrics.entitiesWritten;
+import static google.registry.backup.RestoreCommitLogsMetrics.transactionsRestored;
 import static google.registry.model.ofy.CommitLogBucket.getBucketIds;
 import static google.registry.model.ofy.CommitLogBucket.getBucketKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -86,10 +90,84 @@ public class RestoreCommitLogsActionTest {
     action.diffLister.gcsService = gcsService;
     action.diffLister.gcsBucket = GCS_BUCKET;
     action.diffLister.executor = newDirectExecutorService();
+    action.executor = newDirectExecutorService();
+    action.clock = new FakeClock(now);
+    diffFilesRead.reset();
+    transactionsRestored.reset();
+    entitiesWritten.reset();
   }
 
   @Test
   public void testRestore_multipleDiffFiles() throws Exception {
+    restoreMultipleDiffFiles();
+  }
+
+  @Test
+  public void testRestore_parallel_multipleDiffFiles() throws Exception {
+    action.parallel = true;
+    restoreMultipleDiffFiles();
+    assertThat(transactionsRestored).hasValueForLabels(3, "false").and().hasNoOtherValues();
+    assertThat(entitiesWritten)
+        .hasValueForLabels(3, "false", "DELETE")
+        .and()
+        .hasValueForLabels(15, "false", "PUT");
+  }
+
+  @Test
+  public void testRestore_parallel_entityWrittenInSeveralTransactions() throws Exception {
+    action.parallel = true;
+    ofy().saveWithoutBackup().entity(TestObject.create("existing", "a")).now();
+    Key<CommitLogManifest> manifest1Key =
+        CommitLogManifest.createKey(getBucketKey(1), now.minusMinutes(2));
+    Key<CommitLogManifest> manifest2Key =
+        CommitLogManifest.createKey(getBucketKey(2), now.minusMinutes(1));
+    saveDiffFileNotToRestore(now.minusMinutes(2));
+    Iterable<ImmutableObject> file1CommitLogs = saveDiffFile(
+        createCheckpoint(now.minusMinutes(1)),
+        CommitLogManifest.create(
+            getBucketKey(1),
+            now.minusMinutes(2),
+            ImmutableSet.of(Key.create(TestObject.create("existing")))),
+        CommitLogMutation.create(manifest1Key, TestObject.create("recreated", "b")));
+    Iterable<ImmutableObject> file2CommitLogs = saveDiffFile(
+        createCheckpoint(now),
+        CommitLogManifest.create(
+            getBucketKey(2),
+            now.minusMinutes(1),
+            ImmutableSet.of(Key.create(TestObject.create("recreated")))),
+        CommitLogMutation.create(manifest2Key, TestObject.create("existing", "c")));
+    action.fromTime = now.minusMinutes(1).minusMillis(1);
+    action.run();
+    ofy().clearSessionCache();
+    assertExpectedIds("existing");
+    assertThat(ofy().load().entity(TestObject.create("existing")).now().getField()).isEqualTo("c");
+    assertInDatastore(file1CommitLogs);
+    assertInDatastore(file2CommitLogs);
+    assertInDatastore(CommitLogCheckpointRoot.create(now));
+    assertCommitLogBuckets(ImmutableMap.of(1, now.minusMinutes(2), 2, now.minusMinutes(1)));
+  }
+
+  @Test
+  public void testRestore_parallel_dryRun() throws Exception {
+    action.parallel = true;
+    action.dryRun = true;
+    ofy().saveWithoutBackup().entity(TestObject.create("previous to keep")).now();
+    Key<CommitLogManifest> manifestKey = CommitLogManifest.createKey(getBucketKey(1), now);
+    saveDiffFileNotToRestore(now.minusMinutes(1));
+    saveDiffFile(
+        createCheckpoint(now),
+        CommitLogManifest.create(getBucketKey(1), now, null),
+        CommitLogMutation.create(manifestKey, TestObject.create("a")));
+    action.run();
+    ofy().clearSessionCache();
+    assertExpectedIds("previous to keep");
+    assertThat(ofy().load().type(CommitLogManifest.class)).isEmpty();
+    assertCommitLogBuckets(ImmutableMap.of());
+    assertThat(diffFilesRead).hasValueForLabels(1, "true").and().hasNoOtherValues();
+    assertThat(transactionsRestored).hasValueForLabels(1, "true").and().hasNoOtherValues();
+  }
+
+  private void restoreMultipleDiffFiles() throws Exception {
     ofy().saveWithoutBackup().entities(
         TestObject.create("previous to keep"),
         TestObject.create("previous to delete")).now();
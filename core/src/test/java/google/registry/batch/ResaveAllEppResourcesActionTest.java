@@ -17,10 +17,14 @@ package google.registry.batch;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.testing.DatastoreHelper.persistActiveContact;
+import static google.registry.testing.DatastoreHelper.persistActiveHost;
 import static google.registry.testing.DatastoreHelper.persistContactWithPendingTransfer;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.googlecode.objectify.Key;
 import google.registry.model.contact.ContactResource;
+import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.mapreduce.MapreduceTestCase;
@@ -79,4 +83,18 @@ public class ResaveAllEppResourcesActionTest
     assertThat(resavedContact.getTransferData().getTransferStatus())
         .isEqualTo(TransferStatus.SERVER_APPROVED);
   }
+
+  @Test
+  public void test_mapreduceBackfillsActiveNameIndex() throws Exception {
+    HostResource host = persistActiveHost("ns1.example.tld");
+    ofy().delete().key(ActiveNameIndex.createKey(host)).now();
+    ofy().clearSessionCache();
+    runMapreduce();
+
+    ofy().clearSessionCache();
+    ActiveNameIndex<HostResource> index = ofy().load().key(ActiveNameIndex.createKey(host)).now();
+    assertThat(index).isNotNull();
+    assertThat(index.getName()).isEqualTo("ns1.example.tld");
+    assertThat(index.getResourceKey()).isEqualTo(Key.create(host));
+  }
 }
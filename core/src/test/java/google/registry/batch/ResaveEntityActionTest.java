@@ -43,6 +43,7 @@ import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.GracePeriod;
 import google.registry.model.domain.rgp.GracePeriodStatus;
 import google.registry.model.eppcommon.StatusValue;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.ofy.Ofy;
 import google.registry.request.Response;
 import google.registry.testing.AppEngineRule;
@@ -164,4 +165,37 @@ public class ResaveEntityActionTest extends ShardableTestCase {
                 standardDays(5).minus(standardSeconds(30)),
                 standardDays(5).plus(standardSeconds(30))));
   }
+
+  @Test
+  public void test_domainPendingDeletion_afterDeletionTime_removedFromActiveNameIndex() {
+    DomainBase domain =
+        persistResource(
+            newDomainBase("domain.tld")
+                .asBuilder()
+                .setDeletionTime(clock.nowUtc().plusDays(5))
+                .setStatusValues(ImmutableSet.of(StatusValue.PENDING_DELETE))
+                .build());
+    assertThat(ofy().load().key(ActiveNameIndex.createKey(domain)).now()).isNotNull();
+    clock.advanceBy(standardDays(6));
+
+    runAction(Key.create(domain), clock.nowUtc(), ImmutableSortedSet.of());
+
+    ofy().clearSessionCache();
+    assertThat(ofy().load().key(ActiveNameIndex.createKey(domain)).now()).isNull();
+  }
+
+  @Test
+  public void test_activeDomain_missingFromActiveNameIndex_isBackfilled() {
+    DomainBase domain = persistResource(newDomainBase("domain.tld"));
+    ofy().delete().key(ActiveNameIndex.createKey(domain)).now();
+    ofy().clearSessionCache();
+    clock.advanceOneMilli();
+
+    runAction(Key.create(domain), clock.nowUtc(), ImmutableSortedSet.of());
+
+    ofy().clearSessionCache();
+    ActiveNameIndex<DomainBase> index = ofy().load().key(ActiveNameIndex.createKey(domain)).now();
+    assertThat(index).isNotNull();
+    assertThat(index.getResourceKey()).isEqualTo(Key.create(domain));
+  }
 }
@@ -14,18 +14,122 @@
 
 package google.registry.bigquery;
 
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.testing.JUnitBackports.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+import com.google.api.services.bigquery.Bigquery;
+import com.google.api.services.bigquery.model.Dataset;
+import com.google.api.services.bigquery.model.Job;
+import com.google.api.services.bigquery.model.JobReference;
+import com.google.api.services.bigquery.model.JobStatistics;
+import com.google.api.services.bigquery.model.JobStatus;
+import com.google.common.util.concurrent.MoreExecutors;
+import google.registry.testing.InjectRule;
+import google.registry.util.Sleeper;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
+import org.mockito.InOrder;
 
 /** Unit tests for {@link BigqueryConnection}. */
 @RunWith(JUnit4.class)
 public class BigqueryConnectionTest {
 
+  @Rule public final InjectRule inject = new InjectRule();
+
+  private final Bigquery bigquery = mock(Bigquery.class);
+  private final Bigquery.Datasets bigqueryDatasets = mock(Bigquery.Datasets.class);
+  private final Bigquery.Datasets.Get bigqueryDatasetsGet = mock(Bigquery.Datasets.Get.class);
+  private final Bigquery.Jobs bigqueryJobs = mock(Bigquery.Jobs.class);
+  private final Bigquery.Jobs.Insert bigqueryJobsInsert = mock(Bigquery.Jobs.Insert.class);
+  private final Bigquery.Jobs.Get bigqueryJobsGet = mock(Bigquery.Jobs.Get.class);
+  private final Sleeper sleeper = mock(Sleeper.class);
+
+  @Before
+  public void before() throws Exception {
+    inject.setStaticField(BigqueryConnection.class, "sleeper", sleeper);
+    when(bigquery.datasets()).thenReturn(bigqueryDatasets);
+    when(bigqueryDatasets.get(anyString(), anyString())).thenReturn(bigqueryDatasetsGet);
+    when(bigqueryDatasetsGet.execute()).thenReturn(new Dataset());
+    when(bigquery.jobs()).thenReturn(bigqueryJobs);
+    when(bigqueryJobs.insert(anyString(), any(Job.class))).thenReturn(bigqueryJobsInsert);
+    when(bigqueryJobs.get(anyString(), anyString())).thenReturn(bigqueryJobsGet);
+  }
+
+  private BigqueryConnection.Builder newConnectionBuilder() {
+    return new BigqueryConnection.Builder(bigquery)
+        .setExecutorService(MoreExecutors.newDirectExecutorService())
+        .setPollInterval(Duration.millis(500));
+  }
+
+  private static Job jobInState(String state) {
+    return new Job()
+        .setJobReference(new JobReference().setProjectId("project").setJobId("job"))
+        .setStatus(new JobStatus().setState(state))
+        .setStatistics(
+            new JobStatistics()
+                .setCreationTime(0L)
+                .setStartTime(0L)
+                .setEndTime(0L)
+                .setTotalBytesProcessed(0L));
+  }
+
   @Test
   public void testNothing() {
     // Placeholder test class for now.
     // TODO(b/16569089): figure out a good way for testing our Bigquery usage overall - maybe unit
     // tests here, maybe end-to-end testing.
   }
+
+  @Test
+  public void testRunJob_pollingBacksOffToMaxInterval() throws Exception {
+    when(bigqueryJobsInsert.execute()).thenReturn(jobInState("PENDING"));
+    when(bigqueryJobsGet.execute())
+        .thenReturn(
+            jobInState("RUNNING"),
+            jobInState("RUNNING"),
+            jobInState("RUNNING"),
+            jobInState("RUNNING"),
+            jobInState("DONE"));
+    BigqueryConnection connection =
+        newConnectionBuilder().setMaxPollInterval(Duration.standardSeconds(3)).build();
+    assertThat(connection.runJob(new Job()).getStatus().getState()).isEqualTo("DONE");
+    InOrder inOrder = inOrder(sleeper);
+    inOrder.verify(sleeper).sleepUninterruptibly(Duration.millis(500));
+    inOrder.verify(sleeper).sleepUninterruptibly(Duration.millis(1000));
+    inOrder.verify(sleeper).sleepUninterruptibly(Duration.millis(2000));
+    inOrder.verify(sleeper, times(2)).sleepUninterruptibly(Duration.millis(3000));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void testRunJob_noMaxInterval_pollsAtFixedInterval() throws Exception {
+    when(bigqueryJobsInsert.execute()).thenReturn(jobInState("PENDING"));
+    when(bigqueryJobsGet.execute())
+        .thenReturn(jobInState("RUNNING"), jobInState("RUNNING"), jobInState("DONE"));
+    newConnectionBuilder().build().runJob(new Job());
+    InOrder inOrder = inOrder(sleeper);
+    inOrder.verify(sleeper, times(3)).sleepUninterruptibly(Duration.millis(500));
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void testFailure_maxIntervalShorterThanPollInterval() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> newConnectionBuilder().setMaxPollInterval(Duration.millis(100)).build());
+    assertThat(thrown)
+        .hasMessageThat()
+        .contains("max poll interval must be at least the poll interval");
+  }
 }
@@ -14,16 +14,32 @@
 
 package google.registry.dns;
 
+import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.testing.DatastoreHelper.createTld;
 import static google.registry.testing.JUnitBackports.assertThrows;
 import static google.registry.testing.TaskQueueHelper.assertNoTasksEnqueued;
 import static google.registry.testing.TaskQueueHelper.assertTasksEnqueued;
+import static google.registry.util.ResourceUtils.readResourceUtf8;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 import google.registry.testing.AppEngineRule;
 import google.registry.testing.FakeClock;
 import google.registry.testing.TaskQueueHelper.TaskMatcher;
+import java.util.ArrayList;
+import java.util.List;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -105,4 +121,99 @@ public class DnsQueueTest {
             });
     assertThat(thrown).hasMessageThat().contains("TLD notatld does not exist");
   }
+
+  private DnsQueue createShardedQueue(DnsMetrics dnsMetrics) {
+    DnsQueue shardedQueue =
+        new DnsQueue(
+            ImmutableList.of(getQueue("dns-pull"), getQueue("dns-pull-1"), getQueue("dns-pull-2")),
+            dnsMetrics,
+            clock);
+    shardedQueue.leaseTasksBatchSize = 10;
+    return shardedQueue;
+  }
+
+  @Test
+  public void test_addDomainRefreshTask_shardedByName() {
+    createTld("tld");
+    DnsQueue shardedQueue = createShardedQueue(new DnsMetrics());
+    List<List<TaskMatcher>> expectedTasks =
+        ImmutableList.of(new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    for (int i = 0; i < 30; i++) {
+      String domainName = String.format("domain%d.tld", i);
+      shardedQueue.addDomainRefreshTask(domainName);
+      int shard = Hashing.consistentHash(Hashing.murmur3_32().hashString(domainName, UTF_8), 3);
+      expectedTasks.get(shard).add(new TaskMatcher().param("Target-Name", domainName));
+    }
+    assertThat(shardedQueue.getShardCount()).isEqualTo(3);
+    assertTasksEnqueued("dns-pull", expectedTasks.get(0));
+    assertTasksEnqueued("dns-pull-1", expectedTasks.get(1));
+    assertTasksEnqueued("dns-pull-2", expectedTasks.get(2));
+    assertThat(expectedTasks.get(0)).isNotEmpty();
+    assertThat(expectedTasks.get(1)).isNotEmpty();
+    assertThat(expectedTasks.get(2)).isNotEmpty();
+  }
+
+  @Test
+  public void test_leaseAndDeleteTasks_acrossShards() {
+    createTld("tld");
+    DnsMetrics dnsMetrics = mock(DnsMetrics.class);
+    DnsQueue shardedQueue = createShardedQueue(dnsMetrics);
+    for (int i = 0; i < 30; i++) {
+      shardedQueue.addDomainRefreshTask(String.format("domain%d.tld", i));
+    }
+    List<TaskHandle> tasks = new ArrayList<>();
+    for (int shard = 0; shard < 3; shard++) {
+      List<TaskHandle> shardTasks = shardedQueue.leaseTasks(shard, Duration.standardMinutes(1));
+      assertThat(ImmutableSet.copyOf(Iterables.transform(shardTasks, TaskHandle::getQueueName)))
+          .containsExactly(DnsQueue.getPullQueueName(shard));
+      verify(dnsMetrics)
+          .recordPullQueueBacklog(
+              eq(DnsQueue.getPullQueueName(shard)), eq(shardTasks.size()), any(Duration.class));
+      tasks.addAll(shardTasks);
+    }
+    assertThat(tasks).hasSize(30);
+    shardedQueue.deleteTasks(tasks);
+    assertNoTasksEnqueued("dns-pull", "dns-pull-1", "dns-pull-2");
+  }
+
+  @Test
+  public void test_deleteTasks_unknownQueue_throws() {
+    createTld("tld");
+    dnsQueue.addDomainRefreshTask("domain.tld");
+    List<TaskHandle> tasks =
+        ImmutableList.of(
+            Iterables.getOnlyElement(dnsQueue.leaseTasks(0, Duration.standardMinutes(1))),
+            new TaskHandle(TaskOptions.Builder.withTaskName("task"), "dns-pull-1"));
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> dnsQueue.deleteTasks(tasks));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo(
+            "Cannot delete tasks from queue dns-pull-1, which is not a DNS pull queue shard");
+    assertTasksEnqueued("dns-pull", new TaskMatcher().param("Target-Name", "domain.tld"));
+  }
+
+  @Test
+  public void test_checkPullQueuesDefined_defaultShardsInQueueXml() {
+    ImmutableSet<String> queueNames =
+        DnsQueue.getDefinedQueueNames(
+            readResourceUtf8("google/registry/env/common/default/WEB-INF/queue.xml"));
+    assertThat(queueNames).containsAtLeast("dns-pull", "dns-pull-1", "dns-pull-2", "dns-pull-3");
+    DnsQueue.checkPullQueuesDefined(4, queueNames);
+  }
+
+  @Test
+  public void test_checkPullQueuesDefined_missingShard_throws() {
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                DnsQueue.checkPullQueuesDefined(
+                    3, ImmutableSet.of("dns-pull", "dns-pull-1", "dns-publish")));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo(
+            "dns.pullQueueShards is 3, but the DNS pull queue dns-pull-2 is not defined in"
+                + " queue.xml");
+  }
 }
@@ -86,6 +86,10 @@ public class ReadDnsQueueActionTest {
           "    <name>dns-pull</name>",
           "    <mode>pull</mode>",
           "  </queue>",
+          "  <queue>",
+          "    <name>dns-pull-1</name>",
+          "    <mode>pull</mode>",
+          "  </queue>",
           "</queue-entries>"))
       .withClock(clock)
       .build();
@@ -395,6 +399,38 @@ public class ReadDnsQueueActionTest {
         ImmutableMultimap.of("com", "comWriter", "example", "exampleWriter"));
   }
 
+  @Test
+  public void testSuccess_readsAllShards() {
+    dnsQueue =
+        new DnsQueue(
+            ImmutableList.of(getQueue(DNS_PULL_QUEUE_NAME), getQueue("dns-pull-1")),
+            new DnsMetrics(),
+            clock);
+    dnsQueue.addDomainRefreshTask("domain.com");
+    dnsQueue.addDomainRefreshTask("domain.net");
+    dnsQueue.addDomainRefreshTask("domain.example");
+    dnsQueue.addDomainRefreshTask("other.com");
+    dnsQueue.addDomainRefreshTask("other.net");
+    dnsQueue.addDomainRefreshTask("other.example");
+
+    run();
+
+    assertNoTasksEnqueued(DNS_PULL_QUEUE_NAME, "dns-pull-1");
+    // Each shard is dispatched separately, so a TLD can have one publish task per shard.
+    assertThat(
+            getQueuedParams(DNS_PUBLISH_PUSH_QUEUE_NAME)
+                .stream()
+                .map(params -> params.get("domains").stream().collect(onlyElement()))
+                .flatMap(values -> Splitter.on(',').splitToList(values).stream()))
+        .containsExactly(
+            "domain.com",
+            "domain.net",
+            "domain.example",
+            "other.com",
+            "other.net",
+            "other.example");
+  }
+
   @Test
   public void testSuccess_zone_getsIgnored() {
     dnsQueue.addHostRefreshTask("ns1.domain.com");
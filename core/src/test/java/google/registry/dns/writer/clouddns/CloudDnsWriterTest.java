@@ -15,13 +15,16 @@
 package google.registry.dns.writer.clouddns;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.io.BaseEncoding.base16;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.testing.DatastoreHelper.createTld;
 import static google.registry.testing.DatastoreHelper.newDomainBase;
 import static google.registry.testing.DatastoreHelper.newHostResource;
 import static google.registry.testing.DatastoreHelper.persistResource;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -29,16 +32,24 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonError.ErrorInfo;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.dns.Dns;
 import com.google.api.services.dns.model.Change;
 import com.google.api.services.dns.model.ResourceRecordSet;
 import com.google.api.services.dns.model.ResourceRecordSetsListResponse;
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.net.InetAddresses;
 import com.google.common.util.concurrent.RateLimiter;
 import com.googlecode.objectify.Key;
+import google.registry.dns.DnsMetrics;
+import google.registry.dns.DnsMetrics.CommitStatus;
 import google.registry.dns.writer.clouddns.CloudDnsWriter.ZoneStateException;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.secdns.DelegationSignerData;
@@ -52,6 +63,9 @@ import java.io.IOException;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 import org.joda.time.Duration;
 import org.junit.Before;
 import org.junit.Rule;
@@ -81,12 +95,15 @@ public class CloudDnsWriterTest {
   @Mock private Dns dnsConnection;
   @Mock private Dns.ResourceRecordSets resourceRecordSets;
   @Mock private Dns.Changes changes;
-  @Mock private Dns.Changes.Create createChangeRequest;
+  @Mock private DnsMetrics dnsMetrics;
   @Captor ArgumentCaptor<String> zoneNameCaptor;
-  @Captor ArgumentCaptor<Change> changeCaptor;
 
   private CloudDnsWriter writer;
-  private ImmutableSet<ResourceRecordSet> stubZone;
+  // A local fake of the zone on Cloud DNS. Changes to it are serialized by applyChange().
+  private volatile ImmutableSet<ResourceRecordSet> stubZone;
+  // Names whose next change fails with a conflict, as if the zone had changed since it was read.
+  private final Set<String> namesToConflictOnce = ConcurrentHashMap.newKeySet();
+  private final ConcurrentHashMultiset<String> listedNames = ConcurrentHashMultiset.create();
 
   /*
    * Because of multi-threading in the CloudDnsWriter, we need to return a different instance of
@@ -102,18 +119,47 @@ public class CloudDnsWriterTest {
     // Return records from our stub zone when a request to list the records is executed
     when(listResourceRecordSetsRequest.execute())
         .thenAnswer(
-            invocationOnMock ->
-                new ResourceRecordSetsListResponse()
-                    .setRrsets(
-                        stubZone
-                            .stream()
-                            .filter(
-                                rs ->
-                                    rs != null && rs.getName().equals(recordNameCaptor.getValue()))
-                            .collect(toImmutableList())));
+            invocationOnMock -> {
+              listedNames.add(recordNameCaptor.getValue());
+              return new ResourceRecordSetsListResponse()
+                  .setRrsets(
+                      stubZone
+                          .stream()
+                          .filter(
+                              rs -> rs != null && rs.getName().equals(recordNameCaptor.getValue()))
+                          .collect(toImmutableList()));
+            });
     return listResourceRecordSetsRequest;
   }
 
+  /** Returns a request that applies the given change to the stub zone when executed. */
+  private Dns.Changes.Create newCreateChangeRequestMock(Change requestedChange) throws Exception {
+    Dns.Changes.Create createChangeRequest = mock(Dns.Changes.Create.class);
+    when(createChangeRequest.execute())
+        .thenAnswer(invocationOnMock -> applyChange(requestedChange));
+    return createChangeRequest;
+  }
+
+  private synchronized Change applyChange(Change requestedChange) throws IOException {
+    ImmutableSet<ResourceRecordSet> toDelete = ImmutableSet.copyOf(requestedChange.getDeletions());
+    ImmutableSet<ResourceRecordSet> toAdd = ImmutableSet.copyOf(requestedChange.getAdditions());
+    if (Sets.union(toDelete, toAdd).stream()
+        .anyMatch(record -> namesToConflictOnce.remove(record.getName()))) {
+      throw new GoogleJsonResponseException(
+          new HttpResponseException.Builder(412, "Precondition Failed", new HttpHeaders()),
+          new GoogleJsonError()
+              .setErrors(ImmutableList.of(new ErrorInfo().setReason("preconditionFailed"))));
+    }
+    // Fail if the records to delete has records that aren't in the stub zone.
+    // This matches documented Google Cloud DNS behavior.
+    if (!Sets.difference(toDelete, stubZone).isEmpty()) {
+      throw new IOException();
+    }
+    stubZone =
+        Sets.union(Sets.difference(stubZone, toDelete).immutableCopy(), toAdd).immutableCopy();
+    return requestedChange;
+  }
+
   @Before
   public void setUp() throws Exception {
     createTld("tld");
@@ -128,7 +174,8 @@ public class CloudDnsWriterTest {
             RateLimiter.create(20),
             10, // max num threads
             new SystemClock(),
-            new Retrier(new SystemSleeper(), 5));
+            new Retrier(new SystemSleeper(), 5),
+            dnsMetrics);
 
     // Create an empty zone.
     stubZone = ImmutableSet.of();
@@ -137,27 +184,10 @@ public class CloudDnsWriterTest {
     when(dnsConnection.resourceRecordSets()).thenReturn(resourceRecordSets);
     when(resourceRecordSets.list(anyString(), anyString()))
         .thenAnswer(invocationOnMock -> newListResourceRecordSetsRequestMock());
-    when(changes.create(anyString(), zoneNameCaptor.capture(), changeCaptor.capture()))
-        .thenReturn(createChangeRequest);
     // Change our stub zone when a request to change the records is executed
-    when(createChangeRequest.execute())
+    when(changes.create(anyString(), zoneNameCaptor.capture(), any(Change.class)))
         .thenAnswer(
-            invocationOnMock -> {
-              Change requestedChange = changeCaptor.getValue();
-              ImmutableSet<ResourceRecordSet> toDelete =
-                  ImmutableSet.copyOf(requestedChange.getDeletions());
-              ImmutableSet<ResourceRecordSet> toAdd =
-                  ImmutableSet.copyOf(requestedChange.getAdditions());
-              // Fail if the records to delete has records that aren't in the stub zone.
-              // This matches documented Google Cloud DNS behavior.
-              if (!Sets.difference(toDelete, stubZone).isEmpty()) {
-                throw new IOException();
-              }
-              stubZone =
-                  Sets.union(Sets.difference(stubZone, toDelete).immutableCopy(), toAdd)
-                      .immutableCopy();
-              return requestedChange;
-            });
+            invocationOnMock -> newCreateChangeRequestMock(invocationOnMock.getArgument(2)));
   }
 
   private void verifyZone(ImmutableSet<ResourceRecordSet> expectedRecords) {
@@ -521,4 +551,94 @@ public class CloudDnsWriterTest {
     writer.commit();
     verify(dnsConnection, times(0)).changes();
   }
+
+  /** Persists domains example0.tld to exampleN.tld, each with one in-bailiwick IPv4 nameserver. */
+  private void persistDomainsWithGlue(int numDomains) {
+    for (int i = 0; i < numDomains; i++) {
+      String domainName = String.format("example%d.tld", i);
+      String hostName = "0.ip4." + domainName;
+      persistResource(
+          fakeDomain(domainName, ImmutableSet.of(persistResource(fakeHost(hostName, IPv4))), 0)
+              .asBuilder()
+              .addSubordinateHost(hostName)
+              .build());
+      writer.publishDomain(domainName);
+    }
+  }
+
+  private static ImmutableSet<ResourceRecordSet> fakeZone(
+      int numDomains, int v4InBailiwickNameservers) {
+    return IntStream.range(0, numDomains)
+        .mapToObj(
+            i ->
+                fakeDomainRecords(
+                    String.format("example%d.tld", i), v4InBailiwickNameservers, 0, 0, 0))
+        .flatMap(ImmutableSet::stream)
+        .collect(toImmutableSet());
+  }
+
+  @Test
+  public void testManyDomains_appliedAsOneChange() throws Exception {
+    persistDomainsWithGlue(20);
+
+    verifyZone(fakeZone(20, 1));
+    verify(changes, times(1)).create(anyString(), anyString(), any(Change.class));
+    verify(dnsMetrics)
+        .recordCloudDnsChange(eq("triple.secret.tld"), eq(CommitStatus.SUCCESS), any());
+  }
+
+  @Test
+  public void testConflict_retriesWholeChange() {
+    stubZone = fakeZone(4, 2);
+    persistDomainsWithGlue(4);
+    namesToConflictOnce.add("example1.tld.");
+
+    verifyZone(fakeZone(4, 1));
+    verify(dnsMetrics).incrementCloudDnsChangeConflicts("triple.secret.tld", "preconditionFailed");
+    verify(dnsMetrics)
+        .recordCloudDnsChange(eq("triple.secret.tld"), eq(CommitStatus.SUCCESS), any());
+    // The change is read again as a whole before it is retried.
+    for (int i = 0; i < 4; i++) {
+      assertThat(listedNames.count(String.format("example%d.tld.", i))).isEqualTo(2);
+    }
+  }
+
+  @Test
+  public void testManyDomains_overChangeLimit_appliedAsParallelChanges() throws Exception {
+    writer.maxRecordSetsPerChange = 4;
+    persistDomainsWithGlue(20);
+
+    verifyZone(fakeZone(20, 1));
+    // Each domain adds an NS and an A record set, so each change holds 2 domains.
+    ArgumentCaptor<Change> changeCaptor = ArgumentCaptor.forClass(Change.class);
+    verify(changes, times(10)).create(anyString(), anyString(), changeCaptor.capture());
+    for (Change change : changeCaptor.getAllValues()) {
+      assertThat(change.getAdditions()).hasSize(4);
+      // A domain's glue record is in the same change as its NS record.
+      ImmutableSet<String> namesWithNs =
+          change.getAdditions().stream()
+              .filter(record -> record.getType().equals("NS"))
+              .map(ResourceRecordSet::getName)
+              .collect(toImmutableSet());
+      for (ResourceRecordSet record : change.getAdditions()) {
+        assertThat(namesWithNs)
+            .contains(record.getName().substring(record.getName().indexOf("example")));
+      }
+    }
+    verify(dnsMetrics)
+        .recordCloudDnsChange(eq("triple.secret.tld"), eq(CommitStatus.SUCCESS), any());
+  }
+
+  @Test
+  public void testConflict_overChangeLimit_retriesWholeCommit() {
+    writer.maxRecordSetsPerChange = 4;
+    stubZone = fakeZone(4, 2);
+    persistDomainsWithGlue(4);
+    namesToConflictOnce.add("example1.tld.");
+
+    verifyZone(fakeZone(4, 1));
+    verify(dnsMetrics).incrementCloudDnsChangeConflicts("triple.secret.tld", "preconditionFailed");
+    verify(dnsMetrics)
+        .recordCloudDnsChange(eq("triple.secret.tld"), eq(CommitStatus.SUCCESS), any());
+  }
 }
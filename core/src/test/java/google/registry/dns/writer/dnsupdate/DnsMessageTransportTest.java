@@ -18,10 +18,15 @@ import static com.google.common.io.BaseEncoding.base16;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.testing.JUnitBackports.assertThrows;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Bytes;
+import google.registry.testing.FakeClock;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
@@ -33,6 +38,7 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import javax.net.SocketFactory;
 import org.joda.time.Duration;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -57,6 +63,9 @@ public class DnsMessageTransportTest {
   private final SocketFactory mockFactory = mock(SocketFactory.class);
   private final Socket mockSocket = mock(Socket.class);
 
+  private final Socket mockSocket2 = mock(Socket.class);
+  private final FakeClock clock = new FakeClock();
+
   private Message simpleQuery;
   private Message expectedResponse;
   private DnsMessageTransport resolver;
@@ -67,7 +76,17 @@ public class DnsMessageTransportTest {
     expectedResponse = responseMessageWithCode(simpleQuery, Rcode.NOERROR);
     when(mockFactory.createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT))
         .thenReturn(mockSocket);
-    resolver = new DnsMessageTransport(mockFactory, UPDATE_HOST, Duration.ZERO);
+    resolver = createResolver(Duration.ZERO);
+  }
+
+  @After
+  public void after() {
+    DnsMessageTransport.closeIdleConnections();
+  }
+
+  private DnsMessageTransport createResolver(Duration updateTimeout) {
+    return new DnsMessageTransport(
+        mockFactory, UPDATE_HOST, updateTimeout, 2, Duration.standardSeconds(20), clock);
   }
 
   @Test
@@ -119,7 +138,7 @@ public class DnsMessageTransportTest {
     when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
 
     Duration testTimeout = Duration.standardSeconds(1);
-    DnsMessageTransport resolver = new DnsMessageTransport(mockFactory, UPDATE_HOST, testTimeout);
+    DnsMessageTransport resolver = createResolver(testTimeout);
     Message expectedQuery = new Message();
     assertThrows(SocketTimeoutException.class, () -> resolver.send(expectedQuery));
     verify(mockSocket).setSoTimeout((int) testTimeout.getMillis());
@@ -171,6 +190,146 @@ public class DnsMessageTransportTest {
         .contains("response opcode 'STATUS' does not match query opcode 'QUERY'");
   }
 
+  @Test
+  public void testConnectionReusedForLaterMessages() throws Exception {
+    Message secondQuery = queryWithId(simpleQuery.getHeader().getID() + 1);
+    when(mockSocket.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                Bytes.concat(
+                    messageToBytesWithLength(expectedResponse),
+                    messageToBytesWithLength(
+                        responseMessageWithCode(secondQuery, Rcode.NOERROR)))));
+    when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+
+    resolver.send(simpleQuery);
+    Message secondResponse = resolver.send(secondQuery);
+
+    assertThat(secondResponse.getHeader().getID()).isEqualTo(secondQuery.getHeader().getID());
+    verify(mockFactory, times(1))
+        .createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT);
+    verify(mockSocket, never()).close();
+  }
+
+  @Test
+  public void testSendAll_responsesMatchedById() throws Exception {
+    Message secondQuery = queryWithId(simpleQuery.getHeader().getID() + 1);
+    Message secondResponse = responseMessageWithCode(secondQuery, Rcode.NOTAUTH);
+    // The server may answer pipelined messages in any order.
+    when(mockSocket.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                Bytes.concat(
+                    messageToBytesWithLength(secondResponse),
+                    messageToBytesWithLength(expectedResponse))));
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    when(mockSocket.getOutputStream()).thenReturn(outputStream);
+
+    ImmutableList<Message> responses = resolver.sendAll(ImmutableList.of(simpleQuery, secondQuery));
+
+    assertThat(responses).hasSize(2);
+    assertThat(base16().encode(responses.get(0).toWire()))
+        .isEqualTo(base16().encode(expectedResponse.toWire()));
+    assertThat(base16().encode(responses.get(1).toWire()))
+        .isEqualTo(base16().encode(secondResponse.toWire()));
+    assertThat(base16().encode(outputStream.toByteArray()))
+        .isEqualTo(
+            base16()
+                .encode(
+                    Bytes.concat(
+                        messageToBytesWithLength(simpleQuery),
+                        messageToBytesWithLength(secondQuery))));
+  }
+
+  @Test
+  public void testSendAll_duplicateIdsThrowsException() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                resolver.sendAll(
+                    ImmutableList.of(simpleQuery, queryWithId(simpleQuery.getHeader().getID()))));
+    assertThat(thrown).hasMessageThat().contains("must have distinct IDs");
+  }
+
+  @Test
+  public void testConnectionReusedByLaterTransports() throws Exception {
+    Message secondQuery = queryWithId(simpleQuery.getHeader().getID() + 1);
+    when(mockSocket.getInputStream())
+        .thenReturn(
+            new ByteArrayInputStream(
+                Bytes.concat(
+                    messageToBytesWithLength(expectedResponse),
+                    messageToBytesWithLength(
+                        responseMessageWithCode(secondQuery, Rcode.NOERROR)))));
+    when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+
+    resolver.send(simpleQuery);
+    Message secondResponse = createResolver(Duration.ZERO).send(secondQuery);
+
+    assertThat(secondResponse.getHeader().getID()).isEqualTo(secondQuery.getHeader().getID());
+    verify(mockFactory, times(1))
+        .createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT);
+    verify(mockSocket, never()).close();
+  }
+
+  @Test
+  public void testReusedConnectionClosedByServer_retriesOnNewConnection() throws Exception {
+    Message secondQuery = queryWithId(simpleQuery.getHeader().getID() + 1);
+    Message secondResponse = responseMessageWithCode(secondQuery, Rcode.NOERROR);
+    when(mockSocket.getInputStream())
+        .thenReturn(new ByteArrayInputStream(messageToBytesWithLength(expectedResponse)));
+    when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    when(mockSocket2.getInputStream())
+        .thenReturn(new ByteArrayInputStream(messageToBytesWithLength(secondResponse)));
+    when(mockSocket2.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    when(mockFactory.createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT))
+        .thenReturn(mockSocket, mockSocket2);
+
+    resolver.send(simpleQuery);
+    Message actualResponse = resolver.send(secondQuery);
+
+    assertThat(base16().encode(actualResponse.toWire()))
+        .isEqualTo(base16().encode(secondResponse.toWire()));
+    verify(mockSocket).close();
+  }
+
+  @Test
+  public void testIdleConnectionExpires() throws Exception {
+    when(mockSocket.getInputStream())
+        .thenReturn(new ByteArrayInputStream(messageToBytesWithLength(expectedResponse)));
+    when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    when(mockSocket2.getInputStream())
+        .thenReturn(new ByteArrayInputStream(messageToBytesWithLength(expectedResponse)));
+    when(mockSocket2.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    when(mockFactory.createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT))
+        .thenReturn(mockSocket, mockSocket2);
+
+    resolver.send(simpleQuery);
+    clock.advanceBy(Duration.standardSeconds(21));
+    resolver.send(simpleQuery);
+
+    verify(mockSocket).close();
+    verify(mockSocket2, never()).close();
+  }
+
+  @Test
+  public void testFailedConnectionNotReused() throws Exception {
+    expectedResponse.getHeader().setID(1 + simpleQuery.getHeader().getID());
+    when(mockSocket.getInputStream())
+        .thenReturn(new ByteArrayInputStream(messageToBytesWithLength(expectedResponse)));
+    when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    assertThrows(VerifyException.class, () -> resolver.send(simpleQuery));
+    verify(mockSocket).close();
+  }
+
+  private Message queryWithId(int id) throws Exception {
+    Message query =
+        Message.newQuery(Record.newRecord(Name.fromString("example.net."), Type.A, DClass.IN));
+    query.getHeader().setID(id & 0xFFFF);
+    return query;
+  }
+
   private Message responseMessageWithCode(Message query, int responseCode) {
     Message message = new Message(query.getHeader().getID());
     message.getHeader().setOpcode(query.getHeader().getOpcode());
@@ -16,6 +16,7 @@ package google.registry.export;
 
 import static com.google.appengine.tools.cloudstorage.GcsServiceFactory.createGcsService;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
 import static google.registry.export.ExportDomainListsAction.ExportDomainListsReducer.EXPORT_MIME_TYPE;
 import static google.registry.export.ExportDomainListsAction.ExportDomainListsReducer.REGISTERED_DOMAINS_FILENAME;
 import static google.registry.testing.DatastoreHelper.createTld;
@@ -25,8 +26,11 @@ import static google.registry.testing.DatastoreHelper.persistResource;
 import static google.registry.testing.GcsTestingUtils.readGcsFile;
 import static google.registry.testing.JUnitBackports.assertThrows;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -35,6 +39,7 @@ import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.appengine.tools.cloudstorage.ListOptions;
 import com.google.appengine.tools.cloudstorage.ListResult;
 import google.registry.export.ExportDomainListsAction.ExportDomainListsReducer;
+import google.registry.gcs.GcsUtils;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.Registry.TldType;
 import google.registry.storage.drive.DriveConnection;
@@ -53,6 +58,7 @@ import org.mockito.ArgumentCaptor;
 public class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAction> {
 
   private GcsService gcsService;
+  private GcsUtils gcsUtils;
   private DriveConnection driveConnection = mock(DriveConnection.class);
   private ArgumentCaptor<byte[]> bytesExportedToDrive = ArgumentCaptor.forClass(byte[].class);
   private final FakeResponse response = new FakeResponse();
@@ -72,6 +78,10 @@ public class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainL
     action.gcsBucket = "outputbucket";
     action.gcsBufferSize = 500;
     gcsService = createGcsService();
+    gcsUtils = spy(new GcsUtils(gcsService, 500));
+    action.gcsUtils = gcsUtils;
+    action.driveConnection = () -> driveConnection;
+    action.executor = newDirectExecutorService();
   }
 
   private void runMapreduce() throws Exception {
@@ -79,6 +89,11 @@ public class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainL
     executeTasksUntilEmpty("mapreduce");
   }
 
+  private String readTldFile(String tld) throws Exception {
+    GcsFilename filename = new GcsFilename("outputbucket", tld + ".txt");
+    return new String(readGcsFile(gcsService, filename), UTF_8);
+  }
+
   private void verifyExportedToDrive(String folderId, String domains) throws Exception {
     verify(driveConnection)
         .createOrUpdateFile(
@@ -161,4 +176,85 @@ public class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainL
     // tldthree does not have a drive id, so no export to drive is performed.
     verifyNoMoreInteractions(driveConnection);
   }
+
+  @Test
+  public void test_streaming_outputsOnlyActiveDomainsOnRealTlds() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    persistDeletedDomain("mortuary.tld", DateTime.parse("2001-03-14T10:11:12Z"));
+    persistActiveDomain("wontgo.testtld");
+    action.streaming = true;
+    action.run();
+    assertThat(response.getPayload()).isEqualTo("Exported domain lists for 1 TLDs");
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+    assertThrows(FileNotFoundException.class, () -> readTldFile("testtld"));
+    verifyExportedToDrive("brouhaha", "onetwo.tld\nrudnitzky.tld");
+    verifyNoMoreInteractions(driveConnection);
+  }
+
+  @Test
+  public void test_streaming_outputsDomainsFromDifferentTldsToMultipleFiles() throws Exception {
+    createTld("tldtwo");
+    persistResource(Registry.get("tldtwo").asBuilder().setDriveFolderId("hooray").build());
+    createTld("tldthree");
+    createTld("multi.part");
+    persistActiveDomain("dasher.tld");
+    persistActiveDomain("prancer.tld");
+    persistActiveDomain("rudolph.tldtwo");
+    persistActiveDomain("santa.tldtwo");
+    persistActiveDomain("buddy.tldtwo");
+    persistActiveDomain("cupid.tldthree");
+    persistActiveDomain("comet.multi.part");
+    action.streaming = true;
+    action.run();
+    assertThat(readTldFile("tld")).isEqualTo("dasher.tld\nprancer.tld");
+    assertThat(readTldFile("tldtwo")).isEqualTo("buddy.tldtwo\nrudolph.tldtwo\nsanta.tldtwo");
+    assertThat(readTldFile("tldthree")).isEqualTo("cupid.tldthree");
+    assertThat(readTldFile("multi.part")).isEqualTo("comet.multi.part");
+    verifyExportedToDrive("brouhaha", "dasher.tld\nprancer.tld");
+    verifyExportedToDrive("hooray", "buddy.tldtwo\nrudolph.tldtwo\nsanta.tldtwo");
+    verifyNoMoreInteractions(driveConnection);
+  }
+
+  @Test
+  public void test_streaming_scansInBatches() throws Exception {
+    persistActiveDomain("blitzen.tld");
+    persistActiveDomain("comet.tld");
+    persistActiveDomain("dancer.tld");
+    persistActiveDomain("donner.tld");
+    persistActiveDomain("vixen.tld");
+    persistDeletedDomain("mortuary.tld", DateTime.parse("2001-03-14T10:11:12Z"));
+    action.keysBatchSize = 2;
+    action.streaming = true;
+    action.run();
+    assertThat(readTldFile("tld"))
+        .isEqualTo("blitzen.tld\ncomet.tld\ndancer.tld\ndonner.tld\nvixen.tld");
+  }
+
+  @Test
+  public void test_streaming_doesNotRewriteUnchangedList() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    action.streaming = true;
+    action.run();
+    action.run();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld");
+    verify(gcsUtils).openOutputStream(any(GcsFilename.class));
+    // Drive is still written, in case the previous export to it failed.
+    verify(driveConnection, times(2))
+        .createOrUpdateFile(
+            eq(REGISTERED_DOMAINS_FILENAME), eq(EXPORT_MIME_TYPE), eq("brouhaha"), any());
+  }
+
+  @Test
+  public void test_streaming_rewritesChangedList() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    action.streaming = true;
+    action.run();
+    persistDeletedDomain("onetwo.tld", DateTime.parse("2001-03-14T10:11:12Z"));
+    persistActiveDomain("threefour.tld");
+    action.run();
+    assertThat(readTldFile("tld")).isEqualTo("rudnitzky.tld\nthreefour.tld");
+    verify(gcsUtils, times(2)).openOutputStream(any(GcsFilename.class));
+  }
 }
@@ -0,0 +1,181 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.testing.TestDataHelper.loadBytes;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.model.eppcommon.EppXmlTransformer;
+import google.registry.model.eppinput.EppInput;
+import google.registry.testing.EppLoader;
+import java.util.Optional;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DomainCheckFastPathParser}. */
+@RunWith(JUnit4.class)
+public class DomainCheckFastPathParserTest {
+
+  private static final String CHECK_PREFIX =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><command><check>"
+          + "<domain:check xmlns:domain=\"urn:ietf:params:xml:ns:domain-1.0\">";
+
+  private static final String CHECK_SUFFIX =
+      "</domain:check></check><clTRID>ABC-12345</clTRID></command></epp>";
+
+  private static final ImmutableList<String> SUPPORTED_FILES =
+      ImmutableList.of(
+          "domain_check.xml",
+          "domain_check_51.xml",
+          "domain_check_anchor.xml",
+          "domain_check_avail.xml",
+          "domain_check_claims.xml",
+          "domain_check_claims_multiple_tlds.xml",
+          "domain_check_duplicates.xml",
+          "domain_check_fee_bad_period_v06.xml",
+          "domain_check_fee_command_phase_v06.xml",
+          "domain_check_fee_command_subphase_v06.xml",
+          "domain_check_fee_euro_v06.xml",
+          "domain_check_fee_multiple_commands_v06.xml",
+          "domain_check_fee_multiyear_restore_v06.xml",
+          "domain_check_fee_not_in_avail.xml",
+          "domain_check_fee_premium_v06.xml",
+          "domain_check_fee_reserved_v06.xml",
+          "domain_check_no_cltrid.xml",
+          "domain_check_one_tld.xml");
+
+  private static final ImmutableList<String> UNSUPPORTED_FILES =
+      ImmutableList.of(
+          "domain_check_allocationtoken.xml",
+          "domain_check_fee_euro_v11.xml",
+          "domain_check_fee_euro_v12.xml",
+          "domain_check_fee_invalid_command_v06.xml",
+          "domain_check_fee_unknown_command_v06.xml",
+          "domain_create.xml",
+          "domain_info.xml");
+
+  private static Optional<EppInput> parse(String xml) {
+    return DomainCheckFastPathParser.parse(xml.getBytes(UTF_8));
+  }
+
+  @Test
+  public void testParse_supportedCommands_sameAsJaxb() throws Exception {
+    for (String filename : SUPPORTED_FILES) {
+      byte[] xmlBytes = loadBytes(getClass(), "domain/" + filename).read();
+      Optional<EppInput> eppInput = DomainCheckFastPathParser.parse(xmlBytes);
+      assertWithMessage(filename).that(eppInput.isPresent()).isTrue();
+      assertWithMessage(filename)
+          .that(eppInput.get())
+          .isEqualTo(EppXmlTransformer.unmarshal(EppInput.class, xmlBytes));
+    }
+  }
+
+  @Test
+  public void testParse_unsupportedCommands_empty() throws Exception {
+    for (String filename : UNSUPPORTED_FILES) {
+      byte[] xmlBytes = loadBytes(getClass(), "domain/" + filename).read();
+      assertWithMessage(filename)
+          .that(DomainCheckFastPathParser.parse(xmlBytes).isPresent())
+          .isFalse();
+    }
+  }
+
+  @Test
+  public void testParse_nonDomainCommands_empty() {
+    assertThat(parse(new EppLoader(this, "contact_info.xml").getEppXml())).isEmpty();
+    assertThat(parse(new EppLoader(this, "host_create.xml").getEppXml())).isEmpty();
+    assertThat(parse("<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><hello/></epp>")).isEmpty();
+  }
+
+  @Test
+  public void testParse_nonXml_empty() {
+    assertThat(parse("")).isEmpty();
+    assertThat(parse("GET / HTTP/1.1\n\n")).isEmpty();
+  }
+
+  @Test
+  public void testParse_cdataAndComments_sameAsJaxb() throws Exception {
+    String xml =
+        CHECK_PREFIX
+            + "<domain:name><![CDATA[example.tld]]></domain:name><!-- comment -->"
+            + CHECK_SUFFIX;
+    assertThat(parse(xml))
+        .hasValue(EppXmlTransformer.unmarshal(EppInput.class, xml.getBytes(UTF_8)));
+  }
+
+  @Test
+  public void testParse_whitespaceAroundName_empty() {
+    assertThat(parse(CHECK_PREFIX + "<domain:name> example.tld</domain:name>" + CHECK_SUFFIX))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParse_noNames_empty() {
+    assertThat(parse(CHECK_PREFIX + CHECK_SUFFIX)).isEmpty();
+  }
+
+  @Test
+  public void testParse_emptyExtension_empty() {
+    assertThat(
+            parse(
+                CHECK_PREFIX
+                    + "<domain:name>example.tld</domain:name></domain:check></check>"
+                    + "<extension/></command></epp>"))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParse_unexpectedAttribute_empty() {
+    assertThat(
+            parse(
+                CHECK_PREFIX.replace("<command>", "<command foo=\"bar\">")
+                    + "<domain:name>example.tld</domain:name>"
+                    + CHECK_SUFFIX))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParse_trailingContent_empty() {
+    assertThat(
+            parse(CHECK_PREFIX + "<domain:name>example.tld</domain:name>" + CHECK_SUFFIX + "<a/>"))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParse_doctype_empty() {
+    assertThat(
+            parse(
+                "<!DOCTYPE epp [<!ENTITY name \"example.tld\">]>"
+                    + CHECK_PREFIX.substring(CHECK_PREFIX.indexOf("<epp"))
+                    + "<domain:name>&name;</domain:name>"
+                    + CHECK_SUFFIX))
+        .isEmpty();
+  }
+
+  @Test
+  public void testParse_clTridTooShort_empty() {
+    assertThat(
+            parse(
+                CHECK_PREFIX
+                    + "<domain:name>example.tld</domain:name>"
+                    + CHECK_SUFFIX.replace("ABC-12345", "AB")))
+        .isEmpty();
+  }
+}
@@ -152,6 +152,28 @@ public class EppControllerTest extends ShardableTestCase {
     verify(eppMetrics).recordProcessingTime(eq(expectedMetric));
   }
 
+  @Test
+  public void testHandleEppCommand_domainCheckFastPath_exportsEppMetrics() {
+    createTld("tld");
+    eppController.domainCheckFastPathEnabled = true;
+    EppMetric.Builder metricBuilder =
+        EppMetric.builderForRequest(clock)
+            .setClientId("some-client")
+            .setStatus(Code.SUCCESS_WITH_NO_MESSAGES)
+            .setTld("tld");
+    eppController.handleEppCommand(
+        sessionMetadata,
+        transportCredentials,
+        EppRequestSource.UNIT_TEST,
+        false,
+        true,
+        loadFile(getClass(), "domain/domain_check_one_tld.xml").getBytes(UTF_8));
+
+    EppMetric expectedMetric = metricBuilder.build();
+    verify(eppMetrics).incrementEppRequests(eq(expectedMetric));
+    verify(eppMetrics).recordProcessingTime(eq(expectedMetric));
+  }
+
   @Test
   public void testHandleEppCommand_dryRunEppCommand_doesNotExportMetric() {
     eppController.handleEppCommand(
@@ -16,10 +16,12 @@ package google.registry.flows;
 
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.flows.EppXmlSanitizer.sanitizeEppXml;
+import static google.registry.flows.EppXmlSanitizer.sanitizeEppXmlWithoutParsing;
 import static google.registry.testing.TestDataHelper.loadBytes;
 import static java.nio.charset.StandardCharsets.UTF_16LE;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.collect.ImmutableMap;
 import google.registry.testing.EppLoader;
 import java.util.Base64;
@@ -138,4 +140,90 @@ public class EppXmlSanitizerTest {
     String sanitizedXml = sanitizeEppXml(inputXml.getBytes(UTF_16LE));
     assertThat(sanitizedXml).isEqualTo(inputXml);
   }
+
+  private static String withSingleTrailingNewline(String xml) {
+    return CharMatcher.whitespace().trimTrailingFrom(xml) + "\n";
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_noSensitiveData_noop() throws Exception {
+    byte[] inputXmlBytes = loadBytes(getClass(), "host_create.xml").read();
+    assertThat(sanitizeEppXmlWithoutParsing(inputXmlBytes))
+        .isEqualTo(withSingleTrailingNewline(new String(inputXmlBytes, UTF_8)));
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_loginPasswords_sanitized() {
+    String inputXml =
+        new EppLoader(
+                this,
+                "login_update_password.xml",
+                ImmutableMap.of("PW", "oldpass", "NEWPW", "newPw"))
+            .getEppXml();
+    String expectedXml =
+        new EppLoader(
+                this,
+                "login_update_password.xml",
+                ImmutableMap.of("PW", "*******", "NEWPW", "*****"))
+            .getEppXml();
+    assertThat(sanitizeEppXmlWithoutParsing(inputXml.getBytes(UTF_8)))
+        .isEqualTo(withSingleTrailingNewline(expectedXml));
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_loginPasswordTagWrongCase_sanitized() {
+    String inputXml =
+        new EppLoader(
+                this, "login_wrong_case.xml", ImmutableMap.of("PW", "oldpass", "NEWPW", "newPw"))
+            .getEppXml();
+    String expectedXml =
+        new EppLoader(
+                this,
+                "login_wrong_case.xml",
+                ImmutableMap.of("PW", "*******", "NEWPW", "*****"))
+            .getEppXml();
+    assertThat(sanitizeEppXmlWithoutParsing(inputXml.getBytes(UTF_8)))
+        .isEqualTo(withSingleTrailingNewline(expectedXml));
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_prefixedElementWithAttributes_sanitized() {
+    byte[] inputXmlBytes =
+        "<domain:pw roid=\"JD1234-REP\">2fooBAR</domain:pw><domain:pw/>".getBytes(UTF_8);
+    assertThat(sanitizeEppXmlWithoutParsing(inputXmlBytes))
+        .isEqualTo("<domain:pw roid=\"JD1234-REP\">*******</domain:pw><domain:pw/>\n");
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_nonAsciiPrefix_sanitized() {
+    String inputXml = "<d\u00f6main:pw>2fooBAR</d\u00f6main:pw><\u57df:newPW>abc</\u57df:newPW>";
+    assertThat(sanitizeEppXmlWithoutParsing(inputXml.getBytes(UTF_8)))
+        .isEqualTo("<d\u00f6main:pw>*******</d\u00f6main:pw><\u57df:newPW>***</\u57df:newPW>\n");
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_cdata_masksEverything() {
+    byte[] inputXmlBytes = "<pw><![CDATA[abc]]></pw>".getBytes(UTF_8);
+    assertThat(sanitizeEppXmlWithoutParsing(inputXmlBytes))
+        .isEqualTo("<pw>***************</pw>\n");
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_missingEndTag_masksRestOfInput() {
+    byte[] inputXmlBytes = "<pw>abc\n<foo/>".getBytes(UTF_8);
+    assertThat(sanitizeEppXmlWithoutParsing(inputXmlBytes)).isEqualTo("<pw>***C******\n");
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_unicode_hasCorrectCharCount() {
+    byte[] inputXmlBytes = "<pw>\u007F\u4E43x</pw>".getBytes(UTF_8);
+    assertThat(sanitizeEppXmlWithoutParsing(inputXmlBytes)).isEqualTo("<pw>C**</pw>\n");
+  }
+
+  @Test
+  public void testSanitizeWithoutParsing_utf16_fallsBackToParsing() {
+    String inputXml = "<?xml version=\"1.0\" encoding=\"UTF-16LE\"?><pw>\u03bc</pw>\n";
+    assertThat(sanitizeEppXmlWithoutParsing(inputXml.getBytes(UTF_16LE)))
+        .isEqualTo("<?xml version=\"1.0\" encoding=\"UTF-16LE\"?><pw>*</pw>\n");
+  }
 }
@@ -14,6 +14,7 @@
 
 package google.registry.flows;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
 import static com.google.common.truth.Truth8.assertThat;
@@ -26,9 +27,12 @@ import static org.mockito.Mockito.verify;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.LoggerConfig;
 import com.google.common.testing.TestLogHandler;
+import google.registry.config.RegistryConfig.ConfigModule.EppCommandLogMode;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppoutput.EppOutput.ResponseOrGreeting;
 import google.registry.model.eppoutput.EppResponse;
@@ -39,6 +43,7 @@ import google.registry.testing.FakeHttpSession;
 import google.registry.testing.ShardableTestCase;
 import java.util.List;
 import java.util.Optional;
+import java.util.logging.LogRecord;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -81,6 +86,8 @@ public class FlowRunnerTest extends ShardableTestCase {
         new StatelessRequestSessionMetadata("TheRegistrar", ImmutableSet.of());
     flowRunner.trid = Trid.create("client-123", "server-456");
     flowRunner.flowReporter = Mockito.mock(FlowReporter.class);
+    flowRunner.commandLogMode = EppCommandLogMode.PRETTY_PRINTED;
+    flowRunner.commandLogSampling = ImmutableMap.of();
   }
 
   @Test
@@ -175,4 +182,34 @@ public class FlowRunnerTest extends ShardableTestCase {
     String xml = Joiner.on('\n').join(lines.subList(3, lines.size() - 4));
     assertThat(xml).isEqualTo(sanitizedDomainCreateXml);
   }
+
+  @Test
+  public void testRun_loggingStatement_sanitizedMode_logsUnformattedXml() throws Exception {
+    String domainCreateXml = loadFile(getClass(), "domain_create_prettyprinted.xml");
+    flowRunner.commandLogMode = EppCommandLogMode.SANITIZED;
+    flowRunner.inputXmlBytes = domainCreateXml.getBytes(UTF_8);
+    flowRunner.run(eppMetricBuilder);
+    String logMessage = findFirstLogMessageByPrefix(handler, "EPP Command\n\t");
+    String sanitizedDomainCreateXml = domainCreateXml.replace("2fooBAR", "*******");
+    assertThat(logMessage).contains(sanitizedDomainCreateXml.replace("\n", "\n\t"));
+    assertThat(logMessage).doesNotContain("2fooBAR");
+  }
+
+  @Test
+  public void testRun_loggingStatement_sampled() throws Exception {
+    flowRunner.commandLogSampling = ImmutableMap.of("TestCommandFlow", 2);
+    flowRunner.run(eppMetricBuilder);
+    flowRunner.run(eppMetricBuilder);
+    ImmutableList<String> xmlLines =
+        handler.getStoredLogRecords().stream()
+            .map(LogRecord::getMessage)
+            .filter(message -> message.startsWith("EPP Command\n\t"))
+            .map(message -> Splitter.on("\n\t").splitToList(message).get(4))
+            .collect(toImmutableList());
+    // Exactly one of every two commands has its XML logged, whichever one the count starts on.
+    assertThat(xmlLines)
+        .containsExactly(
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>",
+            "(XML not logged due to sampling)");
+  }
 }
@@ -71,6 +71,8 @@ import google.registry.flows.host.HostUpdateFlow.RenameHostToExternalRemoveIpExc
 import google.registry.model.domain.DomainBase;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
+import google.registry.model.index.ActiveNameIndex.ActiveHostNameIndex;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.registry.Registry;
 import google.registry.model.reporting.HistoryEntry;
@@ -139,6 +141,10 @@ public class HostUpdateFlowTest extends ResourceFlowTestCase<HostUpdateFlow, Hos
     dryRunFlowAssertResponse(loadFile("generic_success_response.xml"));
   }
 
+  private static ActiveHostNameIndex loadHostIndex(String hostName) {
+    return ofy().load().type(ActiveHostNameIndex.class).id(hostName).now();
+  }
+
   private HostResource doSuccessfulTest() throws Exception {
     return doSuccessfulTest(false); // default to normal user privileges
   }
@@ -183,6 +189,20 @@ public class HostUpdateFlowTest extends ResourceFlowTestCase<HostUpdateFlow, Hos
     ForeignKeyIndex<HostResource> oldFkiAfterRename =
         ForeignKeyIndex.load(HostResource.class, oldHostName(), clock.nowUtc());
     assertThat(oldFkiAfterRename).isNull();
+    // The ActiveNameIndex entry moves from the old name to the new one.
+    assertThat(loadHostIndex(oldHostName())).isNull();
+    assertThat(loadHostIndex("ns2.example.tld").getResourceKey())
+        .isEqualTo(Key.create(renamedHost));
+  }
+
+  @Test
+  public void testSuccess_rename_keepsActiveNameIndexOfOtherHostWithOldName() throws Exception {
+    createTld("tld");
+    persistActiveSubordinateHost(oldHostName(), persistActiveDomain("example.tld"));
+    HostResource otherHost = newHostResource(oldHostName());
+    persistResource(ActiveNameIndex.create(otherHost));
+    doSuccessfulTest();
+    assertThat(loadHostIndex(oldHostName()).getResourceKey()).isEqualTo(Key.create(otherHost));
   }
 
   @Test
@@ -19,8 +19,15 @@ import org.bouncycastle.util.Arrays;
 
 class FakeKmsConnection implements KmsConnection {
 
+  private int decryptCount;
+
   FakeKmsConnection() {}
 
+  /** Returns the number of times {@link #decrypt} has been called. */
+  int getDecryptCount() {
+    return decryptCount;
+  }
+
   /**
    * Returns a dummy {@link EncryptResponse}.
    *
@@ -40,6 +47,7 @@ class FakeKmsConnection implements KmsConnection {
    */
   @Override
   public byte[] decrypt(String cryptoKeyName, String encodedCiphertext) {
+    decryptCount++;
     return Arrays.reverse(BaseEncoding.base64().decode(encodedCiphertext));
   }
 }
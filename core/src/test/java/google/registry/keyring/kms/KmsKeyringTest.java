@@ -15,6 +15,8 @@
 package google.registry.keyring.kms;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
+import static google.registry.keyring.kms.KmsKeyringMetrics.secretLookups;
 import static google.registry.testing.DatastoreHelper.persistResources;
 
 import com.google.common.collect.ImmutableList;
@@ -39,11 +41,13 @@ public class KmsKeyringTest {
 
   @Rule public final AppEngineRule appEngine = AppEngineRule.builder().withDatastore().build();
 
+  private final FakeKmsConnection kmsConnection = new FakeKmsConnection();
   private KmsKeyring keyring;
 
   @Before
   public void setUp() {
-    keyring = new KmsKeyring(new FakeKmsConnection());
+    keyring = new KmsKeyring(kmsConnection);
+    secretLookups.reset();
   }
 
   @Test
@@ -173,6 +177,52 @@ public class KmsKeyringTest {
     assertThat(jsonCredential).isEqualTo("json-credential-stringmoo");
   }
 
+  @Test
+  public void test_getString_decryptsOncePerRevision() {
+    saveCleartextSecret("marksdb-dnl-login-string");
+
+    assertThat(keyring.getMarksdbDnlLoginAndPassword()).isEqualTo("marksdb-dnl-login-stringmoo");
+    assertThat(keyring.getMarksdbDnlLoginAndPassword()).isEqualTo("marksdb-dnl-login-stringmoo");
+    assertThat(keyring.getMarksdbDnlLoginAndPassword()).isEqualTo("marksdb-dnl-login-stringmoo");
+
+    assertThat(kmsConnection.getDecryptCount()).isEqualTo(1);
+    assertThat(secretLookups)
+        .hasValueForLabels(1, "marksdb-dnl-login-string", "MISS")
+        .and()
+        .hasValueForLabels(2, "marksdb-dnl-login-string", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void test_getKeyPair_reusesParsedKeyPair() throws Exception {
+    saveKeyPairSecret("rde-signing-public", "rde-signing-private");
+
+    PGPKeyPair rdeSigningKey = keyring.getRdeSigningKey();
+
+    assertThat(keyring.getRdeSigningKey()).isSameInstanceAs(rdeSigningKey);
+    assertThat(kmsConnection.getDecryptCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void test_getString_picksUpNewRevision() {
+    saveCleartextSecret("icann-reporting-password-string");
+    assertThat(keyring.getIcannReportingPassword())
+        .isEqualTo("icann-reporting-password-stringmoo");
+
+    new KmsUpdater(new FakeKmsConnection()).setIcannReportingPassword("new password").update();
+
+    assertThat(keyring.getIcannReportingPassword()).isEqualTo("new password");
+    assertThat(keyring.getIcannReportingPassword()).isEqualTo("new password");
+    assertThat(kmsConnection.getDecryptCount()).isEqualTo(2);
+    assertThat(secretLookups)
+        .hasValueForLabels(2, "icann-reporting-password-string", "MISS")
+        .and()
+        .hasValueForLabels(1, "icann-reporting-password-string", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+
   private static void persistSecret(String secretName, byte[] secretValue) {
     KmsConnection kmsConnection = new FakeKmsConnection();
 
@@ -0,0 +1,132 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
+import static google.registry.model.common.CrossTldCacheMetrics.cacheInvalidations;
+import static google.registry.model.common.CrossTldCacheMetrics.cacheRequests;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.model.transaction.TransactionManagerFactory.tm;
+import static google.registry.testing.DatastoreHelper.newContactResource;
+import static google.registry.testing.DatastoreHelper.newRegistry;
+import static google.registry.testing.DatastoreHelper.persistResourceWithCommitLog;
+
+import google.registry.model.ofy.Ofy;
+import google.registry.model.registry.Registry;
+import google.registry.testing.AppEngineRule;
+import google.registry.testing.FakeClock;
+import google.registry.testing.InjectRule;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CrossTldCacheInvalidator}. */
+@RunWith(JUnit4.class)
+public class CrossTldCacheInvalidatorTest {
+
+  private static final Duration POLL_INTERVAL = Duration.standardSeconds(10);
+
+  @Rule public final AppEngineRule appEngine = AppEngineRule.builder().withDatastore().build();
+  @Rule public final InjectRule inject = new InjectRule();
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2000-01-01TZ"));
+  private final AtomicInteger invalidations = new AtomicInteger();
+
+  @Before
+  public void before() {
+    inject.setStaticField(CrossTldCacheInvalidator.class, "clock", clock);
+    inject.setStaticField(Ofy.class, "clock", clock);
+    inject.setStaticField(CrossTldCacheInvalidator.class, "pollInterval", POLL_INTERVAL);
+    CrossTldCacheInvalidator.register("test", invalidations::incrementAndGet);
+    // Take a baseline of the entity group's state, which invalidates everything the first time.
+    CrossTldCacheInvalidator.pollOnNextCheckForTest();
+    CrossTldCacheInvalidator.checkForChanges("test");
+    invalidations.set(0);
+    cacheRequests.reset();
+    cacheInvalidations.reset();
+  }
+
+  private void changeCrossTldEntityGroup() {
+    persistResourceWithCommitLog(newRegistry("tld", "TLD"));
+    ofy().clearSessionCache();
+  }
+
+  @Test
+  public void testCheckForChanges_noChange_doesNotInvalidate() {
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(0);
+    assertThat(cacheRequests).hasValueForLabels(1, "test").and().hasNoOtherValues();
+    assertThat(cacheInvalidations).hasNoOtherValues();
+  }
+
+  @Test
+  public void testCheckForChanges_change_invalidatesAfterPollInterval() {
+    changeCrossTldEntityGroup();
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(0);
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(1);
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(1);
+    assertThat(cacheRequests).hasValueForLabels(3, "test");
+    assertThat(cacheInvalidations).hasValueForLabels(1, "test");
+  }
+
+  @Test
+  public void testCheckForChanges_zeroPollInterval_neverInvalidates() {
+    inject.setStaticField(CrossTldCacheInvalidator.class, "pollInterval", Duration.ZERO);
+    changeCrossTldEntityGroup();
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(0);
+    assertThat(cacheRequests).hasValueForLabels(1, "test");
+  }
+
+  @Test
+  public void testCheckForChanges_registryUpdatedInTransaction_invalidates() {
+    tm().transact(() -> ofy().save().entity(newRegistry("tld", "TLD")));
+    ofy().clearSessionCache();
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(1);
+    tm().transact(
+        () ->
+            ofy()
+                .save()
+                .entity(Registry.get("tld").asBuilder().setDriveFolderId("folder").build()));
+    ofy().clearSessionCache();
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testCheckForChanges_writeOutsideEntityGroup_doesNotInvalidate() {
+    tm().transact(() -> ofy().save().entity(newContactResource("contact1234")));
+    ofy().clearSessionCache();
+    clock.advanceBy(POLL_INTERVAL);
+    CrossTldCacheInvalidator.checkForChanges("test");
+    assertThat(invalidations.get()).isEqualTo(0);
+  }
+}
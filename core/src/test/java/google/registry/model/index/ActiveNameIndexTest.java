@@ -0,0 +1,113 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.index;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.model.transaction.TransactionManagerFactory.tm;
+import static google.registry.testing.DatastoreHelper.createTld;
+import static google.registry.testing.DatastoreHelper.persistActiveContact;
+import static google.registry.testing.DatastoreHelper.persistActiveDomain;
+import static google.registry.testing.DatastoreHelper.persistActiveHost;
+import static google.registry.util.DateTimeUtils.END_OF_TIME;
+
+import com.googlecode.objectify.Key;
+import google.registry.model.EntityTestCase;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex.ActiveDomainNameIndex;
+import google.registry.model.index.ActiveNameIndex.ActiveHostNameIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Unit tests for {@link ActiveNameIndex}. */
+public class ActiveNameIndexTest extends EntityTestCase {
+
+  @Before
+  public void setUp() {
+    createTld("com");
+  }
+
+  private static ActiveHostNameIndex loadHostIndex(String hostName) {
+    return ofy().load().type(ActiveHostNameIndex.class).id(hostName).now();
+  }
+
+  @Test
+  public void testPersistence() {
+    // Persist a domain and implicitly persist an ActiveNameIndex for it.
+    DomainBase domain = persistActiveDomain("example.com");
+    ActiveDomainNameIndex index =
+        ofy().load().type(ActiveDomainNameIndex.class).id("example.com").now();
+    assertThat(ofy().load().key(index.getResourceKey()).now()).isEqualTo(domain);
+    assertThat(index.getTld()).isEqualTo("com");
+    assertThat(index.getDeletionTime()).isEqualTo(END_OF_TIME);
+  }
+
+  @Test
+  public void testIndexing() throws Exception {
+    persistActiveDomain("example.com");
+    verifyIndexing(ofy().load().type(ActiveDomainNameIndex.class).id("example.com").now(), "tld");
+  }
+
+  @Test
+  public void testUpdate_pendingDelete_keepsEntry() {
+    HostResource host = persistActiveHost("ns1.example.com");
+    HostResource pendingDeleteHost =
+        host.asBuilder().setDeletionTime(clock.nowUtc().plusDays(5)).build();
+    tm().transact(() -> ActiveNameIndex.update(pendingDeleteHost, clock.nowUtc()));
+    assertThat(loadHostIndex("ns1.example.com").getDeletionTime())
+        .isEqualTo(clock.nowUtc().plusDays(5));
+  }
+
+  @Test
+  public void testUpdate_deleted_removesEntry() {
+    HostResource host = persistActiveHost("ns1.example.com");
+    HostResource deletedHost = host.asBuilder().setDeletionTime(clock.nowUtc()).build();
+    tm().transact(() -> ActiveNameIndex.update(deletedHost, clock.nowUtc()));
+    assertThat(loadHostIndex("ns1.example.com")).isNull();
+  }
+
+  @Test
+  public void testUpdate_deleted_keepsEntryOfNewerResourceWithSameName() {
+    HostResource oldHost = persistActiveHost("ns1.example.com");
+    HostResource newHost = persistActiveHost("ns1.example.com");
+    HostResource deletedOldHost = oldHost.asBuilder().setDeletionTime(clock.nowUtc()).build();
+    tm().transact(() -> ActiveNameIndex.update(deletedOldHost, clock.nowUtc()));
+    assertThat(loadHostIndex("ns1.example.com").getResourceKey()).isEqualTo(Key.create(newHost));
+  }
+
+  @Test
+  public void testDeleteIfCurrent_removesEntry() {
+    HostResource host = persistActiveHost("ns1.example.com");
+    tm().transact(() -> ActiveNameIndex.deleteIfCurrent(host));
+    assertThat(loadHostIndex("ns1.example.com")).isNull();
+  }
+
+  @Test
+  public void testDeleteIfCurrent_keepsEntryOfOtherResourceWithSameName() {
+    HostResource oldHost = persistActiveHost("ns1.example.com");
+    HostResource newHost = persistActiveHost("ns1.example.com");
+    tm().transact(() -> ActiveNameIndex.deleteIfCurrent(oldHost));
+    assertThat(loadHostIndex("ns1.example.com").getResourceKey()).isEqualTo(Key.create(newHost));
+  }
+
+  @Test
+  public void testUpdate_contact_ignored() {
+    ContactResource contact = persistActiveContact("contact");
+    assertThat(ActiveNameIndex.isIndexed(ContactResource.class)).isFalse();
+    tm().transact(() -> ActiveNameIndex.update(contact, clock.nowUtc()));
+  }
+}
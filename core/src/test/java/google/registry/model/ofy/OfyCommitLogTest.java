@@ -30,6 +30,7 @@ import com.googlecode.objectify.annotation.Id;
 import com.googlecode.objectify.annotation.Parent;
 import google.registry.model.BackupGroupRoot;
 import google.registry.model.ImmutableObject;
+import google.registry.model.common.CrossTldChangeTime;
 import google.registry.model.common.EntityGroupRoot;
 import google.registry.testing.AppEngineRule;
 import google.registry.testing.FakeClock;
@@ -78,6 +79,24 @@ public class OfyCommitLogTest {
     assertThat(ofy().load().type(CommitLogMutation.class)).hasSize(1);
   }
 
+  @Test
+  public void testTransact_crossTldEntityGroup_savesChangeTime() {
+    tm().transact(() -> ofy().save().entity(Root.create(1, getCrossTldKey())).now());
+    assertThat(ofy().load().key(CrossTldChangeTime.createKey()).now().getChangeTime())
+        .isEqualTo(clock.nowUtc());
+    clock.advanceOneMilli();
+    tm().transact(() -> ofy().delete().entity(new Child()));
+    ofy().clearSessionCache();
+    assertThat(ofy().load().key(CrossTldChangeTime.createKey()).now().getChangeTime())
+        .isEqualTo(clock.nowUtc());
+  }
+
+  @Test
+  public void testTransact_otherEntityGroup_doesNotSaveChangeTime() {
+    tm().transact(() -> ofy().save().entity(Root.create(1, null)).now());
+    assertThat(ofy().load().key(CrossTldChangeTime.createKey()).now()).isNull();
+  }
+
   @Test
   public void testTransact_saveWithoutBackup_noCommitLogIsSaved() {
     tm().transact(() -> ofy().saveWithoutBackup().entity(Root.create(1, getCrossTldKey())).now());
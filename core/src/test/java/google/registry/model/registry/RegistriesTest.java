@@ -77,4 +77,36 @@ public class RegistriesTest {
     // Substring tld matches aren't considered.
     assertThat(Registries.findTldForName(InternetDomainName.from("example.barfoo"))).isEmpty();
   }
+
+  @Test
+  public void testFindTldForName_rawString() {
+    initTestTlds();
+    assertThat(Registries.findTldForName("example.foo").get().toString()).isEqualTo("foo");
+    assertThat(Registries.findTldForName("x.y.a.b.c").get().toString()).isEqualTo("a.b.c");
+    assertThat(Registries.findTldForName("foo.example")).isEmpty();
+    assertThat(Registries.findTldForName("foo")).isEmpty();
+    assertThat(Registries.findTldForName("x.y.a.b")).isEmpty();
+    assertThat(Registries.findTldForName("example.barfoo")).isEmpty();
+    // Names must be in canonical form.
+    assertThat(Registries.findTldForName("example.FOO")).isEmpty();
+    assertThat(Registries.findTldForName("example.foo.")).isEmpty();
+  }
+
+  @Test
+  public void testFindTldForName_returnsLongestTld() {
+    createTlds("foo", "bar.foo");
+    assertThat(Registries.findTldForName("example.bar.foo").get().toString())
+        .isEqualTo("bar.foo");
+    assertThat(Registries.findTldForName("example.baz.foo").get().toString()).isEqualTo("foo");
+    assertThat(Registries.findTldForName("bar.foo").get().toString()).isEqualTo("foo");
+  }
+
+  @Test
+  public void testFindTldForName_seesNewTldsAfterCacheReset() {
+    initTestTlds();
+    assertThat(Registries.findTldForName("example.bar")).isEmpty();
+    createTlds("bar");
+    Registries.resetCache();
+    assertThat(Registries.findTldForName("example.bar").get().toString()).isEqualTo("bar");
+  }
 }
@@ -0,0 +1,69 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.InternetDomainName;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link TldTrie}. */
+@RunWith(JUnit4.class)
+public class TldTrieTest {
+
+  private final TldTrie trie =
+      TldTrie.create(ImmutableList.of("foo", "bar.foo", "a.b.c", "xn--q9jyb4c"));
+
+  @Test
+  public void testFindTldForName_found() {
+    assertThat(trie.findTldForName("example.foo")).hasValue(InternetDomainName.from("foo"));
+    assertThat(trie.findTldForName("ns1.example.foo")).hasValue(InternetDomainName.from("foo"));
+    assertThat(trie.findTldForName("example.bar.foo"))
+        .hasValue(InternetDomainName.from("bar.foo"));
+    assertThat(trie.findTldForName("ns1.example.bar.foo"))
+        .hasValue(InternetDomainName.from("bar.foo"));
+    assertThat(trie.findTldForName("x.y.a.b.c")).hasValue(InternetDomainName.from("a.b.c"));
+    assertThat(trie.findTldForName("xn--mgbh0fb.xn--q9jyb4c"))
+        .hasValue(InternetDomainName.from("xn--q9jyb4c"));
+  }
+
+  @Test
+  public void testFindTldForName_nameIsNotUnderItself() {
+    assertThat(trie.findTldForName("foo")).isEmpty();
+    assertThat(trie.findTldForName("bar.foo")).hasValue(InternetDomainName.from("foo"));
+    assertThat(trie.findTldForName("a.b.c")).isEmpty();
+  }
+
+  @Test
+  public void testFindTldForName_notFound() {
+    assertThat(trie.findTldForName("foo.example")).isEmpty();
+    assertThat(trie.findTldForName("x.y.a.b")).isEmpty();
+    assertThat(trie.findTldForName("x.y.b.c")).isEmpty();
+    assertThat(trie.findTldForName("example.barfoo")).isEmpty();
+    assertThat(trie.findTldForName("example.FOO")).isEmpty();
+    assertThat(trie.findTldForName("example.foo.")).isEmpty();
+    assertThat(trie.findTldForName("")).isEmpty();
+    assertThat(trie.findTldForName(".")).isEmpty();
+  }
+
+  @Test
+  public void testFindTldForName_emptyTrie() {
+    assertThat(TldTrie.create(ImmutableList.of()).findTldForName("example.foo")).isEmpty();
+  }
+}
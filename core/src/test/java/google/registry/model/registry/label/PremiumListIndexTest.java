@@ -0,0 +1,90 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.testing.JUnitBackports.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.model.registry.label.PremiumList.PremiumListEntry;
+import org.joda.money.Money;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PremiumListIndex}. */
+@RunWith(JUnit4.class)
+public class PremiumListIndexTest {
+
+  private static PremiumListEntry entry(String label, String price) {
+    return new PremiumListEntry.Builder().setLabel(label).setPrice(Money.parse(price)).build();
+  }
+
+  private final PremiumListIndex index =
+      PremiumListIndex.create(
+          ImmutableList.of(
+              entry("rich", "USD 1999"),
+              entry("lol", "USD 999"),
+              entry("icann", "JPY 100"),
+              entry("johnny-be-goode", "USD 20.50"),
+              entry("xn--q9jyb4c", "EUR 5.01"),
+              entry("lo", "USD 1")));
+
+  @Test
+  public void testGetPrice_premiumLabels() {
+    assertThat(index.getPrice("rich")).hasValue(Money.parse("USD 1999"));
+    assertThat(index.getPrice("lol")).hasValue(Money.parse("USD 999"));
+    assertThat(index.getPrice("icann")).hasValue(Money.parse("JPY 100"));
+    assertThat(index.getPrice("johnny-be-goode")).hasValue(Money.parse("USD 20.50"));
+    assertThat(index.getPrice("xn--q9jyb4c")).hasValue(Money.parse("EUR 5.01"));
+    assertThat(index.getPrice("lo")).hasValue(Money.parse("USD 1"));
+  }
+
+  @Test
+  public void testGetPrice_nonPremiumLabels() {
+    assertThat(index.getPrice("l")).isEmpty();
+    assertThat(index.getPrice("lola")).isEmpty();
+    assertThat(index.getPrice("aaa")).isEmpty();
+    assertThat(index.getPrice("zzz")).isEmpty();
+    assertThat(index.getPrice("")).isEmpty();
+    assertThat(index.getPrice("r\u00efch")).isEmpty();
+  }
+
+  @Test
+  public void testGetPrice_emptyIndex() {
+    PremiumListIndex emptyIndex = PremiumListIndex.create(ImmutableList.of());
+    assertThat(emptyIndex.size()).isEqualTo(0);
+    assertThat(emptyIndex.getPrice("rich")).isEmpty();
+  }
+
+  @Test
+  public void testSizeAndFootprint() {
+    assertThat(index.size()).isEqualTo(6);
+    // 40 label bytes, 7 offsets, 6 amounts and 6 currency indexes.
+    assertThat(index.getFootprintBytes()).isEqualTo(40 + 4 * 7 + 8 * 6 + 6);
+  }
+
+  @Test
+  public void testFailure_duplicateLabel() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                PremiumListIndex.create(
+                    ImmutableList.of(entry("rich", "USD 1999"), entry("rich", "USD 1"))));
+    assertThat(thrown).hasMessageThat().contains("Label 'rich' is listed more than once");
+  }
+}
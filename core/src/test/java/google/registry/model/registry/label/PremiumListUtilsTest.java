@@ -29,6 +29,7 @@ import static google.registry.model.registry.label.DomainLabelMetrics.premiumLis
 import static google.registry.model.registry.label.PremiumListUtils.deletePremiumList;
 import static google.registry.model.registry.label.PremiumListUtils.doesPremiumListExist;
 import static google.registry.model.registry.label.PremiumListUtils.getPremiumPrice;
+import static google.registry.model.registry.label.PremiumListUtils.prefetchPremiumPrices;
 import static google.registry.model.registry.label.PremiumListUtils.savePremiumListAndEntries;
 import static google.registry.model.transaction.TransactionManagerFactory.tm;
 import static google.registry.testing.DatastoreHelper.createTld;
@@ -68,7 +69,7 @@ public class PremiumListUtilsTest {
   public final TestCacheRule testCacheRule =
       new TestCacheRule.Builder()
           .withPremiumListsCache(standardDays(1))
-          .withPremiumListEntriesCache(standardDays(1))
+          .withPremiumListIndexesCache(standardDays(1))
           .build();
 
   @Before
@@ -169,35 +170,59 @@ public class PremiumListUtilsTest {
     // "missingno" shouldn't be in the Bloom filter, thus it should return not premium without
     // attempting to load the entity that is actually present.
     assertThat(getPremiumPrice("missingno", Registry.get("tld"))).isEmpty();
-    // However, if we manually query the cache to force an entity load, it should be found.
+    // However, if we manually load the entity, it should be found.
     assertThat(
-            PremiumList.cachePremiumListEntries.get(
-                Key.create(pl.getRevisionKey(), PremiumListEntry.class, "missingno")))
-        .hasValue(entry);
+            ofy()
+                .load()
+                .key(Key.create(pl.getRevisionKey(), PremiumListEntry.class, "missingno"))
+                .now())
+        .isEqualTo(entry);
     assertMetricOutcomeCount(1, BLOOM_FILTER_NEGATIVE);
   }
 
   @Test
-  public void testGetPremiumPrice_cachedSecondTime() {
+  public void testGetPremiumPrice_indexNotLoaded_looksUpSingleEntries() {
     assertThat(getPremiumPrice("rich", Registry.get("tld"))).hasValue(Money.parse("USD 1999"));
     assertThat(getPremiumPrice("rich", Registry.get("tld"))).hasValue(Money.parse("USD 1999"));
+    assertThat(getPremiumPrice("lol", Registry.get("tld"))).hasValue(Money.parse("USD 999"));
+    // Lookups don't load the whole revision, so nothing was added to the index cache.
+    assertThat(
+            PremiumList.cachePremiumListIndexes.getIfPresent(
+                PremiumList.getCached("tld").get().getRevisionKey()))
+        .isNull();
+    assertMetricOutcomeCount(3, UNCACHED_POSITIVE);
+  }
+
+  @Test
+  public void testGetPremiumPrice_cachedOnceIndexIsPrefetched() {
+    assertThat(getPremiumPrice("rich", Registry.get("tld"))).hasValue(Money.parse("USD 1999"));
+    prefetchPremiumPrices(Registry.get("tld"));
+    assertThat(getPremiumPrice("lol", Registry.get("tld"))).hasValue(Money.parse("USD 999"));
+    assertThat(getPremiumPrice("icann", Registry.get("tld"))).hasValue(Money.parse("JPY 100"));
     assertThat(premiumListChecks)
         .hasValueForLabels(1, "tld", "tld", UNCACHED_POSITIVE.toString())
         .and()
-        .hasValueForLabels(1, "tld", "tld", CACHED_POSITIVE.toString())
+        .hasValueForLabels(2, "tld", "tld", CACHED_POSITIVE.toString())
         .and()
         .hasNoOtherValues();
-    assertThat(premiumListProcessingTime)
-        .hasAnyValueForLabels("tld", "tld", UNCACHED_POSITIVE.toString())
+  }
+
+  @Test
+  public void testPrefetchPremiumPrices_laterLookupsAreCached() {
+    prefetchPremiumPrices(Registry.get("tld"));
+    assertThat(getPremiumPrice("rich", Registry.get("tld"))).hasValue(Money.parse("USD 1999"));
+    assertThat(getPremiumPrice("lol", Registry.get("tld"))).hasValue(Money.parse("USD 999"));
+    assertThat(getPremiumPrice("notpremium", Registry.get("tld"))).isEmpty();
+    assertThat(premiumListChecks)
+        .hasValueForLabels(2, "tld", "tld", CACHED_POSITIVE.toString())
         .and()
-        .hasAnyValueForLabels("tld", "tld", CACHED_POSITIVE.toString())
+        .hasValueForLabels(1, "tld", "tld", BLOOM_FILTER_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
   }
 
   @Test
-  public void testGetPremiumPrice_bloomFilterFalsePositive() {
-    // Remove one of the premium list entries from behind the Bloom filter's back.
+  public void testPrefetchPremiumPrices_cachesBloomFilterFalsePositives() {
     tm()
         .transactNew(
             () ->
@@ -209,24 +234,61 @@ public class PremiumListUtilsTest {
                             PremiumListEntry.class,
                             "rich")));
     ofy().clearSessionCache();
-
-    assertThat(getPremiumPrice("rich", Registry.get("tld"))).isEmpty();
+    prefetchPremiumPrices(Registry.get("tld"));
     assertThat(getPremiumPrice("rich", Registry.get("tld"))).isEmpty();
+    assertMetricOutcomeCount(1, CACHED_NEGATIVE);
+  }
 
+  @Test
+  public void testPrefetchPremiumPrices_loadInProgress_doesNotWait() {
+    Key<PremiumListRevision> revisionKey = PremiumList.getCached("tld").get().getRevisionKey();
+    // Pretend that another thread is loading the index.
+    PremiumListUtils.revisionsBeingLoaded.add(revisionKey);
+    try {
+      prefetchPremiumPrices(Registry.get("tld"));
+      assertThat(PremiumList.cachePremiumListIndexes.getIfPresent(revisionKey)).isNull();
+      // Lookups meanwhile fall back to reading single entries.
+      assertThat(getPremiumPrice("rich", Registry.get("tld"))).hasValue(Money.parse("USD 1999"));
+      assertThat(getPremiumPrice("notpremium", Registry.get("tld"))).isEmpty();
+    } finally {
+      PremiumListUtils.revisionsBeingLoaded.remove(revisionKey);
+    }
     assertThat(premiumListChecks)
-        .hasValueForLabels(1, "tld", "tld", UNCACHED_NEGATIVE.toString())
-        .and()
-        .hasValueForLabels(1, "tld", "tld", CACHED_NEGATIVE.toString())
-        .and()
-        .hasNoOtherValues();
-    assertThat(premiumListProcessingTime)
-        .hasAnyValueForLabels("tld", "tld", UNCACHED_NEGATIVE.toString())
+        .hasValueForLabels(1, "tld", "tld", UNCACHED_POSITIVE.toString())
         .and()
-        .hasAnyValueForLabels("tld", "tld", CACHED_NEGATIVE.toString())
+        .hasValueForLabels(1, "tld", "tld", BLOOM_FILTER_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
   }
 
+  @Test
+  public void testPrefetchPremiumPrices_noPremiumList_doesNothing() {
+    createTld("ghost");
+    persistResource(Registry.get("ghost").asBuilder().setPremiumList(null).build());
+    prefetchPremiumPrices(Registry.get("ghost"));
+    assertThat(premiumListChecks).hasNoOtherValues();
+  }
+
+  @Test
+  public void testGetPremiumPrice_bloomFilterFalsePositive() {
+    // Remove one of the premium list entries from behind the Bloom filter's back.
+    tm()
+        .transactNew(
+            () ->
+                ofy()
+                    .delete()
+                    .keys(
+                        Key.create(
+                            PremiumList.getCached("tld").get().getRevisionKey(),
+                            PremiumListEntry.class,
+                            "rich")));
+    ofy().clearSessionCache();
+
+    assertThat(getPremiumPrice("rich", Registry.get("tld"))).isEmpty();
+    assertThat(getPremiumPrice("rich", Registry.get("tld"))).isEmpty();
+    assertMetricOutcomeCount(2, UNCACHED_NEGATIVE);
+  }
+
   @Test
   public void testSave_removedPremiumListEntries_areNoLongerInDatastore() {
     Registry registry = Registry.get("tld");
@@ -246,6 +308,7 @@ public class PremiumListUtilsTest {
     assertThat(getPremiumPrice("savant", registry)).hasValue(Money.parse("USD 90"));
     assertThat(getPremiumPrice("dolt", registry)).isEmpty();
     // TODO(b/79888775): Assert that the old premium list is enqueued for later deletion.
+    // Neither revision's index was prefetched, so each lookup read its entry from Datastore.
     assertThat(premiumListChecks)
         .hasValueForLabels(4, "tld", "tld", UNCACHED_POSITIVE.toString())
         .and()
@@ -22,8 +22,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import google.registry.rdap.AbstractJsonableObject.JsonableException;
 import google.registry.rdap.AbstractJsonableObject.RestrictJsonNames;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Optional;
 import org.joda.time.DateTime;
 import org.junit.Test;
@@ -369,4 +372,52 @@ public final class AbstractJsonableObjectTest {
     assertThat(jsonable.toJson())
         .isEqualTo(createJson("{'key':'value','middleKey':'middleValue','innerKey':'innerValue'}"));
   }
+
+  @Test
+  public void testWriteJson_sameAsToJson() throws Exception {
+    AbstractJsonableObject jsonable = new AbstractJsonableObject() {
+      @JsonableElement String key = "value";
+      @JsonableElement int number = 42;
+      @JsonableElement DateTime dateTime = DateTime.parse("2019-01-02T13:53Z");
+      @JsonableElement Optional<String> absent = Optional.empty();
+      @JsonableElement ImmutableList<String> emptyList = ImmutableList.of();
+      @JsonableElement("lst[]") String a = "value";
+      @JsonableElement ImmutableList<String> lst = ImmutableList.of("listValue");
+
+      @JsonableElement("*") Object subObject = new AbstractJsonableObject() {
+        @JsonableElement("lst[]") String b = "innerValue";
+        @JsonableElement String innerKey = "innerValue";
+      };
+
+      @JsonableElement Object nested = new AbstractJsonableObject() {
+        @JsonableElement boolean flag = true;
+        @JsonableElement("others[]") Optional<Double> pi = Optional.of(3.14);
+      };
+
+      @JsonableElement("z") String last() {
+        return "lastValue";
+      }
+    };
+    assertThat(writeJson(jsonable)).isEqualTo(gson.toJson(jsonable.toJson()));
+  }
+
+  @Test
+  public void testWriteJson_duplicateNames_fails() {
+    AbstractJsonableObject jsonable = new AbstractJsonableObject() {
+      @JsonableElement("myList")
+      String myString = "A";
+      @JsonableElement("myList[]")
+      Optional<Integer> myListMeaningOfLife = Optional.of(42);
+    };
+    assertThat(assertThrows(JsonableException.class, () -> writeJson(jsonable)))
+        .hasMessageThat().contains("Encountered the same field name 'myList' multiple times");
+  }
+
+  private String writeJson(AbstractJsonableObject jsonable) throws IOException {
+    StringWriter stringWriter = new StringWriter();
+    try (JsonWriter jsonWriter = gson.newJsonWriter(stringWriter)) {
+      jsonable.writeJson(jsonWriter);
+    }
+    return stringWriter.toString();
+  }
 }
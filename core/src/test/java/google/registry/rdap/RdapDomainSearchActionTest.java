@@ -1080,6 +1080,27 @@ public class RdapDomainSearchActionTest extends RdapSearchActionTestCase<RdapDom
         IncompletenessWarningType.MIGHT_BE_INCOMPLETE);
   }
 
+  @Test
+  public void testDomainMatch_manyDeletedDomains_activeNameIndex_fullResultSet() {
+    // The index skips the deleted domains without loading them, so unlike the query on the domains
+    // themselves, it doesn't run out of patience before finding all the active ones.
+    action.activeNameIndexEnabled = true;
+    createManyDomainsAndHosts(4, 50, 2);
+    rememberWildcardType("domain*.lol");
+    JsonObject obj = generateActualJson(RequestType.NAME, "domain*.lol");
+    assertThat(response.getStatus()).isEqualTo(200);
+    checkNumberOfDomainsInResult(obj, 4);
+    verifyMetrics(SearchType.BY_DOMAIN_NAME, Optional.of(4L));
+  }
+
+  @Test
+  public void testDomainMatch_activeNameIndex_deletedDomainNotFound() {
+    action.activeNameIndexEnabled = true;
+    persistDomainAsDeleted(domainCatLol, clock.nowUtc().minusDays(1));
+    runNotFoundTest(RequestType.NAME, "cat.lo*", "No domains found");
+    verifyErrorMetrics(SearchType.BY_DOMAIN_NAME);
+  }
+
   @Test
   public void testDomainMatch_nontruncatedResultsSet() {
     createManyDomainsAndHosts(4, 1, 2);
@@ -1201,6 +1222,29 @@ public class RdapDomainSearchActionTest extends RdapSearchActionTestCase<RdapDom
             "domain9.lol"));
   }
 
+  @Test
+  public void testDomainMatch_activeNameIndex_cursorNavigationWithTldSuffix() throws Exception {
+    action.activeNameIndexEnabled = true;
+    createManyDomainsAndHosts(11, 3, 2);
+    checkCursorNavigation(
+        RequestType.NAME,
+        "*.lol",
+        ImmutableList.of(
+            "cat.lol",
+            "cat2.lol",
+            "domain12.lol",
+            "domain15.lol",
+            "domain18.lol",
+            "domain21.lol",
+            "domain24.lol",
+            "domain27.lol",
+            "domain3.lol",
+            "domain30.lol",
+            "domain33.lol",
+            "domain6.lol",
+            "domain9.lol"));
+  }
+
   @Test
   public void testNameserverMatch_foundMultiple() {
     rememberWildcardType("ns1.cat.lol");
@@ -722,6 +722,32 @@ public class RdapNameserverSearchActionTest
             "nsx9.cat.lol"));
   }
 
+  @Test
+  public void testNameMatch_activeNameIndex_cursorNavigationWithPrefix() throws Exception {
+    action.activeNameIndexEnabled = true;
+    createManyHosts(9);
+    createDeletedHost();
+    checkCursorNavigation(
+        true,
+        "ns*",
+        ImmutableList.of(
+            "ns1.cat.1.test",
+            "ns1.cat.external",
+            "ns1.cat.lol",
+            "ns1.cat.xn--q9jyb4c",
+            "ns1.cat2.lol",
+            "ns2.cat.lol",
+            "nsx1.cat.lol",
+            "nsx2.cat.lol",
+            "nsx3.cat.lol",
+            "nsx4.cat.lol",
+            "nsx5.cat.lol",
+            "nsx6.cat.lol",
+            "nsx7.cat.lol",
+            "nsx8.cat.lol",
+            "nsx9.cat.lol"));
+  }
+
   @Test
   public void testAddressMatch_invalidAddress() {
     generateActualJsonWithIp("It is to laugh");
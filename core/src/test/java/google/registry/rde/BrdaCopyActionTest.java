@@ -107,6 +107,7 @@ public class BrdaCopyActionTest extends ShardableTestCase {
     action.receiverKey = receiverKey;
     action.signingKey = signingKey;
     action.stagingDecryptionKey = decryptKey;
+    action.compressionThreads = 1;
 
     byte[] xml = DEPOSIT_XML.read();
     GcsTestingUtils.writeGcsFile(gcsService, STAGE_FILE, Ghostryde.encode(xml, encryptKey));
@@ -0,0 +1,150 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.testing.DatastoreHelper.createTld;
+import static google.registry.testing.DatastoreHelper.newDomainBase;
+import static google.registry.testing.DatastoreHelper.newHostResource;
+import static google.registry.testing.DatastoreHelper.persistResource;
+import static google.registry.testing.DatastoreHelper.persistResourceWithCommitLog;
+import static google.registry.testing.JUnitBackports.assertThrows;
+import static google.registry.util.DateTimeUtils.START_OF_TIME;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.host.HostResource;
+import google.registry.model.ofy.Ofy;
+import google.registry.rde.PointInTimeSnapshotCache.SnapshotKey;
+import google.registry.testing.AppEngineRule;
+import google.registry.testing.FakeClock;
+import google.registry.testing.InjectRule;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PointInTimeSnapshotCache}. */
+@RunWith(JUnit4.class)
+public class PointInTimeSnapshotCacheTest {
+
+  @Rule
+  public final AppEngineRule appEngine = AppEngineRule.builder()
+      .withDatastore()
+      .withTaskQueue()
+      .build();
+
+  @Rule
+  public final InjectRule inject = new InjectRule();
+
+  private final FakeClock clock = new FakeClock(DateTime.now(UTC));
+  private final PointInTimeSnapshotCache snapshots = new PointInTimeSnapshotCache();
+
+  @Before
+  public void init() {
+    createTld("tld");
+    inject.setStaticField(Ofy.class, "clock", clock);
+  }
+
+  /** Persists a host that is modified a day later, and returns the original host. */
+  private HostResource persistModifiedHost(String hostName) {
+    clock.advanceOneMilli();
+    HostResource oldHost = persistResourceWithCommitLog(
+        newHostResource(hostName).asBuilder()
+            .setCreationTimeForTest(START_OF_TIME)
+            .setPersistedCurrentSponsorClientId("OLD")
+            .build());
+    clock.advanceBy(Duration.standardDays(1));
+    persistResource(oldHost.asBuilder().setPersistedCurrentSponsorClientId("NEW").build());
+    return oldHost;
+  }
+
+  @Test
+  public void testGet_returnsResourcesAtRequestedTimes() {
+    HostResource oldHost1 = persistModifiedHost("ns1.cat.tld");
+    DateTime watermark = clock.nowUtc().minusMillis(1);
+    HostResource oldHost2 = persistModifiedHost("ns2.cat.tld");
+    HostResource currentHost1 = ofy().load().entity(oldHost1).now();
+    HostResource currentHost2 = ofy().load().entity(oldHost2).now();
+    snapshots.request(currentHost1, watermark);
+    snapshots.request(currentHost2, watermark);
+    snapshots.request(currentHost2, clock.nowUtc());
+    assertThat(snapshots.get(Key.create(oldHost1), watermark)).isEqualTo(oldHost1);
+    assertThat(snapshots.get(Key.create(oldHost2), watermark)).isEqualTo(oldHost2);
+    assertThat(snapshots.get(Key.create(oldHost2), clock.nowUtc())).isEqualTo(currentHost2);
+  }
+
+  @Test
+  public void testGet_beforeCreated_returnsNull() {
+    clock.advanceOneMilli();
+    HostResource host = persistResource(
+        newHostResource("ns1.cat.tld").asBuilder()
+            .setCreationTimeForTest(clock.nowUtc())
+            .build());
+    DateTime beforeCreation = clock.nowUtc().minusMillis(1);
+    snapshots.request(host, beforeCreation);
+    assertThat(snapshots.get(Key.create(host), beforeCreation)).isNull();
+  }
+
+  @Test
+  public void testGet_notRequested_throws() {
+    HostResource host = persistResource(newHostResource("ns1.cat.tld"));
+    snapshots.request(host, clock.nowUtc());
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () -> snapshots.get(Key.create(host), clock.nowUtc().minusMillis(1)));
+    assertThat(thrown).hasMessageThat().contains("wasn't requested");
+  }
+
+  @Test
+  public void testRequestByKey_returnsResourcesAtRequestedTimes() {
+    clock.advanceOneMilli();
+    DomainBase oldDomain = persistResourceWithCommitLog(
+        newDomainBase("cat.tld").asBuilder()
+            .setCreationTimeForTest(START_OF_TIME)
+            .setPersistedCurrentSponsorClientId("OLD")
+            .build());
+    clock.advanceBy(Duration.standardDays(1));
+    DomainBase currentDomain =
+        persistResource(oldDomain.asBuilder().setPersistedCurrentSponsorClientId("NEW").build());
+    DateTime watermark = clock.nowUtc().minusMillis(1);
+    Key<DomainBase> domainKey = Key.create(oldDomain);
+    Key<DomainBase> missingKey = Key.create(newDomainBase("dog.tld"));
+    snapshots.requestByKey(
+        ImmutableSet.of(
+            SnapshotKey.create(domainKey, watermark),
+            SnapshotKey.create(domainKey, clock.nowUtc()),
+            SnapshotKey.create(missingKey, watermark)));
+    assertThat(snapshots.get(domainKey, watermark)).isEqualTo(oldDomain);
+    assertThat(snapshots.get(domainKey, clock.nowUtc())).isEqualTo(currentDomain);
+    assertThat(snapshots.get(missingKey, watermark)).isNull();
+  }
+
+  @Test
+  public void testRequestByKey_alreadyRequested_keepsSnapshot() {
+    HostResource host = persistResource(newHostResource("ns1.cat.tld"));
+    snapshots.request(host, clock.nowUtc());
+    persistResource(host.asBuilder().setPersistedCurrentSponsorClientId("NEW").build());
+    snapshots.requestByKey(ImmutableSet.of(SnapshotKey.create(Key.create(host), clock.nowUtc())));
+    assertThat(snapshots.get(Key.create(host), clock.nowUtc())).isEqualTo(host);
+  }
+}
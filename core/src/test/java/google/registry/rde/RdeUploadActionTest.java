@@ -159,6 +159,7 @@ public class RdeUploadActionTest {
       action.receiverKey = keyring.getRdeReceiverKey();
       action.signingKey = keyring.getRdeSigningKey();
       action.stagingDecryptionKey = keyring.getRdeStagingDecryptionKey();
+      action.compressionThreads = 1;
       action.reportQueue = QueueFactory.getQueue("rde-report");
       action.runner = runner;
       action.taskQueueUtils = new TaskQueueUtils(new Retrier(null, 1));
@@ -21,8 +21,13 @@ import com.google.common.io.ByteStreams;
 import google.registry.testing.ShardableTestCase;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -30,6 +35,42 @@ import org.junit.runners.JUnit4;
 @RunWith(JUnit4.class)
 public final class RydeCompressionTest extends ShardableTestCase {
 
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  private byte[] compressInParallel(byte[] data, int maxPendingBlocks) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream compressor =
+        RydeCompression.openParallelCompressor(output, executor, maxPendingBlocks)) {
+      // Write in uneven chunks, so that writes straddle block boundaries.
+      for (int offset = 0; offset < data.length; offset += 100_003) {
+        compressor.write(data, offset, Math.min(100_003, data.length - offset));
+      }
+    }
+    return output.toByteArray();
+  }
+
+  private static byte[] decompress(byte[] compressed) throws IOException {
+    try (InputStream decompressor =
+        RydeCompression.openDecompressor(new ByteArrayInputStream(compressed))) {
+      return ByteStreams.toByteArray(decompressor);
+    }
+  }
+
+  /** Returns compressible data that doesn't repeat within a compression window. */
+  private static byte[] makeData(int length) {
+    Random random = new Random(42);
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+
   @Test
   public void testCompression_decompression() throws Exception {
     byte[] expected = "Testing 1, 2, 3".getBytes(UTF_8);
@@ -45,4 +86,48 @@ public final class RydeCompressionTest extends ShardableTestCase {
       assertThat(ByteStreams.toByteArray(decompressor)).isEqualTo(expected);
     }
   }
+
+  @Test
+  public void testParallelCompression_manyBlocks_decompresses() throws Exception {
+    byte[] expected = makeData(3 * 1024 * 1024 + 12345);
+    byte[] compressed = compressInParallel(expected, 2);
+    assertThat(compressed.length).isLessThan(expected.length / 2);
+    assertThat(decompress(compressed)).isEqualTo(expected);
+  }
+
+  @Test
+  public void testParallelCompression_wholeBlocks_decompresses() throws Exception {
+    byte[] expected = makeData(2 * 1024 * 1024);
+    assertThat(decompress(compressInParallel(expected, 1))).isEqualTo(expected);
+  }
+
+  @Test
+  public void testParallelCompression_empty_decompresses() throws Exception {
+    assertThat(decompress(compressInParallel(new byte[0], 2))).isEmpty();
+  }
+
+  @Test
+  public void testParallelCompression_singleByteWrites_decompresses() throws Exception {
+    byte[] expected = "Testing 1, 2, 3".getBytes(UTF_8);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream compressor = RydeCompression.openParallelCompressor(output, executor, 2)) {
+      for (byte b : expected) {
+        compressor.write(b);
+      }
+    }
+    assertThat(decompress(output.toByteArray())).isEqualTo(expected);
+  }
+
+  @Test
+  public void testParallelCompression_sameSizeAsSerial() throws Exception {
+    byte[] data = makeData(3 * 1024 * 1024);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream compressor = RydeCompression.openCompressor(output)) {
+      compressor.write(data);
+    }
+    // Priming each block with the end of the previous one keeps the compression ratio close.
+    assertThat((double) compressInParallel(data, 2).length)
+        .isWithin(0.01 * output.size())
+        .of(output.size());
+  }
 }
@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.util.concurrent.Executors;
 import org.bouncycastle.openpgp.PGPKeyPair;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.joda.time.DateTime;
@@ -78,10 +79,19 @@ public class RydeGpgIntegrationTest extends ShardableTestCase {
     new Content(repeat("Fanatics have their dreams, wherewith they weave.\n", 1000)),
     new Content("\0yolo"),
     new Content(""),
+    // Larger than a block of the parallel compressor.
+    new Content(repeat("Fanatics have their dreams, wherewith they weave.\n", 50000)),
+  };
+
+  @DataPoints
+  public static CompressionThreads[] compressionThreads = new CompressionThreads[] {
+    new CompressionThreads(1),
+    new CompressionThreads(4),
   };
 
   @Theory
-  public void test(GpgCommand cmd, Filename name, Content content)
+  public void test(
+      GpgCommand cmd, Filename name, Content content, CompressionThreads compressionThreads)
       throws Exception {
     assumeTrue(hasCommand("tar"));
     assumeTrue(hasCommand(cmd.get() + " --version"));
@@ -103,6 +113,7 @@ public class RydeGpgIntegrationTest extends ShardableTestCase {
             .setRydeOutput(rydeOut, receiverKey)
             .setSignatureOutput(sigOut, signingKey)
             .setFileMetadata(name.get(), data.length, modified)
+            .setCompressionThreads(compressionThreads.get(), Executors.defaultThreadFactory())
             .build()) {
       rydeEncoder.write(data);
     }
@@ -250,4 +261,16 @@ public class RydeGpgIntegrationTest extends ShardableTestCase {
       return value;
     }
   }
+
+  private static class CompressionThreads {
+    private final int value;
+
+    CompressionThreads(int value) {
+      this.value = value;
+    }
+
+    int get() {
+      return value;
+    }
+  }
 }
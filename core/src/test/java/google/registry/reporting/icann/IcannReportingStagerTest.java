@@ -15,10 +15,17 @@
 package google.registry.reporting.icann;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.monitoring.metrics.contrib.DistributionMetricSubject.assertThat;
+import static google.registry.reporting.icann.IcannReportingStagerMetrics.stageDuration;
 import static google.registry.testing.GcsTestingUtils.readGcsFile;
+import static google.registry.testing.JUnitBackports.assertThrows;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.api.services.bigquery.model.TableFieldSchema;
@@ -26,18 +33,25 @@ import com.google.appengine.tools.cloudstorage.GcsFilename;
 import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.appengine.tools.cloudstorage.GcsServiceFactory;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import google.registry.bigquery.BigqueryConnection;
 import google.registry.bigquery.BigqueryConnection.DestinationTable;
+import google.registry.bigquery.BigqueryJobFailureException;
 import google.registry.bigquery.BigqueryUtils.TableType;
 import google.registry.gcs.GcsUtils;
 import google.registry.reporting.icann.IcannReportingModule.ReportType;
 import google.registry.testing.AppEngineRule;
+import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import org.joda.time.YearMonth;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -59,6 +73,11 @@ public class IcannReportingStagerTest {
       .withLocalModules()
       .build();
 
+  @Before
+  public void before() {
+    stageDuration.reset();
+  }
+
   private IcannReportingStager createStager() {
     IcannReportingStager action = new IcannReportingStager();
     ActivityReportingQueryBuilder activityBuilder = new ActivityReportingQueryBuilder();
@@ -71,6 +90,8 @@ public class IcannReportingStagerTest {
     action.reportingBucket = "test-bucket";
     action.bigquery = bigquery;
     action.gcsUtils = new GcsUtils(gcsService, 1024);
+    action.executor = MoreExecutors.newDirectExecutorService();
+    action.clock = new FakeClock();
     return action;
   }
 
@@ -158,6 +179,54 @@ public class IcannReportingStagerTest {
     assertThat(new String(generatedFile2, UTF_8)).isEqualTo(expectedReport2);
   }
 
+  @Test
+  public void testRunSuccess_recordsStageDurations() throws Exception {
+    setUpBigquery();
+    when(bigquery.queryToLocalTableSync(any(String.class)))
+        .thenReturn(
+            new ImmutableTable.Builder<Integer, TableFieldSchema, Object>()
+                .put(1, new TableFieldSchema().setName("tld"), "fooTld")
+                .put(1, new TableFieldSchema().setName("fooField"), "12")
+                .build());
+    createStager().stageReports(yearMonth, subdir, ReportType.ACTIVITY);
+    assertThat(stageDuration)
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "dns_count_preparation")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "registrar_operating_status")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "dns_counts")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "monthly_logs")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "epp_metrics")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "whois_counts")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "activity_report_aggregation")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), "ACTIVITY", "report_query")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testFailure_viewFails_dependentViewsAndReportQueryNotRun() throws Exception {
+    setUpBigquery();
+    BigqueryJobFailureException failure =
+        BigqueryJobFailureException.create(new IOException("Job failed"));
+    // Only the EPP metrics view reads the flow metadata logs
+    when(bigquery.query(contains("FLOW-LOG-SIGNATURE-METADATA"), any(DestinationTable.class)))
+        .thenReturn(immediateFailedFuture(failure));
+    IcannReportingStager stager = createStager();
+    ExecutionException thrown =
+        assertThrows(
+            ExecutionException.class,
+            () -> stager.stageReports(yearMonth, subdir, ReportType.ACTIVITY));
+    assertThat(thrown).hasCauseThat().isSameAs(failure);
+    verify(bigquery, never()).query(contains("epp_metrics_201706"), any(DestinationTable.class));
+    verify(bigquery, never()).queryToLocalTableSync(any(String.class));
+  }
+
   @Test
   public void testRunSuccess_createAndUploadManifest() throws Exception {
     IcannReportingStager stager = createStager();
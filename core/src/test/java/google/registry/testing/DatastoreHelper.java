@@ -75,6 +75,7 @@ import google.registry.model.eppcommon.AuthInfo.PasswordAuth;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.EppResourceIndexBucket;
 import google.registry.model.index.ForeignKeyIndex;
@@ -859,6 +860,9 @@ public class DatastoreHelper {
     if (resource instanceof ForeignKeyedEppResource) {
       saver.entity(ForeignKeyIndex.create(resource, resource.getDeletionTime()));
     }
+    if (ActiveNameIndex.isIndexed(resource.getClass())) {
+      saver.entity(ActiveNameIndex.create(resource));
+    }
   }
 
   private static <R> R persistResource(final R resource, final boolean wantBackup) {
@@ -936,6 +940,9 @@ public class DatastoreHelper {
                           .setModificationTime(tm().getTransactionTime())
                           .build());
               ofy().save().entity(ForeignKeyIndex.create(resource, resource.getDeletionTime()));
+              if (ActiveNameIndex.isIndexed(resource.getClass())) {
+                ofy().save().entity(ActiveNameIndex.create(resource));
+              }
             });
     ofy().clearSessionCache();
     return ofy().load().entity(resource).safe();
@@ -19,6 +19,7 @@ import com.google.common.collect.Maps;
 import google.registry.model.EppResource;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.registry.label.PremiumList;
+import google.registry.whois.WhoisResponseCache;
 import java.util.Map;
 import java.util.Optional;
 import org.joda.time.Duration;
@@ -74,10 +75,17 @@ public class TestCacheRule extends ExternalResource {
       return this;
     }
 
-    public Builder withPremiumListEntriesCache(Duration expiry) {
+    public Builder withPremiumListIndexesCache(Duration expiry) {
       cacheHandlerMap.put(
-          "PremiumList.cachePremiumListEntries",
-          new TestCacheHandler(PremiumList::setPremiumListEntriesCacheForTest, expiry));
+          "PremiumList.cachePremiumListIndexes",
+          new TestCacheHandler(PremiumList::setPremiumListIndexesCacheForTest, expiry));
+      return this;
+    }
+
+    public Builder withWhoisResponseCache(Duration expiry) {
+      cacheHandlerMap.put(
+          "WhoisResponseCache.cache",
+          new TestCacheHandler(WhoisResponseCache::setCacheForTest, expiry));
       return this;
     }
 
@@ -0,0 +1,90 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tldconfig.idn;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.testing.JUnitBackports.assertThrows;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link CodepointSet}. */
+@RunWith(JUnit4.class)
+public class CodepointSetTest {
+
+  private final CodepointSet codepoints =
+      new CodepointSet.Builder()
+          .add(0x0000)
+          .add('a')
+          .add('b')
+          .add(0x00E9)
+          .add(0xFFFF)
+          .add(0x10000)
+          .add(0x2070E)
+          .add(0x2070F)
+          .add(0x20710)
+          .add(0x20731)
+          .add(0x10FFFF)
+          .build();
+
+  @Test
+  public void testContains_basicMultilingualPlane() {
+    assertThat(codepoints.contains(0x0000)).isTrue();
+    assertThat(codepoints.contains('a')).isTrue();
+    assertThat(codepoints.contains('b')).isTrue();
+    assertThat(codepoints.contains(0x00E9)).isTrue();
+    assertThat(codepoints.contains(0xFFFF)).isTrue();
+    assertThat(codepoints.contains('c')).isFalse();
+    assertThat(codepoints.contains(0x00E9 + 64)).isFalse();
+    assertThat(codepoints.contains(0xFFFE)).isFalse();
+  }
+
+  @Test
+  public void testContains_supplementaryRanges() {
+    assertThat(codepoints.contains(0x10000)).isTrue();
+    assertThat(codepoints.contains(0x2070E)).isTrue();
+    assertThat(codepoints.contains(0x2070F)).isTrue();
+    assertThat(codepoints.contains(0x20710)).isTrue();
+    assertThat(codepoints.contains(0x20731)).isTrue();
+    assertThat(codepoints.contains(0x10FFFF)).isTrue();
+    assertThat(codepoints.contains(0x10001)).isFalse();
+    assertThat(codepoints.contains(0x2070D)).isFalse();
+    assertThat(codepoints.contains(0x20711)).isFalse();
+    assertThat(codepoints.contains(0x20730)).isFalse();
+    assertThat(codepoints.contains(0x10FFFE)).isFalse();
+  }
+
+  @Test
+  public void testContains_invalidCodepoints() {
+    assertThat(codepoints.contains(-1)).isFalse();
+    assertThat(codepoints.contains(0x110000)).isFalse();
+  }
+
+  @Test
+  public void testContains_emptySet() {
+    CodepointSet empty = new CodepointSet.Builder().build();
+    assertThat(empty.contains(0)).isFalse();
+    assertThat(empty.contains('a')).isFalse();
+    assertThat(empty.contains(0x2070E)).isFalse();
+  }
+
+  @Test
+  public void testAdd_invalidCodepoint() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> new CodepointSet.Builder().add(-1));
+    assertThat(thrown).hasMessageThat().contains("Invalid codepoint: -1");
+  }
+}
@@ -15,6 +15,7 @@
 package google.registry.tldconfig.idn;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
 import static google.registry.testing.JUnitBackports.assertThrows;
 
 import com.google.common.collect.ImmutableList;
@@ -120,4 +121,61 @@ public class IdnTableTest {
             NullPointerException.class, () -> IdnTable.createFrom("sloth", of, Optional.empty()));
     assertThat(thrown).hasMessageThat().contains("sloth missing '# Policy:");
   }
+
+  private static IdnTable createTable(
+      String name, Optional<LanguageValidator> languageValidator, String... codepoints) {
+    return IdnTable.createFrom(
+        name,
+        ImmutableList.<String>builder()
+            .add("# URL: https://love.example/" + name + ".txt")
+            .add("# Policy: https://love.example/policy.html")
+            .add(codepoints)
+            .build(),
+        languageValidator);
+  }
+
+  @Test
+  public void testFindFirstValidTable_returnsFirstTableInOrder() {
+    IdnTable digits = createTable("digits", Optional.empty(), "U+0030", "U+0031", "U+0032");
+    IdnTable letters = createTable("letters", Optional.empty(), "U+0061", "U+0062", "U+0063");
+    IdnTable both =
+        createTable("both", Optional.empty(), "U+0030", "U+0031", "U+0061", "U+0062", "U+2070E");
+    ImmutableList<IdnTable> tables = ImmutableList.of(digits, letters, both);
+    assertThat(IdnTable.findFirstValidTable("012", tables)).hasValue(digits);
+    assertThat(IdnTable.findFirstValidTable("abc", tables)).hasValue(letters);
+    assertThat(IdnTable.findFirstValidTable("0a1b", tables)).hasValue(both);
+    assertThat(IdnTable.findFirstValidTable("𠜎0a", tables)).hasValue(both);
+    assertThat(IdnTable.findFirstValidTable("012a", ImmutableList.of(both, digits)))
+        .hasValue(both);
+    assertThat(IdnTable.findFirstValidTable("2c", tables)).isEmpty();
+    assertThat(IdnTable.findFirstValidTable("012", ImmutableList.of())).isEmpty();
+  }
+
+  @Test
+  public void testFindFirstValidTable_skipsTableRejectedByLanguageValidator() {
+    LanguageValidator rejectsAll =
+        new LanguageValidator() {
+          @Override
+          boolean isValidLabelForLanguage(String label) {
+            return false;
+          }
+        };
+    IdnTable picky = createTable("picky", Optional.of(rejectsAll), "U+0030", "U+0031");
+    IdnTable lenient = createTable("lenient", Optional.empty(), "U+0030", "U+0031");
+    assertThat(picky.isValidLabel("01")).isFalse();
+    assertThat(IdnTable.findFirstValidTable("01", ImmutableList.of(picky, lenient)))
+        .hasValue(lenient);
+    assertThat(IdnTable.findFirstValidTable("01", ImmutableList.of(picky))).isEmpty();
+  }
+
+  @Test
+  public void testFindFirstValidTable_sameAsIsValidLabel_forRealTables() {
+    ImmutableList<IdnTable> tables =
+        ImmutableList.of(IdnTableEnum.EXTENDED_LATIN.getTable(), IdnTableEnum.JA.getTable());
+    for (String label :
+        ImmutableList.of("café", "みんな", "アーク・", "ーみんな", "foo-bar", "カタカナ漢字ひらがなabc", "日本語Ω")) {
+      Optional<IdnTable> expected = tables.stream().filter(t -> t.isValidLabel(label)).findFirst();
+      assertThat(IdnTable.findFirstValidTable(label, tables)).isEqualTo(expected);
+    }
+  }
 }
@@ -42,6 +42,8 @@ import google.registry.model.billing.BillingEvent.Reason;
 import google.registry.model.contact.ContactResource;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.host.HostResource;
+import google.registry.model.index.ActiveNameIndex.ActiveDomainNameIndex;
+import google.registry.model.index.ActiveNameIndex.ActiveHostNameIndex;
 import google.registry.model.index.EppResourceIndex;
 import google.registry.model.index.ForeignKeyIndex.ForeignKeyContactIndex;
 import google.registry.model.index.ForeignKeyIndex.ForeignKeyDomainIndex;
@@ -63,6 +65,8 @@ public class KillAllEppResourcesActionTest extends MapreduceTestCase<KillAllEppR
 
   static final ImmutableSet<String> AFFECTED_KINDS =
       Stream.of(
+              ActiveDomainNameIndex.class,
+              ActiveHostNameIndex.class,
               EppResourceIndex.class,
               ForeignKeyContactIndex.class,
               ForeignKeyDomainIndex.class,
@@ -15,6 +15,7 @@
 package google.registry.whois;
 
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.monitoring.metrics.contrib.DistributionMetricSubject.assertThat;
 import static google.registry.testing.DatastoreHelper.createTld;
 import static google.registry.testing.DatastoreHelper.loadRegistrar;
 import static google.registry.testing.DatastoreHelper.persistResource;
@@ -292,6 +293,19 @@ public class DomainWhoisResponseTest {
         .isEqualTo(WhoisResponseResults.create(loadFile("whois_domain_full_output.txt"), 1));
   }
 
+  @Test
+  public void getPlainTextOutputTest_recordsResourcesLoaded() {
+    WhoisMetrics.domainResourcesLoaded.reset();
+    new DomainWhoisResponse(domainBase, false, "Please contact registrar", clock.nowUtc())
+        .getResponse(false, "Footer");
+    assertThat(WhoisMetrics.domainResourcesLoaded)
+        .hasDataSetForLabels(ImmutableSet.of(3), "contact")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(2), "host")
+        .and()
+        .hasNoOtherValues();
+  }
+
   @Test
   public void addImplicitOkStatusTest() {
     DomainWhoisResponse domainWhoisResponse =
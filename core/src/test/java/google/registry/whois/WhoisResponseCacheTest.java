@@ -0,0 +1,153 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.whois;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
+import static google.registry.model.registrar.Registrar.State.ACTIVE;
+import static google.registry.testing.DatastoreHelper.createTlds;
+import static google.registry.testing.DatastoreHelper.persistResource;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeContactResource;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeDomainBase;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeHostResource;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeRegistrar;
+import static google.registry.whois.WhoisMetrics.responseCacheRequests;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.InternetDomainName;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.eppcommon.StatusValue;
+import google.registry.model.ofy.Ofy;
+import google.registry.model.registrar.Registrar;
+import google.registry.testing.AppEngineRule;
+import google.registry.testing.FakeClock;
+import google.registry.testing.InjectRule;
+import google.registry.testing.TestCacheRule;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link WhoisResponseCache}. */
+@RunWith(JUnit4.class)
+public class WhoisResponseCacheTest {
+
+  @Rule public final AppEngineRule appEngine = AppEngineRule.builder().withDatastore().build();
+  @Rule public final InjectRule inject = new InjectRule();
+
+  @Rule
+  public final TestCacheRule testCacheRule =
+      new TestCacheRule.Builder().withWhoisResponseCache(Duration.standardDays(1)).build();
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2009-06-29T20:13:00Z"));
+  private ContactResource registrant;
+  private DomainBase domain;
+
+  @Before
+  public void setUp() {
+    createTlds("lol");
+    inject.setStaticField(Ofy.class, "clock", clock);
+    responseCacheRequests.reset();
+    Registrar registrar = persistResource(makeRegistrar("evilregistrar", "Yes Virginia", ACTIVE));
+    registrant =
+        persistResource(makeContactResource("5372808-ERL", "Goblin Market", "lol@cat.lol"));
+    domain =
+        persistResource(
+            makeDomainBase(
+                "cat.lol",
+                registrant,
+                persistResource(makeContactResource("5372808-IRL", "Santa Claus", "BOFH@cat.lol")),
+                persistResource(makeContactResource("5372808-TRL", "The Raven", "bog@cat.lol")),
+                persistResource(makeHostResource("ns1.cat.lol", "1.2.3.4")),
+                persistResource(makeHostResource("ns2.cat.lol", "bad:f00d:cafe::15:beef")),
+                registrar));
+    clock.advanceOneMilli();
+  }
+
+  private String lookUpDomain(boolean fullOutput) throws WhoisException {
+    return new DomainLookupCommand(
+            InternetDomainName.from("cat.lol"), fullOutput, "Please contact registrar")
+        .executeQuery(clock.nowUtc())
+        .getResponse(false, "Footer")
+        .plainTextOutput();
+  }
+
+  @Test
+  public void testDomainLookup_unchangedDomain_servedFromCache() throws Exception {
+    String firstResponse = lookUpDomain(true);
+    assertThat(firstResponse).contains("lol@cat.lol");
+    // The registrant isn't part of the domain, so changing it doesn't invalidate the response.
+    persistResource(registrant.asBuilder().setEmailAddress("new@cat.lol").build());
+    clock.advanceOneMilli();
+    assertThat(lookUpDomain(true)).isEqualTo(firstResponse);
+    assertThat(responseCacheRequests)
+        .hasValueForLabels(1, "Domain", "MISS")
+        .and()
+        .hasValueForLabels(1, "Domain", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testDomainLookup_updatedDomain_rerendered() throws Exception {
+    assertThat(lookUpDomain(false)).doesNotContain("clientHold");
+    persistResource(
+        domain.asBuilder().setStatusValues(ImmutableSet.of(StatusValue.CLIENT_HOLD)).build());
+    clock.advanceOneMilli();
+    assertThat(lookUpDomain(false)).contains("clientHold");
+    assertThat(responseCacheRequests)
+        .hasValueForLabels(1, "Domain", "MISS")
+        .and()
+        .hasValueForLabels(1, "Domain", "STALE")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testDomainLookup_outputModesCachedSeparately() throws Exception {
+    String redactedResponse = lookUpDomain(false);
+    String fullResponse = lookUpDomain(true);
+    assertThat(fullResponse).isNotEqualTo(redactedResponse);
+    assertThat(lookUpDomain(false)).isEqualTo(redactedResponse);
+    assertThat(lookUpDomain(true)).isEqualTo(fullResponse);
+    assertThat(responseCacheRequests)
+        .hasValueForLabels(2, "Domain", "MISS")
+        .and()
+        .hasValueForLabels(2, "Domain", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testNameserverLookup_servedFromCache() throws Exception {
+    WhoisCommand command =
+        new NameserverLookupByHostCommand(InternetDomainName.from("ns1.cat.lol"));
+    String firstResponse =
+        command.executeQuery(clock.nowUtc()).getResponse(false, "Footer").plainTextOutput();
+    assertThat(firstResponse).contains("1.2.3.4");
+    assertThat(command.executeQuery(clock.nowUtc()).getResponse(false, "Footer").plainTextOutput())
+        .isEqualTo(firstResponse);
+    assertThat(responseCacheRequests)
+        .hasValueForLabels(1, "Nameserver", "MISS")
+        .and()
+        .hasValueForLabels(1, "Nameserver", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+}
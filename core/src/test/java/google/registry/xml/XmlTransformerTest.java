@@ -0,0 +1,107 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.xml;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
+import static google.registry.testing.JUnitBackports.assertThrows;
+import static google.registry.xml.ValidationMode.LENIENT;
+import static google.registry.xml.ValidationMode.STRICT;
+import static google.registry.xml.XmlTransformerMetrics.poolRequests;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.model.eppinput.EppInput;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link XmlTransformer}. */
+@RunWith(JUnit4.class)
+public class XmlTransformerTest {
+
+  private static final String HELLO = "<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><hello/></epp>";
+
+  private final XmlTransformer transformer =
+      new XmlTransformer(ImmutableList.of("eppcom.xsd", "epp.xsd"), EppInput.class);
+
+  @Before
+  public void before() {
+    poolRequests.reset();
+  }
+
+  private EppInput unmarshalHello() throws Exception {
+    return transformer.unmarshal(EppInput.class, new ByteArrayInputStream(HELLO.getBytes(UTF_8)));
+  }
+
+  @Test
+  public void testUnmarshal_reusesUnmarshallerOnSameThread() throws Exception {
+    unmarshalHello();
+    unmarshalHello();
+    unmarshalHello();
+    assertThat(poolRequests)
+        .hasValueForLabels(1, "UNMARSHALLER", "MISS")
+        .and()
+        .hasValueForLabels(2, "UNMARSHALLER", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testUnmarshal_worksAfterFailure() throws Exception {
+    assertThrows(
+        XmlException.class,
+        () ->
+            transformer.unmarshal(
+                EppInput.class, new ByteArrayInputStream("<epp><hello/>".getBytes(UTF_8))));
+    assertThat(unmarshalHello().getCommandType()).isEqualTo("hello");
+  }
+
+  @Test
+  public void testMarshal_configurationDoesNotLeakBetweenCalls() throws Exception {
+    EppInput hello = unmarshalHello();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    transformer.marshal(hello, out, UTF_8, STRICT);
+    assertThat(new String(out.toByteArray(), UTF_8)).startsWith("<?xml");
+    StringWriter writer = new StringWriter();
+    transformer.marshal(hello, writer, LENIENT);
+    assertThat(writer.toString()).doesNotContain("<?xml");
+    out.reset();
+    transformer.marshal(hello, out, UTF_8, LENIENT);
+    assertThat(new String(out.toByteArray(), UTF_8)).startsWith("<?xml");
+    assertThat(poolRequests)
+        .hasValueForLabels(1, "MARSHALLER", "MISS")
+        .and()
+        .hasValueForLabels(2, "MARSHALLER", "HIT");
+  }
+
+  @Test
+  public void testValidate_reusesValidatorAfterFailure() throws Exception {
+    assertThrows(
+        XmlException.class,
+        () -> transformer.validate("<epp xmlns=\"urn:ietf:params:xml:ns:epp-1.0\"><bogus/></epp>"));
+    transformer.validate(HELLO);
+    assertThat(poolRequests)
+        .hasValueForLabels(1, "VALIDATOR", "MISS")
+        .and()
+        .hasValueForLabels(1, "VALIDATOR", "HIT")
+        .and()
+        .hasNoOtherValues();
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.proxy.Protocol.PROTOCOL_KEY;
+import static google.registry.proxy.handler.HttpsRelayServiceHandler.PENDING_RESPONSES_KEY;
+import static google.registry.proxy.handler.RelayHandler.RELAY_CHANNEL_KEY;
+
+import google.registry.proxy.Protocol.BackendProtocol;
+import google.registry.proxy.metric.BackendMetrics;
+import google.registry.util.Clock;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+/**
+ * A pool of keep-alive connections to the backend, shared by the frontend connections of each
+ * event loop.
+ *
+ * <p>Without the pool, every frontend connection pays for a TCP connection and a TLS handshake to
+ * the backend, which dominates the cost of short-lived connections such as WHOIS queries. With the
+ * pool, a backend channel whose frontend channel is closed is kept open, and handed to the next
+ * frontend channel on the same event loop.
+ *
+ * <p>Backend channels are always created on, and pooled by, the event loop of the frontend channel
+ * they relay for. This keeps the invariant relied upon by {@link
+ * google.registry.proxy.handler.RelayHandler} that a channel and its relay channel are served by
+ * the same thread, and means that the idle channels of an event loop need no synchronization.
+ */
+@Singleton
+public class BackendChannelPool {
+
+  /** Idle backend channels, only accessed from the thread of the event loop they belong to. */
+  private final ConcurrentMap<EventLoop, Map<BackendProtocol, Deque<Channel>>> idleChannels =
+      new ConcurrentHashMap<>();
+
+  private final int maxIdleChannelsPerEventLoop;
+  private final NettyTransport transport;
+  private final BackendMetrics metrics;
+  private final Clock clock;
+
+  @Inject
+  BackendChannelPool(
+      ProxyConfig config, NettyTransport transport, BackendMetrics metrics, Clock clock) {
+    this.maxIdleChannelsPerEventLoop = config.httpsRelay.maxIdleConnectionsPerEventLoop;
+    this.transport = transport;
+    this.metrics = metrics;
+    this.clock = clock;
+  }
+
+  /**
+   * Acquires a backend channel that relays to the given frontend channel.
+   *
+   * <p>The most recently released idle channel is reused if there is one, as it is the least likely
+   * to have been closed by the backend in the meantime. Otherwise a new channel is connected.
+   *
+   * <p>This method must be called from the event loop of the frontend channel.
+   */
+  ChannelFuture acquire(BackendProtocol protocol, Channel frontendChannel) {
+    EventLoop eventLoop = frontendChannel.eventLoop();
+    checkState(eventLoop.inEventLoop(), "Backend channels must be acquired from the event loop.");
+    Deque<Channel> channels = getIdleChannels(eventLoop, protocol);
+    Channel channel;
+    while ((channel = channels.pollFirst()) != null) {
+      metrics.unregisterIdleConnection(protocol.host(), channel);
+      if (channel.isActive()) {
+        channel.attr(RELAY_CHANNEL_KEY).set(frontendChannel);
+        metrics.connectionAcquired(protocol.host(), true, 0);
+        return channel.newSucceededFuture();
+      }
+    }
+    long startTime = clock.nowUtc().getMillis();
+    // Use the same thread to connect to the relay channel, therefore avoiding synchronization
+    // handling due to interactions between the two channels
+    Bootstrap bootstrap =
+        transport
+            .newBootstrap(eventLoop)
+            .handler(
+                new ChannelInitializer<SocketChannel>() {
+                  @Override
+                  protected void initChannel(SocketChannel channel) throws Exception {
+                    for (Provider<? extends ChannelHandler> handlerProvider :
+                        protocol.handlerProviders()) {
+                      channel.pipeline().addLast(handlerProvider.get());
+                    }
+                  }
+                })
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            // Outbound channel relays to inbound channel.
+            .attr(RELAY_CHANNEL_KEY, frontendChannel)
+            .attr(PROTOCOL_KEY, protocol);
+    return bootstrap
+        .connect(protocol.host(), protocol.port())
+        .addListener(
+            (ChannelFuture future) -> {
+              if (future.isSuccess()) {
+                metrics.connectionAcquired(
+                    protocol.host(), false, clock.nowUtc().getMillis() - startTime);
+                // An idle channel closed by the backend must not be handed out any more.
+                Channel newChannel = future.channel();
+                ChannelFuture unusedFuture =
+                    newChannel.closeFuture().addListener(f -> channels.remove(newChannel));
+              }
+            });
+  }
+
+  /**
+   * Releases a backend channel acquired for the given frontend channel, after the frontend channel
+   * is closed.
+   *
+   * <p>The backend channel is only kept if it is still open, every request relayed from the
+   * frontend channel has been answered, and the event loop does not already have enough idle
+   * channels. Otherwise it is closed.
+   */
+  void release(Channel channel, Channel frontendChannel) {
+    BackendProtocol protocol = (BackendProtocol) channel.attr(PROTOCOL_KEY).get();
+    Deque<Channel> channels = getIdleChannels(channel.eventLoop(), protocol);
+    Integer pendingResponses = frontendChannel.attr(PENDING_RESPONSES_KEY).get();
+    if (channel.isActive()
+        && (pendingResponses == null || pendingResponses == 0)
+        && channels.size() < maxIdleChannelsPerEventLoop) {
+      channel.attr(RELAY_CHANNEL_KEY).set(null);
+      channels.addFirst(channel);
+      metrics.registerIdleConnection(protocol.host(), channel);
+    } else {
+      ChannelFuture unusedFuture = channel.close();
+    }
+  }
+
+  private Deque<Channel> getIdleChannels(EventLoop eventLoop, BackendProtocol protocol) {
+    return idleChannels
+        .computeIfAbsent(eventLoop, loop -> new HashMap<>())
+        .computeIfAbsent(protocol, p -> new ArrayDeque<>());
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.flogger.FluentLogger;
+import google.registry.proxy.ProxyConfig.TransportType;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.util.Map;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The Netty transport used by the proxy, as configured in {@link ProxyConfig.Transport}.
+ *
+ * <p>All event loops, server channels and client channels of the proxy are created through this
+ * class, so that they agree on the transport: a channel can only be registered with an event loop
+ * of the same transport.
+ *
+ * <p>The native epoll transport produces less garbage and uses fewer system calls than NIO, and
+ * supports {@code SO_REUSEPORT}, which lets several server channels accept connections on the same
+ * port in parallel. It is only available on Linux, elsewhere the proxy falls back to NIO.
+ */
+@Singleton
+public class NettyTransport {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final TransportType type;
+  private final int eventLoopThreads;
+  private final ImmutableMap<String, Integer> protocolEventLoopThreads;
+  private final int serverChannelsPerPort;
+  private final Optional<ByteBufAllocator> allocator;
+
+  @Inject
+  NettyTransport(ProxyConfig config) {
+    this(config.transport, Epoll.isAvailable());
+  }
+
+  @VisibleForTesting
+  NettyTransport(ProxyConfig.Transport config, boolean epollAvailable) {
+    checkArgument(
+        config.serverChannelsPerPort > 0, "There must be at least one server channel per port.");
+    if (config.type == TransportType.EPOLL && !epollAvailable) {
+      logger.atWarning().withCause(Epoll.unavailabilityCause()).log(
+          "Native epoll transport is unavailable, falling back to NIO.");
+      type = TransportType.NIO;
+    } else {
+      type = config.type;
+    }
+    if (type == TransportType.NIO && config.serverChannelsPerPort > 1) {
+      logger.atWarning().log(
+          "NIO does not support SO_REUSEPORT, binding 1 server channel per port instead of %d.",
+          config.serverChannelsPerPort);
+      serverChannelsPerPort = 1;
+    } else {
+      serverChannelsPerPort = config.serverChannelsPerPort;
+    }
+    eventLoopThreads = config.eventLoopThreads;
+    protocolEventLoopThreads =
+        config.protocolEventLoopThreads == null
+            ? ImmutableMap.of()
+            : ImmutableMap.copyOf(config.protocolEventLoopThreads);
+    allocator =
+        config.pooledDirectBuffers
+            ? Optional.of(PooledByteBufAllocator.DEFAULT)
+            : Optional.empty();
+  }
+
+  /** The transport in use, after falling back to NIO if epoll is unavailable. */
+  TransportType type() {
+    return type;
+  }
+
+  /** Number of server channels to bind to each port. */
+  int serverChannelsPerPort() {
+    return serverChannelsPerPort;
+  }
+
+  /** Creates the event loop group shared by protocols without their own event loops. */
+  EventLoopGroup newDefaultEventLoopGroup() {
+    return newEventLoopGroup(eventLoopThreads);
+  }
+
+  /**
+   * Creates the event loop groups dedicated to protocols, keyed by protocol name.
+   *
+   * <p>Protocols that are not in the returned map should use the default event loop group.
+   */
+  ImmutableMap<String, EventLoopGroup> newProtocolEventLoopGroups() {
+    ImmutableMap.Builder<String, EventLoopGroup> eventLoopGroups = new ImmutableMap.Builder<>();
+    for (Map.Entry<String, Integer> entry : protocolEventLoopThreads.entrySet()) {
+      checkArgument(
+          entry.getValue() > 0,
+          "Event loop thread count for protocol %s must be positive.",
+          entry.getKey());
+      eventLoopGroups.put(entry.getKey(), newEventLoopGroup(entry.getValue()));
+    }
+    return eventLoopGroups.build();
+  }
+
+  private EventLoopGroup newEventLoopGroup(int threads) {
+    return type == TransportType.EPOLL
+        ? new EpollEventLoopGroup(threads)
+        : new NioEventLoopGroup(threads);
+  }
+
+  /** Creates a {@link ServerBootstrap} for server channels that accept client connections. */
+  ServerBootstrap newServerBootstrap(EventLoopGroup eventLoopGroup) {
+    ServerBootstrap serverBootstrap =
+        new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(
+                type == TransportType.EPOLL
+                    ? EpollServerSocketChannel.class
+                    : NioServerSocketChannel.class);
+    if (serverChannelsPerPort > 1) {
+      serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+    }
+    allocator.ifPresent(
+        alloc ->
+            serverBootstrap
+                .option(ChannelOption.ALLOCATOR, alloc)
+                .childOption(ChannelOption.ALLOCATOR, alloc));
+    return serverBootstrap;
+  }
+
+  /**
+   * Creates a {@link Bootstrap} for client channels on the given event loop group, which must have
+   * been created by this class.
+   */
+  Bootstrap newBootstrap(EventLoopGroup eventLoopGroup) {
+    Bootstrap bootstrap =
+        new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(
+                type == TransportType.EPOLL ? EpollSocketChannel.class : NioSocketChannel.class);
+    allocator.ifPresent(alloc -> bootstrap.option(ChannelOption.ALLOCATOR, alloc));
+    return bootstrap;
+  }
+}
@@ -19,6 +19,7 @@ import static google.registry.util.YamlUtils.getConfigSettings;
 
 import com.google.common.base.Ascii;
 import java.util.List;
+import java.util.Map;
 
 /** The POJO that YAML config files are deserialized into. */
 public class ProxyConfig {
@@ -40,6 +41,7 @@ public class ProxyConfig {
   public String projectId;
   public List<String> gcpScopes;
   public int serverCertificateCacheSeconds;
+  public Transport transport;
   public Gcs gcs;
   public Kms kms;
   public Epp epp;
@@ -49,6 +51,21 @@ public class ProxyConfig {
   public HttpsRelay httpsRelay;
   public Metrics metrics;
 
+  /** The Netty transport used for network I/O. */
+  public enum TransportType {
+    NIO,
+    EPOLL,
+  }
+
+  /** Configuration options that apply to the network transport of all connections. */
+  public static class Transport {
+    public TransportType type;
+    public int eventLoopThreads;
+    public Map<String, Integer> protocolEventLoopThreads;
+    public int serverChannelsPerPort;
+    public boolean pooledDirectBuffers;
+  }
+
   /** Configuration options that apply to GCS. */
   public static class Gcs {
     public String bucket;
@@ -101,6 +118,7 @@ public class ProxyConfig {
   public static class HttpsRelay {
     public int port;
     public int maxMessageLengthBytes;
+    public int maxIdleConnectionsPerEventLoop;
   }
 
   /** Configuration options that apply to Stackdriver monitoring metrics. */
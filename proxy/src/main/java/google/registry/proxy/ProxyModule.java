@@ -342,6 +342,10 @@ public class ProxyModule {
 
     Set<FrontendProtocol> protocols();
 
+    BackendChannelPool backendChannelPool();
+
+    NettyTransport nettyTransport();
+
     MetricReporter metricReporter();
   }
 }
@@ -19,32 +19,32 @@ import static google.registry.proxy.handler.RelayHandler.RELAY_BUFFER_KEY;
 import static google.registry.proxy.handler.RelayHandler.RELAY_CHANNEL_KEY;
 import static google.registry.proxy.handler.RelayHandler.writeToRelayChannel;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
 import com.google.common.flogger.FluentLogger;
 import com.google.monitoring.metrics.MetricReporter;
 import google.registry.proxy.Protocol.BackendProtocol;
 import google.registry.proxy.Protocol.FrontendProtocol;
 import google.registry.proxy.ProxyConfig.Environment;
 import google.registry.proxy.ProxyModule.ProxyComponent;
-import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.socket.SocketChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.Future;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.JdkLoggerFactory;
 import java.util.ArrayDeque;
-import java.util.HashMap;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -61,31 +61,42 @@ public class ProxyServer implements Runnable {
   private static final int MAX_SOCKET_BACKLOG = 128;
 
   private final ImmutableSet<FrontendProtocol> protocols;
-  private final HashMap<Integer, Channel> portToChannelMap = new HashMap<>();
-  private final EventLoopGroup eventGroup = new NioEventLoopGroup();
+  private final BackendChannelPool backendChannelPool;
+  private final NettyTransport transport;
+  private final ListMultimap<Integer, Channel> portToChannelMap = ArrayListMultimap.create();
 
   ProxyServer(ProxyComponent proxyComponent) {
     this.protocols = ImmutableSet.copyOf(proxyComponent.protocols());
+    this.backendChannelPool = proxyComponent.backendChannelPool();
+    this.transport = proxyComponent.nettyTransport();
   }
 
   /**
    * A {@link ChannelInitializer} for connections from a client of a certain protocol.
    *
-   * <p>The {@link #initChannel(NioSocketChannel)} method does the following:
+   * <p>The {@link #initChannel(SocketChannel)} method does the following:
    *
    * <ol>
    *   <li>Determine the {@link FrontendProtocol} of the inbound {@link Channel} from its parent
    *       {@link Channel}, i. e. the {@link Channel} that binds to local port and listens.
    *   <li>Add handlers for the {@link FrontendProtocol} to the inbound {@link Channel}.
-   *   <li>Establish an outbound {@link Channel} that serves as the relay channel of the inbound
-   *       {@link Channel}, as specified by {@link FrontendProtocol#relayProtocol}.
+   *   <li>Acquire an outbound {@link Channel} from the {@link BackendChannelPool} that serves as
+   *       the relay channel of the inbound {@link Channel}, as specified by {@link
+   *       FrontendProtocol#relayProtocol}.
    *   <li>After the outbound {@link Channel} connects successfully, enable {@link
    *       ChannelOption#AUTO_READ} on the inbound {@link Channel} to start reading.
    * </ol>
    */
-  private static class ServerChannelInitializer extends ChannelInitializer<NioSocketChannel> {
+  private static class ServerChannelInitializer extends ChannelInitializer<SocketChannel> {
+
+    private final BackendChannelPool backendChannelPool;
+
+    ServerChannelInitializer(BackendChannelPool backendChannelPool) {
+      this.backendChannelPool = backendChannelPool;
+    }
+
     @Override
-    protected void initChannel(NioSocketChannel inboundChannel) throws Exception {
+    protected void initChannel(SocketChannel inboundChannel) throws Exception {
       // Add inbound channel handlers.
       FrontendProtocol inboundProtocol =
           (FrontendProtocol) inboundChannel.parent().attr(PROTOCOL_KEY).get();
@@ -100,32 +111,9 @@ public class ProxyServer implements Runnable {
       } else {
         logger.atInfo().log(
             "Connection established: %s %s", inboundProtocol.name(), inboundChannel);
-        // Connect to the relay (outbound) channel specified by the BackendProtocol.
-        BackendProtocol outboundProtocol = inboundProtocol.relayProtocol();
-        Bootstrap bootstrap =
-            new Bootstrap()
-                // Use the same thread to connect to the relay channel, therefore avoiding
-                // synchronization handling due to interactions between the two channels
-                .group(inboundChannel.eventLoop())
-                .channel(NioSocketChannel.class)
-                .handler(
-                    new ChannelInitializer<NioSocketChannel>() {
-                      @Override
-                      protected void initChannel(NioSocketChannel outboundChannel)
-                          throws Exception {
-                        addHandlers(
-                            outboundChannel.pipeline(), outboundProtocol.handlerProviders());
-                      }
-                    })
-                .option(ChannelOption.SO_KEEPALIVE, true)
-                // Outbound channel relays to inbound channel.
-                .attr(RELAY_CHANNEL_KEY, inboundChannel)
-                .attr(PROTOCOL_KEY, outboundProtocol);
-
-        connectOutboundChannel(bootstrap, inboundProtocol, outboundProtocol, inboundChannel);
-        // If the inbound connection is closed, close its outbound relay connection as well. There
-        // is no way to recover from an inbound connection termination, as the connection can only
-        // be initiated by the client.
+        // If the inbound connection is closed, return its outbound relay connection to the pool,
+        // which closes it unless it can be reused. There is no way to recover from an inbound
+        // connection termination, as the connection can only be initiated by the client.
         ChannelFuture unusedChannelFuture =
             inboundChannel
                 .closeFuture()
@@ -137,7 +125,7 @@ public class ProxyServer implements Runnable {
                       // is not successful, this attribute is not set.
                       Channel outboundChannel = inboundChannel.attr(RELAY_CHANNEL_KEY).get();
                       if (outboundChannel != null) {
-                        ChannelFuture unusedChannelFuture2 = outboundChannel.close();
+                        backendChannelPool.release(outboundChannel, inboundChannel);
                       }
                       // If the frontend channel is closed and there are messages remaining in the
                       // buffer, we should make sure that they are released (if the messages are
@@ -153,11 +141,16 @@ public class ProxyServer implements Runnable {
                                 ReferenceCountUtil.release(msg);
                               });
                     });
+        // Connect to the relay (outbound) channel specified by the BackendProtocol.
+        BackendProtocol outboundProtocol = inboundProtocol.relayProtocol();
+        connectOutboundChannel(
+            backendChannelPool, inboundProtocol, outboundProtocol, inboundChannel);
       }
     }
 
     /**
-     * Establishes an outbound relay channel and sets the relevant metadata on both channels.
+     * Acquires an outbound relay channel from the pool and sets the relevant metadata on both
+     * channels.
      *
      * <p>This method also adds a listener that is called when the established outbound connection
      * is closed. The outbound connection to GAE is *not* guaranteed to persist. In case that the
@@ -166,18 +159,24 @@ public class ProxyServer implements Runnable {
      * so that the inbound channel knows to relay to the new outbound channel.
      */
     private static void connectOutboundChannel(
-        Bootstrap bootstrap,
+        BackendChannelPool backendChannelPool,
         FrontendProtocol inboundProtocol,
         BackendProtocol outboundProtocol,
-        NioSocketChannel inboundChannel) {
+        SocketChannel inboundChannel) {
       ChannelFuture outboundChannelFuture =
-          bootstrap.connect(outboundProtocol.host(), outboundProtocol.port());
+          backendChannelPool.acquire(outboundProtocol, inboundChannel);
       outboundChannelFuture.addListener(
           (ChannelFuture future) -> {
             if (future.isSuccess()) {
+              Channel outboundChannel = future.channel();
+              // The inbound connection was closed before the outbound connection is established,
+              // there is nothing left to relay.
+              if (!inboundChannel.isActive()) {
+                backendChannelPool.release(outboundChannel, inboundChannel);
+                return;
+              }
               // Outbound connection is successful, now we can set the metadata to couple these two
               // connections together.
-              Channel outboundChannel = future.channel();
               // Inbound channel relays to outbound channel.
               inboundChannel.attr(RELAY_CHANNEL_KEY).set(outboundChannel);
               // Outbound channel established successfully, inbound channel can start reading.
@@ -204,30 +203,36 @@ public class ProxyServer implements Runnable {
                 writeToRelayChannel(inboundChannel, outboundChannel, msg, true);
               }
               // When this outbound connection is closed, try reconnecting if the inbound connection
-              // is still active.
+              // is still active. The listener is removed when the outbound connection is returned
+              // to the pool, as it is then no longer the relay of this inbound connection.
+              ChannelFutureListener reconnectListener =
+                  (ChannelFuture future2) -> {
+                    if (inboundChannel.isActive()) {
+                      logger.atInfo().log(
+                          "Relay interrupted: %s <-> %s\nFRONTEND: %s\nBACKEND: %s",
+                          inboundProtocol.name(),
+                          outboundProtocol.name(),
+                          inboundChannel,
+                          outboundChannel);
+                      connectOutboundChannel(
+                          backendChannelPool, inboundProtocol, outboundProtocol, inboundChannel);
+                    } else {
+                      logger.atInfo().log(
+                          "Relay terminated: %s <-> %s\nFRONTEND: %s\nBACKEND: %s",
+                          inboundProtocol.name(),
+                          outboundProtocol.name(),
+                          inboundChannel,
+                          outboundChannel);
+                    }
+                  };
               ChannelFuture unusedChannelFuture =
-                  outboundChannel
+                  outboundChannel.closeFuture().addListener(reconnectListener);
+              ChannelFuture unusedChannelFuture2 =
+                  inboundChannel
                       .closeFuture()
                       .addListener(
-                          (ChannelFuture future2) -> {
-                            if (inboundChannel.isActive()) {
-                              logger.atInfo().log(
-                                  "Relay interrupted: %s <-> %s\nFRONTEND: %s\nBACKEND: %s",
-                                  inboundProtocol.name(),
-                                  outboundProtocol.name(),
-                                  inboundChannel,
-                                  outboundChannel);
-                              connectOutboundChannel(
-                                  bootstrap, inboundProtocol, outboundProtocol, inboundChannel);
-                            } else {
-                              logger.atInfo().log(
-                                  "Relay terminated: %s <-> %s\nFRONTEND: %s\nBACKEND: %s",
-                                  inboundProtocol.name(),
-                                  outboundProtocol.name(),
-                                  inboundChannel,
-                                  outboundChannel);
-                            }
-                          });
+                          (ChannelFuture future2) ->
+                              outboundChannel.closeFuture().removeListener(reconnectListener));
             } else {
               // We cannot connect to GAE for unknown reasons, no relay can be done so drop the
               // inbound connection as well.
@@ -250,34 +255,40 @@ public class ProxyServer implements Runnable {
 
   @Override
   public void run() {
+    EventLoopGroup defaultEventLoopGroup = transport.newDefaultEventLoopGroup();
+    ImmutableMap<String, EventLoopGroup> protocolEventLoopGroups =
+        transport.newProtocolEventLoopGroups();
     try {
-      ServerBootstrap serverBootstrap =
-          new ServerBootstrap()
-              .group(eventGroup)
-              .channel(NioServerSocketChannel.class)
-              .childHandler(new ServerChannelInitializer())
-              .option(ChannelOption.SO_BACKLOG, MAX_SOCKET_BACKLOG)
-              .childOption(ChannelOption.SO_KEEPALIVE, true)
-              // Do not read before relay channel is established.
-              .childOption(ChannelOption.AUTO_READ, false);
-
       // Bind to each port specified in portToHandlersMap.
       protocols.forEach(
           protocol -> {
             int port = protocol.port();
-            try {
-              // Wait for binding to be established for each listening port.
-              ChannelFuture serverChannelFuture = serverBootstrap.bind(port).sync();
-              if (serverChannelFuture.isSuccess()) {
-                logger.atInfo().log(
-                    "Start listening on port %s for %s protocol.", port, protocol.name());
-                Channel serverChannel = serverChannelFuture.channel();
-                serverChannel.attr(PROTOCOL_KEY).set(protocol);
-                portToChannelMap.put(port, serverChannel);
+            ServerBootstrap serverBootstrap =
+                transport
+                    .newServerBootstrap(
+                        protocolEventLoopGroups.getOrDefault(
+                            protocol.name(), defaultEventLoopGroup))
+                    .childHandler(new ServerChannelInitializer(backendChannelPool))
+                    .option(ChannelOption.SO_BACKLOG, MAX_SOCKET_BACKLOG)
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    // Do not read before relay channel is established.
+                    .childOption(ChannelOption.AUTO_READ, false)
+                    .attr(PROTOCOL_KEY, protocol);
+            // With SO_REUSEPORT, several server channels are bound to the same port, and the kernel
+            // spreads incoming connections over them.
+            for (int i = 0; i < transport.serverChannelsPerPort(); i++) {
+              try {
+                // Wait for binding to be established for each listening port.
+                ChannelFuture serverChannelFuture = serverBootstrap.bind(port).sync();
+                if (serverChannelFuture.isSuccess()) {
+                  logger.atInfo().log(
+                      "Start listening on port %s for %s protocol.", port, protocol.name());
+                  portToChannelMap.put(port, serverChannelFuture.channel());
+                }
+              } catch (InterruptedException e) {
+                logger.atSevere().withCause(e).log(
+                    "Cannot listen on port %d for %s protocol.", port, protocol.name());
               }
-            } catch (InterruptedException e) {
-              logger.atSevere().withCause(e).log(
-                  "Cannot listen on port %d for %s protocol.", port, protocol.name());
             }
           });
 
@@ -298,7 +309,10 @@ public class ProxyServer implements Runnable {
           });
     } finally {
       logger.atInfo().log("Shutting down server...");
-      Future<?> unusedFuture = eventGroup.shutdownGracefully();
+      Future<?> unusedFuture = defaultEventLoopGroup.shutdownGracefully();
+      for (EventLoopGroup eventLoopGroup : protocolEventLoopGroups.values()) {
+        Future<?> unusedFuture2 = eventLoopGroup.shutdownGracefully();
+      }
     }
   }
 
@@ -50,12 +50,9 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
   private final Clock clock;
   private final BackendMetrics metrics;
 
-  private String relayedProtocolName;
-  private String clientCertHash;
-  private Channel relayedChannel;
-
   /**
-   * A queue that saves the time at which a request is sent to the GAE app.
+   * A queue that saves the time at which a request is sent to the GAE app, along with the labels of
+   * the frontend channel that sent it.
    *
    * <p>This queue is used to calculate HTTP request-response latency. HTTP 1.1 specification allows
    * for pipelining, in which a client can sent multiple requests without waiting for each
@@ -66,10 +63,13 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
    * guarantees that the request time at the head of the queue always corresponds to the response
    * received in {@link #channelRead}.
    *
+   * <p>The labels are saved with each request because a pooled backend channel relays for a
+   * different frontend channel each time it is borrowed.
+   *
    * @see <a href="https://www.w3.org/Protocols/rfc2616/rfc2616-sec8.html">RFC 2616 8.1.2.2
    *     Pipelining</a>
    */
-  private final Queue<DateTime> requestSentTimeQueue = new ArrayDeque<>();
+  private final Queue<SentRequest> sentRequestQueue = new ArrayDeque<>();
 
   @Inject
   BackendMetricsHandler(Clock clock, BackendMetrics metrics) {
@@ -81,21 +81,20 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
   public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
     // Backend channel is always established after a frontend channel is connected, so this call
     // should always return a non-null relay channel.
-    relayedChannel = ctx.channel().attr(RELAY_CHANNEL_KEY).get();
-    checkNotNull(relayedChannel, "No frontend channel found.");
-    relayedProtocolName = relayedChannel.attr(PROTOCOL_KEY).get().name();
+    checkNotNull(ctx.channel().attr(RELAY_CHANNEL_KEY).get(), "No frontend channel found.");
     super.channelRegistered(ctx);
   }
 
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
     checkArgument(msg instanceof FullHttpResponse, "Incoming response must be FullHttpResponse.");
-    checkState(!requestSentTimeQueue.isEmpty(), "Response received before request is sent.");
+    checkState(!sentRequestQueue.isEmpty(), "Response received before request is sent.");
+    SentRequest sentRequest = sentRequestQueue.remove();
     metrics.responseReceived(
-        relayedProtocolName,
-        clientCertHash,
+        sentRequest.relayedProtocolName,
+        sentRequest.clientCertHash,
         (FullHttpResponse) msg,
-        clock.nowUtc().getMillis() - requestSentTimeQueue.remove().getMillis());
+        clock.nowUtc().getMillis() - sentRequest.sentTime.getMillis());
     super.channelRead(ctx, msg);
   }
 
@@ -107,11 +106,11 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
     // For EPP, the client hash attribute is set upon handshake completion, before the first HELLO
     // is sent to the server. Therefore the first call to write() with HELLO payload has access to
     // the hash in its channel attribute.
-    if (clientCertHash == null) {
-      clientCertHash =
-          Optional.ofNullable(relayedChannel.attr(CLIENT_CERTIFICATE_HASH_KEY).get())
-              .orElse("none");
-    }
+    Channel relayedChannel = ctx.channel().attr(RELAY_CHANNEL_KEY).get();
+    checkNotNull(relayedChannel, "No frontend channel found.");
+    String relayedProtocolName = relayedChannel.attr(PROTOCOL_KEY).get().name();
+    String clientCertHash =
+        Optional.ofNullable(relayedChannel.attr(CLIENT_CERTIFICATE_HASH_KEY).get()).orElse("none");
     FullHttpRequest request = (FullHttpRequest) msg;
 
     // Record request size now because the content would have read by the time the listener is
@@ -127,8 +126,22 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
                   if (future.isSuccess()) {
                     // Only instrument request metrics when the request is actually sent to GAE.
                     metrics.requestSent(relayedProtocolName, clientCertHash, bytes);
-                    requestSentTimeQueue.add(sentTime);
+                    sentRequestQueue.add(
+                        new SentRequest(sentTime, relayedProtocolName, clientCertHash));
                   }
                 });
   }
+
+  /** A request sent to the GAE app that is awaiting its response. */
+  private static class SentRequest {
+    private final DateTime sentTime;
+    private final String relayedProtocolName;
+    private final String clientCertHash;
+
+    SentRequest(DateTime sentTime, String relayedProtocolName, String clientCertHash) {
+      this.sentTime = sentTime;
+      this.relayedProtocolName = relayedProtocolName;
+      this.clientCertHash = clientCertHash;
+    }
+  }
 }
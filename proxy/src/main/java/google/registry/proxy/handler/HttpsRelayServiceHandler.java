@@ -37,6 +37,7 @@ import io.netty.handler.codec.http.cookie.ClientCookieDecoder;
 import io.netty.handler.codec.http.cookie.ClientCookieEncoder;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.util.AttributeKey;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -57,7 +58,10 @@ import javax.net.ssl.SSLHandshakeException;
  * to the remote peer of this channel.
  *
  * <p>This handler is session aware and will store all the session cookies that the are contained in
- * the HTTP response headers, which are added back to headers of subsequent HTTP requests.
+ * the HTTP response headers, which are added back to headers of subsequent HTTP requests. Because
+ * the session lives in this handler, the backend connection that the requests are relayed over can
+ * be shared with other channels once all the responses have been received, see {@link
+ * #PENDING_RESPONSES_KEY}.
  */
 public abstract class HttpsRelayServiceHandler extends ByteToMessageCodec<FullHttpResponse> {
 
@@ -69,11 +73,23 @@ public abstract class HttpsRelayServiceHandler extends ByteToMessageCodec<FullHt
   protected static final ImmutableSet<Class<? extends Exception>> NON_FATAL_OUTBOUND_EXCEPTIONS =
       ImmutableSet.of(NonOkHttpResponseException.class);
 
+  /**
+   * Key used to retrieve the number of requests relayed from a {@link Channel} that have not been
+   * answered yet.
+   *
+   * <p>A backend channel can only be handed to another frontend channel when this number is zero,
+   * otherwise the new frontend channel would receive responses meant for the old one.
+   */
+  public static final AttributeKey<Integer> PENDING_RESPONSES_KEY =
+      AttributeKey.valueOf("PENDING_RESPONSES_KEY");
+
   private final Map<String, Cookie> cookieStore = new LinkedHashMap<>();
   private final String relayHost;
   private final String relayPath;
   private final Supplier<String> accessTokenSupplier;
 
+  private int pendingResponses = 0;
+
   protected final FrontendMetrics metrics;
 
   HttpsRelayServiceHandler(
@@ -129,6 +145,7 @@ public abstract class HttpsRelayServiceHandler extends ByteToMessageCodec<FullHt
       throws Exception {
     FullHttpRequest request = decodeFullHttpRequest(byteBuf);
     loadCookies(request);
+    ctx.channel().attr(PENDING_RESPONSES_KEY).set(++pendingResponses);
     out.add(request);
   }
 
@@ -160,6 +177,7 @@ public abstract class HttpsRelayServiceHandler extends ByteToMessageCodec<FullHt
   @Override
   protected void encode(ChannelHandlerContext ctx, FullHttpResponse response, ByteBuf byteBuf)
       throws Exception {
+    ctx.channel().attr(PENDING_RESPONSES_KEY).set(--pendingResponses);
     if (!response.status().equals(HttpResponseStatus.OK)) {
       throw new NonOkHttpResponseException(response, ctx.channel());
     }
@@ -14,6 +14,8 @@
 
 package google.registry.proxy.metric;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.monitoring.metrics.CustomFitter;
 import com.google.monitoring.metrics.EventMetric;
@@ -21,9 +23,17 @@ import com.google.monitoring.metrics.ExponentialFitter;
 import com.google.monitoring.metrics.FibonacciFitter;
 import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.Metric;
 import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.util.NonFinalForTesting;
+import io.netty.channel.Channel;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -93,6 +103,51 @@ public class BackendMetrics {
               LABELS,
               DEFAULT_LATENCY_FITTER);
 
+  private static final ImmutableSet<LabelDescriptor> POOL_LABELS =
+      ImmutableSet.of(LabelDescriptor.create("host", "Hostname of the backend."));
+
+  private static final ImmutableSet<LabelDescriptor> POOL_ACQUISITION_LABELS =
+      ImmutableSet.<LabelDescriptor>builder()
+          .addAll(POOL_LABELS)
+          .add(
+              LabelDescriptor.create(
+                  "outcome", "Whether an idle connection was reused or a new one connected."))
+          .build();
+
+  private static final ConcurrentMap<ImmutableList<String>, ChannelGroup> idleConnections =
+      new ConcurrentHashMap<>();
+
+  static final Metric<Long> idleConnectionsGauge =
+      MetricRegistryImpl.getDefault()
+          .newGauge(
+              "/proxy/backend/pool/idle_connections",
+              "Number of idle connections to the backend kept open for reuse.",
+              "Idle Connections",
+              POOL_LABELS,
+              () ->
+                  idleConnections.entrySet().stream()
+                      .collect(
+                          ImmutableMap.toImmutableMap(
+                              Map.Entry::getKey, entry -> (long) entry.getValue().size())),
+              Long.class);
+
+  static final IncrementableMetric acquisitionsCounter =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/proxy/backend/pool/acquisitions",
+              "Total number of connections to the backend acquired for a client connection.",
+              "Acquisitions",
+              POOL_ACQUISITION_LABELS);
+
+  static final EventMetric acquisitionLatencyMs =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/proxy/backend/pool/acquisition_latency_ms",
+              "Time between a connection to the backend requested and it being ready to relay.",
+              "Latency Milliseconds",
+              POOL_ACQUISITION_LABELS,
+              DEFAULT_LATENCY_FITTER);
+
   @Inject
   BackendMetrics() {}
 
@@ -108,6 +163,9 @@ public class BackendMetrics {
     responseBytes.reset();
     responsesCounter.reset();
     latencyMs.reset();
+    idleConnections.clear();
+    acquisitionsCounter.reset();
+    acquisitionLatencyMs.reset();
   }
 
   @NonFinalForTesting
@@ -123,4 +181,33 @@ public class BackendMetrics {
     responseBytes.record(response.content().readableBytes(), protocol, certHash);
     responsesCounter.increment(protocol, certHash, response.status().toString());
   }
+
+  /**
+   * Records a connection to the backend being acquired for a client connection.
+   *
+   * @param reused whether an idle pooled connection was reused, instead of connecting a new one
+   * @param latency milliseconds spent waiting for the connection
+   */
+  @NonFinalForTesting
+  public void connectionAcquired(String host, boolean reused, long latency) {
+    String outcome = reused ? "reused" : "connected";
+    acquisitionsCounter.increment(host, outcome);
+    acquisitionLatencyMs.record(latency, host, outcome);
+  }
+
+  @NonFinalForTesting
+  public void registerIdleConnection(String host, Channel channel) {
+    idleConnections
+        .computeIfAbsent(
+            ImmutableList.of(host), labels -> new DefaultChannelGroup(GlobalEventExecutor.INSTANCE))
+        .add(channel);
+  }
+
+  @NonFinalForTesting
+  public void unregisterIdleConnection(String host, Channel channel) {
+    ChannelGroup channelGroup = idleConnections.get(ImmutableList.of(host));
+    if (channelGroup != null) {
+      channelGroup.remove(channel);
+    }
+  }
 }
@@ -15,6 +15,7 @@
 package google.registry.proxy.quota;
 
 import static com.google.common.base.Preconditions.checkState;
+import static google.registry.proxy.quota.TokenStore.MAX_TOKEN_AMOUNT;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -47,6 +48,17 @@ public class QuotaConfig {
     quota.customQuota.forEach(
         quotaGroup -> quotaGroup.userId.forEach(userId -> mapBuilder.put(userId, quotaGroup)));
     customQuotaMap = mapBuilder.build();
+    checkTokenAmount(defaultQuota);
+    quota.customQuota.forEach(QuotaConfig::checkTokenAmount);
+  }
+
+  private static void checkTokenAmount(QuotaGroup quotaGroup) {
+    checkState(
+        quotaGroup.tokenAmount <= MAX_TOKEN_AMOUNT,
+        "Token amount %s for user IDs %s exceeds the maximum of %s",
+        quotaGroup.tokenAmount,
+        quotaGroup.userId,
+        MAX_TOKEN_AMOUNT);
   }
 
   @VisibleForTesting
@@ -17,6 +17,7 @@ package google.registry.proxy.quota;
 import static google.registry.proxy.quota.QuotaConfig.SENTINEL_UNLIMITED_TOKENS;
 import static java.lang.StrictMath.max;
 import static java.lang.StrictMath.min;
+import static org.joda.time.DateTimeZone.UTC;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
@@ -26,6 +27,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import javax.annotation.concurrent.ThreadSafe;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -43,6 +46,11 @@ import org.joda.time.Duration;
  * #put} takes place. It also exposes a {@link #refresh} method that goes through each entry in the
  * store and purges stale entries, in order to prevent the token store from growing too large.
  *
+ * <p>Each user's tokens are kept in a {@link TokenBucket}, whose token count and refill time are
+ * packed into a single {@code long} that is updated with compare-and-swap. This keeps {@link #take}
+ * and {@link #put} lock-free and avoids allocating on each update, which matters when a misbehaving
+ * client opens connections in a tight loop.
+ *
  * <p>There should be one token store for each protocol.
  */
 @ThreadSafe
@@ -61,28 +69,103 @@ public class TokenStore {
     abstract DateTime timestamp();
   }
 
+  /** Number of low-order bits of a bucket's state that hold its token count. */
+  private static final int TOKEN_BITS = 24;
+
+  private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+  /** The largest token amount that can be configured for a user. */
+  static final int MAX_TOKEN_AMOUNT = (int) TOKEN_MASK;
+
   /**
-   * A wrapper to get around Java lambda's closure limitation.
+   * The tokens of a single user, along with the quota configured for that user.
    *
-   * <p>Use the class to modify the value of a local variable captured by an lambda.
+   * <p>The quota is looked up once when the bucket is created. The mutable state packs the refill
+   * time, in milliseconds since {@link #baseMillis}, into the high-order bits and the number of
+   * available tokens into the low-order {@link #TOKEN_BITS} bits.
    */
-  private static class Wrapper<T> {
-    T value;
+  private static final class TokenBucket {
+
+    final boolean unlimited;
+    final int tokenAmount;
+    final long refillPeriodMillis;
+    final AtomicLong state;
+
+    TokenBucket(boolean unlimited, int tokenAmount, long refillPeriodMillis, long state) {
+      this.unlimited = unlimited;
+      this.tokenAmount = tokenAmount;
+      this.refillPeriodMillis = refillPeriodMillis;
+      this.state = new AtomicLong(state);
+    }
+
+    /** Returns whether a pool refilled at the given time needs to be refilled again by now. */
+    boolean needsRefill(long refillOffsetMillis, long nowOffsetMillis) {
+      return refillPeriodMillis != 0 && nowOffsetMillis - refillOffsetMillis >= refillPeriodMillis;
+    }
   }
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  /** A map of {@code userId} to available tokens, timestamped at last refill time. */
-  private final ConcurrentHashMap<String, TimestampedInteger> tokensMap = new ConcurrentHashMap<>();
+  /** A map of {@code userId} to that user's available tokens. */
+  private final ConcurrentHashMap<String, TokenBucket> tokensMap = new ConcurrentHashMap<>();
+
+  private final Function<String, TokenBucket> bucketFactory = this::createBucket;
 
   private final QuotaConfig config;
   private final ScheduledExecutorService refreshExecutor;
   private final Clock clock;
 
+  /** The time from which refill times are measured, so that they fit in a bucket's state. */
+  private final long baseMillis;
+
   public TokenStore(QuotaConfig config, ScheduledExecutorService refreshExecutor, Clock clock) {
     this.config = config;
     this.refreshExecutor = refreshExecutor;
     this.clock = clock;
+    this.baseMillis = clock.nowUtc().getMillis();
+  }
+
+  private static long packState(long refillOffsetMillis, int tokenCount) {
+    return (refillOffsetMillis << TOKEN_BITS) | tokenCount;
+  }
+
+  private static long refillOffsetMillis(long state) {
+    return state >>> TOKEN_BITS;
+  }
+
+  private static int tokenCount(long state) {
+    return (int) (state & TOKEN_MASK);
+  }
+
+  private long toOffsetMillis(DateTime time) {
+    // Guard against the clock going backwards past the time this store was created.
+    return max(0, time.getMillis() - baseMillis);
+  }
+
+  private DateTime toDateTime(long offsetMillis) {
+    return new DateTime(baseMillis + offsetMillis, UTC);
+  }
+
+  /** Creates a full bucket for a user seen for the first time, or after its entry was purged. */
+  private TokenBucket createBucket(String userId) {
+    long nowOffsetMillis = toOffsetMillis(clock.nowUtc());
+    if (config.hasUnlimitedTokens(userId)) {
+      return new TokenBucket(true, SENTINEL_UNLIMITED_TOKENS, 0, packState(nowOffsetMillis, 0));
+    }
+    // QuotaConfig has already checked that the amount fits in a bucket's state.
+    int tokenAmount = config.getTokenAmount(userId);
+    return new TokenBucket(
+        false,
+        tokenAmount,
+        config.getRefillPeriod(userId).getMillis(),
+        packState(nowOffsetMillis, tokenAmount));
+  }
+
+  private TokenBucket getOrCreateBucket(String userId) {
+    TokenBucket bucket = tokensMap.get(userId);
+    // ConcurrentHashMap.computeIfAbsent locks even when the key is present, so only call it when
+    // the bucket is missing.
+    return (bucket != null) ? bucket : tokensMap.computeIfAbsent(userId, bucketFactory);
   }
 
   /**
@@ -92,45 +175,36 @@ public class TokenStore {
    * that entry has been last refilled before the refill period. In either case it will reset the
    * token amount to the allotted to the user.
    *
-   * <p>The request can be partially fulfilled or all-or-nothing, meaning if there are fewer tokens
-   * available than requested, we can grant all available ones, or grant nothing, depending on the
-   * {@code partialGrant} parameter.
+   * <p>If there are no tokens available, nothing is granted.
    *
    * @param userId the identifier of the user requesting the token.
    * @return the number of token granted, timestamped at refill time of the pool of tokens from
    *     which the granted one is taken.
    */
   TimestampedInteger take(String userId) {
-    Wrapper<TimestampedInteger> grantedToken = new Wrapper<>();
-    tokensMap.compute(
-        userId,
-        (user, availableTokens) -> {
-          DateTime now = clock.nowUtc();
-          int currentTokenCount;
-          DateTime refillTime;
-          // Checks if the user is provisioned with unlimited tokens.
-          if (config.hasUnlimitedTokens(user)) {
-            grantedToken.value = TimestampedInteger.create(1, now);
-            return TimestampedInteger.create(SENTINEL_UNLIMITED_TOKENS, now);
-          }
-          // Checks if the entry exists.
-          if (availableTokens == null
-              // Or if refill is enabled and the entry needs to be refilled.
-              || (!config.getRefillPeriod(user).isEqual(Duration.ZERO)
-                  && !new Duration(availableTokens.timestamp(), now)
-                      .isShorterThan(config.getRefillPeriod(user)))) {
-            currentTokenCount = config.getTokenAmount(user);
-            refillTime = now;
-          } else {
-            currentTokenCount = availableTokens.value();
-            refillTime = availableTokens.timestamp();
-          }
-          int newTokenCount = max(0, currentTokenCount - 1);
-          grantedToken.value =
-              TimestampedInteger.create(currentTokenCount - newTokenCount, refillTime);
-          return TimestampedInteger.create(newTokenCount, refillTime);
-        });
-    return grantedToken.value;
+    TokenBucket bucket = getOrCreateBucket(userId);
+    DateTime now = clock.nowUtc();
+    // Checks if the user is provisioned with unlimited tokens.
+    if (bucket.unlimited) {
+      return TimestampedInteger.create(1, now);
+    }
+    long nowOffsetMillis = toOffsetMillis(now);
+    while (true) {
+      long state = bucket.state.get();
+      long refillOffsetMillis = refillOffsetMillis(state);
+      int currentTokenCount = tokenCount(state);
+      if (bucket.needsRefill(refillOffsetMillis, nowOffsetMillis)) {
+        refillOffsetMillis = nowOffsetMillis;
+        currentTokenCount = bucket.tokenAmount;
+      }
+      int grantedTokenCount = (currentTokenCount > 0) ? 1 : 0;
+      long newState = packState(refillOffsetMillis, currentTokenCount - grantedTokenCount);
+      if (newState == state || bucket.state.compareAndSet(state, newState)) {
+        return TimestampedInteger.create(
+            grantedTokenCount,
+            (refillOffsetMillis == nowOffsetMillis) ? now : toDateTime(refillOffsetMillis));
+      }
+    }
   }
 
   /**
@@ -145,32 +219,32 @@ public class TokenStore {
    *     one is taken from.
    */
   void put(String userId, DateTime returnedTokenRefillTime) {
-    tokensMap.computeIfPresent(
-        userId,
-        (user, availableTokens) -> {
-          DateTime now = clock.nowUtc();
-          int currentTokenCount = availableTokens.value();
-          DateTime refillTime = availableTokens.timestamp();
-          int newTokenCount;
-          // Check if quota is unlimited.
-          if (!config.hasUnlimitedTokens(userId)) {
-            // Check if refill is enabled and a refill is needed.
-            if (!config.getRefillPeriod(user).isEqual(Duration.ZERO)
-                && !new Duration(availableTokens.timestamp(), now)
-                    .isShorterThan(config.getRefillPeriod(user))) {
-              currentTokenCount = config.getTokenAmount(user);
-              refillTime = now;
-            }
-            // If the returned token comes from the current pool, add it back, otherwise discard it.
-            newTokenCount =
-                returnedTokenRefillTime.equals(refillTime)
-                    ? min(currentTokenCount + 1, config.getTokenAmount(userId))
-                    : currentTokenCount;
-          } else {
-            newTokenCount = SENTINEL_UNLIMITED_TOKENS;
-          }
-          return TimestampedInteger.create(newTokenCount, refillTime);
-        });
+    TokenBucket bucket = tokensMap.get(userId);
+    // Nothing to do if the entry has been purged, or if quota is unlimited.
+    if (bucket == null || bucket.unlimited) {
+      return;
+    }
+    long nowOffsetMillis = toOffsetMillis(clock.nowUtc());
+    long returnedOffsetMillis = returnedTokenRefillTime.getMillis() - baseMillis;
+    while (true) {
+      long state = bucket.state.get();
+      long refillOffsetMillis = refillOffsetMillis(state);
+      int currentTokenCount = tokenCount(state);
+      // Check if refill is enabled and a refill is needed.
+      if (bucket.needsRefill(refillOffsetMillis, nowOffsetMillis)) {
+        refillOffsetMillis = nowOffsetMillis;
+        currentTokenCount = bucket.tokenAmount;
+      }
+      // If the returned token comes from the current pool, add it back, otherwise discard it.
+      int newTokenCount =
+          (returnedOffsetMillis == refillOffsetMillis)
+              ? min(currentTokenCount + 1, bucket.tokenAmount)
+              : currentTokenCount;
+      long newState = packState(refillOffsetMillis, newTokenCount);
+      if (newState == state || bucket.state.compareAndSet(state, newState)) {
+        return;
+      }
+    }
   }
 
   /**
@@ -182,13 +256,18 @@ public class TokenStore {
    * the refill period is much shorter than the refresh period, so the last refill time should serve
    * as a good proxy for last update time as the actual update time cannot be one refill period
    * later from the refill time, otherwise another refill would have been performed.
+   *
+   * <p>A {@link #take} or {@link #put} that races with the deletion of an entry may update the
+   * deleted bucket. As the deleted bucket is due for a refill anyway, this makes no difference
+   * unless refills are disabled.
    */
   void refresh() {
+    long nowOffsetMillis = toOffsetMillis(clock.nowUtc());
+    long refreshPeriodMillis = config.getRefreshPeriod().getMillis();
     tokensMap.forEach(
-        (user, availableTokens) -> {
-          if (!new Duration(availableTokens.timestamp(), clock.nowUtc())
-              .isShorterThan(config.getRefreshPeriod())) {
-            tokensMap.remove(user);
+        (user, bucket) -> {
+          if (nowOffsetMillis - refillOffsetMillis(bucket.state.get()) >= refreshPeriodMillis) {
+            tokensMap.remove(user, bucket);
           }
         });
   }
@@ -217,6 +296,13 @@ public class TokenStore {
    */
   @VisibleForTesting
   TimestampedInteger getTokenForTests(String userId) {
-    return tokensMap.get(userId);
+    TokenBucket bucket = tokensMap.get(userId);
+    if (bucket == null) {
+      return null;
+    }
+    long state = bucket.state.get();
+    return TimestampedInteger.create(
+        bucket.unlimited ? SENTINEL_UNLIMITED_TOKENS : tokenCount(state),
+        toDateTime(refillOffsetMillis(state)));
   }
 }
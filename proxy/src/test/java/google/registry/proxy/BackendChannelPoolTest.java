@@ -0,0 +1,185 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.proxy.Protocol.PROTOCOL_KEY;
+import static google.registry.proxy.handler.HttpsRelayServiceHandler.PENDING_RESPONSES_KEY;
+import static google.registry.proxy.handler.RelayHandler.RELAY_CHANNEL_KEY;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.proxy.Protocol.BackendProtocol;
+import google.registry.proxy.ProxyConfig.TransportType;
+import google.registry.proxy.metric.BackendMetrics;
+import google.registry.testing.FakeClock;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import java.util.concurrent.Callable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link BackendChannelPool}. */
+@RunWith(JUnit4.class)
+public class BackendChannelPoolTest {
+
+  private static final String HOST = "host.tld";
+
+  private final BackendProtocol backendProtocol =
+      Protocol.backendBuilder()
+          .name("backend protocol")
+          .host(HOST)
+          .port(1)
+          .handlerProviders(ImmutableList.of())
+          .build();
+
+  private static final ChannelInitializer<LocalChannel> NO_OP_INITIALIZER =
+      new ChannelInitializer<LocalChannel>() {
+        @Override
+        protected void initChannel(LocalChannel ch) {}
+      };
+
+  private final LocalAddress localAddress = new LocalAddress("BACKEND_CHANNEL_POOL_TEST");
+
+  // All channels share the single thread of this event loop group, as frontend channels and their
+  // backend channels do in the proxy.
+  private final EventLoopGroup eventLoopGroup = new NioEventLoopGroup(1);
+  private final BackendMetrics metrics = mock(BackendMetrics.class);
+
+  private BackendChannelPool pool;
+  private Channel frontendChannel;
+
+  @Before
+  public void setUp() {
+    ProxyConfig config = new ProxyConfig();
+    config.httpsRelay = new ProxyConfig.HttpsRelay();
+    config.httpsRelay.maxIdleConnectionsPerEventLoop = 1;
+    config.transport = new ProxyConfig.Transport();
+    config.transport.type = TransportType.NIO;
+    config.transport.serverChannelsPerPort = 1;
+    pool =
+        new BackendChannelPool(
+            config, new NettyTransport(config.transport, false), metrics, new FakeClock());
+    ChannelFuture unusedFuture =
+        new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalServerChannel.class)
+            .childHandler(NO_OP_INITIALIZER)
+            .bind(localAddress)
+            .syncUninterruptibly();
+    frontendChannel = connect();
+  }
+
+  @After
+  public void tearDown() {
+    eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+  }
+
+  /** Connects a channel standing in for a frontend or backend channel. */
+  private Channel connect() {
+    Channel channel =
+        new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalChannel.class)
+            .handler(NO_OP_INITIALIZER)
+            .connect(localAddress)
+            .syncUninterruptibly()
+            .channel();
+    channel.attr(PROTOCOL_KEY).set(backendProtocol);
+    return channel;
+  }
+
+  private <T> T runInEventLoop(Callable<T> callable) throws Exception {
+    return eventLoopGroup.submit(callable).get();
+  }
+
+  private void release(Channel backendChannel, Channel frontendChannel) throws Exception {
+    runInEventLoop(
+        () -> {
+          pool.release(backendChannel, frontendChannel);
+          return null;
+        });
+  }
+
+  private Channel acquire(Channel frontendChannel) throws Exception {
+    return runInEventLoop(() -> pool.acquire(backendProtocol, frontendChannel).channel());
+  }
+
+  @Test
+  public void testSuccess_releasedChannelReused() throws Exception {
+    Channel backendChannel = connect();
+    Channel newFrontendChannel = connect();
+    release(backendChannel, frontendChannel);
+    assertThat(backendChannel.isActive()).isTrue();
+    assertThat(backendChannel.attr(RELAY_CHANNEL_KEY).get()).isNull();
+
+    assertThat(acquire(newFrontendChannel)).isSameInstanceAs(backendChannel);
+    assertThat(backendChannel.attr(RELAY_CHANNEL_KEY).get()).isSameInstanceAs(newFrontendChannel);
+    verify(metrics).registerIdleConnection(HOST, backendChannel);
+    verify(metrics).unregisterIdleConnection(HOST, backendChannel);
+    verify(metrics).connectionAcquired(HOST, true, 0);
+    verifyNoMoreInteractions(metrics);
+  }
+
+  @Test
+  public void testSuccess_allResponsesReceived_channelReused() throws Exception {
+    Channel backendChannel = connect();
+    frontendChannel.attr(PENDING_RESPONSES_KEY).set(0);
+    release(backendChannel, frontendChannel);
+    assertThat(acquire(connect())).isSameInstanceAs(backendChannel);
+  }
+
+  @Test
+  public void testSuccess_pendingResponses_channelClosed() throws Exception {
+    Channel backendChannel = connect();
+    frontendChannel.attr(PENDING_RESPONSES_KEY).set(1);
+    release(backendChannel, frontendChannel);
+    backendChannel.closeFuture().syncUninterruptibly();
+    verifyNoMoreInteractions(metrics);
+  }
+
+  @Test
+  public void testSuccess_poolFull_channelClosed() throws Exception {
+    Channel backendChannel1 = connect();
+    Channel backendChannel2 = connect();
+    release(backendChannel1, frontendChannel);
+    release(backendChannel2, connect());
+    backendChannel2.closeFuture().syncUninterruptibly();
+    assertThat(backendChannel1.isActive()).isTrue();
+    verify(metrics).registerIdleConnection(HOST, backendChannel1);
+    verifyNoMoreInteractions(metrics);
+  }
+
+  @Test
+  public void testSuccess_closedChannel_notPooled() throws Exception {
+    Channel backendChannel = connect();
+    backendChannel.close().syncUninterruptibly();
+    release(backendChannel, frontendChannel);
+    verifyNoMoreInteractions(metrics);
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.testing.JUnitBackports.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import google.registry.proxy.ProxyConfig.TransportType;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link NettyTransport}. */
+@RunWith(JUnit4.class)
+public class NettyTransportTest {
+
+  private final ProxyConfig.Transport config = new ProxyConfig.Transport();
+
+  public NettyTransportTest() {
+    config.type = TransportType.EPOLL;
+    config.serverChannelsPerPort = 4;
+  }
+
+  @Test
+  public void testSuccess_epollAvailable() {
+    NettyTransport transport = new NettyTransport(config, true);
+    assertThat(transport.type()).isEqualTo(TransportType.EPOLL);
+    assertThat(transport.serverChannelsPerPort()).isEqualTo(4);
+  }
+
+  @Test
+  public void testSuccess_epollUnavailable_fallsBackToNio() {
+    NettyTransport transport = new NettyTransport(config, false);
+    assertThat(transport.type()).isEqualTo(TransportType.NIO);
+    // NIO cannot bind several server channels to the same port.
+    assertThat(transport.serverChannelsPerPort()).isEqualTo(1);
+  }
+
+  @Test
+  public void testSuccess_nio() {
+    config.type = TransportType.NIO;
+    NettyTransport transport = new NettyTransport(config, true);
+    assertThat(transport.type()).isEqualTo(TransportType.NIO);
+    assertThat(transport.serverChannelsPerPort()).isEqualTo(1);
+    EventLoopGroup eventLoopGroup = transport.newDefaultEventLoopGroup();
+    try {
+      assertThat(eventLoopGroup).isInstanceOf(NioEventLoopGroup.class);
+    } finally {
+      eventLoopGroup.shutdownGracefully().syncUninterruptibly();
+    }
+  }
+
+  @Test
+  public void testSuccess_protocolEventLoopGroups() {
+    config.type = TransportType.NIO;
+    config.protocolEventLoopThreads = ImmutableMap.of("whois", 2);
+    ImmutableMap<String, EventLoopGroup> eventLoopGroups =
+        new NettyTransport(config, false).newProtocolEventLoopGroups();
+    try {
+      assertThat(eventLoopGroups.keySet()).containsExactly("whois");
+      assertThat(eventLoopGroups.get("whois")).hasSize(2);
+    } finally {
+      eventLoopGroups.get("whois").shutdownGracefully().syncUninterruptibly();
+    }
+  }
+
+  @Test
+  public void testSuccess_noProtocolEventLoopGroups() {
+    assertThat(new NettyTransport(config, false).newProtocolEventLoopGroups()).isEmpty();
+  }
+
+  @Test
+  public void testFailure_noServerChannels() {
+    config.serverChannelsPerPort = 0;
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> new NettyTransport(config, true));
+    assertThat(e)
+        .hasMessageThat()
+        .isEqualTo("There must be at least one server channel per port.");
+  }
+
+  @Test
+  public void testFailure_nonPositiveProtocolEventLoopThreads() {
+    config.protocolEventLoopThreads = ImmutableMap.of("epp", 0);
+    NettyTransport transport = new NettyTransport(config, false);
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, transport::newProtocolEventLoopGroups);
+    assertThat(e)
+        .hasMessageThat()
+        .isEqualTo("Event loop thread count for protocol epp must be positive.");
+  }
+}
@@ -20,6 +20,9 @@ import static google.registry.proxy.TestUtils.makeHttpPostRequest;
 import static google.registry.proxy.TestUtils.makeHttpResponse;
 
 import com.google.common.collect.ImmutableSet;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -170,4 +173,46 @@ public class BackendMetricsTest {
         .and()
         .hasNoOtherValues();
   }
+
+  @Test
+  public void testSuccess_connectionsAcquired() {
+    metrics.connectionAcquired(host, false, 12);
+    metrics.connectionAcquired(host, false, 30);
+    metrics.connectionAcquired(host, true, 0);
+
+    assertThat(BackendMetrics.acquisitionsCounter)
+        .hasValueForLabels(2, host, "connected")
+        .and()
+        .hasValueForLabels(1, host, "reused")
+        .and()
+        .hasNoOtherValues();
+    assertThat(BackendMetrics.acquisitionLatencyMs)
+        .hasDataSetForLabels(ImmutableSet.of(12, 30), host, "connected")
+        .and()
+        .hasDataSetForLabels(ImmutableSet.of(0), host, "reused")
+        .and()
+        .hasNoOtherValues();
+  }
+
+  @Test
+  public void testSuccess_idleConnections() {
+    EmbeddedChannel channel1 = new EmbeddedChannel();
+    EmbeddedChannel channel2 = new EmbeddedChannel(DefaultChannelId.newInstance());
+    metrics.registerIdleConnection(host, channel1);
+    metrics.registerIdleConnection(host, channel2);
+    assertThat(BackendMetrics.idleConnectionsGauge)
+        .hasValueForLabels(2, host)
+        .and()
+        .hasNoOtherValues();
+
+    metrics.unregisterIdleConnection(host, channel1);
+    assertThat(BackendMetrics.idleConnectionsGauge)
+        .hasValueForLabels(1, host)
+        .and()
+        .hasNoOtherValues();
+
+    // Closed idle connections are no longer counted.
+    ChannelFuture unusedFuture = channel2.close();
+    assertThat(BackendMetrics.idleConnectionsGauge).hasNoOtherValues();
+  }
 }
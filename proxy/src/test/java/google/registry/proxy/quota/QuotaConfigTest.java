@@ -89,4 +89,15 @@ public class QuotaConfigTest {
             IllegalArgumentException.class, () -> loadQuotaConfig("quota_config_duplicate.yaml"));
     assertThat(e).hasMessageThat().contains("Multiple entries with same key");
   }
+
+  @Test
+  public void testFailure_tokenAmountTooLarge() {
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () -> loadQuotaConfig("quota_config_token_amount_too_large.yaml"));
+    assertThat(e)
+        .hasMessageThat()
+        .isEqualTo("Token amount 16777216 for user IDs [abc] exceeds the maximum of 16777215");
+  }
 }
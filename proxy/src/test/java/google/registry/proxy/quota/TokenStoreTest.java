@@ -31,6 +31,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 import org.junit.Before;
@@ -296,6 +297,30 @@ public class TokenStoreTest {
         .isEqualTo(TimestampedInteger.create(4, time3));
   }
 
+  @Test
+  public void testSuccess_contendedTake_grantsExactlyTokenAmount() throws Exception {
+    when(quotaConfig.getTokenAmount(user)).thenReturn(1000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    AtomicInteger grantedTokens = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(
+          executor.submit(
+              () -> {
+                for (int j = 0; j < 500; j++) {
+                  grantedTokens.addAndGet(tokenStore.take(user).value());
+                }
+              }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    assertThat(grantedTokens.get()).isEqualTo(1000);
+    assertThat(tokenStore.getTokenForTests(user))
+        .isEqualTo(TimestampedInteger.create(0, clock.nowUtc()));
+  }
+
   @Test
   public void testSuccess_scheduleRefresh() throws Exception {
     when(quotaConfig.getRefreshPeriod()).thenReturn(Duration.standardSeconds(5));